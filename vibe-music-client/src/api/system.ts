@@ -1,4 +1,5 @@
 import { http } from '@/utils/http'
+import axios from 'axios'
 
 export type Result = {
   code: number
@@ -108,6 +109,161 @@ export const uploadOriginalSong = (formData: FormData) => {
   })
 }
 
+type PresignedUpload = {
+  objectName: string
+  uploadUrl: string
+  contentType: string
+  formData: Record<string, string>
+}
+
+type SongUploadPresign = {
+  uploadId: string
+  expireTime: string
+  audio: PresignedUpload
+  cover?: PresignedUpload
+  rewardQr?: PresignedUpload
+}
+
+/** 直传文件到对象存储（预签名 POST 表单，不经过后端，不携带 token） */
+const postToStorage = (target: PresignedUpload, file: File, onProgress?: (loaded: number) => void) => {
+  const form = new FormData()
+  Object.entries(target.formData).forEach(([name, value]) => form.append(name, value))
+  // 文件字段必须放在策略字段之后
+  form.append('file', file)
+  return axios.post(target.uploadUrl, form, {
+    timeout: 0,
+    onUploadProgress: event => onProgress?.(event.loaded),
+  })
+}
+
+type ResumableUpload = {
+  uploadId: string
+  objectName: string
+  totalSize: number
+  chunkSize: number
+  chunkCount: number
+  uploadedChunks: number[]
+  offset: number
+  completed: boolean
+}
+
+// 单个分片失败后的重试次数
+const CHUNK_RETRIES = 3
+
+/**
+ * 断点续传上传：创建会话 -> 逐片 PUT -> 合并
+ * 传入 uploadId 时先查询服务端记录的进度，只补传缺失的分片；失败的分片单独重试，不重传整个文件
+ */
+export const uploadResumable = async (
+  file: File,
+  options: { purpose: string; songUploadId?: string; uploadId?: string },
+  onProgress?: (loaded: number) => void
+): Promise<Result> => {
+  const session = options.uploadId
+    ? await http<Result>('get', `/upload/resumable/${options.uploadId}`)
+    : await http<Result>('post', '/upload/resumable', {
+        data: {
+          purpose: options.purpose,
+          songUploadId: options.songUploadId,
+          fileName: file.name,
+          contentType: file.type || undefined,
+          fileSize: file.size,
+        },
+      })
+  if (session.code !== 0) {
+    return session
+  }
+  const upload = session.data as ResumableUpload
+  if (upload.completed) {
+    onProgress?.(file.size)
+    return session
+  }
+
+  const uploaded = new Set(upload.uploadedChunks)
+  const chunkLength = (index: number) => Math.min(upload.chunkSize, file.size - index * upload.chunkSize)
+  let loaded = upload.uploadedChunks.reduce((sum, index) => sum + chunkLength(index), 0)
+  onProgress?.(loaded)
+  for (let index = 0; index < upload.chunkCount; index++) {
+    if (uploaded.has(index)) continue
+    const start = index * upload.chunkSize
+    const chunk = file.slice(start, start + chunkLength(index))
+    for (let attempt = 1; ; attempt++) {
+      try {
+        const res = await http<Result>('put', `/upload/resumable/${upload.uploadId}/chunks/${index}`, {
+          data: chunk,
+          headers: { 'Content-Type': 'application/octet-stream' },
+          timeout: 0,
+          onUploadProgress: event => onProgress?.(loaded + event.loaded),
+        })
+        if (res.code !== 0 && attempt >= CHUNK_RETRIES) return res
+        if (res.code === 0) break
+      } catch (error) {
+        if (attempt >= CHUNK_RETRIES) throw error
+      }
+    }
+    loaded += chunk.size
+    onProgress?.(loaded)
+  }
+
+  return http<Result>('post', `/upload/resumable/${upload.uploadId}/complete`, { timeout: 0 })
+}
+
+/**
+ * 上传原创歌曲（直传）：申请预签名地址 -> 文件直接上传到对象存储 -> 提交歌曲信息
+ * 参数与 uploadOriginalSong 的 FormData 字段一致
+ */
+export const uploadOriginalSongDirect = async (
+  formData: FormData,
+  onProgress?: (percent: number) => void
+) => {
+  const audioFile = formData.get('audioFile') as File
+  const coverFile = formData.get('coverFile') as File | null
+  const rewardQrFile = formData.get('rewardQrFile') as File | null
+
+  const presign = await http<Result>('post', '/song/presignOriginalSongUpload', {
+    data: {
+      audioFileName: audioFile.name,
+      audioSize: audioFile.size,
+      coverFileName: coverFile?.name,
+      coverSize: coverFile?.size,
+      rewardQrFileName: rewardQrFile?.name,
+      rewardQrSize: rewardQrFile?.size,
+    },
+  })
+  if (presign.code !== 0) {
+    return presign
+  }
+  const { uploadId, audio, cover, rewardQr } = presign.data as SongUploadPresign
+
+  // 音频文件较大，分片断点续传；封面与收款码通过预签名表单直接上传
+  const uploads: Array<[PresignedUpload, File]> = []
+  if (cover && coverFile) uploads.push([cover, coverFile])
+  if (rewardQr && rewardQrFile) uploads.push([rewardQr, rewardQrFile])
+  const total = audioFile.size + uploads.reduce((sum, [, file]) => sum + file.size, 0) || 1
+  const loaded = [0, ...uploads.map(() => 0)]
+  const report = (index: number, bytes: number) => {
+    loaded[index] = bytes
+    onProgress?.(Math.round((loaded.reduce((a, b) => a + b, 0) / total) * 100))
+  }
+  const [audioResult] = await Promise.all([
+    uploadResumable(audioFile, { purpose: 'song-audio', songUploadId: uploadId }, bytes => report(0, bytes)),
+    ...uploads.map(([target, file], index) => postToStorage(target, file, bytes => report(index + 1, bytes))),
+  ])
+  if (audioResult.code !== 0) {
+    return audioResult
+  }
+
+  return http<Result>('post', '/song/finalizeOriginalSongUpload', {
+    data: {
+      uploadId,
+      songName: formData.get('songName'),
+      style: formData.get('style'),
+      isRewardEnabled: formData.get('isRewardEnabled') === 'true',
+      duration: formData.get('duration'),
+    },
+  })
+}
+
 /** 获取用户原创歌曲 */
 export const getUserOriginalSongs = (userId: number, pageNum: number = 1, pageSize: number = 10, auditStatus?: number | null) => {
   const params: any = { pageNum, pageSize }
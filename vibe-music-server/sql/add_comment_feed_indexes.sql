@@ -0,0 +1,15 @@
+-- 歌曲评论流的游标（keyset）分页索引
+-- 歌曲详情不再关联全部评论，评论按 最新 / 最多点赞 两种顺序单独分页查询
+-- 执行日期：请在执行前填写日期
+
+-- 排序键不允许为 NULL，先回填历史数据
+UPDATE `tb_comment` SET `create_time` = NOW() WHERE `create_time` IS NULL;
+UPDATE `tb_comment` SET `like_count` = 0 WHERE `like_count` IS NULL;
+
+-- 最新评论：ORDER BY create_time DESC, id DESC
+ALTER TABLE `tb_comment`
+ADD INDEX `idx_song_latest`(`song_id`, `type`, `create_time`, `id`) USING BTREE;
+
+-- 热门评论：ORDER BY like_count DESC, id DESC
+ALTER TABLE `tb_comment`
+ADD INDEX `idx_song_hot`(`song_id`, `type`, `like_count`, `id`) USING BTREE;
@@ -0,0 +1,21 @@
+-- 为游标（keyset）分页添加组合索引
+-- 游标分页按 排序键 < 上一页末尾 取下一页，需要与 ORDER BY 一致的索引才能避免扫描与排序
+-- 执行日期：请在执行前填写日期
+
+-- 排序键不允许为 NULL，先回填历史数据
+UPDATE `tb_forum_post` SET `is_top` = 0 WHERE `is_top` IS NULL;
+UPDATE `tb_forum_post` SET `create_time` = NOW() WHERE `create_time` IS NULL;
+UPDATE `tb_forum_reply` SET `create_time` = NOW() WHERE `create_time` IS NULL;
+UPDATE `tb_user_favorite` SET `create_time` = NOW() WHERE `create_time` IS NULL;
+
+-- 帖子列表：ORDER BY is_top DESC, create_time DESC, id DESC
+ALTER TABLE `tb_forum_post`
+ADD INDEX `idx_list_cursor`(`status`, `audit_status`, `is_top`, `create_time`, `id`) USING BTREE;
+
+-- 回复列表：ORDER BY create_time ASC, id ASC
+ALTER TABLE `tb_forum_reply`
+ADD INDEX `idx_post_cursor`(`post_id`, `parent_id`, `create_time`, `id`) USING BTREE;
+
+-- 收藏歌曲列表：ORDER BY create_time DESC, song_id DESC
+ALTER TABLE `tb_user_favorite`
+ADD INDEX `idx_user_type_cursor`(`user_id`, `type`, `create_time`, `song_id`) USING BTREE;
@@ -0,0 +1,33 @@
+-- 对象存储核对的引用索引
+-- 核对按 URL 的二进制顺序逐个字段分页读取引用（WHERE url > 上一页末尾 ORDER BY url LIMIT n），
+-- 与 MinIO 列表按对象名 UTF-8 字节序归并。URL 字段改用 utf8mb4_0900_bin 排序规则（按码点比较、区分大小写），
+-- 并建立 (URL, id) 索引，每页只读取索引中的一段，不再扫描、排序整张表
+-- 执行日期：请在执行前填写日期
+
+ALTER TABLE `tb_song`
+MODIFY COLUMN `cover_url` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_bin NULL DEFAULT NULL COMMENT '歌曲封面 url',
+MODIFY COLUMN `audio_url` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_bin NULL DEFAULT NULL COMMENT '歌曲 url',
+MODIFY COLUMN `reward_qr_url` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_bin NULL DEFAULT NULL COMMENT '收款码图片URL',
+ADD INDEX `idx_cover_url`(`cover_url`, `id`) USING BTREE,
+ADD INDEX `idx_audio_url`(`audio_url`, `id`) USING BTREE,
+ADD INDEX `idx_reward_qr_url`(`reward_qr_url`, `id`) USING BTREE;
+
+ALTER TABLE `tb_playlist`
+MODIFY COLUMN `cover_url` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_bin NULL DEFAULT NULL COMMENT '歌单封面',
+ADD INDEX `idx_cover_url`(`cover_url`, `id`) USING BTREE;
+
+ALTER TABLE `tb_banner`
+MODIFY COLUMN `banner_url` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_bin NOT NULL COMMENT '轮播图 url',
+ADD INDEX `idx_banner_url`(`banner_url`, `id`) USING BTREE;
+
+ALTER TABLE `tb_user`
+MODIFY COLUMN `user_avatar` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_bin NULL DEFAULT NULL COMMENT '用户头像',
+ADD INDEX `idx_user_avatar`(`user_avatar`, `id`) USING BTREE;
+
+ALTER TABLE `tb_artist`
+MODIFY COLUMN `avatar` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_bin NULL DEFAULT NULL COMMENT '歌手头像',
+ADD INDEX `idx_avatar`(`avatar`, `id`) USING BTREE;
+
+ALTER TABLE `tb_forum_post`
+MODIFY COLUMN `reference_attachment` varchar(500) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_bin NULL COMMENT '参考附件URL',
+ADD INDEX `idx_reference_attachment`(`reference_attachment`, `id`) USING BTREE;
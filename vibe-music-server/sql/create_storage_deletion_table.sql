@@ -0,0 +1,15 @@
+-- 创建对象存储删除队列表（outbox）
+-- 删除歌曲、歌单、轮播图时，待删除的 MinIO 对象与业务数据在同一事务中写入本表，
+-- 由后台任务批量删除（removeObjects），失败的对象按指数退避重试
+
+CREATE TABLE IF NOT EXISTS `tb_storage_deletion` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '删除任务ID',
+  `object_name` varchar(512) NOT NULL COMMENT 'MinIO 对象名',
+  `status` tinyint NOT NULL DEFAULT 0 COMMENT '状态：0-待删除，1-重试次数耗尽',
+  `attempts` int NOT NULL DEFAULT 0 COMMENT '已失败次数',
+  `last_error` varchar(500) DEFAULT NULL COMMENT '最近一次失败原因',
+  `next_attempt_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '下次尝试时间',
+  `create_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_status_next_attempt` (`status`, `next_attempt_time`, `id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='对象存储删除队列表';
@@ -3,8 +3,10 @@ package cn.edu.seig.vibemusic;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @EnableCaching   // 开启Spring Boot基于注解的缓存管理支持
+@EnableScheduling   // 开启定时任务支持
 @SpringBootApplication
 public class VibeMusicServerApplication {
 
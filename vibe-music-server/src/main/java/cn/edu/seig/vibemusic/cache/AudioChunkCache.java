@@ -0,0 +1,358 @@
+package cn.edu.seig.vibemusic.cache;
+
+import cn.edu.seig.vibemusic.service.MinioService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * 音频分块磁盘缓存
+ * <p>
+ * 对象按固定大小切分为分块，分块首次被读取时从 MinIO 按范围下载并写入本地磁盘，热门歌曲与反复拖动进度条不再访问 MinIO。
+ * 落在单个分块内的范围可以通过 {@link #localRange} 取得分块文件，交给容器的 sendfile 由内核直接从文件发送；
+ * 其他范围通过 {@link #transfer} 逐块写入目标通道，目标不是文件或套接字通道时 JDK 会经过用户态缓冲区复制。
+ * <p>
+ * 分块目录由对象名与 ETag 共同决定，对象内容变化后自然使用新的目录，不会读到旧数据。
+ * 磁盘占用超过上限时淘汰最久未访问的分块；同一分块的并发未命中只下载一次。
+ * 启动时重新登记目录中已有的分块，重启后缓存依然有效。
+ */
+@Slf4j
+@Component
+public class AudioChunkCache {
+
+    private static final String CHUNK_SUFFIX = ".chunk";
+    private static final String TEMP_SUFFIX = ".tmp";
+    // 对象信息的本地缓存条目数，对象名带随机前缀，同名对象内容不变
+    private static final int MAX_OBJECT_INFOS = 10000;
+
+    private final MinioService minioService;
+    private final Path directory;
+    private final int chunkSize;
+    private final long maxBytes;
+
+    // 分块文件 -> 大小，按访问顺序排列，用于淘汰
+    private final LinkedHashMap<Path, Long> chunks = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+    private final Map<String, MinioService.ObjectInfo> objectInfos = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, MinioService.ObjectInfo> eldest) {
+            return size() > MAX_OBJECT_INFOS;
+        }
+    };
+    // 正在下载的分块，并发未命中等待同一次下载
+    private final Map<Path, CompletableFuture<Path>> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public AudioChunkCache(MinioService minioService,
+                           @Value("${audio-stream.cache-dir:${java.io.tmpdir}/vibe-music/audio-chunks}") String directory,
+                           @Value("${audio-stream.chunk-size:1048576}") int chunkSize,
+                           @Value("${audio-stream.max-bytes:2147483648}") long maxBytes) throws IOException {
+        if (chunkSize <= 0 || maxBytes < chunkSize) {
+            throw new IllegalArgumentException("audio-stream.chunk-size 必须大于 0 且不大于 audio-stream.max-bytes");
+        }
+        this.minioService = minioService;
+        this.directory = Paths.get(directory).toAbsolutePath();
+        this.chunkSize = chunkSize;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(this.directory);
+        reindex();
+    }
+
+    /**
+     * 查询对象信息
+     *
+     * @param objectName 对象名
+     * @return 对象信息，对象不存在时返回 null
+     */
+    public MinioService.ObjectInfo stat(String objectName) {
+        synchronized (objectInfos) {
+            MinioService.ObjectInfo info = objectInfos.get(objectName);
+            if (info != null) {
+                return info;
+            }
+        }
+        MinioService.ObjectInfo info = minioService.statObject(objectName);
+        if (info != null) {
+            synchronized (objectInfos) {
+                objectInfos.put(objectName, info);
+            }
+        }
+        return info;
+    }
+
+    /**
+     * 将对象的 [start, end] 字节写入通道，缺失的分块先从 MinIO 下载到本地
+     *
+     * @param objectName 对象名
+     * @param info       对象信息
+     * @param start      起始偏移（含）
+     * @param end        结束偏移（含）
+     * @param out        目标通道
+     * @throws IOException 下载或写出失败
+     */
+    public void transfer(String objectName, MinioService.ObjectInfo info, long start, long end,
+                         WritableByteChannel out) throws IOException {
+        if (start < 0 || end >= info.size() || start > end) {
+            throw new IllegalArgumentException("范围越界: " + start + "-" + end + "/" + info.size());
+        }
+        long position = start;
+        while (position <= end) {
+            long index = position / chunkSize;
+            long chunkStart = index * chunkSize;
+            long count = Math.min(end + 1, chunkStart + chunkSize) - position;
+            transferChunk(objectName, info, index, position - chunkStart, count, out);
+            position += count;
+        }
+    }
+
+    /**
+     * 获取包含 [start, end] 的本地分块文件，缺失时先从 MinIO 下载
+     * <p>
+     * 分块刚被访问，处于淘汰顺序的末尾，调用方应立即使用返回的文件。
+     *
+     * @param objectName 对象名
+     * @param info       对象信息
+     * @param start      起始偏移（含）
+     * @param end        结束偏移（含）
+     * @return 分块文件与范围在文件内的偏移；范围跨越多个分块时返回 null
+     * @throws IOException 下载失败
+     */
+    public LocalRange localRange(String objectName, MinioService.ObjectInfo info, long start, long end) throws IOException {
+        if (start < 0 || end >= info.size() || start > end) {
+            throw new IllegalArgumentException("范围越界: " + start + "-" + end + "/" + info.size());
+        }
+        long index = start / chunkSize;
+        if (end / chunkSize != index) {
+            return null;
+        }
+        long chunkStart = index * chunkSize;
+        return new LocalRange(chunk(objectName, info, index), start - chunkStart, end - chunkStart);
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    /**
+     * 分块文件中的字节范围
+     *
+     * @param path  分块文件
+     * @param start 文件内起始偏移（含）
+     * @param end   文件内结束偏移（含）
+     */
+    public record LocalRange(Path path, long start, long end) {
+    }
+
+    private void transferChunk(String objectName, MinioService.ObjectInfo info, long index,
+                               long offset, long count, WritableByteChannel out) throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            Path path = chunk(objectName, info, index);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long position = offset;
+                long remaining = count;
+                while (remaining > 0) {
+                    long written = channel.transferTo(position, remaining, out);
+                    if (written <= 0) {
+                        throw new EOFException("分块文件不完整: " + path);
+                    }
+                    position += written;
+                    remaining -= written;
+                }
+                return;
+            } catch (NoSuchFileException e) {
+                // 分块在打开前被淘汰（或被外部删除），尚未写出任何数据，重新下载一次
+                forget(path);
+                if (attempt > 0) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取分块文件，未缓存时下载
+     */
+    private Path chunk(String objectName, MinioService.ObjectInfo info, long index) throws IOException {
+        Path path = chunkPath(objectName, info, index);
+        if (touch(path)) {
+            hits.increment();
+            return path;
+        }
+
+        CompletableFuture<Path> created = new CompletableFuture<>();
+        CompletableFuture<Path> existing = loading.putIfAbsent(path, created);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            // 可能在登记下载之前刚有其他线程下载完成
+            if (touch(path)) {
+                hits.increment();
+            } else {
+                misses.increment();
+                long chunkStart = index * chunkSize;
+                long length = Math.min(chunkSize, info.size() - chunkStart);
+                download(objectName, chunkStart, length, path);
+                register(path, length);
+            }
+            created.complete(path);
+            return path;
+        } catch (IOException | RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(path, created);
+        }
+    }
+
+    private void download(String objectName, long offset, long length, Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+        Path temp = path.resolveSibling(path.getFileName() + "." + UUID.randomUUID() + TEMP_SUFFIX);
+        try {
+            long copied;
+            try (InputStream in = minioService.getObject(objectName, offset, length)) {
+                copied = Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            } catch (RuntimeException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            if (copied != length) {
+                throw new EOFException("分块下载不完整: " + objectName + "@" + offset + "，期望 " + length + "，实际 " + copied);
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static Path await(CompletableFuture<Path> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("等待分块下载时被中断", e);
+        } catch (ExecutionException | CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private Path chunkPath(String objectName, MinioService.ObjectInfo info, long index) {
+        String key = UUID.nameUUIDFromBytes((objectName + '\n' + info.etag()).getBytes(StandardCharsets.UTF_8)).toString();
+        return directory.resolve(key).resolve(index + CHUNK_SUFFIX);
+    }
+
+    private synchronized boolean touch(Path path) {
+        return chunks.get(path) != null;
+    }
+
+    private synchronized void forget(Path path) {
+        Long size = chunks.remove(path);
+        if (size != null) {
+            cachedBytes -= size;
+        }
+    }
+
+    /**
+     * 登记新分块并淘汰最久未访问的分块，直到总大小不超过上限
+     */
+    private void register(Path path, long size) {
+        List<Path> evicted = new ArrayList<>();
+        synchronized (this) {
+            Long previous = chunks.put(path, size);
+            cachedBytes += size - (previous == null ? 0 : previous);
+            Iterator<Map.Entry<Path, Long>> iterator = chunks.entrySet().iterator();
+            while (cachedBytes > maxBytes && iterator.hasNext()) {
+                Map.Entry<Path, Long> eldest = iterator.next();
+                if (eldest.getKey().equals(path)) {
+                    continue;
+                }
+                cachedBytes -= eldest.getValue();
+                evicted.add(eldest.getKey());
+                iterator.remove();
+            }
+        }
+        // 正在被读取的分块删除后，已打开的文件句柄仍可读完
+        for (Path chunk : evicted) {
+            try {
+                Files.deleteIfExists(chunk);
+            } catch (IOException e) {
+                log.warn("音频分块删除失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 登记磁盘上已有的分块（按修改时间视为访问顺序），清理未完成的临时文件
+     */
+    private void reindex() throws IOException {
+        List<Map.Entry<Path, BasicFileAttributes>> found = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(directory, 2)) {
+            files.filter(Files::isRegularFile).forEach(file -> {
+                try {
+                    String name = file.getFileName().toString();
+                    if (name.endsWith(TEMP_SUFFIX)) {
+                        Files.deleteIfExists(file);
+                    } else if (name.endsWith(CHUNK_SUFFIX)) {
+                        found.add(Map.entry(file, Files.readAttributes(file, BasicFileAttributes.class)));
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        found.sort(Comparator.comparing(entry -> entry.getValue().lastModifiedTime()));
+        for (Map.Entry<Path, BasicFileAttributes> entry : found) {
+            register(entry.getKey(), entry.getValue().size());
+        }
+        if (!found.isEmpty()) {
+            log.info("音频分块缓存已登记 {} 个分块，共 {} KB", chunks.size(), cachedBytes / 1024);
+        }
+    }
+
+}
@@ -0,0 +1,19 @@
+package cn.edu.seig.vibemusic.cache;
+
+import java.util.Collection;
+
+/**
+ * 支持一次清除多个 key 的缓存
+ * <p>
+ * 按标签清除时一个标签可能关联大量条目，逐个清除需要同样多次的 Redis 往返。
+ */
+public interface BatchEvictCache {
+
+    /**
+     * 清除多个 key
+     *
+     * @param keys 缓存 key
+     */
+    void evictAll(Collection<?> keys);
+
+}
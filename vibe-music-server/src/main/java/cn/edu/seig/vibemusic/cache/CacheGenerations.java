@@ -0,0 +1,143 @@
+package cn.edu.seig.vibemusic.cache;
+
+import cn.edu.seig.vibemusic.config.RedisSubscriber;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 缓存代数
+ * <p>
+ * 每个缓存的当前代数是 Redis key 前缀的一部分（缓存名::代数::key）。清空整个缓存只需对
+ * cacheGen::缓存名 执行一次 INCR，旧代数的条目不再被访问，随各自的有效期过期，清空缓存时不需要按模式删除 key。
+ * <p>
+ * 代数在本地缓存，INCR 后通过发布订阅通知其他节点，并定时从 Redis 刷新兜底丢失的通知。
+ * 代数只增不减，本地总是取较大值。本地还没有代数且从 Redis 读取失败时代数未知，
+ * 此时不能假定为 0（可能读到早已清空的旧数据），使用方应绕过缓存，见 {@link VersionedRedisCacheManager}。
+ */
+@Slf4j
+@Component
+public class CacheGenerations {
+
+    private static final String KEY_PREFIX = "cacheGen::";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private RedisSubscriber redisSubscriber;
+
+    @Value("${cache-generation.channel:cache:generation}")
+    private String channel;
+
+    private final ConcurrentMap<String, Long> generations = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        redisSubscriber.subscribe(channel, this::onMessage);
+    }
+
+    /**
+     * 缓存的当前代数，首次访问时从 Redis 读取
+     *
+     * @param cacheName 缓存名
+     * @return 代数，本地没有且从 Redis 读取失败时返回 null
+     */
+    public Long find(String cacheName) {
+        Long generation = generations.get(cacheName);
+        if (generation != null) {
+            return generation;
+        }
+        try {
+            String value = stringRedisTemplate.opsForValue().get(KEY_PREFIX + cacheName);
+            return update(cacheName, value == null ? 0 : Long.parseLong(value));
+        } catch (Exception e) {
+            // 不记住读取失败的结果，下次访问重新读取
+            log.warn("读取缓存 {} 的代数失败: {}", cacheName, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 缓存的当前代数
+     *
+     * @param cacheName 缓存名
+     * @return 代数
+     * @throws IllegalStateException 代数未知时抛出
+     */
+    public long current(String cacheName) {
+        Long generation = find(cacheName);
+        if (generation == null) {
+            throw new IllegalStateException("缓存 " + cacheName + " 的代数未知");
+        }
+        return generation;
+    }
+
+    /**
+     * 递增缓存代数，即清空整个缓存
+     *
+     * @param cacheName 缓存名
+     */
+    public void increment(String cacheName) {
+        Long generation = stringRedisTemplate.opsForValue().increment(KEY_PREFIX + cacheName);
+        if (generation == null) {
+            return;
+        }
+        update(cacheName, generation);
+        try {
+            stringRedisTemplate.convertAndSend(channel, cacheName + "\n" + generation);
+        } catch (Exception e) {
+            log.warn("发送缓存 {} 的代数变更通知失败: {}", cacheName, e.getMessage());
+        }
+    }
+
+    /**
+     * 定时从 Redis 刷新已知缓存的代数
+     */
+    @Scheduled(fixedDelayString = "${cache-generation.refresh-interval:60000}")
+    public void refresh() {
+        if (generations.isEmpty()) {
+            return;
+        }
+        List<String> cacheNames = new ArrayList<>(generations.keySet());
+        try {
+            List<String> values = stringRedisTemplate.opsForValue()
+                    .multiGet(cacheNames.stream().map(name -> KEY_PREFIX + name).toList());
+            if (values == null) {
+                return;
+            }
+            for (int i = 0; i < cacheNames.size(); i++) {
+                if (values.get(i) != null) {
+                    update(cacheNames.get(i), Long.parseLong(values.get(i)));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("刷新缓存代数失败: {}", e.getMessage());
+        }
+    }
+
+    private void onMessage(String message) {
+        int separator = message.indexOf('\n');
+        if (separator < 0) {
+            return;
+        }
+        try {
+            update(message.substring(0, separator), Long.parseLong(message.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            log.warn("无效的缓存代数通知: {}", message);
+        }
+    }
+
+    private long update(String cacheName, long generation) {
+        return generations.merge(cacheName, generation, Math::max);
+    }
+
+}
@@ -0,0 +1,179 @@
+package cn.edu.seig.vibemusic.cache;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 缓存依赖标签
+ * <p>
+ * 缓存未命中、执行被缓存的方法期间，方法体通过 {@link #tag} 登记结果所依赖的实体；
+ * 写入缓存时这些标签与缓存 key 建立关联。实体变更时按标签只清除依赖它的缓存，
+ * 代替 allEntries 清空整个缓存。
+ * <p>
+ * 标签格式为 类型:id，例如 song:12；类型:list 表示依赖该类实体的集合（分页、搜索结果），
+ * 在新增、删除或可搜索字段变化时清除。
+ */
+public class CacheTags {
+
+    public static final String SONG = "song";
+    public static final String PLAYLIST = "playlist";
+    public static final String ARTIST = "artist";
+    public static final String USER = "user";
+
+    private static final String LIST = "list";
+    // 嵌套深度上限，超出说明有未正常结束的登记（方法抛出异常且不在请求中，未经 reset），直接丢弃
+    private static final int MAX_DEPTH = 16;
+
+    // 每层缓存未命中对应一帧，支持被缓存方法的嵌套调用
+    private static final ThreadLocal<Deque<Frame>> FRAMES = ThreadLocal.withInitial(ArrayDeque::new);
+
+    /**
+     * 实体标签
+     *
+     * @param type 实体类型
+     * @param id   实体 id
+     * @return 标签
+     */
+    public static String of(String type, Object id) {
+        return type + ":" + id;
+    }
+
+    /**
+     * 批量生成实体标签
+     *
+     * @param type 实体类型
+     * @param ids  实体 id
+     * @return 标签列表
+     */
+    public static List<String> of(String type, Collection<?> ids) {
+        List<String> tags = new ArrayList<>(ids.size());
+        for (Object id : ids) {
+            if (id != null) {
+                tags.add(of(type, id));
+            }
+        }
+        return tags;
+    }
+
+    /**
+     * 实体集合标签
+     *
+     * @param type 实体类型
+     * @return 标签
+     */
+    public static String listOf(String type) {
+        return type + ":" + LIST;
+    }
+
+    /**
+     * 为当前正在生成的缓存结果登记依赖标签，不在缓存未命中的执行过程中时忽略
+     *
+     * @param tags 标签
+     */
+    public static void tag(String... tags) {
+        Frame frame = FRAMES.get().peek();
+        if (frame != null) {
+            for (String tag : tags) {
+                frame.tags.add(tag);
+            }
+        }
+    }
+
+    /**
+     * 为当前正在生成的缓存结果登记依赖的实体
+     *
+     * @param type 实体类型
+     * @param ids  实体 id
+     */
+    public static void tag(String type, Collection<?> ids) {
+        Frame frame = FRAMES.get().peek();
+        if (frame != null) {
+            frame.tags.addAll(of(type, ids));
+        }
+    }
+
+    /**
+     * 缓存未命中，开始登记
+     *
+     * @param cacheKey 完整的缓存 key
+     */
+    static void begin(String cacheKey) {
+        Deque<Frame> frames = FRAMES.get();
+        if (frames.size() >= MAX_DEPTH) {
+            frames.clear();
+        }
+        frames.push(new Frame(cacheKey));
+    }
+
+    /**
+     * 写入缓存，结束登记并取出标签
+     * 嵌套的缓存结果所依赖的标签同样是外层结果的依赖，合并到外层
+     *
+     * @param cacheKey 完整的缓存 key
+     * @return 登记的标签，没有对应的登记时返回空集合
+     */
+    static Set<String> end(String cacheKey) {
+        Deque<Frame> frames = FRAMES.get();
+        Set<String> tags = new HashSet<>();
+        if (frames.stream().noneMatch(frame -> frame.cacheKey.equals(cacheKey))) {
+            return tags;
+        }
+        // 弹出到对应的帧为止，中间的帧来自抛出异常而未写入缓存的调用
+        Frame frame;
+        do {
+            frame = frames.pop();
+            tags.addAll(frame.tags);
+        } while (!frame.cacheKey.equals(cacheKey));
+        Frame parent = frames.peek();
+        if (parent != null) {
+            parent.tags.addAll(tags);
+        }
+        if (frames.isEmpty()) {
+            FRAMES.remove();
+        }
+        return tags;
+    }
+
+    /**
+     * 丢弃当前线程的全部登记
+     * <p>
+     * 非同步的 @Cacheable 在未命中后执行方法，方法抛出异常时不会写入缓存，对应的帧不会结束；
+     * 每个请求结束时调用，避免遗留的帧在线程池的线程上累积、把之后的标签合并到错误的条目
+     */
+    public static void reset() {
+        FRAMES.remove();
+    }
+
+    /**
+     * 放弃登记（加载失败）
+     *
+     * @param cacheKey 完整的缓存 key
+     */
+    static void discard(String cacheKey) {
+        Deque<Frame> frames = FRAMES.get();
+        Frame top = frames.peek();
+        if (top != null && Objects.equals(top.cacheKey, cacheKey)) {
+            frames.pop();
+        }
+        if (frames.isEmpty()) {
+            FRAMES.remove();
+        }
+    }
+
+    private static class Frame {
+
+        private final String cacheKey;
+        private final Set<String> tags = new HashSet<>();
+
+        Frame(String cacheKey) {
+            this.cacheKey = cacheKey;
+        }
+    }
+
+}
@@ -0,0 +1,437 @@
+package cn.edu.seig.vibemusic.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * 紧凑二进制 Redis 序列化器
+ * <p>
+ * 只能序列化注册过的类、基本类型包装类、字符串、日期时间与集合。对象写为 注册 id + 结构指纹 + 按字段名排序的字段值，
+ * 不写类名和字段名。结构指纹由类名与字段名、字段类型计算，类的字段变化后指纹随之变化，
+ * 读取到旧结构的数据时按缓存未命中处理（返回 null），由调用方重新加载并覆盖。
+ * <p>
+ * 注册 id 写入了缓存数据，所有节点必须使用相同的注册表，已使用的 id 不能改作他用。
+ */
+@Slf4j
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    // 格式版本，编码方式变化时递增
+    private static final byte FORMAT = 1;
+
+    private static final byte NULL = 0;
+    private static final byte TRUE = 1;
+    private static final byte FALSE = 2;
+    private static final byte INT = 3;
+    private static final byte LONG = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte FLOAT = 6;
+    private static final byte STRING = 7;
+    private static final byte BIG_DECIMAL = 8;
+    private static final byte LOCAL_DATE_TIME = 9;
+    private static final byte LOCAL_DATE = 10;
+    private static final byte DATE = 11;
+    private static final byte LIST = 12;
+    private static final byte SET = 13;
+    private static final byte MAP = 14;
+    private static final byte OBJECT = 15;
+    private static final byte ENUM = 16;
+
+    private final Map<Class<?>, Schema> schemasByClass = new HashMap<>();
+    private final Map<Integer, Schema> schemasById = new HashMap<>();
+
+    /**
+     * 注册类
+     *
+     * @param id   注册 id，写入缓存数据，不能重复或改作他用
+     * @param type 类
+     * @return this
+     */
+    public CompactRedisSerializer register(int id, Class<?> type) {
+        if (id < 0 || schemasById.containsKey(id) || schemasByClass.containsKey(type)) {
+            throw new IllegalArgumentException("重复的注册: " + id + " -> " + type.getName());
+        }
+        Schema schema = new Schema(id, type);
+        schemasById.put(id, schema);
+        schemasByClass.put(type, schema);
+        return this;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        Output out = new Output();
+        out.writeByte(FORMAT);
+        try {
+            writeValue(out, value);
+        } catch (ReflectiveOperationException e) {
+            throw new SerializationException("序列化失败: " + value.getClass().getName(), e);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        Input in = new Input(bytes);
+        try {
+            if (in.readByte() != FORMAT) {
+                return null;
+            }
+            return readValue(in);
+        } catch (StaleSchemaException e) {
+            log.debug("缓存数据的结构已过期: {}", e.getMessage());
+            return null;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new SerializationException("反序列化失败", e);
+        }
+    }
+
+    private void writeValue(Output out, Object value) throws ReflectiveOperationException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String s) {
+            out.writeByte(STRING);
+            out.writeString(s);
+        } else if (value instanceof Long l) {
+            out.writeByte(LONG);
+            out.writeVarLong(l);
+        } else if (value instanceof Integer i) {
+            out.writeByte(INT);
+            out.writeVarLong(i);
+        } else if (value instanceof Boolean b) {
+            out.writeByte(b ? TRUE : FALSE);
+        } else if (value instanceof Double d) {
+            out.writeByte(DOUBLE);
+            out.writeFixedLong(Double.doubleToRawLongBits(d));
+        } else if (value instanceof Float f) {
+            out.writeByte(FLOAT);
+            out.writeVarLong(Float.floatToRawIntBits(f));
+        } else if (value instanceof BigDecimal d) {
+            out.writeByte(BIG_DECIMAL);
+            out.writeString(d.toString());
+        } else if (value instanceof LocalDateTime t) {
+            out.writeByte(LOCAL_DATE_TIME);
+            out.writeVarLong(t.toEpochSecond(ZoneOffset.UTC));
+            out.writeVarLong(t.getNano());
+        } else if (value instanceof LocalDate d) {
+            out.writeByte(LOCAL_DATE);
+            out.writeVarLong(d.toEpochDay());
+        } else if (value instanceof Date d) {
+            out.writeByte(DATE);
+            out.writeVarLong(d.getTime());
+        } else if (value instanceof List<?> list) {
+            out.writeByte(LIST);
+            writeElements(out, list);
+        } else if (value instanceof Set<?> set) {
+            out.writeByte(SET);
+            writeElements(out, set);
+        } else if (value instanceof Map<?, ?> map) {
+            out.writeByte(MAP);
+            out.writeVarLong(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(out, entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        } else {
+            Schema schema = schemasByClass.get(value.getClass());
+            if (schema == null) {
+                throw new SerializationException("未注册的类: " + value.getClass().getName());
+            }
+            if (schema.type.isEnum()) {
+                out.writeByte(ENUM);
+                out.writeVarLong(schema.id);
+                out.writeFixedInt(schema.fingerprint);
+                out.writeVarLong(((Enum<?>) value).ordinal());
+                return;
+            }
+            out.writeByte(OBJECT);
+            out.writeVarLong(schema.id);
+            out.writeFixedInt(schema.fingerprint);
+            for (Field field : schema.fields) {
+                writeValue(out, field.get(value));
+            }
+        }
+    }
+
+    private void writeElements(Output out, Collection<?> elements) throws ReflectiveOperationException {
+        out.writeVarLong(elements.size());
+        for (Object element : elements) {
+            writeValue(out, element);
+        }
+    }
+
+    private Object readValue(Input in) throws ReflectiveOperationException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case INT:
+                return (int) in.readVarLong();
+            case LONG:
+                return in.readVarLong();
+            case DOUBLE:
+                return Double.longBitsToDouble(in.readFixedLong());
+            case FLOAT:
+                return Float.intBitsToFloat((int) in.readVarLong());
+            case STRING:
+                return in.readString();
+            case BIG_DECIMAL:
+                return new BigDecimal(in.readString());
+            case LOCAL_DATE_TIME:
+                return LocalDateTime.ofEpochSecond(in.readVarLong(), (int) in.readVarLong(), ZoneOffset.UTC);
+            case LOCAL_DATE:
+                return LocalDate.ofEpochDay(in.readVarLong());
+            case DATE:
+                return new Date(in.readVarLong());
+            case LIST: {
+                int size = in.readSize();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            }
+            case SET: {
+                int size = in.readSize();
+                Set<Object> set = new LinkedHashSet<>(size * 2);
+                for (int i = 0; i < size; i++) {
+                    set.add(readValue(in));
+                }
+                return set;
+            }
+            case MAP: {
+                int size = in.readSize();
+                Map<Object, Object> map = new LinkedHashMap<>(size * 2);
+                for (int i = 0; i < size; i++) {
+                    map.put(readValue(in), readValue(in));
+                }
+                return map;
+            }
+            case ENUM: {
+                Schema schema = readSchema(in);
+                return schema.type.getEnumConstants()[(int) in.readVarLong()];
+            }
+            case OBJECT: {
+                Schema schema = readSchema(in);
+                Object value = schema.constructor.newInstance();
+                for (Field field : schema.fields) {
+                    Object fieldValue = readValue(in);
+                    if (fieldValue != null || !field.getType().isPrimitive()) {
+                        field.set(value, fieldValue);
+                    }
+                }
+                return value;
+            }
+            default:
+                throw new SerializationException("未知的类型标记: " + tag);
+        }
+    }
+
+    private Schema readSchema(Input in) {
+        int id = (int) in.readVarLong();
+        int fingerprint = in.readFixedInt();
+        Schema schema = schemasById.get(id);
+        if (schema == null || schema.fingerprint != fingerprint) {
+            throw new StaleSchemaException("注册 id " + id);
+        }
+        return schema;
+    }
+
+    /**
+     * 注册类的结构：按名称排序的实例字段（含父类字段）与结构指纹
+     */
+    private static class Schema {
+
+        private final int id;
+        private final Class<?> type;
+        private final Constructor<?> constructor;
+        private final Field[] fields;
+        private final int fingerprint;
+
+        Schema(int id, Class<?> type) {
+            this.id = id;
+            this.type = type;
+            CRC32 crc = new CRC32();
+            crc.update(type.getName().getBytes(StandardCharsets.UTF_8));
+            if (type.isEnum()) {
+                this.constructor = null;
+                this.fields = new Field[0];
+                for (Object constant : type.getEnumConstants()) {
+                    crc.update(((Enum<?>) constant).name().getBytes(StandardCharsets.UTF_8));
+                }
+            } else {
+                try {
+                    this.constructor = type.getDeclaredConstructor();
+                    this.constructor.setAccessible(true);
+                } catch (NoSuchMethodException e) {
+                    throw new IllegalArgumentException("缺少无参构造方法: " + type.getName(), e);
+                }
+                List<Field> list = new ArrayList<>();
+                for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                    for (Field field : c.getDeclaredFields()) {
+                        int modifiers = field.getModifiers();
+                        if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+                            field.setAccessible(true);
+                            list.add(field);
+                        }
+                    }
+                }
+                list.sort(Comparator.comparing(Field::getName).thenComparing(field -> field.getDeclaringClass().getName()));
+                this.fields = list.toArray(new Field[0]);
+                for (Field field : fields) {
+                    crc.update((field.getName() + ":" + field.getType().getName() + ";").getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            this.fingerprint = (int) crc.getValue();
+        }
+    }
+
+    private static class StaleSchemaException extends RuntimeException {
+
+        StaleSchemaException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    private static class Output {
+
+        private byte[] buffer = new byte[256];
+        private int position;
+
+        void writeByte(int b) {
+            ensure(1);
+            buffer[position++] = (byte) b;
+        }
+
+        // zigzag 变长编码，小的正负数都只占少量字节
+        void writeVarLong(long value) {
+            ensure(10);
+            long v = (value << 1) ^ (value >> 63);
+            while ((v & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buffer[position++] = (byte) v;
+        }
+
+        void writeFixedInt(int value) {
+            ensure(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeFixedLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensure(int length) {
+            if (position + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+            }
+        }
+    }
+
+    private static class Input {
+
+        private final byte[] buffer;
+        private int position;
+
+        Input(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        byte readByte() {
+            return buffer[position++];
+        }
+
+        long readVarLong() {
+            long v = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer[position++];
+                v |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        int readSize() {
+            long size = readVarLong();
+            if (size < 0 || size > buffer.length - position) {
+                throw new SerializationException("无效的长度: " + size);
+            }
+            return (int) size;
+        }
+
+        int readFixedInt() {
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                value = (value << 8) | (buffer[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        long readFixedLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (buffer[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        String readString() {
+            int length = readSize();
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+
+}
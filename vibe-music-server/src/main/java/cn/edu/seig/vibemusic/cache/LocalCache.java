@@ -0,0 +1,74 @@
+package cn.edu.seig.vibemusic.cache;
+
+import org.springframework.cache.Cache.ValueWrapper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 按条目数与有效期限制的本地缓存，按访问顺序淘汰
+ * <p>
+ * 每次失效都会递增代数。从 L2 读取前记下代数，写入时代数已变化说明读取期间发生过失效，
+ * 读到的值可能已经过期，放弃写入。
+ */
+class LocalCache {
+
+    private final long ttl;
+    private final Map<String, Entry> entries;
+    private long generation;
+
+    LocalCache(int maxSize, long ttl) {
+        this.ttl = ttl;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    synchronized ValueWrapper get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - entry.loadedAt >= ttl) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * 写入从 L2 读到的值
+     *
+     * @param expectedGeneration 读取 L2 前的代数
+     */
+    synchronized void put(String key, ValueWrapper value, long expectedGeneration) {
+        if (generation == expectedGeneration) {
+            entries.put(key, new Entry(value, System.currentTimeMillis()));
+        }
+    }
+
+    synchronized void evict(String key) {
+        generation++;
+        entries.remove(key);
+    }
+
+    synchronized void clear() {
+        generation++;
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private record Entry(ValueWrapper value, long loadedAt) {
+    }
+
+}
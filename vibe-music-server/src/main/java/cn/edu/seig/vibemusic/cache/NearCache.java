@@ -0,0 +1,168 @@
+package cn.edu.seig.vibemusic.cache;
+
+import org.springframework.cache.Cache;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 两级缓存：本地 L1 位于 Redis L2 之前
+ * <p>
+ * 读取时先查 L1，未命中再查 L2 并回填 L1。写入与清除作用于 L2，丢弃本节点的 L1，
+ * 并通过 {@link NearCacheManager} 通知其他节点丢弃各自的 L1。
+ * 写入时不直接回填 L1，L1 中只保存从 L2 反序列化得到的副本，不与调用方共享对象。
+ * 批量清除时丢弃整个 L1 并只发送一条清空通知，不为每个 key 单独通知。
+ */
+public class NearCache implements Cache, BatchEvictCache {
+
+    private final Cache delegate;
+    private final LocalCache local;
+    private final NearCacheManager cacheManager;
+
+    private final LongAdder localHits = new LongAdder();
+
+    NearCache(Cache delegate, LocalCache local, NearCacheManager cacheManager) {
+        this.delegate = delegate;
+        this.local = local;
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = String.valueOf(key);
+        ValueWrapper value = local.get(localKey);
+        if (value != null) {
+            localHits.increment();
+            return value;
+        }
+        long generation = local.generation();
+        value = delegate.get(key);
+        if (value != null) {
+            local.put(localKey, value, generation);
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper value = get(key);
+        if (value == null) {
+            return null;
+        }
+        Object result = value.get();
+        if (result != null && type != null && !type.isInstance(result)) {
+            throw new IllegalStateException("缓存值的类型不是 [" + type.getName() + "]: " + result);
+        }
+        return (T) result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper value = get(key);
+        if (value != null) {
+            return (T) value.get();
+        }
+        T result = delegate.get(key, valueLoader);
+        evictLocal(key);
+        cacheManager.publishEvict(getName(), key);
+        return result;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        evictLocal(key);
+        cacheManager.publishEvict(getName(), key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, value);
+        if (existing == null) {
+            evictLocal(key);
+            cacheManager.publishEvict(getName(), key);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+        evictLocal(key);
+        cacheManager.publishEvict(getName(), key);
+    }
+
+    @Override
+    public void evictAll(Collection<?> keys) {
+        if (delegate instanceof BatchEvictCache batch) {
+            batch.evictAll(keys);
+        } else {
+            keys.forEach(delegate::evict);
+        }
+        clearLocal();
+        cacheManager.publishClear(getName());
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = delegate.evictIfPresent(key);
+        evictLocal(key);
+        cacheManager.publishEvict(getName(), key);
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        clearLocal();
+        cacheManager.publishClear(getName());
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = delegate.invalidate();
+        clearLocal();
+        cacheManager.publishClear(getName());
+        return invalidated;
+    }
+
+    /**
+     * L1 命中次数
+     *
+     * @return 命中次数
+     */
+    public long getLocalHits() {
+        return localHits.sum();
+    }
+
+    /**
+     * L1 当前条目数
+     *
+     * @return 条目数
+     */
+    public int getLocalSize() {
+        return local.size();
+    }
+
+    void evictLocal(Object key) {
+        local.evict(String.valueOf(key));
+    }
+
+    void clearLocal() {
+        local.clear();
+    }
+
+}
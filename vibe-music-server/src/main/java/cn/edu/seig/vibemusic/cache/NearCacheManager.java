@@ -0,0 +1,106 @@
+package cn.edu.seig.vibemusic.cache;
+
+import cn.edu.seig.vibemusic.config.NearCacheConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * 两级缓存管理器
+ * <p>
+ * 为配置中开启 L1 的缓存返回 {@link NearCache}，其余缓存直接返回 L2。
+ * 失效消息格式为 类型\n节点id\n缓存名\nkey（类型 E 为清除单个 key，C 为清空缓存），
+ * 由各节点订阅后丢弃本地副本，忽略本节点发出的消息。
+ */
+@Slf4j
+public class NearCacheManager implements CacheManager {
+
+    private static final String EVICT = "E";
+    private static final String CLEAR = "C";
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final CacheManager delegate;
+    private final Map<String, NearCacheConfig.CacheSpec> specs;
+    private final Consumer<String> publisher;
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * @param delegate  L2 缓存管理器
+     * @param specs     缓存名称 -> L1 配置
+     * @param publisher 失效消息的发送方式
+     */
+    public NearCacheManager(CacheManager delegate, Map<String, NearCacheConfig.CacheSpec> specs, Consumer<String> publisher) {
+        this.delegate = delegate;
+        this.specs = specs;
+        this.publisher = publisher;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache target = delegate.getCache(name);
+        if (target == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, key -> {
+            NearCacheConfig.CacheSpec spec = specs.get(name);
+            if (spec == null || !spec.isEnabled()) {
+                return target;
+            }
+            return new NearCache(target, new LocalCache(spec.getMaxSize(), spec.getTtl()), this);
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    /**
+     * 处理其他节点发出的失效消息
+     *
+     * @param message 消息内容
+     */
+    public void onMessage(String message) {
+        String[] parts = message.split("\n", 4);
+        if (parts.length < 4 || nodeId.equals(parts[1])) {
+            return;
+        }
+        if (!(caches.get(parts[2]) instanceof NearCache cache)) {
+            return;
+        }
+        if (CLEAR.equals(parts[0])) {
+            cache.clearLocal();
+        } else if (EVICT.equals(parts[0])) {
+            cache.evictLocal(parts[3]);
+        }
+    }
+
+    void publishEvict(String cacheName, Object key) {
+        publish(EVICT + "\n" + nodeId + "\n" + cacheName + "\n" + key);
+    }
+
+    void publishClear(String cacheName) {
+        publish(CLEAR + "\n" + nodeId + "\n" + cacheName + "\n");
+    }
+
+    // 发送失败时其他节点的 L1 在有效期后过期
+    private void publish(String message) {
+        try {
+            publisher.accept(message);
+        } catch (Exception e) {
+            log.warn("发送缓存失效通知失败: {}", e.getMessage());
+        }
+    }
+
+}
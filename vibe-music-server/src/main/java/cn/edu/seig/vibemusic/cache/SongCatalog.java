@@ -0,0 +1,391 @@
+package cn.edu.seig.vibemusic.cache;
+
+import cn.edu.seig.vibemusic.mapper.SongMapper;
+import cn.edu.seig.vibemusic.model.vo.SongVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 歌曲目录（已通过审核歌曲的只读内存快照）
+ * <p>
+ * 快照由按 id 升序的基本类型数组与预先构建好的 SongVO 组成，歌手名、风格等重复度高的字符串在快照内共享同一实例。
+ * 列表、推荐、收藏等只需按 id 回填歌曲的场景通过 {@link #getAll(long[])} 从内存读取，不再执行多表关联查询。
+ * <p>
+ * 快照不可变：歌曲、歌手、审核变更后由 {@link #refresh(Collection)} 重新读取受影响的歌曲并生成新快照整体替换，
+ * 新快照与旧快照共用基础数组，只复制增量覆盖表。定时全量重建兜底其他节点的写入。快照就绪前回退到 {@link SongMetadataCache}。
+ */
+@Slf4j
+@Component
+public class SongCatalog {
+
+    @Autowired
+    private SongMapper songMapper;
+    @Autowired
+    private SongMetadataCache songMetadataCache;
+
+    private volatile Snapshot snapshot;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+    // 重建期间发生变更的 id，重建完成后重放
+    private final Set<Long> dirtySongs = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 按给定顺序批量获取歌曲，丢弃不存在或未通过审核的歌曲
+     *
+     * @param songIds 歌曲 id
+     * @return 歌曲列表，元素为副本，可以修改
+     */
+    public List<SongVO> getAll(long[] songIds) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return songMetadataCache.getAll(Arrays.stream(songIds).boxed().toList());
+        }
+        List<SongVO> songs = new ArrayList<>(songIds.length);
+        for (long songId : songIds) {
+            SongVO song = current.get(songId);
+            if (song != null) {
+                songs.add(copy(song));
+            }
+        }
+        return songs;
+    }
+
+    /**
+     * 按给定顺序批量获取歌曲
+     *
+     * @param songIds 歌曲 id
+     * @return 歌曲列表，元素为副本，可以修改
+     */
+    public List<SongVO> getAll(Collection<Long> songIds) {
+        return getAll(songIds.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    /**
+     * 重新读取歌曲并替换快照中的对应条目（歌曲不存在或未通过审核时移除），调用方应在事务提交后调用
+     *
+     * @param songIds 歌曲 id
+     */
+    public void refresh(Collection<Long> songIds) {
+        if (songIds == null || songIds.isEmpty()) {
+            return;
+        }
+        if (rebuilding.get()) {
+            dirtySongs.addAll(songIds);
+        }
+        apply(songIds);
+    }
+
+    /**
+     * 定时全量重建快照，首次执行即为初始构建
+     */
+    @Scheduled(initialDelayString = "${song-catalog.initial-delay:10000}",
+            fixedDelayString = "${song-catalog.rebuild-interval:1800000}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("歌曲目录构建失败，回填将回退到缓存与数据库查询: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 全量重建快照
+     */
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            List<SongVO> songs = new ArrayList<>();
+            songMapper.scanSongCatalog(context -> songs.add(context.getResultObject()));
+            Snapshot built = Snapshot.build(songs);
+            synchronized (this) {
+                snapshot = built;
+            }
+
+            // 重放构建期间的增量更新
+            List<Long> dirty = new ArrayList<>(dirtySongs);
+            dirty.forEach(dirtySongs::remove);
+            apply(dirty);
+
+            long bytes = built.estimateBytes();
+            log.info("歌曲目录构建完成：歌曲 {}，估算内存 {} KB（每 10 万首约 {} MB），耗时 {} ms",
+                    built.size(), bytes / 1024, built.size() == 0 ? 0 : bytes * 100_000 / built.size() / (1024 * 1024),
+                    System.currentTimeMillis() - start);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * 当前快照，未就绪时为 null
+     */
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    // 读取与替换在同一把锁内完成，后读取到的数据不会被先读取的旧数据覆盖
+    private synchronized void apply(Collection<Long> songIds) {
+        Snapshot current = snapshot;
+        if (songIds.isEmpty() || current == null) {
+            return;
+        }
+        List<Long> ids = List.copyOf(songIds);
+        snapshot = current.with(ids, songMapper.getSongsWithArtistByIds(ids));
+    }
+
+    private static SongVO copy(SongVO song) {
+        SongVO copy = new SongVO();
+        BeanUtils.copyProperties(song, copy);
+        return copy;
+    }
+
+    /**
+     * 不可变快照：基础数组 ids 升序，songs[i] 为 ids[i] 对应的歌曲；增量更新写入覆盖表，
+     * 每次更新只复制覆盖表，覆盖表超过阈值时合并回新的基础数组
+     */
+    public static class Snapshot {
+
+        // 64 位 JVM、开启压缩指针时的对象头与引用大小
+        private static final int HEADER = 12;
+        private static final int REFERENCE = 4;
+        private static final long SONG_VO_SIZE = shallowSize(SongVO.class);
+        // 覆盖表的条目数超过基础数组的 1/32（至少 256）时合并
+        private static final int MIN_OVERLAY = 256;
+        private static final int OVERLAY_RATIO = 32;
+
+        private final long[] ids;
+        private final SongVO[] songs;
+        // 增量更新的歌曲，值为 null 表示已移除
+        private final Map<Long, SongVO> overlay;
+        private final int size;
+        // 共享的字符串、日期实例，各版本快照共用，合并时按存活的歌曲重建，不会无限增长
+        private final Map<Object, Object> shared;
+
+        private Snapshot(long[] ids, SongVO[] songs, Map<Long, SongVO> overlay, int size, Map<Object, Object> shared) {
+            this.ids = ids;
+            this.songs = songs;
+            this.overlay = overlay;
+            this.size = size;
+            this.shared = shared;
+        }
+
+        /**
+         * 由歌曲列表构建快照
+         *
+         * @param songs 歌曲
+         * @return 快照
+         */
+        public static Snapshot build(Collection<SongVO> songs) {
+            Map<Object, Object> interned = new ConcurrentHashMap<>();
+            Map<Long, SongVO> rows = new HashMap<>();
+            for (SongVO song : songs) {
+                rows.put(song.getSongId(), intern(song, interned));
+            }
+            long[] ids = rows.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+            SongVO[] values = new SongVO[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                values[i] = rows.get(ids[i]);
+            }
+            return new Snapshot(ids, values, Collections.emptyMap(), ids.length, interned);
+        }
+
+        /**
+         * 生成替换了指定歌曲的新快照
+         *
+         * @param songIds 受影响的歌曲 id
+         * @param rows    受影响的歌曲中仍然存在且已通过审核的部分
+         * @return 新快照
+         */
+        public Snapshot with(Collection<Long> songIds, Collection<SongVO> rows) {
+            Map<Long, SongVO> changed = new HashMap<>();
+            for (Long songId : songIds) {
+                changed.put(songId, null);
+            }
+            for (SongVO row : rows) {
+                changed.put(row.getSongId(), intern(row, shared));
+            }
+
+            Map<Long, SongVO> newOverlay = new HashMap<>(overlay);
+            int newSize = size;
+            for (Map.Entry<Long, SongVO> entry : changed.entrySet()) {
+                boolean present = get(entry.getKey()) != null;
+                newSize += (entry.getValue() != null ? 1 : 0) - (present ? 1 : 0);
+                newOverlay.put(entry.getKey(), entry.getValue());
+            }
+            if (newOverlay.size() <= Math.max(MIN_OVERLAY, ids.length / OVERLAY_RATIO)) {
+                return new Snapshot(ids, songs, newOverlay, newSize, shared);
+            }
+            return merge(newOverlay, newSize);
+        }
+
+        // 覆盖表合并回基础数组，保持 id 升序，并按存活的歌曲重建共享实例表
+        private Snapshot merge(Map<Long, SongVO> changes, int newSize) {
+            long[] changedIds = changes.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+            long[] newIds = new long[newSize];
+            SongVO[] newSongs = new SongVO[newSize];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < ids.length || j < changedIds.length) {
+                if (j == changedIds.length || (i < ids.length && ids[i] < changedIds[j])) {
+                    newIds[count] = ids[i];
+                    newSongs[count++] = songs[i++];
+                    continue;
+                }
+                if (i < ids.length && ids[i] == changedIds[j]) {
+                    i++;
+                }
+                SongVO song = changes.get(changedIds[j]);
+                if (song != null) {
+                    newIds[count] = changedIds[j];
+                    newSongs[count++] = song;
+                }
+                j++;
+            }
+            Map<Object, Object> interned = new ConcurrentHashMap<>();
+            for (SongVO song : newSongs) {
+                for (Object value : new Object[]{song.getArtistName(), song.getStyle(), song.getDuration(), song.getReleaseTime()}) {
+                    if (value != null) {
+                        interned.putIfAbsent(value, value);
+                    }
+                }
+            }
+            return new Snapshot(newIds, newSongs, Collections.emptyMap(), newSize, interned);
+        }
+
+        /**
+         * 查找歌曲
+         *
+         * @param songId 歌曲 id
+         * @return 快照中的共享对象，不存在时返回 null
+         */
+        public SongVO get(long songId) {
+            if (!overlay.isEmpty() && overlay.containsKey(songId)) {
+                return overlay.get(songId);
+            }
+            int index = Arrays.binarySearch(ids, songId);
+            return index < 0 ? null : songs[index];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * 共享实例表的条目数
+         */
+        public int sharedSize() {
+            return shared.size();
+        }
+
+        /**
+         * 估算快照占用的堆内存：数组、覆盖表、SongVO 及其引用的不重复对象，以及共享实例表
+         *
+         * @return 字节数
+         */
+        public long estimateBytes() {
+            long bytes = arraySize(8, ids.length) + arraySize(REFERENCE, songs.length);
+            // HashMap 的节点与桶
+            bytes += (shared.size() + overlay.size()) * (32L + 2 * REFERENCE);
+            Map<Object, Boolean> seen = new IdentityHashMap<>();
+            List<SongVO> live = new ArrayList<>(size);
+            for (int i = 0; i < ids.length; i++) {
+                if (!overlay.containsKey(ids[i])) {
+                    live.add(songs[i]);
+                }
+            }
+            overlay.values().stream().filter(Objects::nonNull).forEach(live::add);
+            for (SongVO song : live) {
+                bytes += SONG_VO_SIZE;
+                bytes += sizeOnce(song.getSongId(), 16, seen);
+                bytes += sizeOnce(song.getReleaseTime(), 24, seen);
+                for (String text : new String[]{song.getSongName(), song.getArtistName(), song.getStyle(),
+                        song.getDuration(), song.getCoverUrl(), song.getAudioUrl()}) {
+                    bytes += text == null ? 0 : sizeOnce(text, stringSize(text), seen);
+                }
+            }
+            return bytes;
+        }
+
+        private static SongVO intern(SongVO row, Map<Object, Object> interned) {
+            SongVO song = new SongVO();
+            song.setSongId(row.getSongId());
+            song.setSongName(row.getSongName());
+            song.setArtistName(intern(row.getArtistName(), interned));
+            song.setStyle(intern(row.getStyle(), interned));
+            song.setDuration(intern(row.getDuration(), interned));
+            song.setCoverUrl(row.getCoverUrl());
+            song.setAudioUrl(row.getAudioUrl());
+            song.setReleaseTime(intern(row.getReleaseTime(), interned));
+            return song;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T intern(T value, Map<Object, Object> interned) {
+            return value == null ? null : (T) interned.computeIfAbsent(value, key -> key);
+        }
+
+        private static long sizeOnce(Object object, long size, Map<Object, Boolean> seen) {
+            if (object == null || seen.put(object, Boolean.TRUE) != null) {
+                return 0;
+            }
+            return size;
+        }
+
+        private static long stringSize(String text) {
+            boolean latin1 = text.chars().allMatch(c -> c <= 0xFF);
+            return align(HEADER + 12) + arraySize(1, latin1 ? text.length() : text.length() * 2);
+        }
+
+        private static long arraySize(int elementSize, int length) {
+            return align(HEADER + 4 + (long) elementSize * length);
+        }
+
+        private static long shallowSize(Class<?> type) {
+            long size = HEADER;
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                Class<?> fieldType = field.getType();
+                if (fieldType == long.class || fieldType == double.class) {
+                    size += 8;
+                } else if (fieldType == int.class || fieldType == float.class) {
+                    size += 4;
+                } else if (fieldType == short.class || fieldType == char.class) {
+                    size += 2;
+                } else if (fieldType == byte.class || fieldType == boolean.class) {
+                    size += 1;
+                } else {
+                    size += REFERENCE;
+                }
+            }
+            return align(size);
+        }
+
+        private static long align(long size) {
+            return (size + 7) & ~7L;
+        }
+    }
+
+}
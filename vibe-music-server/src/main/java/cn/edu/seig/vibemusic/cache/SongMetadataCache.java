@@ -0,0 +1,80 @@
+package cn.edu.seig.vibemusic.cache;
+
+import cn.edu.seig.vibemusic.mapper.SongMapper;
+import cn.edu.seig.vibemusic.model.vo.SongVO;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 歌曲元数据缓存
+ * <p>
+ * 按歌曲 id 缓存已通过审核的歌曲（SongVO，不含收藏状态），每个条目带 song:id 标签，
+ * 歌曲、歌手、审核的变更按标签清除。推荐、随机歌曲等只保存 id 的场景通过它批量回填，
+ * 未命中的 id 合并为一次数据库查询。
+ */
+@Component
+public class SongMetadataCache {
+
+    public static final String CACHE_NAME = "songMetaCache";
+
+    @Autowired
+    private TaggedCacheManager cacheManager;
+    @Autowired
+    private SongMapper songMapper;
+
+    /**
+     * 按给定顺序批量获取歌曲，丢弃不存在或未通过审核的歌曲
+     *
+     * @param songIds 歌曲 id
+     * @return 歌曲列表，元素为缓存值的副本，可以修改
+     */
+    public List<SongVO> getAll(Collection<Long> songIds) {
+        TaggedCache cache = (TaggedCache) cacheManager.getCache(CACHE_NAME);
+        Map<Long, SongVO> songs = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long songId : songIds) {
+            Cache.ValueWrapper value = cache.get(songId);
+            if (value != null && value.get() instanceof SongVO song) {
+                songs.put(songId, song);
+            } else {
+                // 批量加载后再逐个写入并登记标签，这里先结束未命中时开始的登记
+                CacheTags.discard(cache.fullKey(songId));
+                missing.add(songId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            for (SongVO song : songMapper.getSongsWithArtistByIds(missing)) {
+                CacheTags.begin(cache.fullKey(song.getSongId()));
+                CacheTags.tag(CacheTags.of(CacheTags.SONG, song.getSongId()));
+                cache.put(song.getSongId(), song);
+                songs.put(song.getSongId(), song);
+            }
+        }
+
+        List<SongVO> result = new ArrayList<>(songs.size());
+        for (Long songId : songIds) {
+            SongVO song = songs.get(songId);
+            if (song != null) {
+                result.add(copy(song));
+            }
+        }
+        return result;
+    }
+
+    // 本地缓存中的对象是共享的，调用方会设置收藏状态等字段，返回副本
+    private static SongVO copy(SongVO song) {
+        SongVO copy = new SongVO();
+        BeanUtils.copyProperties(song, copy);
+        return copy;
+    }
+
+}
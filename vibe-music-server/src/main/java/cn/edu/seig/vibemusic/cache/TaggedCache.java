@@ -0,0 +1,173 @@
+package cn.edu.seig.vibemusic.cache;
+
+import cn.edu.seig.vibemusic.model.vo.CacheStatsVO;
+import org.springframework.cache.Cache;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 支持依赖标签的缓存
+ * <p>
+ * 包装实际的缓存实现：未命中时开始登记标签，写入时把标签交给 {@link TaggedCacheManager} 建立索引，
+ * 同时统计命中、未命中、写入与清除次数。
+ */
+public class TaggedCache implements Cache, BatchEvictCache {
+
+    private final Cache delegate;
+    private final TaggedCacheManager cacheManager;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder clears = new LongAdder();
+
+    public TaggedCache(Cache delegate, TaggedCacheManager cacheManager) {
+        this.delegate = delegate;
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper value = delegate.get(key);
+        if (value == null) {
+            misses.increment();
+            CacheTags.begin(fullKey(key));
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper value = get(key);
+        if (value == null) {
+            return null;
+        }
+        Object result = value.get();
+        if (result != null && type != null && !type.isInstance(result)) {
+            throw new IllegalStateException("缓存值的类型不是 [" + type.getName() + "]: " + result);
+        }
+        return (T) result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper value = get(key);
+        if (value != null) {
+            return (T) value.get();
+        }
+        T result;
+        boolean loaded = false;
+        try {
+            result = valueLoader.call();
+            loaded = true;
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            // 包括 Error 在内，加载失败时都要弹出本次的帧
+            if (!loaded) {
+                CacheTags.discard(fullKey(key));
+            }
+        }
+        put(key, result);
+        return result;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        puts.increment();
+        cacheManager.index(this, key, CacheTags.end(fullKey(key)));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, value);
+        if (existing == null) {
+            puts.increment();
+            cacheManager.index(this, key, CacheTags.end(fullKey(key)));
+        } else {
+            CacheTags.discard(fullKey(key));
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+        evictions.increment();
+    }
+
+    @Override
+    public void evictAll(Collection<?> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        if (keys.size() == 1) {
+            evict(keys.iterator().next());
+            return;
+        }
+        if (delegate instanceof BatchEvictCache batch) {
+            batch.evictAll(keys);
+        } else {
+            keys.forEach(delegate::evict);
+        }
+        evictions.add(keys.size());
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = delegate.evictIfPresent(key);
+        if (evicted) {
+            evictions.increment();
+        }
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        clears.increment();
+    }
+
+    @Override
+    public boolean invalidate() {
+        clears.increment();
+        return delegate.invalidate();
+    }
+
+    /**
+     * 统计信息
+     *
+     * @return 统计信息
+     */
+    public CacheStatsVO getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        Long localHits = delegate instanceof NearCache nearCache ? nearCache.getLocalHits() : null;
+        return new CacheStatsVO(getName(), hitCount, missCount, total == 0 ? 0.0 : (double) hitCount / total,
+                localHits, puts.sum(), evictions.sum(), clears.sum());
+    }
+
+    String fullKey(Object key) {
+        return getName() + "::" + key;
+    }
+
+}
@@ -0,0 +1,211 @@
+package cn.edu.seig.vibemusic.cache;
+
+import cn.edu.seig.vibemusic.model.vo.CacheStatsVO;
+import cn.edu.seig.vibemusic.util.TransactionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 支持依赖标签失效的缓存管理器
+ * <p>
+ * 包装 RedisCacheManager。每个标签在 Redis 中对应一个集合，保存依赖它的完整缓存 key（缓存名::key），
+ * 集合的过期时间与缓存条目一致。按标签清除时用脚本原子地取出并删除集合，取出后加载写入的条目进入新的集合，
+ * 不会丢失；取出的 key 按缓存分组批量清除。
+ * <p>
+ * 集合标签（类型:list）依赖的分页、搜索结果数量没有上限，集合中只保存缓存名，清除时清空这些缓存（递增缓存代数），
+ * 一次清除的代价与缓存的条目数无关。
+ */
+@Slf4j
+public class TaggedCacheManager implements CacheManager {
+
+    private static final String TAG_KEY_PREFIX = "cacheTag::";
+    private static final String LIST_TAG_SUFFIX = CacheTags.listOf("");
+
+    // 取出并删除标签集合
+    private static final DefaultRedisScript<List> TAKE_SCRIPT = new DefaultRedisScript<>("""
+            local members = redis.call('SMEMBERS', KEYS[1])
+            redis.call('DEL', KEYS[1])
+            return members
+            """, List.class);
+
+    private final CacheManager delegate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Duration ttl;
+    private final ConcurrentMap<String, TaggedCache> caches = new ConcurrentHashMap<>();
+
+    public TaggedCacheManager(CacheManager delegate, StringRedisTemplate stringRedisTemplate, Duration ttl) {
+        this.delegate = delegate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TaggedCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache target = delegate.getCache(name);
+        if (target == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, key -> new TaggedCache(target, this));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    /**
+     * 清除依赖指定标签的缓存条目（存在事务时在提交后执行）
+     *
+     * @param tags 标签
+     */
+    public void evictTags(String... tags) {
+        evictTags(Arrays.asList(tags));
+    }
+
+    /**
+     * 清除依赖指定标签的缓存条目（存在事务时在提交后执行）
+     *
+     * @param tags 标签
+     */
+    public void evictTags(Collection<String> tags) {
+        if (tags == null || tags.isEmpty()) {
+            return;
+        }
+        List<String> copy = List.copyOf(tags);
+        TransactionUtil.afterCommit(() -> doEvictTags(copy));
+    }
+
+    /**
+     * 清空整个缓存（递增缓存代数，存在事务时在提交后执行）
+     *
+     * @param cacheName 缓存名
+     */
+    public void clearCache(String cacheName) {
+        TransactionUtil.afterCommit(() -> {
+            try {
+                Cache cache = getCache(cacheName);
+                if (cache != null) {
+                    cache.clear();
+                }
+            } catch (Exception e) {
+                log.warn("清空缓存 {} 失败: {}", cacheName, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 各缓存的统计信息
+     *
+     * @return 统计信息
+     */
+    public List<CacheStatsVO> getStats() {
+        List<CacheStatsVO> stats = new ArrayList<>();
+        for (TaggedCache cache : caches.values()) {
+            stats.add(cache.getStats());
+        }
+        stats.sort(Comparator.comparing(CacheStatsVO::getCacheName));
+        return stats;
+    }
+
+    /**
+     * 为刚写入的缓存条目建立标签索引
+     * 索引失败时清除该条目，避免留下无法按标签失效的缓存
+     */
+    void index(TaggedCache cache, Object key, Set<String> tags) {
+        if (tags.isEmpty()) {
+            return;
+        }
+        String member = cache.fullKey(key);
+        try {
+            stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) {
+                    for (String tag : tags) {
+                        // 集合标签只记录缓存名
+                        operations.opsForSet().add(TAG_KEY_PREFIX + tag, isListTag(tag) ? cache.getName() : member);
+                        operations.expire(TAG_KEY_PREFIX + tag, ttl);
+                    }
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            log.warn("缓存标签索引失败，清除缓存 {}: {}", member, e.getMessage());
+            cache.evict(key);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void doEvictTags(List<String> tags) {
+        Set<String> clearedCaches = new HashSet<>();
+        Map<String, Set<String>> keysByCache = new HashMap<>();
+        for (String tag : tags) {
+            try {
+                List<String> members = stringRedisTemplate.execute(TAKE_SCRIPT, List.of(TAG_KEY_PREFIX + tag));
+                if (members == null) {
+                    continue;
+                }
+                for (String member : members) {
+                    int separator = member.indexOf("::");
+                    if (separator < 0) {
+                        clearedCaches.add(member);
+                    } else {
+                        keysByCache.computeIfAbsent(member.substring(0, separator), name -> new HashSet<>())
+                                .add(member.substring(separator + 2));
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("按标签 {} 清除缓存失败: {}", tag, e.getMessage());
+            }
+        }
+        for (String cacheName : clearedCaches) {
+            try {
+                Cache cache = getCache(cacheName);
+                if (cache != null) {
+                    cache.clear();
+                }
+            } catch (Exception e) {
+                log.warn("清空缓存 {} 失败: {}", cacheName, e.getMessage());
+            }
+        }
+        keysByCache.forEach((cacheName, keys) -> {
+            if (clearedCaches.contains(cacheName)) {
+                return;
+            }
+            try {
+                if (getCache(cacheName) instanceof BatchEvictCache cache) {
+                    cache.evictAll(keys);
+                }
+            } catch (Exception e) {
+                log.warn("批量清除缓存 {} 失败: {}", cacheName, e.getMessage());
+            }
+        });
+    }
+
+    private static boolean isListTag(String tag) {
+        return tag.endsWith(LIST_TAG_SUFFIX);
+    }
+
+}
@@ -0,0 +1,129 @@
+package cn.edu.seig.vibemusic.cache;
+
+import cn.edu.seig.vibemusic.util.AuthContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 已验证令牌的本地缓存
+ * <p>
+ * 命中时不重新验证签名，也不检查会话。会话注销时由 SessionService 按会话 ID 移除，
+ * 较短的有效期兜底丢失的注销通知。
+ * <p>
+ * 写入顺序记录在队列中，条目数超过上限时移除最早写入的条目（有效期相同，也是最早过期的），
+ * 写入只需 O(1)。定时从队首清理已过期或已被移除的记录，队列长度不超过一个有效期内的写入数。
+ */
+@Component
+public class TokenCache {
+
+    private final long ttl;
+    private final int maxSize;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // 按写入顺序排列的 令牌 -> 条目，条目被替换或移除后记录留在队列中，到达队首时丢弃
+    private final ConcurrentLinkedQueue<Map.Entry<String, Entry>> order = new ConcurrentLinkedQueue<>();
+    // 每次移除都会递增，加载期间发生过移除时不写入本地缓存
+    private final AtomicLong generation = new AtomicLong();
+
+    public TokenCache(@Value("${token-cache.ttl:60000}") long ttl,
+                      @Value("${token-cache.max-size:10000}") int maxSize) {
+        this.ttl = ttl;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 获取缓存的登录信息
+     *
+     * @param token 令牌
+     * @return 登录信息，未缓存或已过期时返回 null
+     */
+    public AuthContext get(String token) {
+        Entry entry = entries.get(token);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() < entry.expiresAt()) {
+            return entry.authContext();
+        }
+        entries.remove(token, entry);
+        return null;
+    }
+
+    /**
+     * 当前版本，加载前获取并传给 {@link #put}
+     *
+     * @return 当前版本
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * 缓存登录信息，加载期间发生过移除时不写入
+     *
+     * @param token              令牌
+     * @param authContext        登录信息
+     * @param tokenExpiresAt     令牌的过期时间，毫秒时间戳，缓存不超过该时间
+     * @param expectedGeneration 加载前获取的版本
+     */
+    public void put(String token, AuthContext authContext, long tokenExpiresAt, long expectedGeneration) {
+        long now = System.currentTimeMillis();
+        if (generation.get() != expectedGeneration) {
+            return;
+        }
+        Entry loaded = new Entry(authContext, Math.min(now + ttl, tokenExpiresAt));
+        entries.put(token, loaded);
+        order.add(new AbstractMap.SimpleImmutableEntry<>(token, loaded));
+        // 写入前后之间发生了移除，撤回写入
+        if (generation.get() != expectedGeneration) {
+            entries.remove(token, loaded);
+            return;
+        }
+        while (entries.size() > maxSize) {
+            Map.Entry<String, Entry> oldest = order.poll();
+            if (oldest == null) {
+                break;
+            }
+            entries.remove(oldest.getKey(), oldest.getValue());
+        }
+    }
+
+    /**
+     * 从队首清理已过期或已被替换、移除的记录
+     */
+    @Scheduled(initialDelayString = "${token-cache.ttl:60000}", fixedDelayString = "${token-cache.ttl:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        Map.Entry<String, Entry> head;
+        while ((head = order.peek()) != null) {
+            Entry entry = head.getValue();
+            if (entry.expiresAt() > now && entries.get(head.getKey()) == entry) {
+                break;
+            }
+            if (order.remove(head)) {
+                entries.remove(head.getKey(), entry);
+            }
+        }
+    }
+
+    /**
+     * 移除属于指定会话的令牌
+     *
+     * @param sessionIds 会话 ID
+     */
+    public void invalidateSessions(Collection<String> sessionIds) {
+        generation.incrementAndGet();
+        entries.values().removeIf(e -> sessionIds.contains(e.authContext().getSessionId()));
+    }
+
+    private record Entry(AuthContext authContext, long expiresAt) {
+    }
+
+}
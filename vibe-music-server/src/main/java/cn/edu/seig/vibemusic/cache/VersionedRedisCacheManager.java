@@ -0,0 +1,131 @@
+package cn.edu.seig.vibemusic.cache;
+
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * 按代数划分 key 空间的 RedisCacheManager
+ * <p>
+ * key 前缀为 缓存名::代数::，清空缓存改为递增代数，见 {@link CacheGenerations}。
+ * 代数未知（Redis 读取失败）时读写都绕过 Redis：读取按未命中处理，加载的值不写入；
+ * 删除条目仍需要代数，此时抛出异常。批量删除按 key 分批执行 DEL（key 使用字符串序列化）。
+ */
+public class VersionedRedisCacheManager extends RedisCacheManager {
+
+    // 每条 DEL 命令删除的 key 数
+    private static final int EVICT_BATCH_SIZE = 500;
+
+    private final CacheGenerations generations;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    public VersionedRedisCacheManager(RedisCacheWriter cacheWriter, RedisCacheConfiguration defaultCacheConfiguration,
+                                      Map<String, RedisCacheConfiguration> initialCacheConfigurations,
+                                      CacheGenerations generations, StringRedisTemplate stringRedisTemplate) {
+        super(cacheWriter, prefixed(defaultCacheConfiguration, generations), true,
+                prefixedAll(initialCacheConfigurations, generations));
+        this.generations = generations;
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    @Override
+    protected RedisCache createRedisCache(String name, RedisCacheConfiguration cacheConfiguration) {
+        return new VersionedRedisCache(name, getCacheWriter(),
+                cacheConfiguration != null ? cacheConfiguration : getDefaultCacheConfiguration(), generations,
+                stringRedisTemplate);
+    }
+
+    // 前缀在每次访问时计算，代数变化后立即生效
+    private static RedisCacheConfiguration prefixed(RedisCacheConfiguration configuration, CacheGenerations generations) {
+        return configuration.computePrefixWith(name -> name + "::" + generations.current(name) + "::");
+    }
+
+    private static Map<String, RedisCacheConfiguration> prefixedAll(Map<String, RedisCacheConfiguration> configurations,
+                                                                  CacheGenerations generations) {
+        Map<String, RedisCacheConfiguration> result = new HashMap<>();
+        configurations.forEach((name, configuration) -> result.put(name, prefixed(configuration, generations)));
+        return result;
+    }
+
+    private static class VersionedRedisCache extends RedisCache implements BatchEvictCache {
+
+        private final CacheGenerations generations;
+        private final StringRedisTemplate stringRedisTemplate;
+
+        VersionedRedisCache(String name, RedisCacheWriter cacheWriter, RedisCacheConfiguration cacheConfiguration,
+                            CacheGenerations generations, StringRedisTemplate stringRedisTemplate) {
+            super(name, cacheWriter, cacheConfiguration);
+            this.generations = generations;
+            this.stringRedisTemplate = stringRedisTemplate;
+        }
+
+        @Override
+        protected Object lookup(Object key) {
+            return bypass() ? null : super.lookup(key);
+        }
+
+        @Override
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            if (!bypass()) {
+                return super.get(key, valueLoader);
+            }
+            try {
+                return valueLoader.call();
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            if (!bypass()) {
+                super.put(key, value);
+            }
+        }
+
+        @Override
+        public ValueWrapper putIfAbsent(Object key, Object value) {
+            return bypass() ? null : super.putIfAbsent(key, value);
+        }
+
+        @Override
+        public void evictAll(Collection<?> keys) {
+            List<String> batch = new ArrayList<>(Math.min(keys.size(), EVICT_BATCH_SIZE));
+            for (Object key : keys) {
+                batch.add(createCacheKey(key));
+                if (batch.size() >= EVICT_BATCH_SIZE) {
+                    stringRedisTemplate.delete(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                stringRedisTemplate.delete(batch);
+            }
+        }
+
+        @Override
+        public void clear() {
+            generations.increment(getName());
+        }
+
+        @Override
+        public boolean invalidate() {
+            generations.increment(getName());
+            return true;
+        }
+
+        private boolean bypass() {
+            return generations.find(getName()) == null;
+        }
+    }
+
+}
@@ -0,0 +1,69 @@
+package cn.edu.seig.vibemusic.config;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.MinioAsyncClient;
+import io.minio.messages.ListMultipartUploadsResult;
+import io.minio.messages.Part;
+
+import java.io.InputStream;
+
+/**
+ * 公开分片上传操作的 MinIO 客户端
+ * <p>
+ * SDK 把创建分片上传、上传分片、合并与取消分片上传声明为 protected，由 putObject 在内部使用，
+ * 断点续传需要跨请求保存 uploadId 并逐个上传分片，因此通过子类公开这些操作。
+ */
+public class MinioMultipartClient extends MinioAsyncClient {
+
+    public MinioMultipartClient(MinioAsyncClient client) {
+        super(client);
+    }
+
+    /**
+     * 创建分片上传
+     *
+     * @return 分片上传id
+     */
+    public String createMultipartUpload(String bucket, String object, String contentType) throws Exception {
+        Multimap<String, String> headers = HashMultimap.create();
+        if (contentType != null) {
+            headers.put("Content-Type", contentType);
+        }
+        return createMultipartUploadAsync(bucket, null, object, headers, null).get().result().uploadId();
+    }
+
+    /**
+     * 上传一个分片，SDK 按 length 读取数据流，单次占用的内存不超过分片大小
+     *
+     * @return 分片的 ETag
+     */
+    public String uploadPart(String bucket, String object, String uploadId, int partNumber,
+                             InputStream data, long length) throws Exception {
+        return uploadPartAsync(bucket, null, object, data, length, uploadId, partNumber, null, null).get().etag();
+    }
+
+    /**
+     * 按分片合并对象
+     */
+    public void completeMultipartUpload(String bucket, String object, String uploadId, Part[] parts) throws Exception {
+        completeMultipartUploadAsync(bucket, null, object, uploadId, parts, null, null).get();
+    }
+
+    /**
+     * 取消分片上传，释放已上传的分片
+     */
+    public void abortMultipartUpload(String bucket, String object, String uploadId) throws Exception {
+        abortMultipartUploadAsync(bucket, null, object, uploadId, null, null).get();
+    }
+
+    /**
+     * 列出一页未完成的分片上传，两个标记为 null 时从头开始
+     */
+    public ListMultipartUploadsResult listMultipartUploads(String bucket, String keyMarker, String uploadIdMarker,
+                                                           int maxUploads) throws Exception {
+        return listMultipartUploadsAsync(bucket, null, null, null, keyMarker, maxUploads, null, uploadIdMarker,
+                null, null).get().result();
+    }
+
+}
@@ -0,0 +1,72 @@
+package cn.edu.seig.vibemusic.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 本地近端缓存（L1）配置，按缓存名称开启
+ */
+@Component
+@ConfigurationProperties(prefix = "near-cache")
+public class NearCacheConfig {
+
+    // 缓存失效通知的 Redis 发布订阅频道
+    private String channel = "cache:invalidate";
+
+    // 缓存名称 -> L1 配置，未配置的缓存直接访问 Redis
+    private Map<String, CacheSpec> caches = new HashMap<>();
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public void setChannel(String channel) {
+        this.channel = channel;
+    }
+
+    public Map<String, CacheSpec> getCaches() {
+        return caches;
+    }
+
+    public void setCaches(Map<String, CacheSpec> caches) {
+        this.caches = caches;
+    }
+
+    public static class CacheSpec {
+
+        private boolean enabled = true;
+
+        // 最大条目数，超出后淘汰最久未访问的条目
+        private int maxSize = 1000;
+
+        // 有效期，单位毫秒，兜底丢失的失效通知
+        private long ttl = 60000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public long getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(long ttl) {
+            this.ttl = ttl;
+        }
+    }
+}
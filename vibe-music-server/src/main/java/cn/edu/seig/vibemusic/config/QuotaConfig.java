@@ -0,0 +1,62 @@
+package cn.edu.seig.vibemusic.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 用户操作配额配置，按操作声明滑动窗口内的次数上限
+ */
+@Component
+@ConfigurationProperties(prefix = "quota")
+public class QuotaConfig {
+
+    // Redis 不可用后改用本地计数，间隔该时间后再尝试 Redis，单位毫秒
+    private long redisRetryInterval = 5000;
+
+    // 操作 key -> 限额，未配置的操作不限制
+    private Map<String, QuotaSpec> limits = new HashMap<>();
+
+    public long getRedisRetryInterval() {
+        return redisRetryInterval;
+    }
+
+    public void setRedisRetryInterval(long redisRetryInterval) {
+        this.redisRetryInterval = redisRetryInterval;
+    }
+
+    public Map<String, QuotaSpec> getLimits() {
+        return limits;
+    }
+
+    public void setLimits(Map<String, QuotaSpec> limits) {
+        this.limits = limits;
+    }
+
+    public static class QuotaSpec {
+
+        // 窗口内最多次数，不大于 0 时不限制
+        private int limit;
+
+        // 滑动窗口长度，单位毫秒
+        private long window = 86400000;
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public void setLimit(int limit) {
+            this.limit = limit;
+        }
+
+        public long getWindow() {
+            return window;
+        }
+
+        public void setWindow(long window) {
+            this.window = window;
+        }
+    }
+}
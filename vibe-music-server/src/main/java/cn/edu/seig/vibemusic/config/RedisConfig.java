@@ -1,23 +1,47 @@
 package cn.edu.seig.vibemusic.config;
 
+import cn.edu.seig.vibemusic.cache.CacheGenerations;
+import cn.edu.seig.vibemusic.cache.CompactRedisSerializer;
+import cn.edu.seig.vibemusic.cache.NearCacheManager;
+import cn.edu.seig.vibemusic.cache.TaggedCacheManager;
+import cn.edu.seig.vibemusic.cache.VersionedRedisCacheManager;
+import cn.edu.seig.vibemusic.model.entity.Playlist;
+import cn.edu.seig.vibemusic.model.vo.ArtistNameVO;
+import cn.edu.seig.vibemusic.model.vo.CommentVO;
+import cn.edu.seig.vibemusic.model.vo.ForumPostVO;
+import cn.edu.seig.vibemusic.model.vo.ForumReplyVO;
+import cn.edu.seig.vibemusic.model.vo.PlaylistDetailVO;
+import cn.edu.seig.vibemusic.model.vo.PlaylistVO;
+import cn.edu.seig.vibemusic.model.vo.SongAdminVO;
+import cn.edu.seig.vibemusic.model.vo.SongDetailVO;
+import cn.edu.seig.vibemusic.model.vo.SongVO;
+import cn.edu.seig.vibemusic.result.CursorPageResult;
+import cn.edu.seig.vibemusic.result.PageResult;
+import cn.edu.seig.vibemusic.result.Result;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
-import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.BatchStrategies;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 public class RedisConfig {
@@ -25,7 +49,7 @@ public class RedisConfig {
     /**
      * 自定义 Jackson2JsonRedisSerializer 配置
      */
-    private Jackson2JsonRedisSerializer<Object> jackson2JsonRedisSerializer() {
+    public static Jackson2JsonRedisSerializer<Object> jackson2JsonRedisSerializer() {
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
         objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
@@ -34,6 +58,28 @@ public class RedisConfig {
         return new Jackson2JsonRedisSerializer<>(objectMapper, Object.class);
     }
 
+    /**
+     * 紧凑二进制序列化器配置
+     * 注册 id 写入了缓存数据，只能追加新的注册，不能修改或复用已有的 id；
+     * 紧凑缓存（cache-serializer.compact-caches）中缓存的返回值类型都必须注册
+     */
+    public static CompactRedisSerializer compactRedisSerializer() {
+        return new CompactRedisSerializer()
+                .register(1, Result.class)
+                .register(2, PageResult.class)
+                .register(3, CursorPageResult.class)
+                .register(10, SongVO.class)
+                .register(11, SongDetailVO.class)
+                .register(12, PlaylistVO.class)
+                .register(13, PlaylistDetailVO.class)
+                .register(14, CommentVO.class)
+                .register(15, ArtistNameVO.class)
+                .register(16, ForumPostVO.class)
+                .register(17, ForumReplyVO.class)
+                .register(18, SongAdminVO.class)
+                .register(30, Playlist.class);
+    }
+
     /**
      * RedisTemplate 配置
      */
@@ -47,23 +93,60 @@ public class RedisConfig {
     }
 
     /**
-     * RedisCacheManager 配置
+     * 使用紧凑二进制序列化的 RedisTemplate，只能读写已注册的类型
+     */
+    @Bean
+    public RedisTemplate<String, Object> compactRedisTemplate(RedisConnectionFactory redisConnectionFactory) {
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(redisConnectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(compactRedisSerializer());
+        return template;
+    }
+
+    /**
+     * CacheManager 配置：本地 L1 + Redis L2 两级缓存，并支持按依赖标签清除缓存
      */
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
+    public TaggedCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+                                           RedisSubscriber redisSubscriber,
+                                           NearCacheConfig nearCacheConfig,
+                                           CacheGenerations cacheGenerations,
+                                           @Value("${cache-serializer.compact-caches:}") List<String> compactCaches) {
         // Key 序列化器
         RedisSerializer<String> stringSerializer = new StringRedisSerializer();
         // Value 序列化器
         Jackson2JsonRedisSerializer<Object> valueSerializer = jackson2JsonRedisSerializer();
+        // 缓存过期时间 6 小时，依赖标签的过期时间与之相同
+        Duration ttl = Duration.ofHours(6);
 
         // 配置缓存的序列化方式
         RedisCacheConfiguration cacheConfig = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofHours(6)) // 缓存过期时间 6 小时
+                .entryTtl(ttl)
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(stringSerializer))
                 .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(valueSerializer));
 
-        return RedisCacheManager.builder(redisConnectionFactory)
-                .cacheDefaults(cacheConfig)
-                .build();
+        // 按缓存名称选用紧凑二进制序列化
+        RedisCacheConfiguration compactCacheConfig = cacheConfig.serializeValuesWith(
+                RedisSerializationContext.SerializationPair.fromSerializer(compactRedisSerializer()));
+        Map<String, RedisCacheConfiguration> cacheConfigs = new HashMap<>();
+        for (String cacheName : compactCaches) {
+            cacheConfigs.put(cacheName, compactCacheConfig);
+        }
+
+        // key 前缀带缓存代数，清空缓存时递增代数；其余需要按模式删除的场景使用 SCAN 而不是 KEYS
+        StringRedisTemplate stringRedisTemplate = new StringRedisTemplate(redisConnectionFactory);
+        RedisCacheWriter cacheWriter = RedisCacheWriter.nonLockingRedisCacheWriter(redisConnectionFactory, BatchStrategies.scan(1000));
+        VersionedRedisCacheManager redisCacheManager = new VersionedRedisCacheManager(cacheWriter, cacheConfig, cacheConfigs,
+                cacheGenerations, stringRedisTemplate);
+        redisCacheManager.afterPropertiesSet();
+
+        // 本地缓存的失效通过 Redis 发布订阅广播到所有节点
+        String channel = nearCacheConfig.getChannel();
+        NearCacheManager nearCacheManager = new NearCacheManager(redisCacheManager, nearCacheConfig.getCaches(),
+                message -> stringRedisTemplate.convertAndSend(channel, message));
+        redisSubscriber.subscribe(channel, nearCacheManager::onMessage);
+
+        return new TaggedCacheManager(nearCacheManager, stringRedisTemplate, ttl);
     }
 }
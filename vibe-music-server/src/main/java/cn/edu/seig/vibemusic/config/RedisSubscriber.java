@@ -0,0 +1,61 @@
+package cn.edu.seig.vibemusic.config;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Redis 发布订阅
+ * <p>
+ * 监听容器不注册为 Spring Bean，不随应用启动：Redis 暂不可用时不阻止应用启动，
+ * 定时重试直到订阅成功。订阅成功之前的消息会丢失，订阅方需要有兜底（如本地缓存的有效期）。
+ */
+@Slf4j
+@Component
+public class RedisSubscriber {
+
+    private final RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+
+    public RedisSubscriber(RedisConnectionFactory redisConnectionFactory) {
+        container.setConnectionFactory(redisConnectionFactory);
+        container.afterPropertiesSet();
+    }
+
+    /**
+     * 订阅频道
+     *
+     * @param channel 频道
+     * @param handler 消息处理
+     */
+    public void subscribe(String channel, Consumer<String> handler) {
+        container.addMessageListener(
+                (message, pattern) -> handler.accept(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(channel));
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${redis-subscriber.retry-interval:30000}")
+    public void start() {
+        if (container.isListening()) {
+            return;
+        }
+        try {
+            container.start();
+            log.info("Redis 发布订阅已启动");
+        } catch (Exception e) {
+            log.warn("Redis 发布订阅启动失败，稍后重试: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void destroy() throws Exception {
+        container.destroy();
+    }
+
+}
@@ -1,36 +1,78 @@
 package cn.edu.seig.vibemusic.config;
 
+import cn.edu.seig.vibemusic.constant.PathConstant;
+import cn.edu.seig.vibemusic.util.PathTrie;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * 角色权限管理器
+ * <p>
+ * 启动时把直接放行、公开的路径（PathConstant）与各角色可访问的路径前缀（RolePathPermissionsConfig）
+ * 编译为一棵路径前缀树，每个请求只查询一次即得到路由分类：是否直接放行、是否公开以及允许访问的角色。
  */
 @Component
 public class RolePermissionManager {
 
-    private final RolePathPermissionsConfig rolePathPermissionsConfig;
+    private static final long BYPASS = 1L;
+    private static final long PUBLIC = 1L << 1;
+    // 角色从第 2 位开始依次占用一位
+    private static final int FIRST_ROLE_BIT = 2;
+
+    private final PathTrie routes = new PathTrie();
+    // 角色 -> 角色位
+    private final Map<String, Long> roleBits = new HashMap<>();
 
     @Autowired
     public RolePermissionManager(RolePathPermissionsConfig rolePathPermissionsConfig) {
-        this.rolePathPermissionsConfig = rolePathPermissionsConfig;
-    }
-
-    // 判断当前角色是否有权限访问请求的路径
-    public boolean hasPermission(String role, String requestURI) {
+        for (String path : PathConstant.BYPASS_PATHS) {
+            routes.addPattern(path, BYPASS);
+        }
+        for (String path : PathConstant.PUBLIC_PATHS) {
+            routes.addPattern(path, PUBLIC);
+        }
         Map<String, List<String>> permissions = rolePathPermissionsConfig.getPermissions();
-        List<String> allowedPaths = permissions.get(role);
-        if (allowedPaths != null) {
-            for (String path : allowedPaths) {
-                if (requestURI.startsWith(path)) {
-                    return true;
+        if (permissions != null) {
+            for (Map.Entry<String, List<String>> entry : permissions.entrySet()) {
+                if (FIRST_ROLE_BIT + roleBits.size() >= Long.SIZE) {
+                    throw new IllegalArgumentException("role-path-permissions 中的角色数量超过上限");
+                }
+                long roleBit = 1L << (FIRST_ROLE_BIT + roleBits.size());
+                roleBits.put(entry.getKey(), roleBit);
+                for (String path : entry.getValue()) {
+                    routes.addPrefix(path, roleBit);
                 }
             }
         }
-        return false;
     }
-}
 
+    // 查询请求路径的路由分类
+    public long classify(String requestURI) {
+        return routes.match(requestURI);
+    }
+
+    // 是否直接放行（不解析令牌）
+    public static boolean isBypass(long route) {
+        return (route & BYPASS) != 0;
+    }
+
+    // 是否未登录也可以访问
+    public static boolean isPublic(long route) {
+        return (route & PUBLIC) != 0;
+    }
+
+    // 判断当前角色是否有权限访问路由分类对应的路径
+    public boolean hasPermission(String role, long route) {
+        Long roleBit = role == null ? null : roleBits.get(role);
+        return roleBit != null && (route & roleBit) != 0;
+    }
+
+    // 判断当前角色是否有权限访问请求的路径
+    public boolean hasPermission(String role, String requestURI) {
+        return hasPermission(role, classify(requestURI));
+    }
+}
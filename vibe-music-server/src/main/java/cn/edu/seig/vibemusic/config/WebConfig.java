@@ -1,18 +1,27 @@
 package cn.edu.seig.vibemusic.config;
 
+import cn.edu.seig.vibemusic.interceptor.AuthContextArgumentResolver;
+import cn.edu.seig.vibemusic.interceptor.CacheTagsInterceptor;
 import cn.edu.seig.vibemusic.interceptor.LoginInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
     @Autowired
     private LoginInterceptor loginInterceptor;
+    @Autowired
+    private AuthContextArgumentResolver authContextArgumentResolver;
+    @Autowired
+    private CacheTagsInterceptor cacheTagsInterceptor;
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
@@ -28,6 +37,16 @@ public class WebConfig implements WebMvcConfigurer {
                         "/banner/getBannerList", "/song/getAllOriginalSongs"
                 )
                 .order(1);
+        // 所有请求结束时清理缓存标签登记
+        registry.addInterceptor(cacheTagsInterceptor)
+                .addPathPatterns("/**")
+                .order(0);
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        // 控制器方法声明 AuthContext 参数即可获取当前登录信息
+        resolvers.add(authContextArgumentResolver);
     }
 
     @Override
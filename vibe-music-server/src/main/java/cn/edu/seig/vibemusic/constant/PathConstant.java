@@ -5,9 +5,49 @@ public class PathConstant {
     public static final String PLAYLIST_DETAIL_PATH = "/playlist/getPlaylistDetail/**";
     public static final String ARTIST_DETAIL_PATH = "/artist/getArtistDetail/**";
     public static final String SONG_LIST_PATH = "/song/getAllSongs";
+    public static final String SONG_CURSOR_PATH = "/song/getSongsByCursor";
     public static final String SONG_DETAIL_PATH = "/song/getSongDetail/**";
+    public static final String SONG_STREAM_PATH = "/song/stream/**";
+    public static final String SONG_PEAKS_PATH = "/song/peaks/**";
     public static final String FORUM_POSTS_PATH = "/forum/posts";
+    public static final String FORUM_POSTS_CURSOR_PATH = "/forum/posts/cursor";
     public static final String FORUM_POST_DETAIL_PATH = "/forum/postDetail/**";
     public static final String FORUM_REPLIES_PATH = "/forum/replies";
+    public static final String FORUM_REPLIES_CURSOR_PATH = "/forum/replies/cursor";
+    public static final String SONG_COMMENTS_CURSOR_PATH = "/comment/getSongCommentsByCursor";
+
+    // 未登录也可以访问的路径（携带有效令牌时仍会解析登录信息）
+    public static final String[] PUBLIC_PATHS = {
+            PLAYLIST_DETAIL_PATH,
+            ARTIST_DETAIL_PATH,
+            SONG_LIST_PATH,
+            SONG_CURSOR_PATH,
+            SONG_DETAIL_PATH,
+            SONG_STREAM_PATH,
+            SONG_PEAKS_PATH,
+            FORUM_POSTS_PATH,
+            FORUM_POSTS_CURSOR_PATH,
+            FORUM_POST_DETAIL_PATH,
+            FORUM_REPLIES_PATH,
+            FORUM_REPLIES_CURSOR_PATH,
+            SONG_COMMENTS_CURSOR_PATH,
+            "/user/test",
+            "/user/noauth/test",
+            "/user/login",
+            "/user/register",
+            "/admin/login",
+            "/admin/register",
+            "/banner/getBannerList",
+            "/playlist/getAllPlaylists",
+            "/playlist/getRecommendedPlaylists",
+            "/artist/getAllArtists",
+            "/song/getRecommendedSongs"
+    };
+
+    // 直接放行、不解析令牌的路径
+    public static final String[] BYPASS_PATHS = {
+            "/user/sendVerificationCode",
+            "/user/resetUserPassword"
+    };
 
 }
@@ -5,12 +5,18 @@ import cn.edu.seig.vibemusic.model.dto.*;
 import cn.edu.seig.vibemusic.model.entity.Artist;
 import cn.edu.seig.vibemusic.model.entity.Playlist;
 import cn.edu.seig.vibemusic.model.vo.ArtistNameVO;
+import cn.edu.seig.vibemusic.model.vo.CacheStatsVO;
+import cn.edu.seig.vibemusic.model.vo.MailStatsVO;
 import cn.edu.seig.vibemusic.model.vo.SongAdminVO;
+import cn.edu.seig.vibemusic.model.vo.StorageDeletionStatsVO;
+import cn.edu.seig.vibemusic.model.vo.StorageReconcileStatusVO;
 import cn.edu.seig.vibemusic.model.vo.UserManagementVO;
 import cn.edu.seig.vibemusic.result.PageResult;
 import cn.edu.seig.vibemusic.result.Result;
 import cn.edu.seig.vibemusic.service.*;
 import cn.edu.seig.vibemusic.service.IAuditService;
+import cn.edu.seig.vibemusic.util.AudioAnalyzer;
+import cn.edu.seig.vibemusic.util.AuthContext;
 import cn.edu.seig.vibemusic.util.BindingResultUtil;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -46,6 +52,8 @@ public class AdminController {
     @Autowired
     private MinioService minioService;
     @Autowired
+    private AudioAnalysisService audioAnalysisService;
+    @Autowired
     private IAuditService auditService;
 
     /**
@@ -87,12 +95,85 @@ public class AdminController {
     /**
      * 登出
      *
-     * @param token 认证token
+     * @param authContext 当前登录信息
      * @return 结果
      */
     @PostMapping("/logout")
-    public Result logout(@RequestHeader("Authorization") String token) {
-        return adminService.logout(token);
+    public Result logout(AuthContext authContext) {
+        return adminService.logout(authContext);
+    }
+
+    /**
+     * 获取缓存统计信息
+     *
+     * @return 各缓存的命中、未命中与清除次数
+     */
+    @GetMapping("/getCacheStats")
+    public Result<List<CacheStatsVO>> getCacheStats() {
+        return adminService.getCacheStats();
+    }
+
+    /**
+     * 获取对象存储删除队列统计信息
+     *
+     * @return 待删除、失败数量与删除计数
+     */
+    @GetMapping("/getStorageDeletionStats")
+    public Result<StorageDeletionStatsVO> getStorageDeletionStats() {
+        return adminService.getStorageDeletionStats();
+    }
+
+    /**
+     * 获取邮件发送队列统计信息
+     *
+     * @return 队列长度、连接数、发送计数与耗时
+     */
+    @GetMapping("/getMailStats")
+    public Result<MailStatsVO> getMailStats() {
+        return adminService.getMailStats();
+    }
+
+    /**
+     * 重试删除失败的对象
+     *
+     * @return 结果
+     */
+    @PostMapping("/retryStorageDeletions")
+    public Result retryStorageDeletions() {
+        return adminService.retryStorageDeletions();
+    }
+
+    /**
+     * 开始对象存储核对，找出孤立对象与断链
+     *
+     * @param deleteOrphans 是否删除孤立对象，默认只报告
+     * @param restart       是否丢弃上次未完成的进度重新开始
+     * @return 结果
+     */
+    @PostMapping("/startStorageReconcile")
+    public Result startStorageReconcile(@RequestParam(defaultValue = "false") boolean deleteOrphans,
+                                        @RequestParam(defaultValue = "false") boolean restart) {
+        return adminService.startStorageReconcile(deleteOrphans, restart);
+    }
+
+    /**
+     * 停止对象存储核对
+     *
+     * @return 结果
+     */
+    @PostMapping("/stopStorageReconcile")
+    public Result stopStorageReconcile() {
+        return adminService.stopStorageReconcile();
+    }
+
+    /**
+     * 获取对象存储核对进度与结果
+     *
+     * @return 进度、孤立对象与断链
+     */
+    @GetMapping("/getStorageReconcileStatus")
+    public Result<StorageReconcileStatusVO> getStorageReconcileStatus() {
+        return adminService.getStorageReconcileStatus();
     }
 
     /**********************************************************************************************/
@@ -346,8 +427,11 @@ public class AdminController {
      */
     @PatchMapping("/updateSongAudio/{id}")
     public Result updateSongAudio(@PathVariable("id") Long songId, @RequestParam("audio") MultipartFile audio, @RequestParam("duration") String duration) {
-        String audioUrl = minioService.uploadFile(audio, "songs");  // 上传到 songs 目录
-        return songService.updateSongAudio(songId, audioUrl, duration);
+        // 上传到 songs 目录，同时分析时长与波形，能够分析时以服务端计算的时长为准
+        AudioAnalyzer analyzer = audioAnalysisService.createAnalyzer(audio.getOriginalFilename());
+        String audioUrl = minioService.uploadFile(audio, "songs", analyzer);
+        AudioAnalyzer.Analysis analysis = audioAnalysisService.saveAnalysis(audioUrl, analyzer);
+        return songService.updateSongAudio(songId, audioUrl, analysis != null ? analysis.durationSeconds() : duration);
     }
 
     /**
@@ -7,7 +7,7 @@ import cn.edu.seig.vibemusic.model.vo.ArtistVO;
 import cn.edu.seig.vibemusic.result.PageResult;
 import cn.edu.seig.vibemusic.result.Result;
 import cn.edu.seig.vibemusic.service.IArtistService;
-import jakarta.servlet.http.HttpServletRequest;
+import cn.edu.seig.vibemusic.util.AuthContext;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -58,8 +58,8 @@ public class ArtistController {
      * @return 歌手详情
      */
     @GetMapping("/getArtistDetail/{id}")
-    public Result<ArtistDetailVO> getArtistDetail(@PathVariable("id") Long artistId, HttpServletRequest request) {
-        return artistService.getArtistDetail(artistId, request);
+    public Result<ArtistDetailVO> getArtistDetail(@PathVariable("id") Long artistId, AuthContext authContext) {
+        return artistService.getArtistDetail(artistId, authContext);
     }
 
 }
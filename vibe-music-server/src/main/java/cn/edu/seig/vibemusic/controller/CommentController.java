@@ -1,10 +1,14 @@
 package cn.edu.seig.vibemusic.controller;
 
 
+import cn.edu.seig.vibemusic.model.dto.CommentCursorDTO;
 import cn.edu.seig.vibemusic.model.dto.CommentPlaylistDTO;
 import cn.edu.seig.vibemusic.model.dto.CommentSongDTO;
+import cn.edu.seig.vibemusic.model.vo.CommentVO;
+import cn.edu.seig.vibemusic.result.CursorPageResult;
 import cn.edu.seig.vibemusic.result.Result;
 import cn.edu.seig.vibemusic.service.ICommentService;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
@@ -23,6 +27,17 @@ public class CommentController {
     @Autowired
     private ICommentService commentService;
 
+    /**
+     * 游标分页获取歌曲评论（最新 / 最多点赞）
+     *
+     * @param commentCursorDTO 歌曲id、排序方式与游标
+     * @return 评论列表
+     */
+    @PostMapping("/getSongCommentsByCursor")
+    public Result<CursorPageResult<CommentVO>> getSongCommentsByCursor(@RequestBody @Valid CommentCursorDTO commentCursorDTO) {
+        return commentService.getSongCommentsByCursor(commentCursorDTO);
+    }
+
     /**
      * 新增歌曲评论
      *
@@ -48,6 +48,17 @@ public class ForumController {
         return forumPostService.getPostList(forumPostDTO);
     }
 
+    /**
+     * 游标分页获取帖子列表
+     *
+     * @param forumPostDTO 查询条件
+     * @return 帖子列表
+     */
+    @PostMapping("/posts/cursor")
+    public Result getPostListByCursor(@RequestBody ForumPostDTO forumPostDTO) {
+        return forumPostService.getPostListByCursor(forumPostDTO);
+    }
+
     /**
      * 获取帖子详情
      *
@@ -70,6 +81,7 @@ public class ForumController {
      * @param budget 预算（仅需求时使用）
      * @param styleDescription 风格描述（仅需求时使用）
      * @param referenceAttachmentFile 参考附件文件（仅需求时使用）
+     * @param referenceAttachmentUploadId 断点续传上传的参考附件会话id（可选，与附件文件二选一）
      * @return 结果
      */
     @PostMapping("/post")
@@ -81,7 +93,8 @@ public class ForumController {
             @RequestParam(value = "timeRequirement", required = false) String timeRequirement,
             @RequestParam(value = "budget", required = false) String budget,
             @RequestParam(value = "styleDescription", required = false) String styleDescription,
-            @RequestParam(value = "referenceAttachmentFile", required = false) MultipartFile referenceAttachmentFile) {
+            @RequestParam(value = "referenceAttachmentFile", required = false) MultipartFile referenceAttachmentFile,
+            @RequestParam(value = "referenceAttachmentUploadId", required = false) String referenceAttachmentUploadId) {
         
         ForumPostAddDTO forumPostAddDTO = new ForumPostAddDTO();
         forumPostAddDTO.setTitle(title);
@@ -91,6 +104,7 @@ public class ForumController {
         forumPostAddDTO.setTimeRequirement(timeRequirement);
         forumPostAddDTO.setBudget(budget);
         forumPostAddDTO.setStyleDescription(styleDescription);
+        forumPostAddDTO.setReferenceAttachmentUploadId(referenceAttachmentUploadId);
         
         return forumPostService.addPost(forumPostAddDTO, referenceAttachmentFile);
     }
@@ -154,6 +168,7 @@ public class ForumController {
      * @param budget 预算（仅需求时使用）
      * @param styleDescription 风格描述（仅需求时使用）
      * @param referenceAttachmentFile 参考附件文件（可选）
+     * @param referenceAttachmentUploadId 断点续传上传的参考附件会话id（可选，与附件文件二选一）
      * @return 结果
      */
     @PostMapping("/post/{id}/update")
@@ -166,7 +181,8 @@ public class ForumController {
             @RequestParam(value = "timeRequirement", required = false) String timeRequirement,
             @RequestParam(value = "budget", required = false) String budget,
             @RequestParam(value = "styleDescription", required = false) String styleDescription,
-            @RequestParam(value = "referenceAttachmentFile", required = false) MultipartFile referenceAttachmentFile) {
+            @RequestParam(value = "referenceAttachmentFile", required = false) MultipartFile referenceAttachmentFile,
+            @RequestParam(value = "referenceAttachmentUploadId", required = false) String referenceAttachmentUploadId) {
         
         ForumPostAddDTO forumPostAddDTO = new ForumPostAddDTO();
         forumPostAddDTO.setPostId(postId);
@@ -177,6 +193,7 @@ public class ForumController {
         forumPostAddDTO.setTimeRequirement(timeRequirement);
         forumPostAddDTO.setBudget(budget);
         forumPostAddDTO.setStyleDescription(styleDescription);
+        forumPostAddDTO.setReferenceAttachmentUploadId(referenceAttachmentUploadId);
         
         return forumPostService.updatePost(forumPostAddDTO, referenceAttachmentFile);
     }
@@ -194,6 +211,17 @@ public class ForumController {
         return forumReplyService.getReplyList(forumReplyDTO);
     }
 
+    /**
+     * 游标分页获取帖子的回复列表
+     *
+     * @param forumReplyDTO 查询条件
+     * @return 回复列表
+     */
+    @PostMapping("/replies/cursor")
+    public Result getReplyListByCursor(@RequestBody ForumReplyDTO forumReplyDTO) {
+        return forumReplyService.getReplyListByCursor(forumReplyDTO);
+    }
+
     /**
      * 发布回复
      *
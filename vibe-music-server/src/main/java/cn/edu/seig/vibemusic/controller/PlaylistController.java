@@ -7,7 +7,7 @@ import cn.edu.seig.vibemusic.model.vo.PlaylistVO;
 import cn.edu.seig.vibemusic.result.PageResult;
 import cn.edu.seig.vibemusic.result.Result;
 import cn.edu.seig.vibemusic.service.IPlaylistService;
-import jakarta.servlet.http.HttpServletRequest;
+import cn.edu.seig.vibemusic.util.AuthContext;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -43,12 +43,12 @@ public class PlaylistController {
     /**
      * 获取推荐歌单
      *
-     * @param request request
+     * @param authContext 当前登录信息
      * @return 推荐歌单列表
      */
     @GetMapping("/getRecommendedPlaylists")
-    public Result<List<PlaylistVO>> getRandomPlaylists(HttpServletRequest request) {
-        return playlistService.getRecommendedPlaylists(request);
+    public Result<List<PlaylistVO>> getRandomPlaylists(AuthContext authContext) {
+        return playlistService.getRecommendedPlaylists(authContext);
     }
 
     /**
@@ -58,8 +58,8 @@ public class PlaylistController {
      * @return 歌单详情
      */
     @GetMapping("/getPlaylistDetail/{id}")
-    public Result<PlaylistDetailVO> getPlaylistDetail(@PathVariable("id") Long playlistId, HttpServletRequest request) {
-        return playlistService.getPlaylistDetail(playlistId, request);
+    public Result<PlaylistDetailVO> getPlaylistDetail(@PathVariable("id") Long playlistId, AuthContext authContext) {
+        return playlistService.getPlaylistDetail(playlistId, authContext);
     }
 
 
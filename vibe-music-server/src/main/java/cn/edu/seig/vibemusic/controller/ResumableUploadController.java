@@ -0,0 +1,84 @@
+package cn.edu.seig.vibemusic.controller;
+
+import cn.edu.seig.vibemusic.model.dto.ResumableUploadCreateDTO;
+import cn.edu.seig.vibemusic.model.vo.ResumableUploadVO;
+import cn.edu.seig.vibemusic.result.Result;
+import cn.edu.seig.vibemusic.service.ResumableUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * <p>
+ * 断点续传控制器
+ * </p>
+ */
+@RestController
+@RequestMapping("/upload/resumable")
+public class ResumableUploadController {
+
+    @Autowired
+    private ResumableUploadService resumableUploadService;
+
+    /**
+     * 创建上传会话
+     *
+     * @param resumableUploadCreateDTO 上传用途与文件信息
+     * @return 会话状态，包含分片大小与分片数量
+     */
+    @PostMapping
+    public Result<ResumableUploadVO> createUpload(@RequestBody @Valid ResumableUploadCreateDTO resumableUploadCreateDTO) {
+        return resumableUploadService.createUpload(resumableUploadCreateDTO);
+    }
+
+    /**
+     * 上传一个分片，请求体为分片的原始字节
+     *
+     * @param uploadId 会话id
+     * @param index    分片序号，从 0 开始
+     * @return 会话状态
+     */
+    @PutMapping("/{uploadId}/chunks/{index}")
+    public Result<ResumableUploadVO> uploadChunk(@PathVariable("uploadId") String uploadId,
+                                                 @PathVariable("index") Integer index,
+                                                 HttpServletRequest request) throws IOException {
+        return resumableUploadService.uploadChunk(uploadId, index, request.getContentLengthLong(), request.getInputStream());
+    }
+
+    /**
+     * 查询上传进度
+     *
+     * @param uploadId 会话id
+     * @return 会话状态
+     */
+    @GetMapping("/{uploadId}")
+    public Result<ResumableUploadVO> getUpload(@PathVariable("uploadId") String uploadId) {
+        return resumableUploadService.getUpload(uploadId);
+    }
+
+    /**
+     * 合并全部分片
+     *
+     * @param uploadId 会话id
+     * @return 会话状态
+     */
+    @PostMapping("/{uploadId}/complete")
+    public Result<ResumableUploadVO> completeUpload(@PathVariable("uploadId") String uploadId) {
+        return resumableUploadService.completeUpload(uploadId);
+    }
+
+    /**
+     * 取消上传
+     *
+     * @param uploadId 会话id
+     * @return 结果
+     */
+    @DeleteMapping("/{uploadId}")
+    public Result abortUpload(@PathVariable("uploadId") String uploadId) {
+        return resumableUploadService.abortUpload(uploadId);
+    }
+
+}
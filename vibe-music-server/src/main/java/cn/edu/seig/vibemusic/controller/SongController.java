@@ -1,19 +1,28 @@
 package cn.edu.seig.vibemusic.controller;
 
 
+import cn.edu.seig.vibemusic.model.dto.SongCursorDTO;
 import cn.edu.seig.vibemusic.model.dto.SongDTO;
 import cn.edu.seig.vibemusic.model.dto.SongUploadDTO;
+import cn.edu.seig.vibemusic.model.dto.SongUploadFinalizeDTO;
+import cn.edu.seig.vibemusic.model.dto.SongUploadPresignDTO;
 import cn.edu.seig.vibemusic.model.vo.SongDetailVO;
+import cn.edu.seig.vibemusic.model.vo.SongUploadPresignVO;
 import cn.edu.seig.vibemusic.model.vo.SongVO;
+import cn.edu.seig.vibemusic.result.CursorPageResult;
 import cn.edu.seig.vibemusic.result.PageResult;
 import cn.edu.seig.vibemusic.result.Result;
+import cn.edu.seig.vibemusic.service.AudioStreamService;
 import cn.edu.seig.vibemusic.service.ISongService;
+import cn.edu.seig.vibemusic.util.AuthContext;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -30,6 +39,8 @@ public class SongController {
 
     @Autowired
     private ISongService songService;
+    @Autowired
+    private AudioStreamService audioStreamService;
 
     /**
      * 获取所有歌曲
@@ -38,20 +49,31 @@ public class SongController {
      * @return 歌曲列表
      */
     @PostMapping("/getAllSongs")
-    public Result<PageResult<SongVO>> getAllSongs(@RequestBody @Valid SongDTO songDTO, HttpServletRequest request) {
-        return songService.getAllSongs(songDTO, request);
+    public Result<PageResult<SongVO>> getAllSongs(@RequestBody @Valid SongDTO songDTO, AuthContext authContext) {
+        return songService.getAllSongs(songDTO, authContext);
+    }
+
+    /**
+     * 游标分页获取歌曲
+     *
+     * @param songCursorDTO songCursorDTO
+     * @return 歌曲列表
+     */
+    @PostMapping("/getSongsByCursor")
+    public Result<CursorPageResult<SongVO>> getSongsByCursor(@RequestBody @Valid SongCursorDTO songCursorDTO, AuthContext authContext) {
+        return songService.getSongsByCursor(songCursorDTO, authContext);
     }
 
     /**
      * 获取推荐歌曲
      * 推荐歌曲的数量为 20
      *
-     * @param request 请求
+     * @param authContext 当前登录信息
      * @return 推荐歌曲列表
      */
     @GetMapping("/getRecommendedSongs")
-    public Result<List<SongVO>> getRecommendedSongs(HttpServletRequest request) {
-        return songService.getRecommendedSongs(request);
+    public Result<List<SongVO>> getRecommendedSongs(AuthContext authContext) {
+        return songService.getRecommendedSongs(authContext);
     }
 
     /**
@@ -61,8 +83,28 @@ public class SongController {
      * @return 歌曲详情
      */
     @GetMapping("/getSongDetail/{id}")
-    public Result<SongDetailVO> getSongDetail(@PathVariable("id") Long songId, HttpServletRequest request) {
-        return songService.getSongDetail(songId, request);
+    public Result<SongDetailVO> getSongDetail(@PathVariable("id") Long songId, AuthContext authContext) {
+        return songService.getSongDetail(songId, authContext);
+    }
+
+    /**
+     * 播放歌曲音频，支持 Range 请求
+     *
+     * @param songId 歌曲id
+     */
+    @GetMapping("/stream/{id}")
+    public void streamSong(@PathVariable("id") Long songId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        audioStreamService.streamSong(songId, request, response);
+    }
+
+    /**
+     * 获取歌曲波形，用于播放器进度条
+     *
+     * @param songId 歌曲id
+     */
+    @GetMapping("/peaks/{id}")
+    public void getSongPeaks(@PathVariable("id") Long songId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        audioStreamService.writePeaks(songId, request, response);
     }
 
     /**
@@ -113,6 +155,28 @@ public class SongController {
         return songService.uploadOriginalSong(songUploadDTO);
     }
 
+    /**
+     * 申请原创歌曲直传地址：客户端随后使用预签名地址把文件直接 PUT 到对象存储
+     *
+     * @param songUploadPresignDTO 待上传文件的文件名与大小
+     * @return 上传id与各文件的直传地址
+     */
+    @PostMapping("/presignOriginalSongUpload")
+    public Result<SongUploadPresignVO> presignOriginalSongUpload(@RequestBody @Valid SongUploadPresignDTO songUploadPresignDTO) {
+        return songService.presignOriginalSongUpload(songUploadPresignDTO);
+    }
+
+    /**
+     * 完成原创歌曲直传：校验已上传的文件并创建歌曲
+     *
+     * @param songUploadFinalizeDTO 上传id与歌曲信息
+     * @return 上传结果
+     */
+    @PostMapping("/finalizeOriginalSongUpload")
+    public Result finalizeOriginalSongUpload(@RequestBody @Valid SongUploadFinalizeDTO songUploadFinalizeDTO) {
+        return songService.finalizeOriginalSongUpload(songUploadFinalizeDTO);
+    }
+
     /**
      * 获取用户原创歌曲
      *
@@ -7,6 +7,7 @@ import cn.edu.seig.vibemusic.model.vo.UserVO;
 import cn.edu.seig.vibemusic.result.Result;
 import cn.edu.seig.vibemusic.service.IUserService;
 import cn.edu.seig.vibemusic.service.MinioService;
+import cn.edu.seig.vibemusic.util.AuthContext;
 import cn.edu.seig.vibemusic.util.BindingResultUtil;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Email;
@@ -152,19 +153,19 @@ public class UserController {
      * 更新用户密码
      *
      * @param userPasswordDTO 用户密码信息
-     * @param token           认证token
+     * @param authContext     当前登录信息
      * @return 结果
      */
     @PatchMapping("/updateUserPassword")
-    public Result updateUserPassword(@RequestBody @Valid UserPasswordDTO userPasswordDTO,
-                                     @RequestHeader("Authorization") String token, BindingResult bindingResult) {
+    public Result updateUserPassword(@RequestBody @Valid UserPasswordDTO userPasswordDTO, BindingResult bindingResult,
+                                     AuthContext authContext) {
         // 校验失败时，返回错误信息
         String errorMessage = BindingResultUtil.handleBindingResultErrors(bindingResult);
         if (errorMessage != null) {
             return Result.error(errorMessage);
         }
 
-        return userService.updateUserPassword(userPasswordDTO, token);
+        return userService.updateUserPassword(userPasswordDTO, authContext);
     }
 
     /**
@@ -193,12 +194,12 @@ public class UserController {
     /**
      * 登出
      *
-     * @param token 认证token
+     * @param authContext 当前登录信息
      * @return 结果
      */
     @PostMapping("/logout")
-    public Result logout(@RequestHeader("Authorization") String token) {
-        return userService.logout(token);
+    public Result logout(AuthContext authContext) {
+        return userService.logout(authContext);
     }
 
     /**
@@ -1,9 +1,11 @@
 package cn.edu.seig.vibemusic.controller;
 
 import cn.edu.seig.vibemusic.model.dto.PlaylistDTO;
+import cn.edu.seig.vibemusic.model.dto.SongCursorDTO;
 import cn.edu.seig.vibemusic.model.dto.SongDTO;
 import cn.edu.seig.vibemusic.model.vo.PlaylistVO;
 import cn.edu.seig.vibemusic.model.vo.SongVO;
+import cn.edu.seig.vibemusic.result.CursorPageResult;
 import cn.edu.seig.vibemusic.result.PageResult;
 import cn.edu.seig.vibemusic.result.Result;
 import cn.edu.seig.vibemusic.service.IUserFavoriteService;
@@ -36,6 +38,16 @@ public class UserFavoriteController {
         return userFavoriteService.getUserFavoriteSongs(songDTO);
     }
 
+    /**
+     * 游标分页获取用户收藏的歌曲列表
+     *
+     * @return 用户收藏的歌曲列表
+     */
+    @PostMapping("/getFavoriteSongsByCursor")
+    public Result<CursorPageResult<SongVO>> getFavoriteSongsByCursor(@RequestBody @Valid SongCursorDTO songCursorDTO) {
+        return userFavoriteService.getFavoriteSongsByCursor(songCursorDTO);
+    }
+
     /**
      * 收藏歌曲
      *
@@ -0,0 +1,26 @@
+package cn.edu.seig.vibemusic.enumeration;
+
+import lombok.Getter;
+
+/**
+ * 受配额限制的用户操作，限额在配置文件 quota.limits 中按 key 声明
+ */
+@Getter
+public enum QuotaActionEnum {
+
+    SONG_UPLOAD("song-upload", "上传原创歌曲"),
+    FORUM_POST("forum-post", "发布帖子"),
+    FORUM_REPLY("forum-reply", "回复"),
+    COMMENT("comment", "评论"),
+    ORDER_APPLY("order-apply", "申请接单"),
+    ATTACHMENT_UPLOAD("attachment-upload", "上传帖子附件");
+
+    private final String key;
+    private final String action;
+
+    QuotaActionEnum(String key, String action) {
+        this.key = key;
+        this.action = action;
+    }
+
+}
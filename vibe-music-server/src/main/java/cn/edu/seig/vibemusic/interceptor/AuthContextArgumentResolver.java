@@ -0,0 +1,33 @@
+package cn.edu.seig.vibemusic.interceptor;
+
+import cn.edu.seig.vibemusic.util.AuthContext;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * 为控制器方法中的 AuthContext 参数注入当前请求的登录信息
+ * <p>
+ * 登录信息由 {@link LoginInterceptor} 解析后存入请求属性；
+ * 不经过登录拦截器的路径、未登录或令牌失效时注入 {@link AuthContext#ANONYMOUS}。
+ */
+@Component
+public class AuthContextArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return AuthContext.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Object authContext = webRequest.getAttribute(LoginInterceptor.AUTH_CONTEXT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        return authContext instanceof AuthContext ? authContext : AuthContext.current();
+    }
+
+}
@@ -0,0 +1,22 @@
+package cn.edu.seig.vibemusic.interceptor;
+
+import cn.edu.seig.vibemusic.cache.CacheTags;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * 请求结束时丢弃当前线程遗留的缓存标签登记
+ * <p>
+ * 被缓存的方法抛出异常时，未命中时开始的登记不会结束；Tomcat 线程会被复用，
+ * 遗留的帧须在请求结束时清理，否则之后的标签会合并到错误的缓存条目。
+ */
+@Component
+public class CacheTagsInterceptor implements HandlerInterceptor {
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        CacheTags.reset();
+    }
+}
@@ -2,31 +2,26 @@ package cn.edu.seig.vibemusic.interceptor;
 
 
 import cn.edu.seig.vibemusic.config.RolePermissionManager;
-import cn.edu.seig.vibemusic.constant.JwtClaimsConstant;
 import cn.edu.seig.vibemusic.constant.MessageConstant;
-import cn.edu.seig.vibemusic.constant.PathConstant;
-import cn.edu.seig.vibemusic.util.JwtUtil;
+import cn.edu.seig.vibemusic.service.SessionService;
+import cn.edu.seig.vibemusic.util.AuthContext;
 import cn.edu.seig.vibemusic.util.ThreadLocalUtil;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
-import org.springframework.util.PathMatcher;
 import org.springframework.web.servlet.HandlerInterceptor;
 
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Map;
 
 @Component
 public class LoginInterceptor implements HandlerInterceptor {
 
+    // 请求属性：当前请求的登录信息，由 AuthContextArgumentResolver 注入控制器
+    public static final String AUTH_CONTEXT_ATTRIBUTE = AuthContext.class.getName();
+
     @Autowired
-    private StringRedisTemplate stringRedisTemplate;
+    private SessionService sessionService;
     @Autowired
     private RolePermissionManager rolePermissionManager;
 
@@ -46,9 +41,11 @@ public class LoginInterceptor implements HandlerInterceptor {
         }
 
         String path = request.getRequestURI();
+        // 路由分类在启动时编译为前缀树，每个请求只查询一次
+        long route = rolePermissionManager.classify(path);
 
         // 直接放行验证码相关接口
-        if (path.equals("/user/sendVerificationCode") || path.equals("/user/resetUserPassword")) {
+        if (RolePermissionManager.isBypass(route)) {
             return true;
         }
 
@@ -58,84 +55,40 @@ public class LoginInterceptor implements HandlerInterceptor {
             token = token.substring(7); // 去掉 "Bearer " 前缀
         }
 
-        // 获取 Spring 的 PathMatcher 实例
-        PathMatcher pathMatcher = new AntPathMatcher();
-
-        // 定义允许访问的路径（未登录用户也可以访问）
-        List<String> allowedPaths = Arrays.asList(
-                PathConstant.PLAYLIST_DETAIL_PATH,
-                PathConstant.ARTIST_DETAIL_PATH,
-                PathConstant.SONG_LIST_PATH,
-                PathConstant.SONG_DETAIL_PATH,
-                PathConstant.FORUM_POSTS_PATH,
-                PathConstant.FORUM_POST_DETAIL_PATH,
-                PathConstant.FORUM_REPLIES_PATH,
-                "/user/sendVerificationCode",
-                "/user/resetUserPassword"
-        );
-
-        // 检查路径是否匹配（公开路径）
-        boolean isAllowedPath = allowedPaths.stream()
-                .anyMatch(pattern -> pathMatcher.match(pattern, path));
-        
-        // 检查是否是直接放行的公开接口
-        boolean isPublicPath = path.equals("/user/sendVerificationCode") ||
-            path.equals("/user/resetUserPassword") ||
-            path.equals("/user/test") ||
-            path.equals("/user/noauth/test") ||
-            path.equals("/user/login") ||
-            path.equals("/user/register") ||
-            path.equals("/admin/login") ||
-            path.equals("/admin/register") ||
-            path.equals("/banner/getBannerList") ||
-            path.startsWith("/playlist/getPlaylistDetail/") ||
-            path.startsWith("/artist/getArtistDetail/") ||
-            path.startsWith("/song/getSongDetail/") ||
-            path.equals("/playlist/getAllPlaylists") ||
-            path.equals("/playlist/getRecommendedPlaylists") ||
-            path.equals("/artist/getAllArtists") ||
-            path.equals("/song/getAllSongs") ||
-            path.equals("/song/getRecommendedSongs") ||
-            path.equals("/forum/posts") ||
-            path.startsWith("/forum/postDetail/") ||
-            path.equals("/forum/replies");
+        // 是否是公开路径（未登录用户也可以访问）
+        boolean isPublicPath = RolePermissionManager.isPublic(route);
 
         // 如果没有token，只允许访问公开路径
         if (token == null || token.isEmpty()) {
-            if (isAllowedPath || isPublicPath) {
+            if (isPublicPath) {
                 return true; // 允许未登录用户访问这些路径
             }
             sendErrorResponse(response, 401, MessageConstant.NOT_LOGIN); // 缺少令牌
             return false;
         }
 
-        // 如果有token，验证token并设置ThreadLocal（即使路径是公开的）
+        // 如果有token，验证token并保存登录信息（即使路径是公开的）
         try {
-            // 从redis中获取相同的token
-            ValueOperations<String, String> operations = stringRedisTemplate.opsForValue();
-            String redisToken = operations.get(token);
-            if (redisToken == null) {
+            // 优先使用本地缓存的登录信息，未命中时验证签名，会话可能已注销时才查询 redis
+            AuthContext authContext = sessionService.authenticate(token);
+            if (authContext == null) {
                 // token失效，如果是公开路径，仍然允许访问
-                if (isAllowedPath || isPublicPath) {
+                if (isPublicPath) {
                     return true;
                 }
                 throw new RuntimeException();
             }
 
-            Map<String, Object> claims = JwtUtil.parseToken(token);
-            String role = (String) claims.get(JwtClaimsConstant.ROLE);
-            String requestURI = request.getRequestURI();
-
-            // 如果是公开路径，直接设置ThreadLocal并放行
-            if (isAllowedPath || isPublicPath) {
-                ThreadLocalUtil.set(claims);
+            // 如果是公开路径，直接保存登录信息并放行
+            if (isPublicPath) {
+                bind(request, authContext);
                 return true;
             }
 
             // 非公开路径需要检查权限
-            if (rolePermissionManager.hasPermission(role, requestURI)) {
-                // 把业务数据存储到ThreadLocal中
-                ThreadLocalUtil.set(claims);
+            if (rolePermissionManager.hasPermission(authContext.getRole(), route)) {
+                // 把登录信息存储到请求属性与ThreadLocal中
+                bind(request, authContext);
                 return true;
             } else {
                 sendErrorResponse(response, 403, MessageConstant.NO_PERMISSION); // 无权限访问
@@ -143,7 +96,7 @@ public class LoginInterceptor implements HandlerInterceptor {
             }
         } catch (Exception e) {
             // token验证失败，如果是公开路径，仍然允许访问
-            if (isAllowedPath || isPublicPath) {
+            if (isPublicPath) {
                 return true;
             }
             sendErrorResponse(response, 401, MessageConstant.SESSION_EXPIRED); // 令牌无效
@@ -151,6 +104,11 @@ public class LoginInterceptor implements HandlerInterceptor {
         }
     }
 
+    private void bind(HttpServletRequest request, AuthContext authContext) {
+        request.setAttribute(AUTH_CONTEXT_ATTRIBUTE, authContext);
+        ThreadLocalUtil.set(authContext);
+    }
+
     @Override
     public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) throws Exception {
         // 清空ThreadLocal中的数据
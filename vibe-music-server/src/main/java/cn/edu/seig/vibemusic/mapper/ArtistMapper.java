@@ -4,6 +4,7 @@ import cn.edu.seig.vibemusic.model.entity.Artist;
 import cn.edu.seig.vibemusic.model.vo.ArtistDetailVO;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.session.ResultHandler;
 
 /**
  * <p>
@@ -19,4 +20,7 @@ public interface ArtistMapper extends BaseMapper<Artist> {
     // 根据id查询歌手详情
     ArtistDetailVO getArtistDetailById(Long artistId);
 
+    // 流式扫描可展示的歌手id（原创歌手需上传过已通过审核的原创歌曲，随机抽样）
+    void scanVisibleArtistIds(ResultHandler<Long> handler);
+
 }
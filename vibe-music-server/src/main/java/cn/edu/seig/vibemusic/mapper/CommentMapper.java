@@ -1,8 +1,13 @@
 package cn.edu.seig.vibemusic.mapper;
 
 import cn.edu.seig.vibemusic.model.entity.Comment;
+import cn.edu.seig.vibemusic.model.vo.CommentVO;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * <p>
@@ -15,4 +20,19 @@ import org.apache.ibatis.annotations.Mapper;
 @Mapper
 public interface CommentMapper extends BaseMapper<Comment> {
 
+    // 游标分页查询歌曲的已通过审核的评论（按评论时间、评论id倒序）
+    List<CommentVO> getLatestSongComments(@Param("songId") Long songId,
+                                          @Param("createTime") LocalDateTime createTime,
+                                          @Param("commentId") Long commentId,
+                                          @Param("limit") int limit);
+
+    // 游标分页查询歌曲的已通过审核的评论（按点赞数、评论id倒序）
+    List<CommentVO> getHotSongComments(@Param("songId") Long songId,
+                                       @Param("likeCount") Long likeCount,
+                                       @Param("commentId") Long commentId,
+                                       @Param("limit") int limit);
+
+    // 统计歌曲的已通过审核的评论数量
+    Long countSongComments(@Param("songId") Long songId);
+
 }
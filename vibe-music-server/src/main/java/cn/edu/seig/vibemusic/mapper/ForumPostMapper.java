@@ -9,6 +9,9 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 /**
  * <p>
  * 论坛帖子 Mapper 接口
@@ -82,12 +85,27 @@ public interface ForumPostMapper extends BaseMapper<ForumPost> {
     IPage<ForumPostVO> getUserPosts(Page<ForumPostVO> page, @Param("userId") Long userId, @Param("auditStatus") Integer auditStatus);
 
     /**
-     * 统计用户当日发布帖子数量
+     * 游标分页查询帖子列表（按 置顶、创建时间、id 倒序）
      *
-     * @param userId 用户ID
-     * @return 当日发布帖子数量
+     * @param keyword    搜索关键词
+     * @param type       帖子类型：0-交流，1-需求，null-全部
+     * @param isTop      上一页最后一条的置顶状态，首页为 null
+     * @param createTime 上一页最后一条的创建时间
+     * @param postId     上一页最后一条的帖子ID
+     * @param limit      查询条数
+     * @return 帖子列表
      */
-    Integer countUserTodayPosts(@Param("userId") Long userId);
+    List<ForumPostVO> selectPostsByCursor(@Param("keyword") String keyword, @Param("type") Integer type,
+                                          @Param("isTop") Integer isTop, @Param("createTime") LocalDateTime createTime,
+                                          @Param("postId") Long postId, @Param("limit") int limit);
 
-}
+    /**
+     * 统计帖子列表总数
+     *
+     * @param keyword 搜索关键词
+     * @param type    帖子类型：0-交流，1-需求，null-全部
+     * @return 帖子总数
+     */
+    Long countPosts(@Param("keyword") String keyword, @Param("type") Integer type);
 
+}
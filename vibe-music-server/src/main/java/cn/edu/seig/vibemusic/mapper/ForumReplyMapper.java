@@ -8,6 +8,7 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -56,5 +57,24 @@ public interface ForumReplyMapper extends BaseMapper<ForumReply> {
      */
     IPage<ForumReplyVO> getUserReplies(Page<ForumReplyVO> page, @Param("userId") Long userId, @Param("auditStatus") Integer auditStatus);
 
-}
+    /**
+     * 游标分页查询帖子的回复列表（只查询一级回复，按创建时间、id 正序）
+     *
+     * @param postId     帖子ID
+     * @param createTime 上一页最后一条的创建时间，首页为 null
+     * @param replyId    上一页最后一条的回复ID
+     * @param limit      查询条数
+     * @return 回复列表
+     */
+    List<ForumReplyVO> selectRepliesByCursor(@Param("postId") Long postId, @Param("createTime") LocalDateTime createTime,
+                                             @Param("replyId") Long replyId, @Param("limit") int limit);
 
+    /**
+     * 统计帖子的一级回复总数
+     *
+     * @param postId 帖子ID
+     * @return 回复总数
+     */
+    Long countReplies(@Param("postId") Long postId);
+
+}
@@ -10,7 +10,9 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.session.ResultHandler;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -55,24 +57,6 @@ public interface SongMapper extends BaseMapper<Song> {
                                               @Param("artistId") Long artistId,
                                               @Param("songName") String songName);
 
-    // 获取随机歌曲列表
-    @Select("""
-                SELECT 
-                    s.id AS songId, 
-                    s.name AS songName, 
-                    s.duration, 
-                    s.cover_url AS coverUrl, 
-                    s.audio_url AS audioUrl, 
-                    s.release_time AS releaseTime, 
-                    COALESCE(a.name, u.username) AS artistName
-                FROM tb_song s
-                LEFT JOIN tb_artist a ON s.artist_id = a.id
-                LEFT JOIN tb_user u ON s.creator_id = u.id
-                WHERE (s.audit_status IS NULL OR s.audit_status = 1)
-                ORDER BY RAND() LIMIT 20
-            """)
-    List<SongVO> getRandomSongsWithArtist();
-
     // 根据id获取歌曲详情
     SongDetailVO getSongDetailById(Long songId);
 
@@ -93,16 +77,6 @@ public interface SongMapper extends BaseMapper<Song> {
     // 获取用户原创歌曲列表（使用XML映射以支持动态SQL）
     IPage<SongVO> getUserOriginalSongs(Page<SongVO> page, @Param("userId") Long userId, @Param("auditStatus") Integer auditStatus);
 
-    // 统计用户当日上传原创歌曲数量
-    @Select("""
-                SELECT COUNT(*)
-                FROM tb_song
-                WHERE creator_id = #{userId}
-                AND is_original = true
-                AND DATE(create_time) = CURDATE()
-            """)
-    Integer countUserTodayUploads(@Param("userId") Long userId);
-
     // 获取所有原创歌曲列表
     @Select("""
                 SELECT
@@ -126,4 +100,36 @@ public interface SongMapper extends BaseMapper<Song> {
             """)
     IPage<SongVO> getAllOriginalSongs(Page<SongVO> page);
 
+    // 根据歌曲id列表获取已通过审核的歌曲列表（回填歌曲信息，不保证顺序）
+    List<SongVO> getSongsWithArtistByIds(@Param("songIds") Collection<Long> songIds);
+
+    // 流式扫描所有已通过审核的歌曲（构建搜索索引）
+    void scanSongSearchDocuments(ResultHandler<SongVO> handler);
+
+    // 流式扫描所有已通过审核的歌曲（构建歌曲目录快照，字段与 getSongsWithArtistByIds 一致）
+    void scanSongCatalog(ResultHandler<SongVO> handler);
+
+    // 流式扫描所有已通过审核的歌曲id（随机抽样）
+    void scanApprovedSongIds(ResultHandler<Long> handler);
+
+    // 根据歌曲id列表获取已通过审核的歌曲（增量更新搜索索引）
+    List<SongVO> getSongSearchDocuments(@Param("songIds") Collection<Long> songIds);
+
+    // 获取歌手名下的歌曲id
+    List<Long> getSongIdsByArtistIds(@Param("artistIds") Collection<Long> artistIds);
+
+    // 获取用户上传的歌曲id
+    @Select("SELECT id FROM tb_song WHERE creator_id = #{userId}")
+    List<Long> getSongIdsByCreatorId(@Param("userId") Long userId);
+
+    // 游标分页获取歌曲列表（按 id 倒序，lastSongId 为上一页最后一首歌曲的 id）
+    List<SongVO> getSongsWithArtistByCursor(@Param("songName") String songName,
+                                            @Param("artistName") String artistName,
+                                            @Param("lastSongId") Long lastSongId,
+                                            @Param("limit") int limit);
+
+    // 统计歌曲列表总数
+    Long countSongsWithArtist(@Param("songName") String songName,
+                              @Param("artistName") String artistName);
+
 }
@@ -0,0 +1,15 @@
+package cn.edu.seig.vibemusic.mapper;
+
+import cn.edu.seig.vibemusic.model.entity.StorageDeletion;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * <p>
+ *  Mapper 接口
+ * </p>
+ */
+@Mapper
+public interface StorageDeletionMapper extends BaseMapper<StorageDeletion> {
+
+}
@@ -0,0 +1,36 @@
+package cn.edu.seig.vibemusic.mapper;
+
+import cn.edu.seig.vibemusic.model.vo.StorageReferenceVO;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * <p>
+ * 对象存储引用 Mapper 接口，逐个读取各表中引用了存储桶对象的 URL 字段
+ * </p>
+ */
+@Mapper
+public interface StorageReferenceMapper {
+
+    // 按 URL 顺序分页读取一个 URL 字段中大于 after 的值，相同 URL 合并为一条，来源为 source#最小的 id。
+    // 字段使用 utf8mb4_0900_bin 排序规则并建有 (字段, id) 索引（sql/add_storage_reference_indexes.sql），
+    // 每页只按索引范围读取 limit 个值，顺序与 MinIO 列表顺序一致。
+    // table 与 column 只能传入代码中固定的表名与字段名
+    @Select("""
+                SELECT ${column} AS url, CONCAT(#{source}, '#', MIN(id)) AS source
+                FROM ${table}
+                WHERE ${column} > #{after}
+                GROUP BY ${column}
+                ORDER BY ${column}
+                LIMIT #{limit}
+            """)
+    List<StorageReferenceVO> selectColumnAfter(@Param("table") String table,
+                                               @Param("column") String column,
+                                               @Param("source") String source,
+                                               @Param("after") String after,
+                                               @Param("limit") int limit);
+
+}
@@ -3,9 +3,14 @@ package cn.edu.seig.vibemusic.mapper;
 import cn.edu.seig.vibemusic.model.entity.UserFavorite;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -23,6 +28,18 @@ public interface UserFavoriteMapper extends BaseMapper<UserFavorite> {
     @Select("SELECT song_id FROM tb_user_favorite WHERE user_id = #{userId} AND type = 0 AND song_id IS NOT NULL GROUP BY song_id ORDER BY MAX(create_time) DESC")
     List<Long> getUserFavoriteSongIds(@Param("userId") Long userId);
 
+    // 流式读取用户收藏的所有歌曲ID，用于构建收藏位图
+    @Select("SELECT song_id FROM tb_user_favorite WHERE user_id = #{userId} AND type = 0 AND song_id IS NOT NULL")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultType(Long.class)
+    void scanFavoriteSongIds(@Param("userId") Long userId, ResultHandler<Long> handler);
+
+    // 流式读取所有用户收藏的歌曲，按用户分组、组内按收藏时间倒序，用于构建协同过滤模型
+    @Select("SELECT user_id AS userId, song_id AS songId FROM tb_user_favorite WHERE type = 0 AND song_id IS NOT NULL ORDER BY user_id, create_time DESC")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultType(UserFavorite.class)
+    void scanAllFavoriteSongs(ResultHandler<UserFavorite> handler);
+
     // 查询用户收藏的所有歌单ID
     @Select("SELECT playlist_id FROM tb_user_favorite WHERE user_id = #{userId} AND type = 1 ORDER BY create_time DESC")
     List<Long> getUserFavoritePlaylistIds(@Param("userId") Long userId);
@@ -38,4 +55,17 @@ public interface UserFavoriteMapper extends BaseMapper<UserFavorite> {
     // 根据 style 查询对应的 id
     List<Long> getFavoriteIdsByStyle(List<String> favoriteStyles);
 
+    // 游标分页查询用户收藏的歌曲（按收藏时间、歌曲id倒序，只返回 song_id 与 create_time）
+    List<UserFavorite> getFavoriteSongsByCursor(@Param("userId") Long userId,
+                                                @Param("songName") String songName,
+                                                @Param("artistName") String artistName,
+                                                @Param("createTime") LocalDateTime createTime,
+                                                @Param("songId") Long songId,
+                                                @Param("limit") int limit);
+
+    // 统计用户收藏的歌曲数量
+    Long countFavoriteSongs(@Param("userId") Long userId,
+                            @Param("songName") String songName,
+                            @Param("artistName") String artistName);
+
 }
@@ -0,0 +1,51 @@
+package cn.edu.seig.vibemusic.model.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 歌曲评论游标分页查询DTO
+ */
+@Data
+public class CommentCursorDTO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 歌曲id
+     */
+    @NotNull
+    private Long songId;
+
+    /**
+     * 排序方式：latest 最新（默认），hot 最多点赞
+     */
+    @Pattern(regexp = "latest|hot")
+    private String sort = "latest";
+
+    /**
+     * 上一页返回的游标，首页为空
+     */
+    private String cursor;
+
+    /**
+     * 每页数量
+     */
+    @NotNull
+    @Min(1)
+    @Max(100)
+    private Integer pageSize;
+
+    /**
+     * 是否返回总条数（需要额外的 COUNT 查询）
+     */
+    private Boolean withTotal = false;
+
+}
@@ -59,6 +59,11 @@ public class ForumPostAddDTO {
      */
     private String referenceAttachment;
 
+    /**
+     * 断点续传上传的参考附件会话id（大附件先通过 /upload/resumable 上传，发帖时认领）
+     */
+    private String referenceAttachmentUploadId;
+
     /**
      * 帖子ID（更新时使用）
      */
@@ -18,6 +18,16 @@ public class ForumPostDTO {
      */
     private Integer pageSize = 10;
 
+    /**
+     * 上一页返回的游标，首页为空（仅游标分页接口使用）
+     */
+    private String cursor;
+
+    /**
+     * 是否返回总条数（仅游标分页接口使用）
+     */
+    private Boolean withTotal = false;
+
     /**
      * 搜索关键词（标题）
      */
@@ -23,5 +23,14 @@ public class ForumReplyDTO {
      */
     private Integer pageSize = 10;
 
-}
+    /**
+     * 上一页返回的游标，首页为空（仅游标分页接口使用）
+     */
+    private String cursor;
 
+    /**
+     * 是否返回总条数（仅游标分页接口使用）
+     */
+    private Boolean withTotal = false;
+
+}
@@ -0,0 +1,54 @@
+package cn.edu.seig.vibemusic.model.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 创建断点续传会话DTO
+ */
+@Data
+public class ResumableUploadCreateDTO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 上传用途：song-audio、song-cover、song-reward-qr（原创歌曲直传中的文件），
+     * post-attachment、requirement-attachment（帖子参考附件）
+     */
+    @NotBlank
+    @Pattern(regexp = "song-audio|song-cover|song-reward-qr|post-attachment|requirement-attachment")
+    private String purpose;
+
+    /**
+     * 原创歌曲直传的上传id（上传歌曲文件时必填，文件写入申请直传时分配的对象）
+     */
+    private String songUploadId;
+
+    /**
+     * 文件名（上传帖子附件时必填）
+     */
+    @Size(max = 200)
+    private String fileName;
+
+    /**
+     * 文件类型（上传帖子附件时使用，为空时按二进制文件保存）
+     */
+    @Size(max = 100)
+    private String contentType;
+
+    /**
+     * 文件大小（字节）
+     */
+    @NotNull
+    @Min(1)
+    private Long fileSize;
+
+}
@@ -0,0 +1,48 @@
+package cn.edu.seig.vibemusic.model.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 歌曲游标分页查询DTO
+ */
+@Data
+public class SongCursorDTO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 上一页返回的游标，首页为空
+     */
+    private String cursor;
+
+    /**
+     * 每页数量
+     */
+    @NotNull
+    @Min(1)
+    @Max(100)
+    private Integer pageSize;
+
+    /**
+     * 是否返回总条数（需要额外的 COUNT 查询）
+     */
+    private Boolean withTotal = false;
+
+    /**
+     * 歌曲名
+     */
+    private String songName;
+
+    /**
+     * 歌手
+     */
+    private String artistName;
+
+}
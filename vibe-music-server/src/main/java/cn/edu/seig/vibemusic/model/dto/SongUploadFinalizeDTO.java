@@ -0,0 +1,46 @@
+package cn.edu.seig.vibemusic.model.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 原创歌曲直传完成DTO（第二阶段：文件上传完成后创建歌曲）
+ */
+@Data
+public class SongUploadFinalizeDTO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 申请上传地址时返回的上传id
+     */
+    @NotBlank
+    private String uploadId;
+
+    /**
+     * 歌曲标题
+     */
+    @NotBlank
+    private String songName;
+
+    /**
+     * 歌曲风格
+     */
+    @NotBlank
+    private String style;
+
+    /**
+     * 是否开启打赏
+     */
+    private Boolean isRewardEnabled;
+
+    /**
+     * 歌曲时长（秒）
+     */
+    private String duration;
+
+}
@@ -0,0 +1,53 @@
+package cn.edu.seig.vibemusic.model.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 原创歌曲直传申请DTO（第一阶段：申请上传地址）
+ */
+@Data
+public class SongUploadPresignDTO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 音频文件名
+     */
+    @NotBlank
+    private String audioFileName;
+
+    /**
+     * 音频文件大小（字节）
+     */
+    @NotNull
+    @Min(1)
+    private Long audioSize;
+
+    /**
+     * 封面文件名（不上传封面时为空）
+     */
+    private String coverFileName;
+
+    /**
+     * 封面文件大小（字节）
+     */
+    private Long coverSize;
+
+    /**
+     * 收款码图片文件名（开启打赏时必填）
+     */
+    private String rewardQrFileName;
+
+    /**
+     * 收款码图片大小（字节）
+     */
+    private Long rewardQrSize;
+
+}
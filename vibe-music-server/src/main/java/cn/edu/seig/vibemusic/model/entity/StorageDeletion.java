@@ -0,0 +1,70 @@
+package cn.edu.seig.vibemusic.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * <p>
+ * 对象存储删除队列实体类
+ * </p>
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@Accessors(chain = true)
+@TableName("tb_storage_deletion")
+public class StorageDeletion implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 删除任务ID
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long deletionId;
+
+    /**
+     * MinIO 对象名
+     */
+    @TableField("object_name")
+    private String objectName;
+
+    /**
+     * 状态：0-待删除，1-重试次数耗尽
+     */
+    @TableField("status")
+    private Integer status;
+
+    /**
+     * 已失败次数
+     */
+    @TableField("attempts")
+    private Integer attempts;
+
+    /**
+     * 最近一次失败原因
+     */
+    @TableField("last_error")
+    private String lastError;
+
+    /**
+     * 下次尝试时间
+     */
+    @TableField("next_attempt_time")
+    private LocalDateTime nextAttemptTime;
+
+    /**
+     * 创建时间
+     */
+    @TableField("create_time")
+    private LocalDateTime createTime;
+}
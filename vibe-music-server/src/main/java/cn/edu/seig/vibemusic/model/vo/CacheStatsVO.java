@@ -0,0 +1,58 @@
+package cn.edu.seig.vibemusic.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsVO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 缓存名称
+     */
+    private String cacheName;
+
+    /**
+     * 命中次数
+     */
+    private Long hits;
+
+    /**
+     * 未命中次数
+     */
+    private Long misses;
+
+    /**
+     * 命中率
+     */
+    private Double hitRate;
+
+    /**
+     * 本地 L1 命中次数，未开启 L1 时为空
+     */
+    private Long localHits;
+
+    /**
+     * 写入次数
+     */
+    private Long puts;
+
+    /**
+     * 按 key 或按标签清除的条目数
+     */
+    private Long evictions;
+
+    /**
+     * 整个缓存被清空的次数
+     */
+    private Long clears;
+
+}
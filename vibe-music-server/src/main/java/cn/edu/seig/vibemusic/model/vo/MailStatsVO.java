@@ -0,0 +1,74 @@
+package cn.edu.seig.vibemusic.model.vo;
+
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+@Data
+public class MailStatsVO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 队列中等待发送（含等待重试）的邮件数
+     */
+    private Integer pending;
+
+    /**
+     * 队列容量
+     */
+    private Integer capacity;
+
+    /**
+     * 当前保持的 SMTP 连接数
+     */
+    private Integer connections;
+
+    /**
+     * 本节点自启动以来加入队列的邮件数
+     */
+    private Long enqueued;
+
+    /**
+     * 本节点自启动以来因队列已满被拒绝的邮件数
+     */
+    private Long rejected;
+
+    /**
+     * 本节点自启动以来发送成功的邮件数
+     */
+    private Long sent;
+
+    /**
+     * 本节点自启动以来发送失败（将重试）的次数
+     */
+    private Long retries;
+
+    /**
+     * 本节点自启动以来重试次数耗尽、放弃发送的邮件数
+     */
+    private Long failed;
+
+    /**
+     * 发送成功的邮件从加入队列到发送完成的平均耗时，单位毫秒
+     */
+    private Long avgLatencyMillis;
+
+    /**
+     * 发送成功的邮件从加入队列到发送完成的最长耗时，单位毫秒
+     */
+    private Long maxLatencyMillis;
+
+    /**
+     * 最近一次 SMTP 发送的耗时（不含排队），单位毫秒
+     */
+    private Long lastSendDurationMillis;
+
+    /**
+     * 最近一次失败原因
+     */
+    private String lastError;
+
+}
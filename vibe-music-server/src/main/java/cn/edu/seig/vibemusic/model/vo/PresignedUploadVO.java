@@ -0,0 +1,42 @@
+package cn.edu.seig.vibemusic.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * 单个文件的直传地址
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedUploadVO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 对象名
+     */
+    private String objectName;
+
+    /**
+     * 表单上传（POST）地址
+     */
+    private String uploadUrl;
+
+    /**
+     * 上传时必须携带的 Content-Type
+     */
+    private String contentType;
+
+    /**
+     * 预签名表单字段，按顺序放在文件字段 file 之前
+     */
+    private Map<String, String> formData;
+
+}
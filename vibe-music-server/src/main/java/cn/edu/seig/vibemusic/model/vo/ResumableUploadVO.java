@@ -0,0 +1,58 @@
+package cn.edu.seig.vibemusic.model.vo;
+
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 断点续传会话状态
+ */
+@Data
+public class ResumableUploadVO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 会话id
+     */
+    private String uploadId;
+
+    /**
+     * 文件写入的对象名
+     */
+    private String objectName;
+
+    /**
+     * 文件大小（字节）
+     */
+    private Long totalSize;
+
+    /**
+     * 分片大小（字节），除最后一片外每片都必须是这个大小
+     */
+    private Integer chunkSize;
+
+    /**
+     * 分片数量，分片序号从 0 开始
+     */
+    private Integer chunkCount;
+
+    /**
+     * 已上传的分片序号（升序）
+     */
+    private List<Integer> uploadedChunks;
+
+    /**
+     * 从文件开头连续上传完成的字节数，客户端从这里继续上传
+     */
+    private Long offset;
+
+    /**
+     * 是否已合并完成
+     */
+    private Boolean completed;
+
+}
@@ -0,0 +1,45 @@
+package cn.edu.seig.vibemusic.model.vo;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 原创歌曲直传地址
+ */
+@Data
+public class SongUploadPresignVO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 上传id，文件上传完成后用于创建歌曲
+     */
+    private String uploadId;
+
+    /**
+     * 上传地址的过期时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime expireTime;
+
+    /**
+     * 音频文件上传地址
+     */
+    private PresignedUploadVO audio;
+
+    /**
+     * 封面文件上传地址（未申请时为空）
+     */
+    private PresignedUploadVO cover;
+
+    /**
+     * 收款码图片上传地址（未申请时为空）
+     */
+    private PresignedUploadVO rewardQr;
+
+}
@@ -0,0 +1,54 @@
+package cn.edu.seig.vibemusic.model.vo;
+
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+@Data
+public class StorageDeletionStatsVO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 队列中等待删除（含等待重试）的对象数
+     */
+    private Long pending;
+
+    /**
+     * 重试次数耗尽、等待人工处理的对象数
+     */
+    private Long failed;
+
+    /**
+     * 本节点自启动以来登记的对象数
+     */
+    private Long enqueued;
+
+    /**
+     * 本节点自启动以来删除成功的对象数
+     */
+    private Long deleted;
+
+    /**
+     * 本节点自启动以来删除失败（将重试）的次数
+     */
+    private Long retries;
+
+    /**
+     * 本节点自启动以来执行的批量删除请求数
+     */
+    private Long batches;
+
+    /**
+     * 最近一次批量删除的耗时，单位毫秒
+     */
+    private Long lastBatchMillis;
+
+    /**
+     * 最近一次失败原因
+     */
+    private String lastError;
+
+}
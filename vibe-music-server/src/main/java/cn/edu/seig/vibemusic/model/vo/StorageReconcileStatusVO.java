@@ -0,0 +1,109 @@
+package cn.edu.seig.vibemusic.model.vo;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class StorageReconcileStatusVO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 状态：idle-未运行过，running-运行中，stopped-已停止（可继续），failed-失败（可继续），completed-已完成
+     */
+    private String status;
+
+    /**
+     * 当前阶段：objects-比对对象与引用，uploads-检查未完成的分片上传
+     */
+    private String phase;
+
+    /**
+     * 是否删除孤立对象、取消过期的分片上传，为 false 时只报告
+     */
+    private Boolean deleteOrphans;
+
+    /**
+     * 已处理到的对象名，继续运行时从这里开始
+     */
+    private String checkpoint;
+
+    /**
+     * 开始时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime startTime;
+
+    /**
+     * 最近一次保存进度的时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime updateTime;
+
+    /**
+     * 已比对的对象数
+     */
+    private Long scannedObjects;
+
+    /**
+     * 已比对的引用数（相同 URL 计一次）
+     */
+    private Long scannedReferences;
+
+    /**
+     * 没有被引用、且超过保留时间的对象数
+     */
+    private Long orphans;
+
+    /**
+     * 孤立对象的总大小，单位字节
+     */
+    private Long orphanBytes;
+
+    /**
+     * 已登记到删除队列的孤立对象数
+     */
+    private Long queuedDeletions;
+
+    /**
+     * 不在受管目录下、不做判断的对象数
+     */
+    private Long unmanagedObjects;
+
+    /**
+     * 引用的对象不存在的记录数（断链）
+     */
+    private Long brokenLinks;
+
+    /**
+     * 超过保留时间的未完成分片上传数
+     */
+    private Long staleUploads;
+
+    /**
+     * 已取消的分片上传数
+     */
+    private Long abortedUploads;
+
+    /**
+     * 失败原因
+     */
+    private String lastError;
+
+    /**
+     * 孤立对象示例（对象名）
+     */
+    private List<String> orphanSamples;
+
+    /**
+     * 断链示例（表名.字段名#记录id 文件 URL）
+     */
+    private List<String> brokenLinkSamples;
+
+}
@@ -0,0 +1,24 @@
+package cn.edu.seig.vibemusic.model.vo;
+
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+@Data
+public class StorageReferenceVO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 引用的文件 URL
+     */
+    private String url;
+
+    /**
+     * 引用来源（表名.字段名#记录id），多处引用时取其一
+     */
+    private String source;
+
+}
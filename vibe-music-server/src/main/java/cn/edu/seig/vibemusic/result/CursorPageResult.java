@@ -0,0 +1,30 @@
+package cn.edu.seig.vibemusic.result;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+// 游标分页返回结果对象
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResult<T> {
+
+    private List<T> items; //当前页数据集合
+    private String nextCursor; //下一页游标，没有更多数据时为 null
+    private Boolean hasMore; //是否还有下一页
+    private Long total; //总条数，仅在请求 withTotal 时返回
+
+    // 根据多查询的一条判断是否还有下一页（rows 按 pageSize + 1 条查询），并以最后一条生成下一页游标
+    public static <T> CursorPageResult<T> of(List<T> rows, int pageSize, Function<T, String> cursorOf, Long total) {
+        boolean hasMore = rows.size() > pageSize;
+        List<T> items = hasMore ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+        String nextCursor = hasMore ? cursorOf.apply(items.get(items.size() - 1)) : null;
+        return new CursorPageResult<>(items, nextCursor, hasMore, total);
+    }
+
+}
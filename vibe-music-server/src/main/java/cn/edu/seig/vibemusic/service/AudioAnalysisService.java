@@ -0,0 +1,56 @@
+package cn.edu.seig.vibemusic.service;
+
+import cn.edu.seig.vibemusic.util.AudioAnalyzer;
+
+/**
+ * 音频分析服务
+ * <p>
+ * 上传音频时在同一次读取中分析时长、码率与波形，时长以服务端计算结果为准，
+ * 波形保存为对象存储中的小文件（peaks/ + 音频对象名 + .peaks），供播放器进度条使用。
+ */
+public interface AudioAnalysisService {
+
+    /**
+     * 为即将上传的音频创建分析器，作为上传的旁路输出流使用
+     *
+     * @param fileName 原始文件名
+     * @return 分析器，格式不支持时返回 null
+     */
+    AudioAnalyzer createAnalyzer(String fileName);
+
+    /**
+     * 结束分析并保存波形文件，保存失败只记录日志
+     *
+     * @param audioUrl 已上传音频的 URL
+     * @param analyzer 上传时使用的分析器，可以为 null
+     * @return 分析结果，无法分析时返回 null
+     */
+    AudioAnalyzer.Analysis saveAnalysis(String audioUrl, AudioAnalyzer analyzer);
+
+    /**
+     * 在后台读取已存储的音频并分析（直传、分片上传的音频不经过应用服务器），
+     * 完成后保存波形文件，并在歌曲仍引用该音频时更新歌曲时长
+     *
+     * @param songId   歌曲id
+     * @param audioUrl 音频 URL
+     */
+    void analyzeStoredAudio(Long songId, String audioUrl);
+
+    /**
+     * 读取歌曲音频的波形文件，缺失时在后台补做分析
+     *
+     * @param songId   歌曲id
+     * @param audioUrl 音频 URL
+     * @return 波形文件内容，尚未生成时返回 null
+     */
+    byte[] getPeaks(Long songId, String audioUrl);
+
+    /**
+     * 音频对应的波形文件 URL
+     *
+     * @param audioUrl 音频 URL
+     * @return 波形文件 URL，不是本存储桶的音频时返回 null
+     */
+    String getPeaksUrl(String audioUrl);
+
+}
@@ -0,0 +1,35 @@
+package cn.edu.seig.vibemusic.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+/**
+ * 音频流式播放服务
+ * <p>
+ * 支持 Range / If-Range / If-None-Match，音频数据经本地分块磁盘缓存从 MinIO 读取。
+ */
+public interface AudioStreamService {
+
+    /**
+     * 输出歌曲音频（完整内容或请求的字节范围）
+     *
+     * @param songId   歌曲id
+     * @param request  请求
+     * @param response 响应
+     * @throws IOException 写出失败
+     */
+    void streamSong(Long songId, HttpServletRequest request, HttpServletResponse response) throws IOException;
+
+    /**
+     * 输出歌曲的波形文件（二进制，格式见 {@link cn.edu.seig.vibemusic.util.AudioAnalyzer}），尚未生成时返回 404
+     *
+     * @param songId   歌曲id
+     * @param request  请求
+     * @param response 响应
+     * @throws IOException 写出失败
+     */
+    void writePeaks(Long songId, HttpServletRequest request, HttpServletResponse response) throws IOException;
+
+}
@@ -0,0 +1,87 @@
+package cn.edu.seig.vibemusic.service;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 曲库全文检索服务
+ * <p>
+ * 在进程内维护歌曲、歌手、歌单的倒排索引，替代 LIKE '%keyword%' 全表扫描。
+ * 索引未就绪时查询方法返回 null，调用方应回退到数据库查询。
+ */
+public interface CatalogSearchService {
+
+    /**
+     * 搜索已通过审核的歌曲
+     *
+     * @param songName   歌曲名关键字
+     * @param artistName 歌手名关键字
+     * @return 按相关度排序的歌曲 id，索引未就绪或关键字无法通过索引检索时返回 null
+     */
+    long[] searchSongs(String songName, String artistName);
+
+    /**
+     * 统计指定风格的已通过审核的歌曲数量
+     *
+     * @param style 风格关键字
+     * @return 歌曲数量，索引未就绪或关键字无法通过索引检索时返回 null
+     */
+    Long countSongsByStyle(String style);
+
+    /**
+     * 搜索歌手
+     *
+     * @param artistName 歌手名关键字
+     * @return 按相关度排序的歌手 id；索引未就绪、命中过多或关键字无法通过索引检索时返回 null
+     */
+    List<Long> searchArtistIds(String artistName);
+
+    /**
+     * 搜索歌单
+     *
+     * @param title 歌单标题关键字
+     * @return 按相关度排序的歌单 id；索引未就绪、命中过多或关键字无法通过索引检索时返回 null
+     */
+    List<Long> searchPlaylistIds(String title);
+
+    /**
+     * 重新读取并索引歌曲（歌曲不存在或未通过审核时从索引中移除）
+     *
+     * @param songIds 歌曲 id 列表
+     */
+    void refreshSongs(Collection<Long> songIds);
+
+    /**
+     * 重新索引指定歌手名下的歌曲
+     *
+     * @param artistId 歌手 id
+     */
+    void refreshSongsOfArtist(Long artistId);
+
+    /**
+     * 重新索引指定用户上传的原创歌曲（用户名即原创歌曲的歌手名）
+     *
+     * @param userId 用户 id
+     */
+    void refreshSongsOfCreator(Long userId);
+
+    /**
+     * 重新读取并索引歌手（歌手不存在时从索引中移除）
+     *
+     * @param artistIds 歌手 id 列表
+     */
+    void refreshArtists(Collection<Long> artistIds);
+
+    /**
+     * 重新读取并索引歌单（歌单不存在时从索引中移除）
+     *
+     * @param playlistIds 歌单 id 列表
+     */
+    void refreshPlaylists(Collection<Long> playlistIds);
+
+    /**
+     * 全量重建索引
+     */
+    void rebuild();
+
+}
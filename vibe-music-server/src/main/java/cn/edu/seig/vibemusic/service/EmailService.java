@@ -1,18 +1,24 @@
 package cn.edu.seig.vibemusic.service;
 
+import cn.edu.seig.vibemusic.model.vo.MailStatsVO;
+
 /**
  * <p>
  * 服务类
  * </p>
+ * 邮件只加入有界发送队列，由专用线程复用 SMTP 连接发送，失败时按退避时间重试，调用方不等待 SMTP。
  *
  * @author sunpingli
  * @since 2025-01-09
  */
 public interface EmailService {
 
-    // 发送邮件
+    // 发送邮件（加入发送队列），队列已满时返回 false
     boolean sendEmail(String to, String subject, String content);
 
-    // 发送验证码邮件
-    String sendVerificationCodeEmail(String email);
+    // 发送验证码邮件（加入发送队列），队列已满时返回 false
+    boolean sendVerificationCodeEmail(String email, String verificationCode);
+
+    // 获取发送队列统计信息
+    MailStatsVO getStats();
 }
@@ -0,0 +1,43 @@
+package cn.edu.seig.vibemusic.service;
+
+/**
+ * 用户收藏歌曲位图服务
+ * <p>
+ * 为每个用户维护一份收藏歌曲 id 的压缩位图，用于歌曲列表的收藏状态标记，
+ * 避免每次请求都从数据库加载用户的全部收藏记录。
+ */
+public interface FavoriteBitmapService {
+
+    /**
+     * 批量判断歌曲是否已被用户收藏
+     *
+     * @param userId  用户 id
+     * @param songIds 歌曲 id
+     * @return 与 songIds 一一对应的收藏状态
+     */
+    boolean[] contains(Long userId, long[] songIds);
+
+    /**
+     * 记录用户收藏了歌曲（存在事务时在提交后生效）
+     *
+     * @param userId 用户 id
+     * @param songId 歌曲 id
+     */
+    void add(Long userId, Long songId);
+
+    /**
+     * 记录用户取消收藏了歌曲（存在事务时在提交后生效）
+     *
+     * @param userId 用户 id
+     * @param songId 歌曲 id
+     */
+    void remove(Long userId, Long songId);
+
+    /**
+     * 丢弃用户的位图，下次访问时从数据库重新加载
+     *
+     * @param userId 用户 id
+     */
+    void evict(Long userId);
+
+}
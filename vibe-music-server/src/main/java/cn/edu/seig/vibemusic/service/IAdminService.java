@@ -2,9 +2,16 @@ package cn.edu.seig.vibemusic.service;
 
 import cn.edu.seig.vibemusic.model.dto.AdminDTO;
 import cn.edu.seig.vibemusic.model.entity.Admin;
+import cn.edu.seig.vibemusic.model.vo.CacheStatsVO;
+import cn.edu.seig.vibemusic.model.vo.MailStatsVO;
+import cn.edu.seig.vibemusic.model.vo.StorageDeletionStatsVO;
+import cn.edu.seig.vibemusic.model.vo.StorageReconcileStatusVO;
 import cn.edu.seig.vibemusic.result.Result;
+import cn.edu.seig.vibemusic.util.AuthContext;
 import com.baomidou.mybatisplus.extension.service.IService;
 
+import java.util.List;
+
 /**
  * <p>
  * 服务类
@@ -22,5 +29,26 @@ public interface IAdminService extends IService<Admin> {
     Result login(AdminDTO adminDTO);
 
     // 退出登录
-    Result logout(String token);
+    Result logout(AuthContext authContext);
+
+    // 获取缓存统计信息
+    Result<List<CacheStatsVO>> getCacheStats();
+
+    // 获取对象存储删除队列统计信息
+    Result<StorageDeletionStatsVO> getStorageDeletionStats();
+
+    // 获取邮件发送队列统计信息
+    Result<MailStatsVO> getMailStats();
+
+    // 重试删除失败的对象
+    Result retryStorageDeletions();
+
+    // 开始对象存储核对
+    Result startStorageReconcile(boolean deleteOrphans, boolean restart);
+
+    // 停止对象存储核对
+    Result stopStorageReconcile();
+
+    // 获取对象存储核对进度与结果
+    Result<StorageReconcileStatusVO> getStorageReconcileStatus();
 }
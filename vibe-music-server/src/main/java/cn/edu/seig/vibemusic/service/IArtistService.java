@@ -9,8 +9,8 @@ import cn.edu.seig.vibemusic.model.vo.ArtistNameVO;
 import cn.edu.seig.vibemusic.model.vo.ArtistVO;
 import cn.edu.seig.vibemusic.result.PageResult;
 import cn.edu.seig.vibemusic.result.Result;
+import cn.edu.seig.vibemusic.util.AuthContext;
 import com.baomidou.mybatisplus.extension.service.IService;
-import jakarta.servlet.http.HttpServletRequest;
 
 import java.util.List;
 
@@ -37,7 +37,7 @@ public interface IArtistService extends IService<Artist> {
     Result<List<ArtistVO>> getRandomArtists();
 
     // 根据id获取歌手详情
-    Result<ArtistDetailVO> getArtistDetail(Long artistId, HttpServletRequest request);
+    Result<ArtistDetailVO> getArtistDetail(Long artistId, AuthContext authContext);
 
     // 获取所有歌手数量
     Result<Long> getAllArtistsCount(Integer gender, String area);
@@ -1,8 +1,11 @@
 package cn.edu.seig.vibemusic.service;
 
+import cn.edu.seig.vibemusic.model.dto.CommentCursorDTO;
 import cn.edu.seig.vibemusic.model.dto.CommentPlaylistDTO;
 import cn.edu.seig.vibemusic.model.dto.CommentSongDTO;
 import cn.edu.seig.vibemusic.model.entity.Comment;
+import cn.edu.seig.vibemusic.model.vo.CommentVO;
+import cn.edu.seig.vibemusic.result.CursorPageResult;
 import cn.edu.seig.vibemusic.result.Result;
 import com.baomidou.mybatisplus.extension.service.IService;
 
@@ -16,6 +19,9 @@ import com.baomidou.mybatisplus.extension.service.IService;
  */
 public interface ICommentService extends IService<Comment> {
 
+    // 游标分页获取歌曲评论
+    Result<CursorPageResult<CommentVO>> getSongCommentsByCursor(CommentCursorDTO commentCursorDTO);
+
     // 新增歌曲评论
     Result addSongComment(CommentSongDTO commentSongDTO);
 
@@ -25,6 +25,14 @@ public interface IForumPostService extends IService<ForumPost> {
      */
     Result getPostList(ForumPostDTO forumPostDTO);
 
+    /**
+     * 游标分页查询帖子列表
+     *
+     * @param forumPostDTO 查询条件（cursor 为上一页返回的游标）
+     * @return 帖子列表
+     */
+    Result getPostListByCursor(ForumPostDTO forumPostDTO);
+
     /**
      * 获取帖子详情
      *
@@ -24,6 +24,14 @@ public interface IForumReplyService extends IService<ForumReply> {
      */
     Result getReplyList(ForumReplyDTO forumReplyDTO);
 
+    /**
+     * 游标分页查询帖子的回复列表
+     *
+     * @param forumReplyDTO 查询条件（cursor 为上一页返回的游标）
+     * @return 回复列表
+     */
+    Result getReplyListByCursor(ForumReplyDTO forumReplyDTO);
+
     /**
      * 发布回复
      *
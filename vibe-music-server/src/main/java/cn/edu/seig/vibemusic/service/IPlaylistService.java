@@ -8,8 +8,8 @@ import cn.edu.seig.vibemusic.model.vo.PlaylistDetailVO;
 import cn.edu.seig.vibemusic.model.vo.PlaylistVO;
 import cn.edu.seig.vibemusic.result.PageResult;
 import cn.edu.seig.vibemusic.result.Result;
+import cn.edu.seig.vibemusic.util.AuthContext;
 import com.baomidou.mybatisplus.extension.service.IService;
-import jakarta.servlet.http.HttpServletRequest;
 
 import java.util.List;
 
@@ -30,10 +30,10 @@ public interface IPlaylistService extends IService<Playlist> {
     Result<PageResult<Playlist>> getAllPlaylistsInfo(PlaylistDTO playlistDTO);
 
     // 获取推荐歌单
-    Result<List<PlaylistVO>> getRecommendedPlaylists(HttpServletRequest request);
+    Result<List<PlaylistVO>> getRecommendedPlaylists(AuthContext authContext);
 
     // 根据id获取歌单详情
-    Result<PlaylistDetailVO> getPlaylistDetail(Long playlistId, HttpServletRequest request);
+    Result<PlaylistDetailVO> getPlaylistDetail(Long playlistId, AuthContext authContext);
 
     // 获取所有歌单数量
     Result<Long> getAllPlaylistsCount(String style);
@@ -2,17 +2,22 @@ package cn.edu.seig.vibemusic.service;
 
 import cn.edu.seig.vibemusic.model.dto.SongAddDTO;
 import cn.edu.seig.vibemusic.model.dto.SongAndArtistDTO;
+import cn.edu.seig.vibemusic.model.dto.SongCursorDTO;
 import cn.edu.seig.vibemusic.model.dto.SongDTO;
 import cn.edu.seig.vibemusic.model.dto.SongUpdateDTO;
 import cn.edu.seig.vibemusic.model.dto.SongUploadDTO;
+import cn.edu.seig.vibemusic.model.dto.SongUploadFinalizeDTO;
+import cn.edu.seig.vibemusic.model.dto.SongUploadPresignDTO;
 import cn.edu.seig.vibemusic.model.entity.Song;
 import cn.edu.seig.vibemusic.model.vo.SongAdminVO;
 import cn.edu.seig.vibemusic.model.vo.SongDetailVO;
+import cn.edu.seig.vibemusic.model.vo.SongUploadPresignVO;
 import cn.edu.seig.vibemusic.model.vo.SongVO;
+import cn.edu.seig.vibemusic.result.CursorPageResult;
 import cn.edu.seig.vibemusic.result.PageResult;
 import cn.edu.seig.vibemusic.result.Result;
+import cn.edu.seig.vibemusic.util.AuthContext;
 import com.baomidou.mybatisplus.extension.service.IService;
-import jakarta.servlet.http.HttpServletRequest;
 
 import java.util.List;
 
@@ -27,16 +32,19 @@ import java.util.List;
 public interface ISongService extends IService<Song> {
 
     // 获取所有歌曲
-    Result<PageResult<SongVO>> getAllSongs(SongDTO songDTO, HttpServletRequest request);
+    Result<PageResult<SongVO>> getAllSongs(SongDTO songDTO, AuthContext authContext);
+
+    // 游标分页获取歌曲
+    Result<CursorPageResult<SongVO>> getSongsByCursor(SongCursorDTO songCursorDTO, AuthContext authContext);
 
     // 获取所有歌曲
     Result<PageResult<SongAdminVO>> getAllSongsByArtist(SongAndArtistDTO songDTO);
 
     // 获取推荐歌曲
-    Result<List<SongVO>> getRecommendedSongs(HttpServletRequest request);
+    Result<List<SongVO>> getRecommendedSongs(AuthContext authContext);
 
     // 根据id获取歌曲详情
-    Result<SongDetailVO> getSongDetail(Long songId, HttpServletRequest request);
+    Result<SongDetailVO> getSongDetail(Long songId, AuthContext authContext);
 
     // 获取所有歌曲数量
     Result<Long> getAllSongsCount(String style);
@@ -62,6 +70,15 @@ public interface ISongService extends IService<Song> {
     // 上传原创歌曲
     Result uploadOriginalSong(SongUploadDTO songUploadDTO);
 
+    // 申请原创歌曲直传地址
+    Result<SongUploadPresignVO> presignOriginalSongUpload(SongUploadPresignDTO songUploadPresignDTO);
+
+    // 完成原创歌曲直传
+    Result finalizeOriginalSongUpload(SongUploadFinalizeDTO songUploadFinalizeDTO);
+
+    // 定时删除过期未完成的直传对象
+    void collectAbandonedSongUploads();
+
     // 获取用户原创歌曲
     Result<PageResult<SongVO>> getUserOriginalSongs(Long userId, Integer pageNum, Integer pageSize, Integer auditStatus);
 
@@ -1,10 +1,12 @@
 package cn.edu.seig.vibemusic.service;
 
 import cn.edu.seig.vibemusic.model.dto.PlaylistDTO;
+import cn.edu.seig.vibemusic.model.dto.SongCursorDTO;
 import cn.edu.seig.vibemusic.model.dto.SongDTO;
 import cn.edu.seig.vibemusic.model.entity.UserFavorite;
 import cn.edu.seig.vibemusic.model.vo.PlaylistVO;
 import cn.edu.seig.vibemusic.model.vo.SongVO;
+import cn.edu.seig.vibemusic.result.CursorPageResult;
 import cn.edu.seig.vibemusic.result.PageResult;
 import cn.edu.seig.vibemusic.result.Result;
 import com.baomidou.mybatisplus.extension.service.IService;
@@ -22,6 +24,9 @@ public interface IUserFavoriteService extends IService<UserFavorite> {
     // 获取用户收藏的歌曲列表
     Result<PageResult<SongVO>> getUserFavoriteSongs(SongDTO songDTO);
 
+    // 游标分页获取用户收藏的歌曲列表
+    Result<CursorPageResult<SongVO>> getFavoriteSongsByCursor(SongCursorDTO songCursorDTO);
+
     // 收藏歌曲
     Result collectSong(Long songId);
 
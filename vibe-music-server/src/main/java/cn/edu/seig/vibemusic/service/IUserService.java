@@ -6,6 +6,7 @@ import cn.edu.seig.vibemusic.model.vo.UserManagementVO;
 import cn.edu.seig.vibemusic.model.vo.UserVO;
 import cn.edu.seig.vibemusic.result.PageResult;
 import cn.edu.seig.vibemusic.result.Result;
+import cn.edu.seig.vibemusic.util.AuthContext;
 import com.baomidou.mybatisplus.extension.service.IService;
 
 import java.util.List;
@@ -42,13 +43,13 @@ public interface IUserService extends IService<User> {
     Result updateUserAvatar(String avatarUrl);
 
     // 更新用户密码
-    Result updateUserPassword(UserPasswordDTO userPasswordDTO, String token);
+    Result updateUserPassword(UserPasswordDTO userPasswordDTO, AuthContext authContext);
 
     // 重置用户密码
     Result resetUserPassword(UserResetPasswordDTO userResetPasswordDTO);
 
     // 退出登录
-    Result logout(String token);
+    Result logout(AuthContext authContext);
 
     // 注销账号
     Result deleteAccount();
@@ -2,6 +2,13 @@ package cn.edu.seig.vibemusic.service;
 
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
+
 public interface MinioService {
     /**
      * 上传文件到 MinIO
@@ -11,10 +18,183 @@ public interface MinioService {
      */
     String uploadFile(MultipartFile file, String folder);
 
+    /**
+     * 上传文件到 MinIO，读取的数据同时写入旁路输出流（例如音频分析器），文件只读取一次
+     * @param file   要上传的文件
+     * @param folder 存储文件的目录
+     * @param tap    旁路输出流，为 null 时与 {@link #uploadFile(MultipartFile, String)} 相同
+     * @return 文件访问 URL
+     */
+    String uploadFile(MultipartFile file, String folder, OutputStream tap);
+
     /**
      * 删除 MinIO 文件
      * @param fileUrl 文件 URL
      */
     void deleteFile(String fileUrl);
 
+    /**
+     * 在 MinIO 线程池中上传文件，多个文件可以并发上传
+     * @param file   要上传的文件
+     * @param folder 存储文件的目录
+     * @return 文件访问 URL
+     */
+    CompletableFuture<String> uploadFileAsync(MultipartFile file, String folder);
+
+    /**
+     * 在 MinIO 线程池中上传文件，读取的数据同时写入旁路输出流
+     * @param file   要上传的文件
+     * @param folder 存储文件的目录
+     * @param tap    旁路输出流，只在上传线程中写入
+     * @return 文件访问 URL
+     */
+    CompletableFuture<String> uploadFileAsync(MultipartFile file, String folder, OutputStream tap);
+
+    /**
+     * 在 MinIO 线程池中删除文件
+     * @param fileUrl 文件 URL
+     * @return 删除完成的结果
+     */
+    CompletableFuture<Void> deleteFileAsync(String fileUrl);
+
+    /**
+     * 批量删除对象（一次请求最多删除 1000 个，超出时分多次请求），对象不存在视为删除成功
+     * @param objectNames 对象名
+     * @return 删除失败的对象名 -> 错误信息
+     */
+    Map<String, String> removeObjects(Collection<String> objectNames);
+
+    /**
+     * 上传小文件，对象已存在时覆盖
+     * @param objectName  对象名
+     * @param data        文件内容
+     * @param contentType 内容类型
+     */
+    void putObject(String objectName, byte[] data, String contentType);
+
+    /**
+     * 生成对象的访问 URL
+     * @param objectName 对象名
+     * @return 文件访问 URL
+     */
+    String getObjectUrl(String objectName);
+
+    /**
+     * 生成直传对象的预签名 POST 表单，策略限定对象名、Content-Type 与文件大小，不符合时由 MinIO 拒绝上传
+     * @param objectName    对象名
+     * @param contentType   上传时必须使用的 Content-Type
+     * @param maxSize       文件大小上限，单位字节
+     * @param expirySeconds 有效期，单位秒
+     * @return 表单地址与表单字段
+     */
+    PresignedPost getPresignedPost(String objectName, String contentType, long maxSize, int expirySeconds);
+
+    /**
+     * 由文件 URL 解析对象名
+     * @param fileUrl 文件 URL
+     * @return 对象名，不是本存储桶的 URL 时返回 null
+     */
+    String getObjectName(String fileUrl);
+
+    /**
+     * 查询对象信息
+     * @param objectName 对象名
+     * @return 对象信息，对象不存在时返回 null
+     */
+    ObjectInfo statObject(String objectName);
+
+    /**
+     * 读取对象的一段字节
+     * @param objectName 对象名
+     * @param offset     起始偏移
+     * @param length     长度
+     * @return 数据流，由调用方关闭
+     */
+    InputStream getObject(String objectName, long offset, long length);
+
+    /**
+     * 创建分片上传
+     * @param objectName  对象名
+     * @param contentType 合并后对象的内容类型
+     * @return 分片上传id
+     */
+    String createMultipartUpload(String objectName, String contentType);
+
+    /**
+     * 上传一个分片，数据流直接写入对象存储，同一分片号重复上传时覆盖
+     * @param objectName 对象名
+     * @param uploadId   分片上传id
+     * @param partNumber 分片号，从 1 开始
+     * @param data       分片数据，由调用方关闭
+     * @param length     分片长度
+     * @return 分片的 ETag
+     */
+    String uploadPart(String objectName, String uploadId, int partNumber, InputStream data, long length);
+
+    /**
+     * 按分片号顺序合并分片
+     * @param objectName 对象名
+     * @param uploadId   分片上传id
+     * @param parts      分片号 -> ETag
+     */
+    void completeMultipartUpload(String objectName, String uploadId, SortedMap<Integer, String> parts);
+
+    /**
+     * 取消分片上传并释放已上传的分片
+     * @param objectName 对象名
+     * @param uploadId   分片上传id
+     */
+    void abortMultipartUpload(String objectName, String uploadId);
+
+    /**
+     * 按对象名的 UTF-8 字节序列出存储桶中的全部对象，结果是惰性的，遍历时按页请求
+     * @param startAfter 从该对象名之后开始列出，为 null 时从头开始
+     * @return 对象列表
+     */
+    Iterable<ListedObject> listObjects(String startAfter);
+
+    /**
+     * 按对象名列出存储桶中未完成的分片上传（同一对象的按创建顺序），结果是惰性的，遍历时按页请求
+     * @param keyMarker      从该对象名之后开始列出，为 null 时从头开始
+     * @param uploadIdMarker 不为 null 时从 keyMarker 对象中该分片上传之后开始列出
+     * @return 未完成的分片上传
+     */
+    Iterable<IncompleteUpload> listIncompleteUploads(String keyMarker, String uploadIdMarker);
+
+    /**
+     * 对象信息
+     * @param size        大小，单位字节
+     * @param etag        对象内容的 ETag（不含引号）
+     * @param contentType 内容类型
+     */
+    record ObjectInfo(long size, String etag, String contentType) {
+    }
+
+    /**
+     * 预签名 POST 表单
+     *
+     * @param url      表单提交地址（存储桶地址）
+     * @param formData 表单字段，文件字段 file 须放在这些字段之后
+     */
+    record PresignedPost(String url, Map<String, String> formData) {
+    }
+
+    /**
+     * 列表中的对象
+     * @param objectName   对象名
+     * @param size         大小，单位字节
+     * @param lastModified 最后修改时间，毫秒时间戳
+     */
+    record ListedObject(String objectName, long size, long lastModified) {
+    }
+
+    /**
+     * 未完成的分片上传
+     * @param objectName 对象名
+     * @param uploadId   分片上传id
+     * @param initiated  创建时间，毫秒时间戳
+     */
+    record IncompleteUpload(String objectName, String uploadId, long initiated) {
+    }
+
 }
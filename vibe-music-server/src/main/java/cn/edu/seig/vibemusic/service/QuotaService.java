@@ -0,0 +1,48 @@
+package cn.edu.seig.vibemusic.service;
+
+import cn.edu.seig.vibemusic.enumeration.QuotaActionEnum;
+
+/**
+ * 用户操作配额服务
+ * <p>
+ * 按（操作, 用户）在滑动窗口内计数，限额在配置文件 quota.limits 中声明。计数保存在 Redis 中，
+ * 判断与占用由 Lua 脚本原子完成，并发提交不会超出上限；Redis 不可用时改用本节点的本地计数。
+ */
+public interface QuotaService {
+
+    /**
+     * 窗口内的次数是否已用完，不占用配额，用于在耗时操作之前提前拒绝
+     *
+     * @param action 操作
+     * @param userId 用户ID
+     * @return 是否已用完
+     */
+    boolean isExhausted(QuotaActionEnum action, Long userId);
+
+    /**
+     * 尝试占用一次配额
+     *
+     * @param action 操作
+     * @param userId 用户ID
+     * @return 占用凭证，操作失败时用于归还；超出配额时返回 null
+     */
+    String tryAcquire(QuotaActionEnum action, Long userId);
+
+    /**
+     * 归还一次配额，操作最终没有完成时调用
+     *
+     * @param action 操作
+     * @param userId 用户ID
+     * @param permit tryAcquire 返回的凭证
+     */
+    void release(QuotaActionEnum action, Long userId, String permit);
+
+    /**
+     * 超出配额时的提示信息
+     *
+     * @param action 操作
+     * @return 提示信息
+     */
+    String exceededMessage(QuotaActionEnum action);
+
+}
@@ -0,0 +1,46 @@
+package cn.edu.seig.vibemusic.service;
+
+import cn.edu.seig.vibemusic.model.vo.ArtistVO;
+import cn.edu.seig.vibemusic.model.vo.PlaylistVO;
+import cn.edu.seig.vibemusic.model.vo.SongVO;
+
+import java.util.List;
+
+/**
+ * 随机抽样服务
+ * <p>
+ * 在内存中维护已通过审核的歌曲、歌单、可展示歌手的 id 数组并定时刷新，
+ * 抽样在 O(k) 内完成，再按 id 批量回填，替代 ORDER BY RAND() 的全表排序。
+ */
+public interface RandomSampleService {
+
+    /**
+     * 随机抽取已通过审核的歌曲
+     *
+     * @param count 数量
+     * @return 歌曲列表，数量可能少于 count
+     */
+    List<SongVO> sampleSongs(int count);
+
+    /**
+     * 随机抽取歌单
+     *
+     * @param count 数量
+     * @return 歌单列表，数量可能少于 count
+     */
+    List<PlaylistVO> samplePlaylists(int count);
+
+    /**
+     * 随机抽取可展示的歌手
+     *
+     * @param count 数量
+     * @return 歌手列表，数量可能少于 count
+     */
+    List<ArtistVO> sampleArtists(int count);
+
+    /**
+     * 从数据库重新加载全部 id 池
+     */
+    void refresh();
+
+}
@@ -0,0 +1,89 @@
+package cn.edu.seig.vibemusic.service;
+
+import cn.edu.seig.vibemusic.model.dto.ResumableUploadCreateDTO;
+import cn.edu.seig.vibemusic.model.vo.ResumableUploadVO;
+import cn.edu.seig.vibemusic.result.Result;
+
+import java.io.InputStream;
+
+/**
+ * 断点续传服务
+ * <p>
+ * 创建会话 → 逐片 PUT → 查询进度 → 合并。分片一一对应 MinIO 分片上传的分片，请求体直接写入对象存储，
+ * 会话保存在 Redis 中，长时间无进展的会话由定时任务取消并释放已上传的分片。
+ */
+public interface ResumableUploadService {
+
+    /**
+     * 创建上传会话
+     *
+     * @param resumableUploadCreateDTO 上传用途与文件信息
+     * @return 会话状态
+     */
+    Result<ResumableUploadVO> createUpload(ResumableUploadCreateDTO resumableUploadCreateDTO);
+
+    /**
+     * 上传一个分片，同一分片可以重复上传，以最后一次为准
+     *
+     * @param uploadId      会话id
+     * @param index         分片序号，从 0 开始
+     * @param contentLength 请求体长度，必须等于该分片的长度
+     * @param data          请求体
+     * @return 会话状态
+     */
+    Result<ResumableUploadVO> uploadChunk(String uploadId, int index, long contentLength, InputStream data);
+
+    /**
+     * 查询上传进度
+     *
+     * @param uploadId 会话id
+     * @return 会话状态
+     */
+    Result<ResumableUploadVO> getUpload(String uploadId);
+
+    /**
+     * 合并全部分片
+     *
+     * @param uploadId 会话id
+     * @return 会话状态
+     */
+    Result<ResumableUploadVO> completeUpload(String uploadId);
+
+    /**
+     * 取消上传并释放已上传的数据
+     *
+     * @param uploadId 会话id
+     * @return 结果
+     */
+    Result abortUpload(String uploadId);
+
+    /**
+     * 认领已合并完成的附件，同一附件只能被认领一次；引用附件的数据保存成功后须调用 confirmAttachment，失败时调用 restoreAttachment
+     *
+     * @param uploadId 会话id
+     * @param userId   用户id
+     * @param purpose  上传用途
+     * @return 附件 URL，会话不存在、未完成或不属于该用户时返回 null
+     */
+    String claimAttachment(String uploadId, Long userId, String purpose);
+
+    /**
+     * 确认认领，删除会话
+     *
+     * @param uploadId 会话id
+     */
+    void confirmAttachment(String uploadId);
+
+    /**
+     * 撤销认领，恢复会话
+     *
+     * @param uploadId 会话id
+     */
+    void restoreAttachment(String uploadId);
+
+    /**
+     * 取消长时间无进展的会话
+     */
+    void collectAbandonedUploads();
+
+}
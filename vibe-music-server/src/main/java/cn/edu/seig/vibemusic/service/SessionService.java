@@ -0,0 +1,49 @@
+package cn.edu.seig.vibemusic.service;
+
+import cn.edu.seig.vibemusic.util.AuthContext;
+
+import java.util.Map;
+
+/**
+ * 登录会话服务
+ * <p>
+ * 每个令牌携带一个短会话 ID（jti），每个用户或管理员在 Redis 中只占一个哈希（会话 ID → 过期时间），
+ * 不再以整个令牌作为 key。注销的会话记入已注销集合，各节点据此维护本地布隆过滤器：
+ * 不在过滤器中的会话一定未被注销，验证签名后即可放行，不访问 Redis。
+ */
+public interface SessionService {
+
+    /**
+     * 创建会话并签发令牌，超出设备数上限时注销最早的会话
+     *
+     * @param claims 令牌中的业务数据，须包含角色与用户ID或管理员ID
+     * @return 令牌
+     */
+    String createToken(Map<String, Object> claims);
+
+    /**
+     * 验证令牌并获取登录信息
+     *
+     * @param token 令牌
+     * @return 登录信息，会话已注销或已过期时返回 null
+     * @throws com.auth0.jwt.exceptions.JWTVerificationException 令牌签名无效或已过期
+     */
+    AuthContext authenticate(String token);
+
+    /**
+     * 注销会话
+     *
+     * @param authContext 登录信息
+     * @return 会话是否存在
+     */
+    boolean revoke(AuthContext authContext);
+
+    /**
+     * 注销用户或管理员的全部会话
+     *
+     * @param role        角色
+     * @param principalId 用户ID或管理员ID
+     */
+    void revokeAll(String role, Long principalId);
+
+}
@@ -0,0 +1,28 @@
+package cn.edu.seig.vibemusic.service;
+
+import java.util.List;
+
+/**
+ * 歌曲协同过滤推荐服务
+ * <p>
+ * 定时由全部用户的收藏记录构建物品-物品相似度模型（每首歌曲保留前 K 个相似歌曲），
+ * 推荐时在内存中合并用户最近收藏的歌曲的相似歌曲。
+ */
+public interface SongRecommendService {
+
+    /**
+     * 根据用户的收藏推荐歌曲
+     *
+     * @param favoriteSongIds 用户收藏的歌曲 id，按收藏时间倒序
+     * @param count           推荐数量
+     * @return 按得分降序排列的歌曲 id（不含已收藏歌曲，可能包含未通过审核或已删除的歌曲）；
+     * 模型未就绪时返回 null，没有可推荐的歌曲时返回空数组
+     */
+    long[] recommend(List<Long> favoriteSongIds, int count);
+
+    /**
+     * 全量重建模型
+     */
+    void rebuild();
+
+}
@@ -0,0 +1,41 @@
+package cn.edu.seig.vibemusic.service;
+
+import cn.edu.seig.vibemusic.model.vo.StorageDeletionStatsVO;
+
+import java.util.Collection;
+
+/**
+ * 对象存储删除队列
+ * <p>
+ * 业务数据删除时只把待删除的文件登记到队列表（与业务数据同一事务提交），请求在数据库提交后立即返回；
+ * 后台任务按批调用 MinIO 的批量删除，失败的对象按指数退避重试，重试次数耗尽后保留在表中等待人工处理。
+ */
+public interface StorageDeletionService {
+
+    /**
+     * 登记待删除的文件，不是本存储桶的 URL 会被忽略
+     *
+     * @param fileUrls 文件 URL
+     */
+    void enqueue(Collection<String> fileUrls);
+
+    /**
+     * 删除队列中已到期的对象
+     */
+    void drain();
+
+    /**
+     * 把重试次数耗尽的对象重新放回队列
+     *
+     * @return 重新放回的对象数
+     */
+    int retryFailed();
+
+    /**
+     * 队列统计信息
+     *
+     * @return 待删除、失败数量与本节点的删除计数
+     */
+    StorageDeletionStatsVO getStats();
+
+}
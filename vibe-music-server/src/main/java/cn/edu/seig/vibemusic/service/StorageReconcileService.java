@@ -0,0 +1,40 @@
+package cn.edu.seig.vibemusic.service;
+
+import cn.edu.seig.vibemusic.model.vo.StorageReconcileStatusVO;
+
+/**
+ * 对象存储核对
+ * <p>
+ * 按对象名顺序同时读取存储桶列表与数据库中的文件引用并做有序归并，两侧都只保留一页数据，内存占用与对象数量无关；
+ * 找出没有被引用的对象（孤立对象）与指向不存在对象的记录（断链），并检查长时间未完成的分片上传。
+ * 运行进度保存在 Redis 中，中断（停止、失败、节点重启）后可以从上次保存的位置继续。
+ */
+public interface StorageReconcileService {
+
+    /**
+     * 在后台开始核对，上次核对未完成时从保存的进度继续
+     *
+     * @param deleteOrphans 是否把孤立对象登记到删除队列并取消过期的分片上传
+     * @param restart       是否丢弃上次的进度重新开始
+     * @return 是否开始，已有核对在运行时返回 false
+     */
+    boolean start(boolean deleteOrphans, boolean restart);
+
+    /**
+     * 请求停止正在运行的核对，在下次保存进度时停止
+     */
+    void stop();
+
+    /**
+     * 核对进度与结果
+     *
+     * @return 进度与结果
+     */
+    StorageReconcileStatusVO getStatus();
+
+    /**
+     * 按配置的时间定时核对
+     */
+    void runScheduled();
+
+}
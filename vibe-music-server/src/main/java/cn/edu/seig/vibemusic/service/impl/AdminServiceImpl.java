@@ -1,24 +1,32 @@
 package cn.edu.seig.vibemusic.service.impl;
 
+import cn.edu.seig.vibemusic.cache.TaggedCacheManager;
 import cn.edu.seig.vibemusic.constant.JwtClaimsConstant;
 import cn.edu.seig.vibemusic.constant.MessageConstant;
 import cn.edu.seig.vibemusic.enumeration.RoleEnum;
 import cn.edu.seig.vibemusic.mapper.AdminMapper;
 import cn.edu.seig.vibemusic.model.dto.AdminDTO;
 import cn.edu.seig.vibemusic.model.entity.Admin;
+import cn.edu.seig.vibemusic.model.vo.CacheStatsVO;
+import cn.edu.seig.vibemusic.model.vo.MailStatsVO;
+import cn.edu.seig.vibemusic.model.vo.StorageDeletionStatsVO;
+import cn.edu.seig.vibemusic.model.vo.StorageReconcileStatusVO;
 import cn.edu.seig.vibemusic.result.Result;
+import cn.edu.seig.vibemusic.service.EmailService;
 import cn.edu.seig.vibemusic.service.IAdminService;
-import cn.edu.seig.vibemusic.util.JwtUtil;
+import cn.edu.seig.vibemusic.service.SessionService;
+import cn.edu.seig.vibemusic.service.StorageDeletionService;
+import cn.edu.seig.vibemusic.service.StorageReconcileService;
+import cn.edu.seig.vibemusic.util.AuthContext;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.util.DigestUtils;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 /**
  * <p>
@@ -34,7 +42,15 @@ public class AdminServiceImpl extends ServiceImpl<AdminMapper, Admin> implements
     @Autowired
     private AdminMapper adminMapper;
     @Autowired
-    private StringRedisTemplate stringRedisTemplate;
+    private TaggedCacheManager cacheManager;
+    @Autowired
+    private SessionService sessionService;
+    @Autowired
+    private StorageDeletionService storageDeletionService;
+    @Autowired
+    private StorageReconcileService storageReconcileService;
+    @Autowired
+    private EmailService emailService;
 
     /**
      * 管理员注册
@@ -78,10 +94,8 @@ public class AdminServiceImpl extends ServiceImpl<AdminMapper, Admin> implements
             claims.put(JwtClaimsConstant.ROLE, RoleEnum.ADMIN.getRole());
             claims.put(JwtClaimsConstant.ADMIN_ID, admin.getAdminId());
             claims.put(JwtClaimsConstant.USERNAME, admin.getUsername());
-            String token = JwtUtil.generateToken(claims);
-
-            // 将token存入redis
-            stringRedisTemplate.opsForValue().set(token, token, 6, TimeUnit.HOURS);
+            // 登记会话并签发token
+            String token = sessionService.createToken(claims);
 
             return Result.success(MessageConstant.LOGIN + MessageConstant.SUCCESS, token);
         }
@@ -92,17 +106,92 @@ public class AdminServiceImpl extends ServiceImpl<AdminMapper, Admin> implements
     /**
      * 登出
      *
-     * @param token 认证token
+     * @param authContext 当前登录信息
      * @return 结果
      */
     @Override
-    public Result logout(String token) {
-        // 注销token
-        Boolean result = stringRedisTemplate.delete(token);
-        if (result != null && result) {
+    public Result logout(AuthContext authContext) {
+        // 注销当前会话
+        if (sessionService.revoke(authContext)) {
             return Result.success(MessageConstant.LOGOUT + MessageConstant.SUCCESS);
         } else {
             return Result.error(MessageConstant.LOGOUT + MessageConstant.FAILED);
         }
     }
+
+    /**
+     * 获取缓存统计信息（本节点自启动以来的命中、未命中与清除次数）
+     *
+     * @return 各缓存的统计信息
+     */
+    @Override
+    public Result<List<CacheStatsVO>> getCacheStats() {
+        return Result.success(cacheManager.getStats());
+    }
+
+    /**
+     * 获取对象存储删除队列统计信息（队列长度取自数据库，计数为本节点自启动以来的值）
+     *
+     * @return 删除队列统计信息
+     */
+    @Override
+    public Result<StorageDeletionStatsVO> getStorageDeletionStats() {
+        return Result.success(storageDeletionService.getStats());
+    }
+
+    /**
+     * 获取邮件发送队列统计信息（本节点自启动以来的值）
+     *
+     * @return 邮件发送队列统计信息
+     */
+    @Override
+    public Result<MailStatsVO> getMailStats() {
+        return Result.success(emailService.getStats());
+    }
+
+    /**
+     * 把重试次数耗尽的对象重新放回删除队列
+     *
+     * @return 结果，data 为重新放回的对象数
+     */
+    @Override
+    public Result retryStorageDeletions() {
+        return Result.success(MessageConstant.UPDATE + MessageConstant.SUCCESS, storageDeletionService.retryFailed());
+    }
+
+    /**
+     * 在后台开始对象存储核对
+     *
+     * @param deleteOrphans 是否删除孤立对象、取消过期的分片上传，为 false 时只报告
+     * @param restart       是否丢弃上次未完成的进度重新开始
+     * @return 结果
+     */
+    @Override
+    public Result startStorageReconcile(boolean deleteOrphans, boolean restart) {
+        if (!storageReconcileService.start(deleteOrphans, restart)) {
+            return Result.error("已有核对正在运行");
+        }
+        return Result.success("核对已开始");
+    }
+
+    /**
+     * 停止对象存储核对，已保存的进度可以继续
+     *
+     * @return 结果
+     */
+    @Override
+    public Result stopStorageReconcile() {
+        storageReconcileService.stop();
+        return Result.success("已请求停止核对");
+    }
+
+    /**
+     * 获取对象存储核对进度与结果
+     *
+     * @return 进度与结果
+     */
+    @Override
+    public Result<StorageReconcileStatusVO> getStorageReconcileStatus() {
+        return Result.success(storageReconcileService.getStatus());
+    }
 }
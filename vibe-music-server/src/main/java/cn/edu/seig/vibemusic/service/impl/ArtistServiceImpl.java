@@ -1,42 +1,40 @@
 package cn.edu.seig.vibemusic.service.impl;
 
-import cn.edu.seig.vibemusic.constant.JwtClaimsConstant;
+import cn.edu.seig.vibemusic.cache.CacheTags;
+import cn.edu.seig.vibemusic.cache.TaggedCacheManager;
 import cn.edu.seig.vibemusic.constant.MessageConstant;
 import cn.edu.seig.vibemusic.enumeration.LikeStatusEnum;
 import cn.edu.seig.vibemusic.enumeration.RoleEnum;
 import cn.edu.seig.vibemusic.mapper.ArtistMapper;
-import cn.edu.seig.vibemusic.mapper.UserFavoriteMapper;
+import cn.edu.seig.vibemusic.mapper.SongMapper;
 import cn.edu.seig.vibemusic.model.dto.ArtistAddDTO;
 import cn.edu.seig.vibemusic.model.dto.ArtistDTO;
 import cn.edu.seig.vibemusic.model.dto.ArtistUpdateDTO;
 import cn.edu.seig.vibemusic.model.entity.Artist;
-import cn.edu.seig.vibemusic.model.entity.UserFavorite;
 import cn.edu.seig.vibemusic.model.vo.ArtistDetailVO;
 import cn.edu.seig.vibemusic.model.vo.ArtistNameVO;
 import cn.edu.seig.vibemusic.model.vo.ArtistVO;
 import cn.edu.seig.vibemusic.model.vo.SongVO;
 import cn.edu.seig.vibemusic.result.PageResult;
 import cn.edu.seig.vibemusic.result.Result;
+import cn.edu.seig.vibemusic.service.CatalogSearchService;
+import cn.edu.seig.vibemusic.service.FavoriteBitmapService;
 import cn.edu.seig.vibemusic.service.IArtistService;
 import cn.edu.seig.vibemusic.service.MinioService;
-import cn.edu.seig.vibemusic.util.JwtUtil;
-import cn.edu.seig.vibemusic.util.TypeConversionUtil;
+import cn.edu.seig.vibemusic.service.RandomSampleService;
+import cn.edu.seig.vibemusic.util.AuthContext;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
-import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheConfig;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -55,9 +53,17 @@ public class ArtistServiceImpl extends ServiceImpl<ArtistMapper, Artist> impleme
     @Autowired
     private ArtistMapper artistMapper;
     @Autowired
-    private UserFavoriteMapper userFavoriteMapper;
+    private FavoriteBitmapService favoriteBitmapService;
     @Autowired
     private MinioService minioService;
+    @Autowired
+    private SongMapper songMapper;
+    @Autowired
+    private CatalogSearchService catalogSearchService;
+    @Autowired
+    private RandomSampleService randomSampleService;
+    @Autowired
+    private TaggedCacheManager cacheManager;
 
     /**
      * 获取所有歌手列表
@@ -79,7 +85,16 @@ public class ArtistServiceImpl extends ServiceImpl<ArtistMapper, Artist> impleme
         QueryWrapper<Artist> queryWrapper = new QueryWrapper<>();
         // 根据 artistDTO 的条件构建查询条件
         if (artistDTO.getArtistName() != null && !artistDTO.getArtistName().trim().isEmpty()) {
-            queryWrapper.like("name", artistDTO.getArtistName());
+            List<Long> matchedIds = catalogSearchService.searchArtistIds(artistDTO.getArtistName());
+            if (matchedIds == null) {
+                queryWrapper.like("name", artistDTO.getArtistName());
+            } else if (matchedIds.isEmpty()) {
+                return Result.success(MessageConstant.DATA_NOT_FOUND, new PageResult<>(0L, List.of()));
+            } else {
+                // 按索引相关度排序
+                queryWrapper.in("id", matchedIds)
+                        .last("ORDER BY FIELD(id, " + matchedIds.stream().map(String::valueOf).collect(Collectors.joining(",")) + ")");
+            }
         }
         if (artistDTO.getGender() != null) {
             queryWrapper.eq("gender", artistDTO.getGender());
@@ -150,7 +165,14 @@ public class ArtistServiceImpl extends ServiceImpl<ArtistMapper, Artist> impleme
         boolean hasSearchKeyword = artistDTO.getArtistName() != null && !artistDTO.getArtistName().trim().isEmpty();
         
         if (hasSearchKeyword) {
-            queryWrapper.like("name", artistDTO.getArtistName());
+            List<Long> matchedIds = catalogSearchService.searchArtistIds(artistDTO.getArtistName());
+            if (matchedIds == null) {
+                queryWrapper.like("name", artistDTO.getArtistName());
+            } else if (matchedIds.isEmpty()) {
+                return Result.success(MessageConstant.DATA_NOT_FOUND, new PageResult<>(0L, List.of()));
+            } else {
+                queryWrapper.in("id", matchedIds);
+            }
         }
         
         if (artistDTO.getGender() != null) {
@@ -226,6 +248,7 @@ public class ArtistServiceImpl extends ServiceImpl<ArtistMapper, Artist> impleme
                     artistNameVO.setArtistName(artist.getArtistName());
                     return artistNameVO;
                 }).toList();
+        CacheTags.tag(CacheTags.listOf(CacheTags.ARTIST));
 
         return Result.success(artistNameVOList);
     }
@@ -238,45 +261,25 @@ public class ArtistServiceImpl extends ServiceImpl<ArtistMapper, Artist> impleme
      */
     @Override
     public Result<List<ArtistVO>> getRandomArtists() {
-        QueryWrapper<Artist> queryWrapper = new QueryWrapper<>();
-        // 对于原创歌手（gender=3），只显示上传过已通过审核的原创歌曲的用户
-        queryWrapper.and(wrapper -> {
-            wrapper.ne("gender", 3)
-                    .or(w -> w.eq("gender", 3)
-                            .inSql("name", 
-                                "SELECT u.username FROM tb_user u " +
-                                "INNER JOIN tb_song s ON u.id = s.creator_id " +
-                                "WHERE s.is_original = true " +
-                                "AND (s.audit_status = 1 OR s.audit_status IS NULL) " +
-                                "GROUP BY u.username"));
-        });
-        queryWrapper.last("ORDER BY RAND() LIMIT 10");
-
-        List<Artist> artists = artistMapper.selectList(queryWrapper);
-        if (artists.isEmpty()) {
+        // 对于原创歌手（gender=3），只抽取上传过已通过审核的原创歌曲的用户
+        List<ArtistVO> artistVOList = randomSampleService.sampleArtists(10);
+        if (artistVOList.isEmpty()) {
             return Result.success(MessageConstant.DATA_NOT_FOUND, null);
         }
 
-        List<ArtistVO> artistVOList = artists.stream()
-                .map(artist -> {
-                    ArtistVO artistVO = new ArtistVO();
-                    BeanUtils.copyProperties(artist, artistVO);
-                    return artistVO;
-                }).toList();
-
         return Result.success(artistVOList);
     }
 
     /**
      * 获取歌手详情
      *
-     * @param artistId 歌手id
-     * @param request  HttpServletRequest，用于获取请求头中的 token
+     * @param artistId    歌手id
+     * @param authContext 当前登录信息
      * @return 歌手详情
      */
     @Override
     // @Cacheable(key = "#artistId")  // 临时禁用缓存以便调试
-    public Result<ArtistDetailVO> getArtistDetail(Long artistId, HttpServletRequest request) {
+    public Result<ArtistDetailVO> getArtistDetail(Long artistId, AuthContext authContext) {
         log.info("======================================");
         log.info("查询歌手详情，artistId: {}", artistId);
         ArtistDetailVO artistDetailVO = artistMapper.getArtistDetailById(artistId);
@@ -300,49 +303,16 @@ public class ArtistServiceImpl extends ServiceImpl<ArtistMapper, Artist> impleme
         }
         songVOList.forEach(songVO -> songVO.setLikeStatus(LikeStatusEnum.DEFAULT.getId()));
 
-        // 获取请求头中的 token
-        String token = request.getHeader("Authorization");
-        if (token != null && token.startsWith("Bearer ")) {
-            token = token.substring(7); // 去掉 "Bearer " 前缀
-        }
-
-        Map<String, Object> map = null;
-        if (token != null && !token.isEmpty()) {
-            try {
-                map = JwtUtil.parseToken(token);
-            } catch (com.auth0.jwt.exceptions.TokenExpiredException e) {
-                // Token 过期，按未登录处理
-                log.warn("Token expired, treating as unauthenticated user");
-                map = null;
-            } catch (Exception e) {
-                // Token 解析失败，按未登录处理
-                log.warn("Token parse failed: {}, treating as unauthenticated user", e.getMessage());
-                map = null;
-            }
-        }
+        // 用户为登录状态，进一步操作
+        if (RoleEnum.USER.getRole().equals(authContext.getRole())) {
+            Long userId = authContext.getUserId();
 
-        // 如果 token 解析成功且用户为登录状态，进一步操作
-        if (map != null) {
-            String role = (String) map.get(JwtClaimsConstant.ROLE);
-            if (role.equals(RoleEnum.USER.getRole())) {
-                Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-                Long userId = TypeConversionUtil.toLong(userIdObj);
-
-                // 获取用户收藏的歌曲
-                List<UserFavorite> favoriteSongs = userFavoriteMapper.selectList(new QueryWrapper<UserFavorite>()
-                        .eq("user_id", userId)
-                        .eq("type", 0));
-
-                // 获取用户收藏的歌曲 id
-                Set<Long> favoriteSongIds = favoriteSongs.stream()
-                        .map(UserFavorite::getSongId)
-                        .collect(Collectors.toSet());
-
-                // 检查并更新状态
-                for (SongVO songVO : songVOList) {
-                    if (favoriteSongIds.contains(songVO.getSongId())) {
-                        songVO.setLikeStatus(LikeStatusEnum.LIKE.getId());
-                    }
+            // 通过收藏位图批量检查并更新状态
+            long[] songIds = songVOList.stream().mapToLong(SongVO::getSongId).toArray();
+            boolean[] favorites = favoriteBitmapService.contains(userId, songIds);
+            for (int i = 0; i < favorites.length; i++) {
+                if (favorites[i]) {
+                    songVOList.get(i).setLikeStatus(LikeStatusEnum.LIKE.getId());
                 }
             }
         }
@@ -390,7 +360,6 @@ public class ArtistServiceImpl extends ServiceImpl<ArtistMapper, Artist> impleme
      * @return 添加结果
      */
     @Override
-    @CacheEvict(cacheNames = "artistCache", allEntries = true)
     public Result addArtist(ArtistAddDTO artistAddDTO) {
         QueryWrapper<Artist> queryWrapper = new QueryWrapper<>();
         queryWrapper.eq("name", artistAddDTO.getArtistName());
@@ -402,6 +371,8 @@ public class ArtistServiceImpl extends ServiceImpl<ArtistMapper, Artist> impleme
         BeanUtils.copyProperties(artistAddDTO, artist);
         artistMapper.insert(artist);
 
+        catalogSearchService.refreshArtists(List.of(artist.getArtistId()));
+        cacheManager.evictTags(CacheTags.listOf(CacheTags.ARTIST));
         return Result.success(MessageConstant.ADD + MessageConstant.SUCCESS);
     }
 
@@ -412,7 +383,6 @@ public class ArtistServiceImpl extends ServiceImpl<ArtistMapper, Artist> impleme
      * @return 更新结果
      */
     @Override
-    @CacheEvict(cacheNames = "artistCache", allEntries = true)
     public Result updateArtist(ArtistUpdateDTO artistUpdateDTO) {
         Long artistId = artistUpdateDTO.getArtistId();
 
@@ -427,6 +397,16 @@ public class ArtistServiceImpl extends ServiceImpl<ArtistMapper, Artist> impleme
             return Result.error(MessageConstant.UPDATE + MessageConstant.FAILED);
         }
 
+        // 歌手名变更会影响其名下歌曲的搜索结果
+        catalogSearchService.refreshArtists(List.of(artistId));
+        catalogSearchService.refreshSongsOfArtist(artistId);
+        // 歌曲列表与歌单详情中带有歌手名
+        List<String> tags = CacheTags.of(CacheTags.SONG, songMapper.getSongIdsByArtistIds(List.of(artistId)));
+        tags.add(CacheTags.of(CacheTags.ARTIST, artistId));
+        tags.add(CacheTags.listOf(CacheTags.ARTIST));
+        tags.add(CacheTags.listOf(CacheTags.SONG));
+        cacheManager.evictTags(tags);
+
         return Result.success(MessageConstant.UPDATE + MessageConstant.SUCCESS);
     }
 
@@ -438,7 +418,6 @@ public class ArtistServiceImpl extends ServiceImpl<ArtistMapper, Artist> impleme
      * @return 更新结果
      */
     @Override
-    @CacheEvict(cacheNames = "artistCache", allEntries = true)
     public Result updateArtistAvatar(Long artistId, String avatar) {
         Artist artist = artistMapper.selectById(artistId);
         String avatarUrl = artist.getAvatar();
@@ -450,6 +429,7 @@ public class ArtistServiceImpl extends ServiceImpl<ArtistMapper, Artist> impleme
         if (artistMapper.updateById(artist) == 0) {
             return Result.error(MessageConstant.UPDATE + MessageConstant.FAILED);
         }
+        cacheManager.evictTags(CacheTags.of(CacheTags.ARTIST, artistId));
 
         return Result.success(MessageConstant.UPDATE + MessageConstant.SUCCESS);
     }
@@ -461,7 +441,6 @@ public class ArtistServiceImpl extends ServiceImpl<ArtistMapper, Artist> impleme
      * @return 删除结果
      */
     @Override
-    @CacheEvict(cacheNames = "artistCache", allEntries = true)
     public Result deleteArtist(Long artistId) {
         // 1. 查询歌手信息，获取头像 URL
         Artist artist = artistMapper.selectById(artistId);
@@ -475,11 +454,16 @@ public class ArtistServiceImpl extends ServiceImpl<ArtistMapper, Artist> impleme
             minioService.deleteFile(avatarUrl);
         }
 
-        // 3. 删除数据库中的歌手信息
+        // 3. 删除数据库中的歌手信息（歌曲随外键级联删除，先记下歌曲 id 以便更新搜索索引）
+        List<Long> songIds = songMapper.getSongIdsByArtistIds(List.of(artistId));
         if (artistMapper.deleteById(artistId) == 0) {
             return Result.error(MessageConstant.DELETE + MessageConstant.FAILED);
         }
 
+        catalogSearchService.refreshArtists(List.of(artistId));
+        catalogSearchService.refreshSongs(songIds);
+        evictArtistsAndSongs(List.of(artistId), songIds);
+
         return Result.success(MessageConstant.DELETE + MessageConstant.SUCCESS);
     }
 
@@ -490,7 +474,6 @@ public class ArtistServiceImpl extends ServiceImpl<ArtistMapper, Artist> impleme
      * @return 删除结果
      */
     @Override
-    @CacheEvict(cacheNames = {"artistCache", "songCache"}, allEntries = true)
     public Result deleteArtists(List<Long> artistIds) {
         // 1. 查询歌手信息，获取头像 URL 列表
         List<Artist> artists = artistMapper.selectByIds(artistIds);
@@ -504,12 +487,31 @@ public class ArtistServiceImpl extends ServiceImpl<ArtistMapper, Artist> impleme
             minioService.deleteFile(avatarUrl);
         }
 
-        // 3. 删除数据库中的歌手信息
+        // 3. 删除数据库中的歌手信息（歌曲随外键级联删除，先记下歌曲 id 以便更新搜索索引）
+        List<Long> songIds = songMapper.getSongIdsByArtistIds(artistIds);
         if (artistMapper.deleteByIds(artistIds) == 0) {
             return Result.error(MessageConstant.DELETE + MessageConstant.FAILED);
         }
 
+        catalogSearchService.refreshArtists(artistIds);
+        catalogSearchService.refreshSongs(songIds);
+        evictArtistsAndSongs(artistIds, songIds);
+
         return Result.success(MessageConstant.DELETE + MessageConstant.SUCCESS);
     }
 
+    /**
+     * 删除歌手后清除依赖歌手及其名下歌曲（随外键级联删除）的缓存
+     *
+     * @param artistIds 歌手id列表
+     * @param songIds   歌曲id列表
+     */
+    private void evictArtistsAndSongs(List<Long> artistIds, List<Long> songIds) {
+        List<String> tags = CacheTags.of(CacheTags.ARTIST, artistIds);
+        tags.addAll(CacheTags.of(CacheTags.SONG, songIds));
+        tags.add(CacheTags.listOf(CacheTags.ARTIST));
+        tags.add(CacheTags.listOf(CacheTags.SONG));
+        cacheManager.evictTags(tags);
+    }
+
 }
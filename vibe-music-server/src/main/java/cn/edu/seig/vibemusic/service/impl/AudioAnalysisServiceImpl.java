@@ -0,0 +1,261 @@
+package cn.edu.seig.vibemusic.service.impl;
+
+import cn.edu.seig.vibemusic.cache.CacheTags;
+import cn.edu.seig.vibemusic.cache.SongCatalog;
+import cn.edu.seig.vibemusic.cache.TaggedCacheManager;
+import cn.edu.seig.vibemusic.mapper.SongMapper;
+import cn.edu.seig.vibemusic.model.entity.Song;
+import cn.edu.seig.vibemusic.service.AudioAnalysisService;
+import cn.edu.seig.vibemusic.service.MinioService;
+import cn.edu.seig.vibemusic.util.AudioAnalyzer;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 音频分析服务实现类
+ * <p>
+ * 后台分析使用独立的小线程池，队列满时放弃本次分析，下次读取波形时会再次触发。
+ * 波形文件在本地按 LRU 缓存，同一音频对象的波形不会变化；分析失败的音频在一段时间内不再重试。
+ */
+@Slf4j
+@Service
+public class AudioAnalysisServiceImpl implements AudioAnalysisService {
+
+    private static final String PEAKS_FOLDER = "peaks/";
+    private static final String PEAKS_SUFFIX = ".peaks";
+    private static final String PEAKS_CONTENT_TYPE = "application/octet-stream";
+
+    @Autowired
+    private MinioService minioService;
+    @Autowired
+    private SongMapper songMapper;
+    @Autowired
+    private SongCatalog songCatalog;
+    @Autowired
+    private TaggedCacheManager cacheManager;
+
+    private final int buckets;
+    private final long retryBackoffMillis;
+    private final ThreadPoolExecutor threadPool;
+
+    // 音频对象名 -> 波形文件内容
+    private final Map<String, byte[]> peaksCache;
+    // 正在后台分析的音频对象名
+    private final Set<String> analyzing = ConcurrentHashMap.newKeySet();
+    // 分析失败的音频对象名 -> 失败时间
+    private final Map<String, Long> failures = new ConcurrentHashMap<>();
+
+    public AudioAnalysisServiceImpl(@Value("${audio-analysis.buckets:1024}") int buckets,
+                                    @Value("${audio-analysis.cache-size:2000}") int cacheSize,
+                                    @Value("${audio-analysis.retry-backoff:600000}") long retryBackoffMillis,
+                                    @Value("${audio-analysis.pool-size:2}") int poolSize,
+                                    @Value("${audio-analysis.queue-capacity:32}") int queueCapacity) {
+        if (buckets <= 0 || buckets > 65535) {
+            throw new IllegalArgumentException("audio-analysis.buckets 必须在 1 到 65535 之间");
+        }
+        this.buckets = buckets;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.peaksCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        AtomicInteger threadCount = new AtomicInteger();
+        this.threadPool = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> {
+                    Thread thread = new Thread(task, "audio-analysis-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.threadPool.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        threadPool.shutdownNow();
+    }
+
+    /**
+     * 为即将上传的音频创建分析器
+     *
+     * @param fileName 原始文件名
+     * @return 分析器，格式不支持时返回 null
+     */
+    @Override
+    public AudioAnalyzer createAnalyzer(String fileName) {
+        return AudioAnalyzer.forFileName(fileName, buckets);
+    }
+
+    /**
+     * 结束分析并保存波形文件
+     *
+     * @param audioUrl 已上传音频的 URL
+     * @param analyzer 上传时使用的分析器
+     * @return 分析结果，无法分析时返回 null
+     */
+    @Override
+    public AudioAnalyzer.Analysis saveAnalysis(String audioUrl, AudioAnalyzer analyzer) {
+        if (analyzer == null) {
+            return null;
+        }
+        AudioAnalyzer.Analysis analysis = analyzer.finish();
+        String objectName = minioService.getObjectName(audioUrl);
+        if (analysis == null || objectName == null) {
+            log.warn("音频无法分析，使用客户端上报的时长: {}", audioUrl);
+            return analysis;
+        }
+        try {
+            storePeaks(objectName, analysis);
+        } catch (Exception e) {
+            // 读取波形时会重新分析
+            log.warn("波形文件保存失败: {}, {}", objectName, e.getMessage());
+        }
+        return analysis;
+    }
+
+    /**
+     * 在后台读取已存储的音频并分析
+     *
+     * @param songId   歌曲id
+     * @param audioUrl 音频 URL
+     */
+    @Override
+    public void analyzeStoredAudio(Long songId, String audioUrl) {
+        String objectName = minioService.getObjectName(audioUrl);
+        // 不支持的格式（如 m4a、ogg）不进入分析队列
+        if (songId == null || objectName == null || !AudioAnalyzer.supports(objectName) || !analyzing.add(objectName)) {
+            return;
+        }
+        try {
+            threadPool.execute(() -> {
+                try {
+                    analyze(songId, audioUrl, objectName);
+                } catch (Exception e) {
+                    failures.put(objectName, System.currentTimeMillis());
+                    log.warn("音频分析失败 - songId: {}, {}", songId, e.getMessage());
+                } finally {
+                    analyzing.remove(objectName);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            analyzing.remove(objectName);
+            log.debug("音频分析队列已满，稍后重试 - songId: {}", songId);
+        }
+    }
+
+    /**
+     * 读取歌曲音频的波形文件，缺失时在后台补做分析
+     *
+     * @param songId   歌曲id
+     * @param audioUrl 音频 URL
+     * @return 波形文件内容，尚未生成时返回 null
+     */
+    @Override
+    public byte[] getPeaks(Long songId, String audioUrl) {
+        String objectName = minioService.getObjectName(audioUrl);
+        // 不支持的格式不会有波形文件，不查询 MinIO
+        if (objectName == null || !AudioAnalyzer.supports(objectName)) {
+            return null;
+        }
+        synchronized (peaksCache) {
+            byte[] peaks = peaksCache.get(objectName);
+            if (peaks != null) {
+                return peaks;
+            }
+        }
+        String peaksObject = peaksObjectName(objectName);
+        MinioService.ObjectInfo info = minioService.statObject(peaksObject);
+        if (info == null) {
+            Long failedAt = failures.get(objectName);
+            if (failedAt == null || System.currentTimeMillis() - failedAt > retryBackoffMillis) {
+                failures.remove(objectName);
+                analyzeStoredAudio(songId, audioUrl);
+            }
+            return null;
+        }
+        byte[] peaks;
+        try (InputStream in = minioService.getObject(peaksObject, 0, info.size())) {
+            peaks = in.readAllBytes();
+        } catch (IOException e) {
+            throw new RuntimeException("波形文件读取失败: " + e.getMessage());
+        }
+        synchronized (peaksCache) {
+            peaksCache.put(objectName, peaks);
+        }
+        return peaks;
+    }
+
+    /**
+     * 音频对应的波形文件 URL
+     *
+     * @param audioUrl 音频 URL
+     * @return 波形文件 URL，不是本存储桶的音频时返回 null
+     */
+    @Override
+    public String getPeaksUrl(String audioUrl) {
+        String objectName = minioService.getObjectName(audioUrl);
+        return objectName == null ? null : minioService.getObjectUrl(peaksObjectName(objectName));
+    }
+
+    /**
+     * 流式读取音频对象并分析，保存波形文件，歌曲仍引用该音频时以分析结果更新时长
+     */
+    private void analyze(Long songId, String audioUrl, String objectName) throws IOException {
+        AudioAnalyzer analyzer = createAnalyzer(objectName);
+        MinioService.ObjectInfo info = analyzer == null ? null : minioService.statObject(objectName);
+        if (info == null || info.size() == 0) {
+            return;
+        }
+        try (InputStream in = minioService.getObject(objectName, 0, info.size())) {
+            in.transferTo(analyzer);
+        }
+        AudioAnalyzer.Analysis analysis = analyzer.finish();
+        if (analysis == null) {
+            failures.put(objectName, System.currentTimeMillis());
+            log.warn("音频格式无法解析 - songId: {}, {}", songId, objectName);
+            return;
+        }
+        storePeaks(objectName, analysis);
+
+        // 条件中带上音频地址，分析期间音频被替换时不覆盖新音频的时长
+        UpdateWrapper<Song> updateWrapper = new UpdateWrapper<>();
+        updateWrapper.eq("id", songId).eq("audio_url", audioUrl).set("duration", analysis.durationSeconds());
+        if (songMapper.update(null, updateWrapper) > 0) {
+            cacheManager.evictTags(CacheTags.of(CacheTags.SONG, songId));
+            songCatalog.refresh(List.of(songId));
+        }
+        log.info("音频分析完成 - songId: {}, 时长: {}s, 码率: {}bps", songId, analysis.durationSeconds(), analysis.bitrate());
+    }
+
+    private void storePeaks(String objectName, AudioAnalyzer.Analysis analysis) {
+        byte[] peaks = analysis.toSidecar();
+        minioService.putObject(peaksObjectName(objectName), peaks, PEAKS_CONTENT_TYPE);
+        failures.remove(objectName);
+        synchronized (peaksCache) {
+            peaksCache.put(objectName, peaks);
+        }
+    }
+
+    private static String peaksObjectName(String audioObjectName) {
+        return PEAKS_FOLDER + audioObjectName + PEAKS_SUFFIX;
+    }
+
+}
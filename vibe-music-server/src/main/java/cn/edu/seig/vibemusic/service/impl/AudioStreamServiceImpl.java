@@ -0,0 +1,272 @@
+package cn.edu.seig.vibemusic.service.impl;
+
+import cn.edu.seig.vibemusic.cache.AudioChunkCache;
+import cn.edu.seig.vibemusic.cache.SongCatalog;
+import cn.edu.seig.vibemusic.model.vo.SongVO;
+import cn.edu.seig.vibemusic.service.AudioAnalysisService;
+import cn.edu.seig.vibemusic.service.AudioStreamService;
+import cn.edu.seig.vibemusic.service.MinioService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * 音频流式播放服务实现类
+ * <p>
+ * 只支持单个字节范围，多范围请求按完整内容返回。未指定结束位置的范围（bytes=n-，浏览器播放器的默认请求）
+ * 最多返回 max-open-range 字节，播放器会按 Content-Range 继续请求后续数据，拖动进度条时只需读取少量分块。
+ * <p>
+ * 容器支持 sendfile 且范围落在单个缓存分块内时，只设置 Tomcat 的 sendfile 请求属性，由容器在请求结束后直接从分块文件发送；
+ * 跨越多个分块的范围逐块写入响应输出流。
+ */
+@Slf4j
+@Service
+public class AudioStreamServiceImpl implements AudioStreamService {
+
+    private static final Pattern SINGLE_RANGE = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+    private static final String DEFAULT_CONTENT_TYPE = "audio/mpeg";
+    // Tomcat sendfile 请求属性，结束位置不含
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private SongCatalog songCatalog;
+    @Autowired
+    private MinioService minioService;
+    @Autowired
+    private AudioChunkCache audioChunkCache;
+    @Autowired
+    private AudioAnalysisService audioAnalysisService;
+
+    // 未指定结束位置的范围请求单次最多返回的字节数
+    @Value("${audio-stream.max-open-range:1048576}")
+    private long maxOpenRange;
+    // 浏览器缓存有效期，单位秒，过期后通过 ETag 重新验证
+    @Value("${audio-stream.max-age:3600}")
+    private long maxAge;
+    // 波形的浏览器缓存有效期，同一音频对象的波形不会变化
+    @Value("${audio-analysis.max-age:86400}")
+    private long peaksMaxAge;
+
+    /**
+     * 输出歌曲音频（完整内容或请求的字节范围）
+     *
+     * @param songId   歌曲id
+     * @param request  请求
+     * @param response 响应
+     * @throws IOException 写出失败
+     */
+    @Override
+    public void streamSong(Long songId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String audioUrl = getAudioUrl(songId);
+        if (audioUrl == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String objectName = minioService.getObjectName(audioUrl);
+        if (objectName == null) {
+            // 不在本存储桶中的外部地址，交给客户端直接访问
+            response.sendRedirect(audioUrl);
+            return;
+        }
+        MinioService.ObjectInfo info;
+        try {
+            info = audioChunkCache.stat(objectName);
+        } catch (RuntimeException e) {
+            log.error("音频信息读取失败 - songId: {}, {}", songId, e.getMessage());
+            response.sendError(HttpServletResponse.SC_BAD_GATEWAY);
+            return;
+        }
+        if (info == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String etag = "\"" + info.etag() + "\"";
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=" + maxAge);
+        response.setContentType(info.contentType() == null || info.contentType().isEmpty()
+                ? DEFAULT_CONTENT_TYPE : info.contentType());
+
+        if (matchesAny(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long size = info.size();
+        long start = 0;
+        long end = size - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        // If-Range 与当前 ETag 不一致（或为日期）时忽略 Range，返回完整内容
+        long[] bounds = range != null && (ifRange == null || ifRange.equals(etag)) ? parseRange(range, size) : null;
+        if (bounds != null && bounds.length == 0) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+        if (bounds != null) {
+            start = bounds[0];
+            end = bounds[1];
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        } else {
+            response.setStatus(HttpServletResponse.SC_OK);
+        }
+        response.setContentLengthLong(end - start + 1);
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || size == 0) {
+            return;
+        }
+
+        try {
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                AudioChunkCache.LocalRange local = audioChunkCache.localRange(objectName, info, start, end);
+                if (local != null) {
+                    request.setAttribute(SENDFILE_FILENAME, local.path().toString());
+                    request.setAttribute(SENDFILE_START, local.start());
+                    request.setAttribute(SENDFILE_END, local.end() + 1);
+                    return;
+                }
+            }
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            audioChunkCache.transfer(objectName, info, start, end, out);
+        } catch (IOException e) {
+            if (!response.isCommitted()) {
+                // 尚未写出数据，说明是从 MinIO 下载分块失败
+                log.error("音频分块读取失败 - songId: {}, {}", songId, e.getMessage());
+                response.reset();
+                response.sendError(HttpServletResponse.SC_BAD_GATEWAY);
+            } else {
+                // 播放器拖动进度条或切歌时会主动断开连接
+                log.debug("音频传输中断 - songId: {}, {}", songId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 输出歌曲的波形文件
+     *
+     * @param songId   歌曲id
+     * @param request  请求
+     * @param response 响应
+     * @throws IOException 写出失败
+     */
+    @Override
+    public void writePeaks(Long songId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String audioUrl = getAudioUrl(songId);
+        byte[] peaks;
+        try {
+            peaks = audioUrl == null ? null : audioAnalysisService.getPeaks(songId, audioUrl);
+        } catch (RuntimeException e) {
+            log.error("波形读取失败 - songId: {}, {}", songId, e.getMessage());
+            response.sendError(HttpServletResponse.SC_BAD_GATEWAY);
+            return;
+        }
+        if (peaks == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(peaks);
+        String etag = "\"" + Long.toHexString(crc.getValue()) + "-" + peaks.length + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=" + peaksMaxAge);
+        if (matchesAny(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setContentLength(peaks.length);
+        response.getOutputStream().write(peaks);
+    }
+
+    /**
+     * 从歌曲目录读取音频地址，只能播放已通过审核的歌曲
+     *
+     * @return 音频地址，歌曲不存在、未通过审核或没有音频时返回 null
+     */
+    private String getAudioUrl(Long songId) {
+        List<SongVO> songs = songCatalog.getAll(new long[]{songId});
+        String audioUrl = songs.isEmpty() ? null : songs.get(0).getAudioUrl();
+        return audioUrl == null || audioUrl.isEmpty() ? null : audioUrl;
+    }
+
+    /**
+     * 解析单个字节范围
+     *
+     * @param header Range 请求头
+     * @param size   对象大小
+     * @return [start, end]；格式不支持时返回 null（按完整内容返回）；范围无法满足时返回空数组
+     */
+    private long[] parseRange(String header, long size) {
+        Matcher matcher = SINGLE_RANGE.matcher(header.trim());
+        if (!matcher.matches()) {
+            return null;
+        }
+        String first = matcher.group(1);
+        String last = matcher.group(2);
+        try {
+            if (first.isEmpty()) {
+                // bytes=-n：最后 n 个字节
+                if (last.isEmpty()) {
+                    return null;
+                }
+                long suffix = Long.parseLong(last);
+                if (suffix == 0 || size == 0) {
+                    return new long[0];
+                }
+                return new long[]{Math.max(0, size - suffix), size - 1};
+            }
+            long start = Long.parseLong(first);
+            if (start >= size) {
+                return new long[0];
+            }
+            if (last.isEmpty()) {
+                return new long[]{start, Math.min(size - 1, start + maxOpenRange - 1)};
+            }
+            long end = Long.parseLong(last);
+            if (end < start) {
+                return null;
+            }
+            return new long[]{start, Math.min(end, size - 1)};
+        } catch (NumberFormatException e) {
+            // 超出 long 范围
+            return null;
+        }
+    }
+
+    private static boolean matchesAny(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            // If-None-Match 使用弱比较
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -1,5 +1,7 @@
 package cn.edu.seig.vibemusic.service.impl;
 
+import cn.edu.seig.vibemusic.cache.CacheTags;
+import cn.edu.seig.vibemusic.cache.TaggedCacheManager;
 import cn.edu.seig.vibemusic.constant.MessageConstant;
 import cn.edu.seig.vibemusic.mapper.*;
 import cn.edu.seig.vibemusic.model.entity.Artist;
@@ -14,6 +16,7 @@ import cn.edu.seig.vibemusic.model.vo.ForumReplyVO;
 import cn.edu.seig.vibemusic.model.vo.SongVO;
 import cn.edu.seig.vibemusic.result.PageResult;
 import cn.edu.seig.vibemusic.result.Result;
+import cn.edu.seig.vibemusic.service.CatalogSearchService;
 import cn.edu.seig.vibemusic.service.IAuditService;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
@@ -21,13 +24,10 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.Set;
 
 /**
  * 审核服务实现类
@@ -55,11 +55,13 @@ public class AuditServiceImpl implements IAuditService {
     private ArtistMapper artistMapper;
 
     @Autowired
-    private RedisTemplate redisTemplate;
+    private CatalogSearchService catalogSearchService;
+
+    @Autowired
+    private TaggedCacheManager cacheManager;
 
     @Override
     @Transactional
-    @CacheEvict(cacheNames = {"songCache", "artistCache"}, allEntries = true)
     public Result approveSong(Long songId) {
         Song song = songMapper.selectById(songId);
         if (song == null) {
@@ -108,6 +110,7 @@ public class AuditServiceImpl implements IAuditService {
                         if (updateResult > 0) {
                             log.info("审核通过：成功更新原创歌手信息，userId: {}, artistId: {}", 
                                     user.getUserId(), existingArtist.getArtistId());
+                            catalogSearchService.refreshArtists(List.of(existingArtist.getArtistId()));
                         } else {
                             log.error("审核通过：更新原创歌手信息失败，userId: {}, artistId: {}", 
                                     user.getUserId(), existingArtist.getArtistId());
@@ -138,6 +141,7 @@ public class AuditServiceImpl implements IAuditService {
                             if (insertResult > 0) {
                                 log.info("审核通过：成功创建原创歌手记录，userId: {}, username: {}, artistId: {}", 
                                         user.getUserId(), user.getUsername(), artist.getArtistId());
+                                catalogSearchService.refreshArtists(List.of(artist.getArtistId()));
                             } else {
                                 log.error("审核通过：创建原创歌手记录失败，userId: {}, username: {}, insertResult: {}", 
                                         user.getUserId(), user.getUsername(), insertResult);
@@ -148,17 +152,7 @@ public class AuditServiceImpl implements IAuditService {
                         }
                     }
                     // 清除歌手缓存，确保新创建的歌手能立即显示
-                    try {
-                        Set<String> keys = redisTemplate.keys("artistCache::*");
-                        if (keys != null && !keys.isEmpty()) {
-                            redisTemplate.delete(keys);
-                            log.info("审核通过：已清除歌手缓存，清除数量: {}", keys.size());
-                        } else {
-                            log.info("审核通过：没有找到需要清除的歌手缓存");
-                        }
-                    } catch (Exception cacheException) {
-                        log.error("审核通过：清除歌手缓存失败", cacheException);
-                    }
+                    cacheManager.clearCache("artistCache");
                 }
             } catch (Exception e) {
                 // 记录错误但不影响审核通过
@@ -170,12 +164,15 @@ public class AuditServiceImpl implements IAuditService {
                     songId, song.getIsOriginal(), song.getCreatorId());
         }
 
+        // 审核通过后歌曲进入搜索索引与歌曲列表（事务提交后生效）
+        catalogSearchService.refreshSongs(List.of(songId));
+        cacheManager.evictTags(CacheTags.of(CacheTags.SONG, songId), CacheTags.listOf(CacheTags.SONG),
+                CacheTags.listOf(CacheTags.ARTIST));
         return Result.success("审核通过");
     }
 
     @Override
     @Transactional
-    @CacheEvict(cacheNames = "songCache", allEntries = true)
     public Result rejectSong(Long songId, String reason) {
         log.info("拒绝歌曲 - songId: {}, reason: {}", songId, reason);
         Song song = songMapper.selectById(songId);
@@ -203,6 +200,8 @@ public class AuditServiceImpl implements IAuditService {
             }
         }
         
+        catalogSearchService.refreshSongs(List.of(songId));
+        cacheManager.evictTags(CacheTags.of(CacheTags.SONG, songId), CacheTags.listOf(CacheTags.SONG));
         log.info("歌曲拒绝成功 - songId: {}, auditReason: {}", songId, song.getAuditReason());
         return Result.success("审核拒绝");
     }
@@ -312,6 +311,9 @@ public class AuditServiceImpl implements IAuditService {
         if (commentMapper.updateById(comment) == 0) {
             return Result.error("审核失败");
         }
+        if (comment.getPlaylistId() != null) {
+            cacheManager.evictTags(CacheTags.of(CacheTags.PLAYLIST, comment.getPlaylistId()));
+        }
         return Result.success("审核通过");
     }
 
@@ -329,6 +331,9 @@ public class AuditServiceImpl implements IAuditService {
         if (commentMapper.updateById(comment) == 0) {
             return Result.error("审核失败");
         }
+        if (comment.getPlaylistId() != null) {
+            cacheManager.evictTags(CacheTags.of(CacheTags.PLAYLIST, comment.getPlaylistId()));
+        }
         
         // 扣除用户积分10分
         if (comment.getUserId() != null) {
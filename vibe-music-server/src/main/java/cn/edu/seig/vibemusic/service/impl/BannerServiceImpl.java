@@ -9,7 +9,7 @@ import cn.edu.seig.vibemusic.model.vo.BannerVO;
 import cn.edu.seig.vibemusic.result.PageResult;
 import cn.edu.seig.vibemusic.result.Result;
 import cn.edu.seig.vibemusic.service.IBannerService;
-import cn.edu.seig.vibemusic.service.MinioService;
+import cn.edu.seig.vibemusic.service.StorageDeletionService;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
@@ -20,6 +20,7 @@ import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -38,7 +39,7 @@ public class BannerServiceImpl extends ServiceImpl<BannerMapper, Banner> impleme
     @Autowired
     private BannerMapper bannerMapper;
     @Autowired
-    private MinioService minioService;
+    private StorageDeletionService storageDeletionService;
 
     /**
      * 获取轮播图列表
@@ -92,17 +93,19 @@ public class BannerServiceImpl extends ServiceImpl<BannerMapper, Banner> impleme
      */
     @Override
     @CacheEvict(cacheNames = "bannerCache", allEntries = true)
+    @Transactional
     public Result updateBanner(Long bannerId, String bannerUrl) {
         Banner banner = bannerMapper.selectById(bannerId);
         String oldBannerUrl = banner.getBannerUrl();
-        if (oldBannerUrl != null && !oldBannerUrl.isEmpty()) {
-            minioService.deleteFile(oldBannerUrl);
-        }
 
         banner.setBannerUrl(bannerUrl);
         if (bannerMapper.updateById(banner) == 0) {
             return Result.error(MessageConstant.UPDATE + MessageConstant.FAILED);
         }
+        // 旧图片与轮播图更新一起提交到删除队列
+        if (oldBannerUrl != null && !oldBannerUrl.isEmpty()) {
+            storageDeletionService.enqueue(List.of(oldBannerUrl));
+        }
 
         return Result.success(MessageConstant.UPDATE + MessageConstant.SUCCESS);
     }
@@ -146,19 +149,20 @@ public class BannerServiceImpl extends ServiceImpl<BannerMapper, Banner> impleme
      */
     @Override
     @CacheEvict(cacheNames = "bannerCache", allEntries = true)
+    @Transactional
     public Result deleteBanner(Long bannerId) {
         Banner banner = bannerMapper.selectById(bannerId);
         if (banner == null) {
             return Result.error(MessageConstant.DATA_NOT_FOUND);
         }
         String bannerUrl = banner.getBannerUrl();
-        if (bannerUrl != null && !bannerUrl.isEmpty()) {
-            minioService.deleteFile(bannerUrl);
-        }
 
         if (bannerMapper.deleteById(bannerId) == 0) {
             return Result.error(MessageConstant.DELETE + MessageConstant.FAILED);
         }
+        if (bannerUrl != null && !bannerUrl.isEmpty()) {
+            storageDeletionService.enqueue(List.of(bannerUrl));
+        }
         return Result.success(MessageConstant.DELETE + MessageConstant.SUCCESS);
     }
 
@@ -170,17 +174,19 @@ public class BannerServiceImpl extends ServiceImpl<BannerMapper, Banner> impleme
      */
     @Override
     @CacheEvict(cacheNames = "bannerCache", allEntries = true)
+    @Transactional
     public Result deleteBanners(List<Long> bannerIds) {
         List<Banner> banners = bannerMapper.selectByIds(bannerIds);
         List<String> bannerUrlList = banners.stream()
                 .map(Banner::getBannerUrl)
                 .filter(url -> url != null && !url.isEmpty())
                 .toList();
-        bannerUrlList.forEach(url -> minioService.deleteFile(url));
 
         if (bannerMapper.deleteByIds(bannerIds) == 0) {
             return Result.error(MessageConstant.DELETE + MessageConstant.FAILED);
         }
+        // 图片登记到删除队列，与轮播图删除同一事务提交，由后台批量删除
+        storageDeletionService.enqueue(bannerUrlList);
         return Result.success(MessageConstant.DELETE + MessageConstant.SUCCESS);
     }
 
@@ -0,0 +1,342 @@
+package cn.edu.seig.vibemusic.service.impl;
+
+import cn.edu.seig.vibemusic.cache.SongCatalog;
+import cn.edu.seig.vibemusic.mapper.ArtistMapper;
+import cn.edu.seig.vibemusic.mapper.PlaylistMapper;
+import cn.edu.seig.vibemusic.mapper.SongMapper;
+import cn.edu.seig.vibemusic.model.entity.Artist;
+import cn.edu.seig.vibemusic.model.entity.Playlist;
+import cn.edu.seig.vibemusic.model.vo.SongVO;
+import cn.edu.seig.vibemusic.service.CatalogSearchService;
+import cn.edu.seig.vibemusic.util.InvertedIndex;
+import cn.edu.seig.vibemusic.util.TransactionUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 曲库全文检索服务实现类
+ * <p>
+ * 启动后由定时任务全量构建索引并周期性重建（兜底其他节点的写入），
+ * 本节点的增删改在事务提交后增量更新索引。重建期间发生的增量更新会在新索引替换后重放。
+ */
+@Slf4j
+@Service
+public class CatalogSearchServiceImpl implements CatalogSearchService {
+
+    @Autowired
+    private SongMapper songMapper;
+    @Autowired
+    private ArtistMapper artistMapper;
+    @Autowired
+    private PlaylistMapper playlistMapper;
+    @Autowired
+    private SongCatalog songCatalog;
+
+    // 歌手、歌单搜索命中超过该数量时回退到数据库查询，避免过长的 IN 列表
+    @Value("${catalog-search.max-id-filter:1000}")
+    private int maxIdFilter;
+
+    private volatile InvertedIndex songIndex;
+    private volatile InvertedIndex artistIndex;
+    private volatile InvertedIndex playlistIndex;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+    // 重建期间发生变更的 id，重建完成后重放
+    private final Set<Long> dirtySongs = ConcurrentHashMap.newKeySet();
+    private final Set<Long> dirtyArtists = ConcurrentHashMap.newKeySet();
+    private final Set<Long> dirtyPlaylists = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 搜索已通过审核的歌曲
+     *
+     * @param songName   歌曲名关键字
+     * @param artistName 歌手名关键字
+     * @return 按相关度排序的歌曲 id，索引未就绪或关键字无法通过索引检索时返回 null
+     */
+    @Override
+    public long[] searchSongs(String songName, String artistName) {
+        InvertedIndex index = songIndex;
+        if (index == null) {
+            return null;
+        }
+        return index.search(blankToNull(songName), blankToNull(artistName), null);
+    }
+
+    /**
+     * 统计指定风格的已通过审核的歌曲数量
+     *
+     * @param style 风格关键字
+     * @return 歌曲数量，索引未就绪或关键字无法通过索引检索时返回 null
+     */
+    @Override
+    public Long countSongsByStyle(String style) {
+        InvertedIndex index = songIndex;
+        if (index == null) {
+            return null;
+        }
+        long[] ids = index.search(null, null, blankToNull(style));
+        return ids == null ? null : (long) ids.length;
+    }
+
+    /**
+     * 搜索歌手
+     *
+     * @param artistName 歌手名关键字
+     * @return 按相关度排序的歌手 id；索引未就绪、命中过多或关键字无法通过索引检索时返回 null
+     */
+    @Override
+    public List<Long> searchArtistIds(String artistName) {
+        return toIdFilter(artistIndex, artistName);
+    }
+
+    /**
+     * 搜索歌单
+     *
+     * @param title 歌单标题关键字
+     * @return 按相关度排序的歌单 id；索引未就绪、命中过多或关键字无法通过索引检索时返回 null
+     */
+    @Override
+    public List<Long> searchPlaylistIds(String title) {
+        return toIdFilter(playlistIndex, title);
+    }
+
+    /**
+     * 重新读取并索引歌曲
+     *
+     * @param songIds 歌曲 id 列表
+     */
+    @Override
+    public void refreshSongs(Collection<Long> songIds) {
+        if (songIds == null || songIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(songIds);
+        afterCommit(() -> doRefreshSongs(ids));
+    }
+
+    /**
+     * 重新索引指定歌手名下的歌曲
+     *
+     * @param artistId 歌手 id
+     */
+    @Override
+    public void refreshSongsOfArtist(Long artistId) {
+        if (artistId == null) {
+            return;
+        }
+        afterCommit(() -> doRefreshSongs(songMapper.getSongIdsByArtistIds(List.of(artistId))));
+    }
+
+    /**
+     * 重新索引指定用户上传的原创歌曲
+     *
+     * @param userId 用户 id
+     */
+    @Override
+    public void refreshSongsOfCreator(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        afterCommit(() -> doRefreshSongs(songMapper.getSongIdsByCreatorId(userId)));
+    }
+
+    /**
+     * 重新读取并索引歌手
+     *
+     * @param artistIds 歌手 id 列表
+     */
+    @Override
+    public void refreshArtists(Collection<Long> artistIds) {
+        if (artistIds == null || artistIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(artistIds);
+        afterCommit(() -> {
+            if (rebuilding.get()) {
+                dirtyArtists.addAll(ids);
+            }
+            applyArtists(artistIndex, ids);
+        });
+    }
+
+    /**
+     * 重新读取并索引歌单
+     *
+     * @param playlistIds 歌单 id 列表
+     */
+    @Override
+    public void refreshPlaylists(Collection<Long> playlistIds) {
+        if (playlistIds == null || playlistIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(playlistIds);
+        afterCommit(() -> {
+            if (rebuilding.get()) {
+                dirtyPlaylists.addAll(ids);
+            }
+            applyPlaylists(playlistIndex, ids);
+        });
+    }
+
+    /**
+     * 定时全量重建索引，首次执行即为初始构建
+     */
+    @Scheduled(initialDelayString = "${catalog-search.initial-delay:10000}",
+            fixedDelayString = "${catalog-search.rebuild-interval:1800000}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("曲库索引构建失败，搜索将回退到数据库查询: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 全量重建索引
+     */
+    @Override
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+
+            // 歌曲索引字段：歌名、歌手名、风格
+            InvertedIndex songs = new InvertedIndex(3, 2, 1);
+            songMapper.scanSongSearchDocuments(context -> {
+                SongVO song = context.getResultObject();
+                songs.put(song.getSongId(), song.getSongName(), song.getArtistName(), song.getStyle());
+            });
+
+            InvertedIndex artists = new InvertedIndex(1);
+            artistMapper.selectList(new QueryWrapper<Artist>().select("id", "name").orderByAsc("id"),
+                    context -> artists.put(context.getResultObject().getArtistId(), context.getResultObject().getArtistName()));
+
+            InvertedIndex playlists = new InvertedIndex(1);
+            playlistMapper.selectList(new QueryWrapper<Playlist>().select("id", "title").orderByAsc("id"),
+                    context -> playlists.put(context.getResultObject().getPlaylistId(), context.getResultObject().getTitle()));
+
+            songIndex = songs;
+            artistIndex = artists;
+            playlistIndex = playlists;
+
+            // 重放构建期间的增量更新
+            applySongs(songs, drain(dirtySongs));
+            applyArtists(artists, drain(dirtyArtists));
+            applyPlaylists(playlists, drain(dirtyPlaylists));
+
+            log.info("曲库索引构建完成：歌曲 {}，歌手 {}，歌单 {}，耗时 {} ms",
+                    songs.size(), artists.size(), playlists.size(), System.currentTimeMillis() - start);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private void doRefreshSongs(List<Long> songIds) {
+        if (rebuilding.get()) {
+            dirtySongs.addAll(songIds);
+        }
+        applySongs(songIndex, songIds);
+        songCatalog.refresh(songIds);
+    }
+
+    private void applySongs(InvertedIndex index, List<Long> songIds) {
+        if (index == null || songIds.isEmpty()) {
+            return;
+        }
+        Map<Long, SongVO> documents = songMapper.getSongSearchDocuments(songIds).stream()
+                .collect(Collectors.toMap(SongVO::getSongId, Function.identity(), (a, b) -> a));
+        for (Long songId : songIds) {
+            SongVO song = documents.get(songId);
+            if (song == null) {
+                index.remove(songId);
+            } else {
+                index.put(songId, song.getSongName(), song.getArtistName(), song.getStyle());
+            }
+        }
+    }
+
+    private void applyArtists(InvertedIndex index, List<Long> artistIds) {
+        if (index == null || artistIds.isEmpty()) {
+            return;
+        }
+        Map<Long, Artist> artists = artistMapper.selectList(new QueryWrapper<Artist>().select("id", "name").in("id", artistIds))
+                .stream().collect(Collectors.toMap(Artist::getArtistId, Function.identity()));
+        for (Long artistId : artistIds) {
+            Artist artist = artists.get(artistId);
+            if (artist == null) {
+                index.remove(artistId);
+            } else {
+                index.put(artistId, artist.getArtistName());
+            }
+        }
+    }
+
+    private void applyPlaylists(InvertedIndex index, List<Long> playlistIds) {
+        if (index == null || playlistIds.isEmpty()) {
+            return;
+        }
+        Map<Long, Playlist> playlists = playlistMapper.selectList(new QueryWrapper<Playlist>().select("id", "title").in("id", playlistIds))
+                .stream().collect(Collectors.toMap(Playlist::getPlaylistId, Function.identity()));
+        for (Long playlistId : playlistIds) {
+            Playlist playlist = playlists.get(playlistId);
+            if (playlist == null) {
+                index.remove(playlistId);
+            } else {
+                index.put(playlistId, playlist.getTitle());
+            }
+        }
+    }
+
+    private List<Long> toIdFilter(InvertedIndex index, String keyword) {
+        if (index == null) {
+            return null;
+        }
+        long[] ids = index.search(blankToNull(keyword));
+        if (ids == null || ids.length > maxIdFilter) {
+            return null;
+        }
+        return Arrays.stream(ids).boxed().toList();
+    }
+
+    private static List<Long> drain(Set<Long> dirty) {
+        List<Long> ids = new ArrayList<>(dirty);
+        ids.forEach(dirty::remove);
+        return ids;
+    }
+
+    private static String blankToNull(String text) {
+        return text == null || text.trim().isEmpty() ? null : text;
+    }
+
+    /**
+     * 存在事务时在提交后执行，保证索引读到的是已提交的数据
+     */
+    private static void afterCommit(Runnable action) {
+        Runnable safeAction = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                log.warn("曲库索引增量更新失败，等待下次全量重建: {}", e.getMessage());
+            }
+        };
+        TransactionUtil.afterCommit(safeAction);
+    }
+
+}
@@ -1,22 +1,27 @@
 package cn.edu.seig.vibemusic.service.impl;
 
-import cn.edu.seig.vibemusic.constant.JwtClaimsConstant;
+import cn.edu.seig.vibemusic.cache.CacheTags;
+import cn.edu.seig.vibemusic.cache.TaggedCacheManager;
 import cn.edu.seig.vibemusic.constant.MessageConstant;
+import cn.edu.seig.vibemusic.enumeration.QuotaActionEnum;
 import cn.edu.seig.vibemusic.mapper.CommentMapper;
+import cn.edu.seig.vibemusic.model.dto.CommentCursorDTO;
 import cn.edu.seig.vibemusic.model.dto.CommentPlaylistDTO;
 import cn.edu.seig.vibemusic.model.dto.CommentSongDTO;
 import cn.edu.seig.vibemusic.model.entity.Comment;
+import cn.edu.seig.vibemusic.model.vo.CommentVO;
+import cn.edu.seig.vibemusic.result.CursorPageResult;
 import cn.edu.seig.vibemusic.result.Result;
 import cn.edu.seig.vibemusic.service.ICommentService;
-import cn.edu.seig.vibemusic.util.ThreadLocalUtil;
-import cn.edu.seig.vibemusic.util.TypeConversionUtil;
+import cn.edu.seig.vibemusic.service.QuotaService;
+import cn.edu.seig.vibemusic.util.AuthContext;
+import cn.edu.seig.vibemusic.util.CursorUtil;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.Map;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -32,6 +37,56 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
 
     @Autowired
     private CommentMapper commentMapper;
+    @Autowired
+    private TaggedCacheManager cacheManager;
+    @Autowired
+    private QuotaService quotaService;
+
+    /**
+     * 游标分页查询歌曲评论
+     * 最新：按 评论时间、id 倒序；最多点赞：按 点赞数、id 倒序，均做 keyset 分页
+     *
+     * @param commentCursorDTO 查询条件
+     * @return 评论列表
+     */
+    @Override
+    public Result<CursorPageResult<CommentVO>> getSongCommentsByCursor(CommentCursorDTO commentCursorDTO) {
+        int pageSize = CursorUtil.limitPageSize(commentCursorDTO.getPageSize());
+        Long songId = commentCursorDTO.getSongId();
+        boolean hot = "hot".equals(commentCursorDTO.getSort());
+        String kind = hot ? "comment-hot" : "comment";
+
+        LocalDateTime createTime = null;
+        Long likeCount = null;
+        Long commentId = null;
+        if (commentCursorDTO.getCursor() != null && !commentCursorDTO.getCursor().isEmpty()) {
+            String[] values = CursorUtil.decode(commentCursorDTO.getCursor(), kind, 2);
+            try {
+                if (values == null) {
+                    throw new IllegalArgumentException();
+                }
+                if (hot) {
+                    likeCount = Long.parseLong(values[0]);
+                } else {
+                    createTime = LocalDateTime.parse(values[0]);
+                }
+                commentId = Long.parseLong(values[1]);
+            } catch (RuntimeException e) {
+                return Result.error(MessageConstant.CURSOR + MessageConstant.INVALID);
+            }
+        }
+
+        List<CommentVO> rows = hot
+                ? commentMapper.getHotSongComments(songId, likeCount, commentId, pageSize + 1)
+                : commentMapper.getLatestSongComments(songId, createTime, commentId, pageSize + 1);
+        Long total = Boolean.TRUE.equals(commentCursorDTO.getWithTotal())
+                ? commentMapper.countSongComments(songId) : null;
+        CursorPageResult<CommentVO> result = CursorPageResult.of(rows, pageSize, comment -> hot
+                ? CursorUtil.encode(kind, comment.getLikeCount(), comment.getCommentId())
+                : CursorUtil.encode(kind, comment.getCreateTime(), comment.getCommentId()), total);
+
+        return Result.success(result);
+    }
 
     /**
      * 添加歌曲评论
@@ -40,11 +95,12 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
      * @return Result
      */
     @Override
-    @CacheEvict(cacheNames = "songCache", allEntries = true)
     public Result addSongComment(CommentSongDTO commentSongDTO) {
-        Map<String, Object> map = ThreadLocalUtil.get();
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long userId = TypeConversionUtil.toLong(userIdObj);
+        Long userId = AuthContext.current().getUserId();
+        String permit = quotaService.tryAcquire(QuotaActionEnum.COMMENT, userId);
+        if (permit == null) {
+            return Result.error(quotaService.exceededMessage(QuotaActionEnum.COMMENT));
+        }
 
         Comment comment = new Comment();
         comment.setUserId(userId).setSongId(commentSongDTO.getSongId())
@@ -52,7 +108,7 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
                 .setAuditStatus(0) // 设置审核状态为待审核
                 .setCreateTime(LocalDateTime.now()).setLikeCount(0L);
 
-        if (commentMapper.insert(comment) == 0) {
+        if (!insertComment(comment, userId, permit)) {
             return Result.error(MessageConstant.ADD + MessageConstant.FAILED);
         }
         return Result.success(MessageConstant.ADD + MessageConstant.SUCCESS);
@@ -65,11 +121,12 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
      * @return Result
      */
     @Override
-    @CacheEvict(cacheNames = "playlistCache", allEntries = true)
     public Result addPlaylistComment(CommentPlaylistDTO commentPlaylistDTO) {
-        Map<String, Object> map = ThreadLocalUtil.get();
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long userId = TypeConversionUtil.toLong(userIdObj);
+        Long userId = AuthContext.current().getUserId();
+        String permit = quotaService.tryAcquire(QuotaActionEnum.COMMENT, userId);
+        if (permit == null) {
+            return Result.error(quotaService.exceededMessage(QuotaActionEnum.COMMENT));
+        }
 
         Comment comment = new Comment();
         comment.setUserId(userId).setPlaylistId(commentPlaylistDTO.getPlaylistId())
@@ -77,9 +134,10 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
                 .setAuditStatus(0) // 设置审核状态为待审核
                 .setCreateTime(LocalDateTime.now()).setLikeCount(0L);
 
-        if (commentMapper.insert(comment) == 0) {
+        if (!insertComment(comment, userId, permit)) {
             return Result.error(MessageConstant.ADD + MessageConstant.FAILED);
         }
+        evictPlaylistDetail(comment);
         return Result.success(MessageConstant.ADD + MessageConstant.SUCCESS);
     }
 
@@ -90,7 +148,6 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
      * @return Result
      */
     @Override
-    @CacheEvict(cacheNames = {"songCache", "playlistCache"}, allEntries = true)
     public Result likeComment(Long commentId) {
         Comment comment = commentMapper.selectById(commentId);
         if (comment == null) {
@@ -104,6 +161,7 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
         if (commentMapper.updateById(comment) == 0) {
             return Result.error(MessageConstant.FAILED);
         }
+        evictPlaylistDetail(comment);
         return Result.success(MessageConstant.SUCCESS);
     }
 
@@ -114,7 +172,6 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
      * @return Result
      */
     @Override
-    @CacheEvict(cacheNames = {"songCache", "playlistCache"}, allEntries = true)
     public Result cancelLikeComment(Long commentId) {
         Comment comment = commentMapper.selectById(commentId);
         if (comment == null) {
@@ -128,6 +185,7 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
         if (commentMapper.updateById(comment) == 0) {
             return Result.error(MessageConstant.FAILED);
         }
+        evictPlaylistDetail(comment);
         return Result.success(MessageConstant.SUCCESS);
     }
 
@@ -138,11 +196,8 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
      * @return Result
      */
     @Override
-    @CacheEvict(cacheNames = {"songCache", "playlistCache"}, allEntries = true)
     public Result deleteComment(Long commentId) {
-        Map<String, Object> map = ThreadLocalUtil.get();
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long userId = TypeConversionUtil.toLong(userIdObj);
+        Long userId = AuthContext.current().getUserId();
 
         Comment comment = commentMapper.selectById(commentId);
         if (comment == null) {
@@ -155,6 +210,35 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
         if (commentMapper.deleteById(commentId) == 0) {
             return Result.error(MessageConstant.DELETE + MessageConstant.FAILED);
         }
+        evictPlaylistDetail(comment);
         return Result.success(MessageConstant.DELETE + MessageConstant.SUCCESS);
     }
+
+    /**
+     * 插入评论，插入失败或抛出异常时归还评论配额
+     *
+     * @return 是否插入成功
+     */
+    private boolean insertComment(Comment comment, Long userId, String permit) {
+        boolean inserted = false;
+        try {
+            inserted = commentMapper.insert(comment) > 0;
+        } finally {
+            if (!inserted) {
+                quotaService.release(QuotaActionEnum.COMMENT, userId, permit);
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * 歌单详情缓存包含评论列表，歌单评论变更时清除对应歌单的缓存；歌曲详情未缓存，无需处理
+     *
+     * @param comment 评论
+     */
+    private void evictPlaylistDetail(Comment comment) {
+        if (comment.getPlaylistId() != null) {
+            cacheManager.evictTags(CacheTags.of(CacheTags.PLAYLIST, comment.getPlaylistId()));
+        }
+    }
 }
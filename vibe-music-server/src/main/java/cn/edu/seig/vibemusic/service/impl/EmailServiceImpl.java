@@ -1,9 +1,13 @@
 package cn.edu.seig.vibemusic.service.impl;
 
 import cn.edu.seig.vibemusic.constant.MessageConstant;
+import cn.edu.seig.vibemusic.model.vo.MailStatsVO;
 import cn.edu.seig.vibemusic.service.EmailService;
-import cn.edu.seig.vibemusic.util.RandomCodeUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
 import jakarta.mail.internet.MimeMessage;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,11 +15,25 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * <p>
  * 服务实现类
  * </p>
+ * 请求线程只把邮件放入发送队列；每个发送线程保持一个 SMTP 连接，连续发送多封邮件时不再重复建立连接与认证，
+ * 空闲超过 mail-dispatch.idle-timeout 后关闭。发送失败的邮件按指数退避重新放回队列，
+ * 等待重试的邮件也占用队列容量。队列只在本节点内存中，应用停止时未发送的邮件会丢失。
  *
  * @author sunpingli
  * @since 2025-01-09
@@ -27,48 +45,266 @@ public class EmailServiceImpl implements EmailService {
     @Autowired
     private JavaMailSenderImpl mailSender;
 
-    @Value("${spring.mail.username}")
-    private String from;
+    private final String from;
+    private final int poolSize;
+    private final int capacity;
+    private final long idleTimeout;
+    private final int maxAttempts;
+    private final long baseBackoff;
+    private final long maxBackoff;
+
+    // 新邮件立即到期，等待重试的邮件在退避时间后到期
+    private final DelayQueue<MailTask> queue = new DelayQueue<>();
+    // 队列中（含等待重试）的邮件数，用于限制容量
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder totalLatency = new LongAdder();
+    private final AtomicLong maxLatency = new AtomicLong();
+    private volatile long lastSendDurationMillis;
+    private volatile String lastError;
+
+    public EmailServiceImpl(@Value("${spring.mail.username}") String from,
+                            @Value("${mail-dispatch.pool-size:2}") int poolSize,
+                            @Value("${mail-dispatch.queue-capacity:200}") int capacity,
+                            @Value("${mail-dispatch.idle-timeout:30000}") long idleTimeout,
+                            @Value("${mail-dispatch.max-attempts:4}") int maxAttempts,
+                            @Value("${mail-dispatch.base-backoff:2000}") long baseBackoff,
+                            @Value("${mail-dispatch.max-backoff:60000}") long maxBackoff) {
+        if (poolSize <= 0 || capacity <= 0 || maxAttempts <= 0) {
+            throw new IllegalArgumentException("mail-dispatch.pool-size、queue-capacity、max-attempts 必须大于 0");
+        }
+        this.from = from;
+        this.poolSize = poolSize;
+        this.capacity = capacity;
+        this.idleTimeout = idleTimeout;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = baseBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (int i = 1; i <= poolSize; i++) {
+            Thread worker = new Thread(this::work, "mail-sender-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+        if (pending.get() > 0) {
+            log.warn("应用停止，{} 封邮件未发送", pending.get());
+        }
+    }
 
     /**
-     * 发送邮件
+     * 发送邮件（加入发送队列）
      *
      * @param to      收件人地址
      * @param subject 邮件主题
      * @param content 邮件内容
-     * @return 发送结果，包含是否成功
+     * @return 是否已加入队列，队列已满时返回 false
      */
+    @Override
     public boolean sendEmail(String to, String subject, String content) {
-        MimeMessage mimeMessage = mailSender.createMimeMessage();
-        try {
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage);
-            helper.setFrom(from);
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(content);
-            mailSender.send(mimeMessage);
-            return true;
-        } catch (MessagingException e) {
-            log.error(MessageConstant.EMAIL_SEND_FAILED, e);
+        if (pending.incrementAndGet() > capacity) {
+            pending.decrementAndGet();
+            rejected.increment();
+            log.warn("邮件发送队列已满，拒绝发送: {}", to);
             return false;
         }
+        long now = System.currentTimeMillis();
+        queue.put(new MailTask(to, subject, content, now, 0, now, sequence.incrementAndGet()));
+        enqueued.increment();
+        return true;
     }
 
     /**
-     * 发送验证码邮件
+     * 发送验证码邮件（加入发送队列）
      *
-     * @param email 收件人地址
-     * @return 发送结果，包含是否成功和验证码
+     * @param email            收件人地址
+     * @param verificationCode 验证码
+     * @return 是否已加入队列，队列已满时返回 false
      */
-    public String sendVerificationCodeEmail(String email) {
-        String verificationCode = RandomCodeUtil.generateRandomCode();
+    @Override
+    public boolean sendVerificationCodeEmail(String email, String verificationCode) {
         String subject = "【Melody Hub】验证码";
         String content = "您的验证码为：" + verificationCode;
-        boolean success = sendEmail(email, subject, content);
-        if (success) {
-            return verificationCode;
-        } else {
-            return null;
+        return sendEmail(email, subject, content);
+    }
+
+    /**
+     * 获取发送队列统计信息（本节点自启动以来的值）
+     *
+     * @return 统计信息
+     */
+    @Override
+    public MailStatsVO getStats() {
+        MailStatsVO stats = new MailStatsVO();
+        long sentCount = sent.sum();
+        stats.setPending(pending.get());
+        stats.setCapacity(capacity);
+        stats.setConnections(connections.get());
+        stats.setEnqueued(enqueued.sum());
+        stats.setRejected(rejected.sum());
+        stats.setSent(sentCount);
+        stats.setRetries(retries.sum());
+        stats.setFailed(failed.sum());
+        stats.setAvgLatencyMillis(sentCount == 0 ? 0 : totalLatency.sum() / sentCount);
+        stats.setMaxLatencyMillis(maxLatency.get());
+        stats.setLastSendDurationMillis(lastSendDurationMillis);
+        stats.setLastError(lastError);
+        return stats;
+    }
+
+    // 发送线程：取出到期的邮件并复用本线程的连接发送，空闲超时后关闭连接
+    private void work() {
+        Transport transport = null;
+        try {
+            while (running) {
+                MailTask task = queue.poll(idleTimeout, TimeUnit.MILLISECONDS);
+                if (task == null) {
+                    transport = close(transport);
+                } else {
+                    transport = deliver(task, transport);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            close(transport);
+        }
+    }
+
+    /**
+     * 发送一封邮件，失败时关闭连接并安排重试
+     *
+     * @return 发送后可继续使用的连接，没有时返回 null
+     */
+    private Transport deliver(MailTask task, Transport transport) {
+        long start = System.currentTimeMillis();
+        try {
+            MimeMessage message = createMessage(task);
+            if (transport == null) {
+                transport = connect();
+                transport.sendMessage(message, message.getAllRecipients());
+            } else {
+                try {
+                    transport.sendMessage(message, message.getAllRecipients());
+                } catch (MessagingException | IllegalStateException e) {
+                    // 复用的连接可能已被服务器关闭，换新连接再发送一次；收件人被拒等 SMTP 错误按重试流程处理
+                    if (!isConnectionLost(e)) {
+                        throw e;
+                    }
+                    transport = close(transport);
+                    transport = connect();
+                    transport.sendMessage(message, message.getAllRecipients());
+                }
+            }
+            long end = System.currentTimeMillis();
+            long latency = end - task.enqueuedAt();
+            lastSendDurationMillis = end - start;
+            sent.increment();
+            totalLatency.add(latency);
+            maxLatency.accumulateAndGet(latency, Math::max);
+            pending.decrementAndGet();
+            return transport;
+        } catch (Exception e) {
+            retryOrFail(task, e);
+            return close(transport);
+        }
+    }
+
+    /**
+     * 是否为连接层面的失败：发送前发现连接已断开，或读写 SMTP 命令时套接字出错
+     */
+    private static boolean isConnectionLost(Exception e) {
+        return e instanceof IllegalStateException
+                || !(e instanceof SendFailedException) && e.getCause() instanceof IOException;
+    }
+
+    private void retryOrFail(MailTask task, Exception e) {
+        int attempts = task.attempts() + 1;
+        lastError = e.getMessage();
+        if (attempts >= maxAttempts) {
+            failed.increment();
+            pending.decrementAndGet();
+            log.error(MessageConstant.EMAIL_SEND_FAILED + "，已尝试 {} 次，放弃发送: {}", attempts, task.to(), e);
+            return;
+        }
+        long backoff = Math.min(maxBackoff, baseBackoff << Math.min(attempts - 1, 30));
+        retries.increment();
+        log.warn(MessageConstant.EMAIL_SEND_FAILED + "，{} 毫秒后第 {} 次重试: {}, {}", backoff, attempts, task.to(), e.getMessage());
+        queue.put(task.retry(attempts, System.currentTimeMillis() + backoff, sequence.incrementAndGet()));
+    }
+
+    private MimeMessage createMessage(MailTask task) throws MessagingException {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage);
+        helper.setFrom(from);
+        helper.setTo(task.to());
+        helper.setSubject(task.subject());
+        helper.setText(task.content());
+        // 直接使用 Transport 发送时不会自动更新邮件头
+        mimeMessage.saveChanges();
+        return mimeMessage;
+    }
+
+    // 与 JavaMailSenderImpl 使用相同的会话属性与账号建立连接
+    private Transport connect() throws MessagingException {
+        String protocol = StringUtils.hasText(mailSender.getProtocol()) ? mailSender.getProtocol() : "smtp";
+        Transport transport = mailSender.getSession().getTransport(protocol);
+        String username = StringUtils.hasText(mailSender.getUsername()) ? mailSender.getUsername() : null;
+        String password = StringUtils.hasText(mailSender.getPassword()) ? mailSender.getPassword() : null;
+        transport.connect(mailSender.getHost(), mailSender.getPort(), username, password);
+        connections.incrementAndGet();
+        return transport;
+    }
+
+    private Transport close(Transport transport) {
+        if (transport != null) {
+            connections.decrementAndGet();
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("关闭 SMTP 连接失败: {}", e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private record MailTask(String to, String subject, String content, long enqueuedAt,
+                            int attempts, long dueAt, long sequence) implements Delayed {
+
+        MailTask retry(int attempts, long dueAt, long sequence) {
+            return new MailTask(to, subject, content, enqueuedAt, attempts, dueAt, sequence);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAt - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        // 按到期时间排序，同时到期时先进先出
+        @Override
+        public int compareTo(Delayed other) {
+            MailTask task = (MailTask) other;
+            int byDue = Long.compare(dueAt, task.dueAt);
+            return byDue != 0 ? byDue : Long.compare(sequence, task.sequence);
         }
     }
 }
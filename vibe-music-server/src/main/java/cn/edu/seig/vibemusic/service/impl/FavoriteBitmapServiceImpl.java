@@ -0,0 +1,278 @@
+package cn.edu.seig.vibemusic.service.impl;
+
+import cn.edu.seig.vibemusic.config.RedisSubscriber;
+import cn.edu.seig.vibemusic.mapper.UserFavoriteMapper;
+import cn.edu.seig.vibemusic.service.FavoriteBitmapService;
+import cn.edu.seig.vibemusic.util.LongBitmap;
+import cn.edu.seig.vibemusic.util.TransactionUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用户收藏歌曲位图服务实现类
+ * <p>
+ * 读取顺序：本地 LRU 缓存 -> Redis -> 数据库。收藏变更在事务提交后就地更新本地位图，
+ * 并递增用户的位图版本、删除 Redis 中的副本，由下一次未命中时从数据库重建，避免多节点并发读改写覆盖彼此的变更。
+ * 从数据库重建前先读取版本，只有版本未变时才写回 Redis，与变更并发的加载不会把旧位图写回；
+ * 本地缓存同理，加载期间本节点有过变更时不写入。
+ * 变更后通过发布订阅通知其他节点丢弃该用户的本地副本（消息格式为 节点id\n用户id），
+ * 通知丢失时其他节点的本地副本在 local-ttl 后过期。
+ */
+@Slf4j
+@Service
+public class FavoriteBitmapServiceImpl implements FavoriteBitmapService {
+
+    private static final String KEY_PREFIX = "favorite:songs:";
+    private static final String VERSION_KEY_PREFIX = "favorite:songs:version:";
+
+    // 版本与加载前读取的一致时才写入位图，否则说明加载期间有过变更
+    private static final RedisScript<Long> SAVE_SCRIPT = new DefaultRedisScript<>("""
+            local version = redis.call('GET', KEYS[2]) or '0'
+            if version ~= ARGV[1] then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3])
+            return 1
+            """, Long.class);
+
+    // 递增版本并删除位图，版本与位图同时过期
+    private static final RedisScript<Long> INVALIDATE_SCRIPT = new DefaultRedisScript<>("""
+            local version = redis.call('INCR', KEYS[2])
+            redis.call('EXPIRE', KEYS[2], ARGV[1])
+            redis.call('DEL', KEYS[1])
+            return version
+            """, Long.class);
+
+    @Autowired
+    private UserFavoriteMapper userFavoriteMapper;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private RedisSubscriber redisSubscriber;
+
+    @Value("${favorite-bitmap.channel:favorite:bitmap}")
+    private String channel;
+    @Value("${favorite-bitmap.local-ttl:300000}")
+    private long localTtl;
+    @Value("${favorite-bitmap.redis-ttl:86400}")
+    private long redisTtl;
+
+    // 按访问顺序淘汰的本地缓存
+    private final Map<Long, Entry> localCache;
+    // 本节点每次变更都会递增，加载期间发生过变更时不写入本地缓存
+    private final AtomicLong localGeneration = new AtomicLong();
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public FavoriteBitmapServiceImpl(@Value("${favorite-bitmap.local-max-users:10000}") int localMaxUsers) {
+        this.localCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > localMaxUsers;
+            }
+        };
+    }
+
+    @PostConstruct
+    public void init() {
+        redisSubscriber.subscribe(channel, this::onMessage);
+    }
+
+    /**
+     * 批量判断歌曲是否已被用户收藏
+     *
+     * @param userId  用户 id
+     * @param songIds 歌曲 id
+     * @return 与 songIds 一一对应的收藏状态
+     */
+    @Override
+    public boolean[] contains(Long userId, long[] songIds) {
+        if (userId == null || songIds.length == 0) {
+            return new boolean[songIds.length];
+        }
+        LongBitmap bitmap = getBitmap(userId);
+        synchronized (bitmap) {
+            return bitmap.contains(songIds);
+        }
+    }
+
+    /**
+     * 记录用户收藏了歌曲
+     *
+     * @param userId 用户 id
+     * @param songId 歌曲 id
+     */
+    @Override
+    public void add(Long userId, Long songId) {
+        TransactionUtil.afterCommit(() -> update(userId, songId, true));
+    }
+
+    /**
+     * 记录用户取消收藏了歌曲
+     *
+     * @param userId 用户 id
+     * @param songId 歌曲 id
+     */
+    @Override
+    public void remove(Long userId, Long songId) {
+        TransactionUtil.afterCommit(() -> update(userId, songId, false));
+    }
+
+    /**
+     * 丢弃用户的位图
+     *
+     * @param userId 用户 id
+     */
+    @Override
+    public void evict(Long userId) {
+        evictLocal(userId);
+        invalidateRedis(userId);
+        publishEvict(userId);
+    }
+
+    private LongBitmap getBitmap(Long userId) {
+        long now = System.currentTimeMillis();
+        synchronized (localCache) {
+            Entry entry = localCache.get(userId);
+            if (entry != null && now - entry.loadedAt < localTtl) {
+                return entry.bitmap;
+            }
+        }
+
+        long generation = localGeneration.get();
+        LongBitmap bitmap = loadFromRedis(userId);
+        if (bitmap == null) {
+            String version = readVersion(userId);
+            bitmap = loadFromDatabase(userId);
+            if (version != null) {
+                saveToRedis(userId, bitmap, version);
+            }
+        }
+        synchronized (localCache) {
+            if (localGeneration.get() == generation) {
+                localCache.put(userId, new Entry(bitmap, now));
+            }
+        }
+        return bitmap;
+    }
+
+    private void update(Long userId, Long songId, boolean favorite) {
+        if (userId == null || songId == null) {
+            return;
+        }
+        localGeneration.incrementAndGet();
+        Entry entry;
+        synchronized (localCache) {
+            entry = localCache.get(userId);
+        }
+        if (entry != null) {
+            synchronized (entry.bitmap) {
+                if (favorite) {
+                    entry.bitmap.add(songId);
+                } else {
+                    entry.bitmap.remove(songId);
+                }
+            }
+        }
+        invalidateRedis(userId);
+        publishEvict(userId);
+    }
+
+    private void evictLocal(Long userId) {
+        localGeneration.incrementAndGet();
+        synchronized (localCache) {
+            localCache.remove(userId);
+        }
+    }
+
+    private void publishEvict(Long userId) {
+        try {
+            stringRedisTemplate.convertAndSend(channel, nodeId + "\n" + userId);
+        } catch (Exception e) {
+            log.warn("发送用户 {} 的收藏位图失效通知失败: {}", userId, e.getMessage());
+        }
+    }
+
+    // 其他节点的变更，丢弃本地副本；忽略本节点发出的消息
+    private void onMessage(String message) {
+        int separator = message.indexOf('\n');
+        if (separator < 0 || nodeId.equals(message.substring(0, separator))) {
+            return;
+        }
+        try {
+            evictLocal(Long.valueOf(message.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            log.warn("无效的收藏位图失效通知: {}", message);
+        }
+    }
+
+    private LongBitmap loadFromDatabase(Long userId) {
+        LongBitmap bitmap = new LongBitmap();
+        userFavoriteMapper.scanFavoriteSongIds(userId, context -> {
+            Long songId = context.getResultObject();
+            if (songId != null) {
+                bitmap.add(songId);
+            }
+        });
+        return bitmap;
+    }
+
+    private LongBitmap loadFromRedis(Long userId) {
+        try {
+            String value = stringRedisTemplate.opsForValue().get(KEY_PREFIX + userId);
+            return value == null ? null : LongBitmap.fromBytes(Base64.getDecoder().decode(value));
+        } catch (Exception e) {
+            log.warn("读取用户 {} 的收藏位图失败，回退到数据库: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    // 读取失败时返回 null，此时不写回 Redis
+    private String readVersion(Long userId) {
+        try {
+            String version = stringRedisTemplate.opsForValue().get(VERSION_KEY_PREFIX + userId);
+            return version == null ? "0" : version;
+        } catch (Exception e) {
+            log.warn("读取用户 {} 的收藏位图版本失败: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    private void saveToRedis(Long userId, LongBitmap bitmap, String version) {
+        try {
+            byte[] bytes;
+            synchronized (bitmap) {
+                bytes = bitmap.toBytes();
+            }
+            stringRedisTemplate.execute(SAVE_SCRIPT, List.of(KEY_PREFIX + userId, VERSION_KEY_PREFIX + userId),
+                    version, Base64.getEncoder().encodeToString(bytes), String.valueOf(redisTtl));
+        } catch (Exception e) {
+            log.warn("保存用户 {} 的收藏位图失败: {}", userId, e.getMessage());
+        }
+    }
+
+    private void invalidateRedis(Long userId) {
+        try {
+            stringRedisTemplate.execute(INVALIDATE_SCRIPT, List.of(KEY_PREFIX + userId, VERSION_KEY_PREFIX + userId),
+                    String.valueOf(redisTtl));
+        } catch (Exception e) {
+            log.warn("删除用户 {} 的收藏位图失败: {}", userId, e.getMessage());
+        }
+    }
+
+    private record Entry(LongBitmap bitmap, long loadedAt) {
+    }
+
+}
@@ -1,6 +1,5 @@
 package cn.edu.seig.vibemusic.service.impl;
 
-import cn.edu.seig.vibemusic.constant.JwtClaimsConstant;
 import cn.edu.seig.vibemusic.constant.MessageConstant;
 import cn.edu.seig.vibemusic.mapper.FeedbackMapper;
 import cn.edu.seig.vibemusic.model.dto.FeedbackDTO;
@@ -8,8 +7,7 @@ import cn.edu.seig.vibemusic.model.entity.Feedback;
 import cn.edu.seig.vibemusic.result.PageResult;
 import cn.edu.seig.vibemusic.result.Result;
 import cn.edu.seig.vibemusic.service.IFeedbackService;
-import cn.edu.seig.vibemusic.util.ThreadLocalUtil;
-import cn.edu.seig.vibemusic.util.TypeConversionUtil;
+import cn.edu.seig.vibemusic.util.AuthContext;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
@@ -22,7 +20,6 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 
 /**
  * <p>
@@ -104,9 +101,7 @@ public class FeedbackServiceImpl extends ServiceImpl<FeedbackMapper, Feedback> i
     @Override
     @CacheEvict(cacheNames = "feedbackCache", allEntries = true)
     public Result addFeedback(String content) {
-        Map<String, Object> map = ThreadLocalUtil.get();
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long userId = TypeConversionUtil.toLong(userIdObj);
+        Long userId = AuthContext.current().getUserId();
 
         Feedback feedback = new Feedback();
         feedback.setUserId(userId).setFeedback(content).setCreateTime(LocalDateTime.now());
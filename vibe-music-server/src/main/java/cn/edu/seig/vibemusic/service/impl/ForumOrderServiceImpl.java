@@ -1,7 +1,7 @@
 package cn.edu.seig.vibemusic.service.impl;
 
-import cn.edu.seig.vibemusic.constant.JwtClaimsConstant;
 import cn.edu.seig.vibemusic.constant.MessageConstant;
+import cn.edu.seig.vibemusic.enumeration.QuotaActionEnum;
 import cn.edu.seig.vibemusic.mapper.ForumOrderMapper;
 import cn.edu.seig.vibemusic.mapper.ForumPostMapper;
 import cn.edu.seig.vibemusic.model.entity.ForumOrder;
@@ -10,8 +10,9 @@ import cn.edu.seig.vibemusic.model.vo.ForumOrderVO;
 import cn.edu.seig.vibemusic.result.PageResult;
 import cn.edu.seig.vibemusic.result.Result;
 import cn.edu.seig.vibemusic.service.IForumOrderService;
-import cn.edu.seig.vibemusic.util.ThreadLocalUtil;
-import cn.edu.seig.vibemusic.util.TypeConversionUtil;
+import cn.edu.seig.vibemusic.service.QuotaService;
+import cn.edu.seig.vibemusic.util.AuthContext;
+import cn.edu.seig.vibemusic.util.TransactionUtil;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
@@ -21,7 +22,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -41,6 +41,8 @@ public class ForumOrderServiceImpl extends ServiceImpl<ForumOrderMapper, ForumOr
 
     @Autowired
     private ForumPostMapper forumPostMapper;
+    @Autowired
+    private QuotaService quotaService;
 
     /**
      * 申请接单（其他用户点击接单按钮）
@@ -49,9 +51,7 @@ public class ForumOrderServiceImpl extends ServiceImpl<ForumOrderMapper, ForumOr
     @Transactional
     public Result applyOrder(Long postId) {
         // 获取当前用户ID
-        Map<String, Object> map = ThreadLocalUtil.get();
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long accepterId = TypeConversionUtil.toLong(userIdObj);
+        Long accepterId = AuthContext.current().getUserId();
 
         // 查询帖子信息
         ForumPost post = forumPostMapper.selectById(postId);
@@ -104,6 +104,13 @@ public class ForumOrderServiceImpl extends ServiceImpl<ForumOrderMapper, ForumOr
             return Result.error("该需求已被接单");
         }
 
+        // 占用接单申请配额，限制反复申请；插入失败或事务回滚（如并发的重复申请违反唯一约束）时归还
+        String permit = quotaService.tryAcquire(QuotaActionEnum.ORDER_APPLY, accepterId);
+        if (permit == null) {
+            return Result.error(quotaService.exceededMessage(QuotaActionEnum.ORDER_APPLY));
+        }
+        TransactionUtil.afterRollback(() -> quotaService.release(QuotaActionEnum.ORDER_APPLY, accepterId, permit));
+
         // 如果之前被拒绝（状态3），删除旧记录以便重新申请
         if (existingOrder != null && existingOrder.getStatus() != null && existingOrder.getStatus().equals(3)) {
             log.info("删除已拒绝的接单记录，orderId: {}, postId: {}, accepterId: {}", 
@@ -125,6 +132,7 @@ public class ForumOrderServiceImpl extends ServiceImpl<ForumOrderMapper, ForumOr
             return Result.success("接单申请已提交，等待需求发布者同意");
         }
 
+        quotaService.release(QuotaActionEnum.ORDER_APPLY, accepterId, permit);
         return Result.error("申请接单失败");
     }
 
@@ -134,9 +142,7 @@ public class ForumOrderServiceImpl extends ServiceImpl<ForumOrderMapper, ForumOr
     @Override
     public Result getOrderApplicationsByPoster(Integer pageNum, Integer pageSize, Integer status) {
         // 获取当前用户ID
-        Map<String, Object> map = ThreadLocalUtil.get();
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long posterId = TypeConversionUtil.toLong(userIdObj);
+        Long posterId = AuthContext.current().getUserId();
 
         Page<ForumOrderVO> page = new Page<>(pageNum, pageSize);
         IPage<ForumOrderVO> orderPage = forumOrderMapper.selectOrderApplicationsByPoster(page, posterId, null, status);
@@ -156,9 +162,7 @@ public class ForumOrderServiceImpl extends ServiceImpl<ForumOrderMapper, ForumOr
     @Transactional
     public Result acceptOrder(Long orderId) {
         // 获取当前用户ID
-        Map<String, Object> map = ThreadLocalUtil.get();
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long userId = TypeConversionUtil.toLong(userIdObj);
+        Long userId = AuthContext.current().getUserId();
 
         // 查询接单信息
         ForumOrder order = forumOrderMapper.selectById(orderId);
@@ -209,9 +213,7 @@ public class ForumOrderServiceImpl extends ServiceImpl<ForumOrderMapper, ForumOr
         log.info("拒绝接单请求，orderId: {}", orderId);
         
         // 获取当前用户ID
-        Map<String, Object> map = ThreadLocalUtil.get();
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long userId = TypeConversionUtil.toLong(userIdObj);
+        Long userId = AuthContext.current().getUserId();
         
         log.info("当前用户ID: {}", userId);
 
@@ -270,9 +272,7 @@ public class ForumOrderServiceImpl extends ServiceImpl<ForumOrderMapper, ForumOr
     @Transactional
     public Result completeOrder(Long orderId) {
         // 获取当前用户ID
-        Map<String, Object> map = ThreadLocalUtil.get();
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long userId = TypeConversionUtil.toLong(userIdObj);
+        Long userId = AuthContext.current().getUserId();
 
         // 查询接单信息
         ForumOrder order = forumOrderMapper.selectById(orderId);
@@ -306,9 +306,7 @@ public class ForumOrderServiceImpl extends ServiceImpl<ForumOrderMapper, ForumOr
     @Override
     public Result getOrdersByAccepter(Integer pageNum, Integer pageSize, Integer status) {
         // 获取当前用户ID
-        Map<String, Object> map = ThreadLocalUtil.get();
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long accepterId = TypeConversionUtil.toLong(userIdObj);
+        Long accepterId = AuthContext.current().getUserId();
 
         log.info("查询接单列表 - accepterId: {}, pageNum: {}, pageSize: {}, status: {}", 
                 accepterId, pageNum, pageSize, status);
@@ -1,7 +1,7 @@
 package cn.edu.seig.vibemusic.service.impl;
 
-import cn.edu.seig.vibemusic.constant.JwtClaimsConstant;
 import cn.edu.seig.vibemusic.constant.MessageConstant;
+import cn.edu.seig.vibemusic.enumeration.QuotaActionEnum;
 import cn.edu.seig.vibemusic.mapper.ForumOrderMapper;
 import cn.edu.seig.vibemusic.mapper.ForumPostMapper;
 import cn.edu.seig.vibemusic.mapper.UserMapper;
@@ -13,12 +13,15 @@ import cn.edu.seig.vibemusic.model.vo.ForumOrderVO;
 import cn.edu.seig.vibemusic.model.vo.ForumPostDetailVO;
 import cn.edu.seig.vibemusic.model.vo.ForumPostDetailWithOrdersVO;
 import cn.edu.seig.vibemusic.model.vo.ForumPostVO;
+import cn.edu.seig.vibemusic.result.CursorPageResult;
 import cn.edu.seig.vibemusic.result.PageResult;
 import cn.edu.seig.vibemusic.result.Result;
 import cn.edu.seig.vibemusic.service.IForumPostService;
 import cn.edu.seig.vibemusic.service.MinioService;
-import cn.edu.seig.vibemusic.util.ThreadLocalUtil;
-import cn.edu.seig.vibemusic.util.TypeConversionUtil;
+import cn.edu.seig.vibemusic.service.QuotaService;
+import cn.edu.seig.vibemusic.service.ResumableUploadService;
+import cn.edu.seig.vibemusic.util.AuthContext;
+import cn.edu.seig.vibemusic.util.CursorUtil;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
@@ -29,7 +32,6 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -55,6 +57,10 @@ public class ForumPostServiceImpl extends ServiceImpl<ForumPostMapper, ForumPost
 
     @Autowired
     private MinioService minioService;
+    @Autowired
+    private ResumableUploadService resumableUploadService;
+    @Autowired
+    private QuotaService quotaService;
 
     /**
      * 分页查询帖子列表
@@ -74,6 +80,43 @@ public class ForumPostServiceImpl extends ServiceImpl<ForumPostMapper, ForumPost
         return Result.success(pageResult);
     }
 
+    /**
+     * 游标分页查询帖子列表
+     * 按 置顶、发布时间、id 倒序做 keyset 分页，翻页深度不影响查询耗时
+     *
+     * @param forumPostDTO 查询条件
+     * @return 帖子列表
+     */
+    @Override
+    public Result getPostListByCursor(ForumPostDTO forumPostDTO) {
+        int pageSize = CursorUtil.limitPageSize(forumPostDTO.getPageSize());
+        Integer isTop = null;
+        LocalDateTime createTime = null;
+        Long postId = null;
+        if (forumPostDTO.getCursor() != null && !forumPostDTO.getCursor().isEmpty()) {
+            String[] values = CursorUtil.decode(forumPostDTO.getCursor(), "post", 3);
+            try {
+                if (values == null) {
+                    throw new IllegalArgumentException();
+                }
+                isTop = Integer.parseInt(values[0]);
+                createTime = LocalDateTime.parse(values[1]);
+                postId = Long.parseLong(values[2]);
+            } catch (RuntimeException e) {
+                return Result.error(MessageConstant.CURSOR + MessageConstant.INVALID);
+            }
+        }
+
+        List<ForumPostVO> rows = forumPostMapper.selectPostsByCursor(forumPostDTO.getKeyword(), forumPostDTO.getType(),
+                isTop, createTime, postId, pageSize + 1);
+        Long total = Boolean.TRUE.equals(forumPostDTO.getWithTotal())
+                ? forumPostMapper.countPosts(forumPostDTO.getKeyword(), forumPostDTO.getType()) : null;
+
+        return Result.success(CursorPageResult.of(rows, pageSize,
+                post -> CursorUtil.encode("post", post.getIsTop() == null ? 0 : post.getIsTop(), post.getCreateTime(), post.getPostId()),
+                total));
+    }
+
     /**
      * 获取帖子详情
      *
@@ -83,24 +126,9 @@ public class ForumPostServiceImpl extends ServiceImpl<ForumPostMapper, ForumPost
     @Override
     public Result getPostDetail(Long postId) {
         // 获取当前登录用户ID和角色（如果已登录）
-        Long currentUserId = null;
-        String currentRole = null;
-        try {
-            Map<String, Object> map = ThreadLocalUtil.get();
-            if (map != null) {
-                Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-                if (userIdObj != null) {
-                    currentUserId = TypeConversionUtil.toLong(userIdObj);
-                }
-                Object roleObj = map.get(JwtClaimsConstant.ROLE);
-                if (roleObj != null) {
-                    currentRole = roleObj.toString();
-                }
-            }
-        } catch (Exception e) {
-            // 如果获取用户ID失败，继续执行（允许未登录用户查看已审核的帖子）
-            // currentUserId 保持为 null
-        }
+        AuthContext authContext = AuthContext.current();
+        Long currentUserId = authContext.getUserId();
+        String currentRole = authContext.getRole();
         
         // 如果是管理员，允许查看所有状态的帖子（包括待审核的）
         // 否则，如果是帖子所有者，允许查看自己的待审核帖子
@@ -178,9 +206,7 @@ public class ForumPostServiceImpl extends ServiceImpl<ForumPostMapper, ForumPost
      */
     @Override
     public Result addPost(ForumPostAddDTO forumPostAddDTO, MultipartFile referenceAttachmentFile) {
-        Map<String, Object> map = ThreadLocalUtil.get();
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long userId = TypeConversionUtil.toLong(userIdObj);
+        Long userId = AuthContext.current().getUserId();
 
         // 检查用户积分是否大于0
         User user = userMapper.selectById(userId);
@@ -192,11 +218,11 @@ public class ForumPostServiceImpl extends ServiceImpl<ForumPostMapper, ForumPost
             return Result.error("当前账号无发布权限，积分不足（积分为0时无法发帖、发歌、回复）");
         }
 
-        // 检查当日发布限制（最多10条）
-        Integer todayPosts = forumPostMapper.countUserTodayPosts(userId);
-        if (todayPosts >= 10) {
-            log.warn("用户当日发布帖子数量已达上限 - userId: {}, todayPosts: {}", userId, todayPosts);
-            return Result.error("今日发布次数已达上限（10条），请明天再试");
+        // 占用发帖配额，附件上传或保存失败时归还
+        String permit = quotaService.tryAcquire(QuotaActionEnum.FORUM_POST, userId);
+        if (permit == null) {
+            log.warn("用户发布帖子次数已达上限 - userId: {}", userId);
+            return Result.error(quotaService.exceededMessage(QuotaActionEnum.FORUM_POST));
         }
 
         ForumPost forumPost = new ForumPost();
@@ -231,13 +257,39 @@ public class ForumPostServiceImpl extends ServiceImpl<ForumPostMapper, ForumPost
                 String attachmentUrl = minioService.uploadFile(referenceAttachmentFile, folder);
                 forumPost.setReferenceAttachment(attachmentUrl);
             } catch (Exception e) {
+                quotaService.release(QuotaActionEnum.FORUM_POST, userId, permit);
                 return Result.error("附件上传失败：" + e.getMessage());
             }
         }
+        // 通过断点续传上传完成的附件，帖子保存成功后才确认认领
+        String attachmentUploadId = null;
+        if (forumPost.getReferenceAttachment() == null && forumPostAddDTO.getReferenceAttachmentUploadId() != null) {
+            String attachmentUrl = claimReferenceAttachment(forumPostAddDTO, userId);
+            if (attachmentUrl == null) {
+                quotaService.release(QuotaActionEnum.FORUM_POST, userId, permit);
+                return Result.error("附件上传已过期，请重新上传");
+            }
+            attachmentUploadId = forumPostAddDTO.getReferenceAttachmentUploadId();
+            forumPost.setReferenceAttachment(attachmentUrl);
+        }
 
-        if (forumPostMapper.insert(forumPost) == 0) {
+        boolean inserted = false;
+        try {
+            inserted = forumPostMapper.insert(forumPost) > 0;
+        } finally {
+            if (!inserted) {
+                quotaService.release(QuotaActionEnum.FORUM_POST, userId, permit);
+                if (attachmentUploadId != null) {
+                    resumableUploadService.restoreAttachment(attachmentUploadId);
+                }
+            }
+        }
+        if (!inserted) {
             return Result.error(MessageConstant.ADD + MessageConstant.FAILED);
         }
+        if (attachmentUploadId != null) {
+            resumableUploadService.confirmAttachment(attachmentUploadId);
+        }
         return Result.success(MessageConstant.ADD + MessageConstant.SUCCESS);
     }
 
@@ -249,9 +301,7 @@ public class ForumPostServiceImpl extends ServiceImpl<ForumPostMapper, ForumPost
      */
     @Override
     public Result deletePost(Long postId) {
-        Map<String, Object> map = ThreadLocalUtil.get();
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long userId = TypeConversionUtil.toLong(userIdObj);
+        Long userId = AuthContext.current().getUserId();
 
         ForumPost forumPost = forumPostMapper.selectById(postId);
         if (forumPost == null) {
@@ -347,9 +397,7 @@ public class ForumPostServiceImpl extends ServiceImpl<ForumPostMapper, ForumPost
      */
     @Override
     public Result updateAcceptStatus(Long postId, Integer isAccepted) {
-        Map<String, Object> map = ThreadLocalUtil.get();
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long userId = TypeConversionUtil.toLong(userIdObj);
+        Long userId = AuthContext.current().getUserId();
 
         ForumPost forumPost = forumPostMapper.selectById(postId);
         if (forumPost == null) {
@@ -392,14 +440,11 @@ public class ForumPostServiceImpl extends ServiceImpl<ForumPostMapper, ForumPost
     @Override
     public Result updatePost(ForumPostAddDTO forumPostAddDTO, MultipartFile referenceAttachmentFile) {
         // 获取当前用户ID
-        Map<String, Object> map = ThreadLocalUtil.get();
-        if (map == null) {
+        Long userId = AuthContext.current().getUserId();
+        if (userId == null) {
             return Result.error("用户未登录");
         }
         
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long userId = TypeConversionUtil.toLong(userIdObj);
-        
         // 检查postId是否存在
         if (forumPostAddDTO.getPostId() == null) {
             return Result.error("帖子ID不能为空");
@@ -440,33 +485,61 @@ public class ForumPostServiceImpl extends ServiceImpl<ForumPostMapper, ForumPost
                 forumPost.setStyleDescription(forumPostAddDTO.getStyleDescription());
             }
             
-            // 更新参考附件（如果提供了新附件）
-            if (referenceAttachmentFile != null && !referenceAttachmentFile.isEmpty()) {
-                // 删除旧附件
-                String oldAttachment = forumPost.getReferenceAttachment();
-                if (oldAttachment != null && !oldAttachment.isEmpty()) {
-                    try {
-                        minioService.deleteFile(oldAttachment);
-                    } catch (Exception e) {
-                        log.warn("删除旧附件文件失败: " + oldAttachment, e);
+            // 通过断点续传上传的新附件先认领，认领失败时不删除旧附件
+            String resumableAttachmentUrl = null;
+            if ((referenceAttachmentFile == null || referenceAttachmentFile.isEmpty())
+                    && forumPostAddDTO.getReferenceAttachmentUploadId() != null) {
+                resumableAttachmentUrl = claimReferenceAttachment(forumPostAddDTO, userId);
+                if (resumableAttachmentUrl == null) {
+                    return Result.error("附件上传已过期，请重新上传");
+                }
+            }
+            String attachmentUploadId = resumableAttachmentUrl != null ? forumPostAddDTO.getReferenceAttachmentUploadId() : null;
+
+            // 更新参考附件（如果提供了新附件），旧附件在帖子更新成功后删除
+            String oldAttachment = null;
+            boolean updated = false;
+            try {
+                if ((referenceAttachmentFile != null && !referenceAttachmentFile.isEmpty()) || resumableAttachmentUrl != null) {
+                    oldAttachment = forumPost.getReferenceAttachment();
+                    // 上传新附件
+                    String attachmentUrl = resumableAttachmentUrl;
+                    if (attachmentUrl == null) {
+                        String folder = forumPostAddDTO.getType() != null && forumPostAddDTO.getType() == 1 
+                            ? "requirement-attachments" 
+                            : "post-attachments";
+                        attachmentUrl = minioService.uploadFile(referenceAttachmentFile, folder);
+                    }
+                    forumPost.setReferenceAttachment(attachmentUrl);
+                }
+
+                // 重置审核状态为待审核
+                forumPost.setAuditStatus(0);
+                forumPost.setUpdateTime(LocalDateTime.now());
+
+                // 更新数据库
+                updated = forumPostMapper.updateById(forumPost) > 0;
+            } finally {
+                if (attachmentUploadId != null) {
+                    if (updated) {
+                        resumableUploadService.confirmAttachment(attachmentUploadId);
+                    } else {
+                        resumableUploadService.restoreAttachment(attachmentUploadId);
                     }
                 }
-                // 上传新附件
-                String folder = forumPostAddDTO.getType() != null && forumPostAddDTO.getType() == 1 
-                    ? "requirement-attachments" 
-                    : "post-attachments";
-                String attachmentUrl = minioService.uploadFile(referenceAttachmentFile, folder);
-                forumPost.setReferenceAttachment(attachmentUrl);
             }
-            
-            // 重置审核状态为待审核
-            forumPost.setAuditStatus(0);
-            forumPost.setUpdateTime(LocalDateTime.now());
-            
-            // 更新数据库
-            if (forumPostMapper.updateById(forumPost) == 0) {
+            if (!updated) {
                 return Result.error(MessageConstant.UPDATE + MessageConstant.FAILED);
             }
+
+            // 删除旧附件
+            if (oldAttachment != null && !oldAttachment.isEmpty()) {
+                try {
+                    minioService.deleteFile(oldAttachment);
+                } catch (Exception e) {
+                    log.warn("删除旧附件文件失败: " + oldAttachment, e);
+                }
+            }
             
             return Result.success("帖子更新成功，已重新提交审核");
         } catch (Exception e) {
@@ -475,6 +548,18 @@ public class ForumPostServiceImpl extends ServiceImpl<ForumPostMapper, ForumPost
         }
     }
 
+    /**
+     * 认领断点续传上传的参考附件，附件的上传用途须与帖子类型一致
+     *
+     * @return 附件 URL，无法认领时返回 null
+     */
+    private String claimReferenceAttachment(ForumPostAddDTO forumPostAddDTO, Long userId) {
+        String purpose = forumPostAddDTO.getType() != null && forumPostAddDTO.getType() == 1
+                ? "requirement-attachment"
+                : "post-attachment";
+        return resumableUploadService.claimAttachment(forumPostAddDTO.getReferenceAttachmentUploadId(), userId, purpose);
+    }
+
     /**
      * 获取接单状态文本
      */
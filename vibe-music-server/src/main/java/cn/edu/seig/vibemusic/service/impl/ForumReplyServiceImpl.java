@@ -1,7 +1,7 @@
 package cn.edu.seig.vibemusic.service.impl;
 
-import cn.edu.seig.vibemusic.constant.JwtClaimsConstant;
 import cn.edu.seig.vibemusic.constant.MessageConstant;
+import cn.edu.seig.vibemusic.enumeration.QuotaActionEnum;
 import cn.edu.seig.vibemusic.mapper.ForumPostMapper;
 import cn.edu.seig.vibemusic.mapper.ForumReplyMapper;
 import cn.edu.seig.vibemusic.mapper.UserMapper;
@@ -11,11 +11,14 @@ import cn.edu.seig.vibemusic.model.dto.ForumReplyDTO;
 import cn.edu.seig.vibemusic.model.entity.ForumPost;
 import cn.edu.seig.vibemusic.model.entity.ForumReply;
 import cn.edu.seig.vibemusic.model.vo.ForumReplyVO;
+import cn.edu.seig.vibemusic.result.CursorPageResult;
 import cn.edu.seig.vibemusic.result.PageResult;
 import cn.edu.seig.vibemusic.result.Result;
 import cn.edu.seig.vibemusic.service.IForumReplyService;
-import cn.edu.seig.vibemusic.util.ThreadLocalUtil;
-import cn.edu.seig.vibemusic.util.TypeConversionUtil;
+import cn.edu.seig.vibemusic.service.QuotaService;
+import cn.edu.seig.vibemusic.util.AuthContext;
+import cn.edu.seig.vibemusic.util.CursorUtil;
+import cn.edu.seig.vibemusic.util.TransactionUtil;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
@@ -26,7 +29,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -49,6 +51,8 @@ public class ForumReplyServiceImpl extends ServiceImpl<ForumReplyMapper, ForumRe
 
     @Autowired
     private UserMapper userMapper;
+    @Autowired
+    private QuotaService quotaService;
 
     /**
      * 分页查询帖子的回复列表
@@ -75,6 +79,46 @@ public class ForumReplyServiceImpl extends ServiceImpl<ForumReplyMapper, ForumRe
         return Result.success(pageResult);
     }
 
+    /**
+     * 游标分页查询帖子的回复列表
+     * 一级回复按 发布时间、id 正序做 keyset 分页
+     *
+     * @param forumReplyDTO 查询条件
+     * @return 回复列表
+     */
+    @Override
+    public Result getReplyListByCursor(ForumReplyDTO forumReplyDTO) {
+        int pageSize = CursorUtil.limitPageSize(forumReplyDTO.getPageSize());
+        LocalDateTime createTime = null;
+        Long replyId = null;
+        if (forumReplyDTO.getCursor() != null && !forumReplyDTO.getCursor().isEmpty()) {
+            String[] values = CursorUtil.decode(forumReplyDTO.getCursor(), "reply", 2);
+            try {
+                if (values == null) {
+                    throw new IllegalArgumentException();
+                }
+                createTime = LocalDateTime.parse(values[0]);
+                replyId = Long.parseLong(values[1]);
+            } catch (RuntimeException e) {
+                return Result.error(MessageConstant.CURSOR + MessageConstant.INVALID);
+            }
+        }
+
+        List<ForumReplyVO> rows = forumReplyMapper.selectRepliesByCursor(forumReplyDTO.getPostId(), createTime, replyId, pageSize + 1);
+        Long total = Boolean.TRUE.equals(forumReplyDTO.getWithTotal())
+                ? forumReplyMapper.countReplies(forumReplyDTO.getPostId()) : null;
+        CursorPageResult<ForumReplyVO> result = CursorPageResult.of(rows, pageSize,
+                reply -> CursorUtil.encode("reply", reply.getCreateTime(), reply.getReplyId()), total);
+
+        // 查询每个一级回复的子回复
+        for (ForumReplyVO reply : result.getItems()) {
+            List<ForumReplyVO> children = forumReplyMapper.selectChildReplies(reply.getReplyId());
+            reply.setChildren(children);
+        }
+
+        return Result.success(result);
+    }
+
     /**
      * 发布回复
      *
@@ -98,9 +142,7 @@ public class ForumReplyServiceImpl extends ServiceImpl<ForumReplyMapper, ForumRe
             }
         }
 
-        Map<String, Object> map = ThreadLocalUtil.get();
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long userId = TypeConversionUtil.toLong(userIdObj);
+        Long userId = AuthContext.current().getUserId();
 
         // 检查用户积分是否大于0
         User user = userMapper.selectById(userId);
@@ -112,6 +154,13 @@ public class ForumReplyServiceImpl extends ServiceImpl<ForumReplyMapper, ForumRe
             return Result.error("当前账号无发布权限，积分不足（积分为0时无法发帖、发歌、回复）");
         }
 
+        // 占用回复配额，插入失败或事务回滚（插入或更新回复数抛出异常）时归还
+        String permit = quotaService.tryAcquire(QuotaActionEnum.FORUM_REPLY, userId);
+        if (permit == null) {
+            return Result.error(quotaService.exceededMessage(QuotaActionEnum.FORUM_REPLY));
+        }
+        TransactionUtil.afterRollback(() -> quotaService.release(QuotaActionEnum.FORUM_REPLY, userId, permit));
+
         ForumReply forumReply = new ForumReply();
         forumReply.setPostId(forumReplyAddDTO.getPostId())
                 .setUserId(userId)
@@ -123,6 +172,7 @@ public class ForumReplyServiceImpl extends ServiceImpl<ForumReplyMapper, ForumRe
                 .setCreateTime(LocalDateTime.now());
 
         if (forumReplyMapper.insert(forumReply) == 0) {
+            quotaService.release(QuotaActionEnum.FORUM_REPLY, userId, permit);
             return Result.error(MessageConstant.ADD + MessageConstant.FAILED);
         }
 
@@ -141,9 +191,7 @@ public class ForumReplyServiceImpl extends ServiceImpl<ForumReplyMapper, ForumRe
     @Override
     @Transactional
     public Result deleteReply(Long replyId) {
-        Map<String, Object> map = ThreadLocalUtil.get();
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long userId = TypeConversionUtil.toLong(userIdObj);
+        Long userId = AuthContext.current().getUserId();
 
         ForumReply forumReply = forumReplyMapper.selectById(replyId);
         if (forumReply == null) {
@@ -243,14 +291,11 @@ public class ForumReplyServiceImpl extends ServiceImpl<ForumReplyMapper, ForumRe
     @Transactional
     public Result updateReply(ForumReplyAddDTO forumReplyAddDTO) {
         // 获取当前用户ID
-        Map<String, Object> map = ThreadLocalUtil.get();
-        if (map == null) {
+        Long userId = AuthContext.current().getUserId();
+        if (userId == null) {
             return Result.error("用户未登录");
         }
         
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long userId = TypeConversionUtil.toLong(userIdObj);
-        
         // 检查replyId是否存在
         if (forumReplyAddDTO.getReplyId() == null) {
             return Result.error("回复ID不能为空");
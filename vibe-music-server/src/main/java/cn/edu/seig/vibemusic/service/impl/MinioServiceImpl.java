@@ -1,21 +1,64 @@
 package cn.edu.seig.vibemusic.service.impl;
 
+import cn.edu.seig.vibemusic.config.MinioMultipartClient;
 import cn.edu.seig.vibemusic.constant.MessageConstant;
 import cn.edu.seig.vibemusic.service.MinioService;
+import io.minio.GetObjectArgs;
+import io.minio.ListObjectsArgs;
 import io.minio.MinioClient;
+import io.minio.PostPolicy;
 import io.minio.PutObjectArgs;
 import io.minio.RemoveObjectArgs;
+import io.minio.RemoveObjectsArgs;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import cn.edu.seig.vibemusic.util.ContextPropagatingExecutor;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import io.minio.messages.ListMultipartUploadsResult;
+import io.minio.messages.Part;
+import io.minio.messages.Upload;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SortedMap;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class MinioServiceImpl implements MinioService {
 
+    // 列出分片上传时每页的数量
+    private static final int LIST_PAGE_SIZE = 1000;
+
     private final MinioClient minioClient;
+    private final MinioMultipartClient multipartClient;
+    // 异步上传、删除使用的有界线程池，队列满时由提交线程直接执行，形成背压
+    private final ThreadPoolExecutor threadPool;
+    private final Executor executor;
 
     @Value("${minio.bucket}")
     private String bucketName;
@@ -23,8 +66,25 @@ public class MinioServiceImpl implements MinioService {
     @Value("${minio.endpoint}")
     private String endpoint;
 
-    public MinioServiceImpl(MinioClient minioClient) {
+    public MinioServiceImpl(MinioClient minioClient, MinioMultipartClient multipartClient,
+                            @Value("${minio.executor.pool-size:8}") int poolSize,
+                            @Value("${minio.executor.queue-capacity:64}") int queueCapacity) {
         this.minioClient = minioClient;
+        this.multipartClient = multipartClient;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.threadPool = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> {
+                    Thread thread = new Thread(task, "minio-io-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.threadPool.allowCoreThreadTimeOut(true);
+        this.executor = new ContextPropagatingExecutor(threadPool);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        threadPool.shutdown();
     }
 
     /**
@@ -36,13 +96,24 @@ public class MinioServiceImpl implements MinioService {
      */
     @Override
     public String uploadFile(MultipartFile file, String folder) {
-        try {
-            // 生成唯一文件名
-            String fileName = folder + "/" + UUID.randomUUID() + "-" + file.getOriginalFilename();
+        return uploadFile(file, folder, null);
+    }
 
-            // 获取文件流
-            InputStream inputStream = file.getInputStream();
+    /**
+     * 上传文件到 Minio，读取的数据同时写入旁路输出流
+     *
+     * @param file   文件
+     * @param folder 文件夹
+     * @param tap    旁路输出流
+     * @return 可访问的 URL
+     */
+    @Override
+    public String uploadFile(MultipartFile file, String folder, OutputStream tap) {
+        // 生成唯一文件名
+        String fileName = folder + "/" + UUID.randomUUID() + "-" + file.getOriginalFilename();
 
+        // 获取文件流，上传结束后关闭
+        try (InputStream inputStream = tap == null ? file.getInputStream() : new TeeInputStream(file.getInputStream(), tap)) {
             // 上传文件
             minioClient.putObject(
                     PutObjectArgs.builder()
@@ -54,7 +125,7 @@ public class MinioServiceImpl implements MinioService {
             );
 
             // 返回可访问的 URL
-            return endpoint + "/" + bucketName + "/" + fileName;
+            return getObjectUrl(fileName);
 
         } catch (Exception e) {
             throw new RuntimeException(MessageConstant.FILE_UPLOAD + MessageConstant.FAILED + "：" + e.getMessage());
@@ -84,4 +155,401 @@ public class MinioServiceImpl implements MinioService {
             throw new RuntimeException("文件删除失败: " + e.getMessage());
         }
     }
+
+    /**
+     * 在 MinIO 线程池中上传文件
+     *
+     * @param file   文件
+     * @param folder 文件夹
+     * @return 可访问的 URL
+     */
+    @Override
+    public CompletableFuture<String> uploadFileAsync(MultipartFile file, String folder) {
+        return CompletableFuture.supplyAsync(() -> uploadFile(file, folder), executor);
+    }
+
+    /**
+     * 在 MinIO 线程池中上传文件，读取的数据同时写入旁路输出流
+     *
+     * @param file   文件
+     * @param folder 文件夹
+     * @param tap    旁路输出流
+     * @return 可访问的 URL
+     */
+    @Override
+    public CompletableFuture<String> uploadFileAsync(MultipartFile file, String folder, OutputStream tap) {
+        return CompletableFuture.supplyAsync(() -> uploadFile(file, folder, tap), executor);
+    }
+
+    /**
+     * 在 MinIO 线程池中删除文件
+     *
+     * @param fileUrl 文件 URL
+     * @return 删除完成的结果
+     */
+    @Override
+    public CompletableFuture<Void> deleteFileAsync(String fileUrl) {
+        return CompletableFuture.runAsync(() -> deleteFile(fileUrl), executor);
+    }
+
+    /**
+     * 批量删除对象
+     *
+     * @param objectNames 对象名
+     * @return 删除失败的对象名 -> 错误信息
+     */
+    @Override
+    public Map<String, String> removeObjects(Collection<String> objectNames) {
+        Map<String, String> failures = new HashMap<>();
+        if (objectNames.isEmpty()) {
+            return failures;
+        }
+        List<DeleteObject> objects = objectNames.stream().map(DeleteObject::new).toList();
+        try {
+            // 结果是惰性的，遍历时才真正发出删除请求，只返回删除失败的对象
+            for (io.minio.Result<DeleteError> result : minioClient.removeObjects(
+                    RemoveObjectsArgs.builder()
+                            .bucket(bucketName)
+                            .objects(objects)
+                            .build())) {
+                DeleteError error = result.get();
+                failures.put(error.objectName(), error.code() + ": " + error.message());
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("文件批量删除失败: " + e.getMessage());
+        }
+        return failures;
+    }
+
+    /**
+     * 上传小文件，对象已存在时覆盖
+     *
+     * @param objectName  对象名
+     * @param data        文件内容
+     * @param contentType 内容类型
+     */
+    @Override
+    public void putObject(String objectName, byte[] data, String contentType) {
+        try {
+            minioClient.putObject(
+                    PutObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .stream(new ByteArrayInputStream(data), data.length, -1)
+                            .contentType(contentType)
+                            .build()
+            );
+        } catch (Exception e) {
+            throw new RuntimeException(MessageConstant.FILE_UPLOAD + MessageConstant.FAILED + "：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 生成对象的访问 URL
+     *
+     * @param objectName 对象名
+     * @return 文件访问 URL
+     */
+    @Override
+    public String getObjectUrl(String objectName) {
+        return endpoint + "/" + bucketName + "/" + objectName;
+    }
+
+    /**
+     * 生成直传对象的预签名 POST 表单
+     * 与预签名 PUT 不同，POST 策略可以限定 Content-Type 与文件大小，超出限制的上传由 MinIO 直接拒绝
+     *
+     * @param objectName    对象名
+     * @param contentType   上传时必须使用的 Content-Type
+     * @param maxSize       文件大小上限，单位字节
+     * @param expirySeconds 有效期，单位秒
+     * @return 表单地址与表单字段
+     */
+    @Override
+    public PresignedPost getPresignedPost(String objectName, String contentType, long maxSize, int expirySeconds) {
+        try {
+            PostPolicy policy = new PostPolicy(bucketName, ZonedDateTime.now().plusSeconds(expirySeconds));
+            policy.addEqualsCondition("key", objectName);
+            policy.addEqualsCondition("Content-Type", contentType);
+            policy.addContentLengthRangeCondition(1L, maxSize);
+            Map<String, String> formData = new LinkedHashMap<>();
+            formData.put("key", objectName);
+            formData.put("Content-Type", contentType);
+            formData.putAll(minioClient.getPresignedPostFormData(policy));
+            return new PresignedPost(endpoint + "/" + bucketName, formData);
+        } catch (Exception e) {
+            throw new RuntimeException("上传地址生成失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 由文件 URL 解析对象名
+     *
+     * @param fileUrl 文件 URL
+     * @return 对象名，不是本存储桶的 URL 时返回 null
+     */
+    @Override
+    public String getObjectName(String fileUrl) {
+        String prefix = endpoint + "/" + bucketName + "/";
+        if (fileUrl == null || !fileUrl.startsWith(prefix) || fileUrl.length() == prefix.length()) {
+            return null;
+        }
+        return fileUrl.substring(prefix.length());
+    }
+
+    /**
+     * 查询对象信息
+     *
+     * @param objectName 对象名
+     * @return 对象信息，对象不存在时返回 null
+     */
+    @Override
+    public ObjectInfo statObject(String objectName) {
+        try {
+            StatObjectResponse stat = minioClient.statObject(
+                    StatObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .build()
+            );
+            return new ObjectInfo(stat.size(), stat.etag(), stat.contentType());
+        } catch (ErrorResponseException e) {
+            if ("NoSuchKey".equals(e.errorResponse().code())) {
+                return null;
+            }
+            throw new RuntimeException("文件信息读取失败: " + e.getMessage());
+        } catch (Exception e) {
+            throw new RuntimeException("文件信息读取失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 读取对象的一段字节
+     *
+     * @param objectName 对象名
+     * @param offset     起始偏移
+     * @param length     长度
+     * @return 数据流，由调用方关闭
+     */
+    @Override
+    public InputStream getObject(String objectName, long offset, long length) {
+        try {
+            return minioClient.getObject(
+                    GetObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .offset(offset)
+                            .length(length)
+                            .build()
+            );
+        } catch (Exception e) {
+            throw new RuntimeException("文件读取失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 创建分片上传
+     *
+     * @param objectName  对象名
+     * @param contentType 合并后对象的内容类型
+     * @return 分片上传id
+     */
+    @Override
+    public String createMultipartUpload(String objectName, String contentType) {
+        try {
+            return multipartClient.createMultipartUpload(bucketName, objectName, contentType);
+        } catch (Exception e) {
+            throw new RuntimeException("分片上传创建失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 上传一个分片
+     *
+     * @param objectName 对象名
+     * @param uploadId   分片上传id
+     * @param partNumber 分片号，从 1 开始
+     * @param data       分片数据，由调用方关闭
+     * @param length     分片长度
+     * @return 分片的 ETag
+     */
+    @Override
+    public String uploadPart(String objectName, String uploadId, int partNumber, InputStream data, long length) {
+        try {
+            return multipartClient.uploadPart(bucketName, objectName, uploadId, partNumber, data, length);
+        } catch (Exception e) {
+            throw new RuntimeException("分片上传失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 按分片号顺序合并分片
+     *
+     * @param objectName 对象名
+     * @param uploadId   分片上传id
+     * @param parts      分片号 -> ETag
+     */
+    @Override
+    public void completeMultipartUpload(String objectName, String uploadId, SortedMap<Integer, String> parts) {
+        Part[] partArray = new Part[parts.size()];
+        int i = 0;
+        for (Map.Entry<Integer, String> part : parts.entrySet()) {
+            partArray[i++] = new Part(part.getKey(), part.getValue());
+        }
+        try {
+            multipartClient.completeMultipartUpload(bucketName, objectName, uploadId, partArray);
+        } catch (Exception e) {
+            throw new RuntimeException("分片合并失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 取消分片上传并释放已上传的分片
+     *
+     * @param objectName 对象名
+     * @param uploadId   分片上传id
+     */
+    @Override
+    public void abortMultipartUpload(String objectName, String uploadId) {
+        try {
+            multipartClient.abortMultipartUpload(bucketName, objectName, uploadId);
+        } catch (Exception e) {
+            throw new RuntimeException("分片上传取消失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 按对象名的 UTF-8 字节序列出存储桶中的全部对象，SDK 在遍历时按页请求
+     *
+     * @param startAfter 从该对象名之后开始列出，为 null 时从头开始
+     * @return 对象列表
+     */
+    @Override
+    public Iterable<ListedObject> listObjects(String startAfter) {
+        ListObjectsArgs.Builder builder = ListObjectsArgs.builder()
+                .bucket(bucketName)
+                .recursive(true);
+        if (startAfter != null) {
+            builder.startAfter(startAfter);
+        }
+        Iterable<io.minio.Result<Item>> results = minioClient.listObjects(builder.build());
+        return () -> {
+            Iterator<io.minio.Result<Item>> iterator = results.iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public ListedObject next() {
+                    try {
+                        Item item = iterator.next().get();
+                        // 缺少修改时间时按刚修改处理，避免被当作早已不用的对象
+                        long lastModified = item.lastModified() == null
+                                ? System.currentTimeMillis() : item.lastModified().toInstant().toEpochMilli();
+                        return new ListedObject(item.objectName(), item.size(), lastModified);
+                    } catch (Exception e) {
+                        throw new RuntimeException("文件列表读取失败: " + e.getMessage());
+                    }
+                }
+            };
+        };
+    }
+
+    /**
+     * 按对象名列出存储桶中未完成的分片上传，遍历时按页请求
+     *
+     * @param startKeyMarker      从该对象名之后开始列出，为 null 时从头开始
+     * @param startUploadIdMarker 不为 null 时从 startKeyMarker 对象中该分片上传之后开始列出
+     * @return 未完成的分片上传
+     */
+    @Override
+    public Iterable<IncompleteUpload> listIncompleteUploads(String startKeyMarker, String startUploadIdMarker) {
+        return () -> new Iterator<>() {
+            private Iterator<Upload> page = Collections.emptyIterator();
+            private String keyMarker = startKeyMarker;
+            private String uploadIdMarker = startUploadIdMarker;
+            private boolean truncated = true;
+
+            @Override
+            public boolean hasNext() {
+                while (!page.hasNext() && truncated) {
+                    ListMultipartUploadsResult result;
+                    try {
+                        result = multipartClient.listMultipartUploads(bucketName, keyMarker, uploadIdMarker, LIST_PAGE_SIZE);
+                    } catch (Exception e) {
+                        throw new RuntimeException("分片上传列表读取失败: " + e.getMessage());
+                    }
+                    page = result.uploads().iterator();
+                    keyMarker = result.nextKeyMarker();
+                    uploadIdMarker = result.nextUploadIdMarker();
+                    truncated = result.isTruncated();
+                }
+                return page.hasNext();
+            }
+
+            @Override
+            public IncompleteUpload next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Upload upload = page.next();
+                long initiated = upload.initiated() == null
+                        ? System.currentTimeMillis() : upload.initiated().toInstant().toEpochMilli();
+                return new IncompleteUpload(upload.objectName(), upload.uploadId(), initiated);
+            }
+        };
+    }
+
+    /**
+     * 读取时把数据同时写入旁路输出流
+     */
+    private static class TeeInputStream extends FilterInputStream {
+
+        private final OutputStream tap;
+
+        TeeInputStream(InputStream in, OutputStream tap) {
+            super(in);
+            this.tap = tap;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                tap.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                tap.write(b, off, n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // 跳过的数据同样要写入旁路输出流
+            byte[] buffer = new byte[(int) Math.min(8192, Math.max(n, 0))];
+            long skipped = 0;
+            while (skipped < n) {
+                int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (read < 0) {
+                    break;
+                }
+                skipped += read;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
 }
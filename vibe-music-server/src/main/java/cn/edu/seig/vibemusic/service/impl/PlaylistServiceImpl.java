@@ -1,6 +1,7 @@
 package cn.edu.seig.vibemusic.service.impl;
 
-import cn.edu.seig.vibemusic.constant.JwtClaimsConstant;
+import cn.edu.seig.vibemusic.cache.CacheTags;
+import cn.edu.seig.vibemusic.cache.TaggedCacheManager;
 import cn.edu.seig.vibemusic.constant.MessageConstant;
 import cn.edu.seig.vibemusic.enumeration.LikeStatusEnum;
 import cn.edu.seig.vibemusic.enumeration.RoleEnum;
@@ -16,22 +17,24 @@ import cn.edu.seig.vibemusic.model.vo.PlaylistVO;
 import cn.edu.seig.vibemusic.model.vo.SongVO;
 import cn.edu.seig.vibemusic.result.PageResult;
 import cn.edu.seig.vibemusic.result.Result;
+import cn.edu.seig.vibemusic.service.CatalogSearchService;
+import cn.edu.seig.vibemusic.service.FavoriteBitmapService;
 import cn.edu.seig.vibemusic.service.IPlaylistService;
-import cn.edu.seig.vibemusic.service.MinioService;
-import cn.edu.seig.vibemusic.util.JwtUtil;
-import cn.edu.seig.vibemusic.util.TypeConversionUtil;
+import cn.edu.seig.vibemusic.service.RandomSampleService;
+import cn.edu.seig.vibemusic.service.StorageDeletionService;
+import cn.edu.seig.vibemusic.util.AuthContext;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
-import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheConfig;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -55,7 +58,15 @@ public class PlaylistServiceImpl extends ServiceImpl<PlaylistMapper, Playlist> i
     @Autowired
     private UserFavoriteMapper userFavoriteMapper;
     @Autowired
-    private MinioService minioService;
+    private StorageDeletionService storageDeletionService;
+    @Autowired
+    private CatalogSearchService catalogSearchService;
+    @Autowired
+    private FavoriteBitmapService favoriteBitmapService;
+    @Autowired
+    private RandomSampleService randomSampleService;
+    @Autowired
+    private TaggedCacheManager cacheManager;
 
     /**
      * 获取所有歌单
@@ -70,18 +81,33 @@ public class PlaylistServiceImpl extends ServiceImpl<PlaylistMapper, Playlist> i
         Page<Playlist> page = new Page<>(playlistDTO.getPageNum(), playlistDTO.getPageSize());
         QueryWrapper<Playlist> queryWrapper = new QueryWrapper<>();
         // 根据 playlistDTO 的条件构建查询条件
+        List<Long> matchedIds = null;
         if (playlistDTO.getTitle() != null) {
-            queryWrapper.like("title", playlistDTO.getTitle());
+            matchedIds = playlistDTO.getTitle().trim().isEmpty() ? null : catalogSearchService.searchPlaylistIds(playlistDTO.getTitle());
+            if (matchedIds == null) {
+                queryWrapper.like("title", playlistDTO.getTitle());
+            } else if (matchedIds.isEmpty()) {
+                return Result.success(MessageConstant.DATA_NOT_FOUND, new PageResult<>(0L, null));
+            } else {
+                queryWrapper.in("id", matchedIds);
+            }
         }
         if (playlistDTO.getStyle() != null) {
             queryWrapper.eq("style", playlistDTO.getStyle());
         }
+        if (matchedIds != null) {
+            // 按索引相关度排序
+            queryWrapper.last("ORDER BY FIELD(id, " + matchedIds.stream().map(String::valueOf).collect(Collectors.joining(",")) + ")");
+        }
 
         IPage<Playlist> playlistPage = playlistMapper.selectPage(page, queryWrapper);
         if (playlistPage.getRecords().size() == 0) {
             return Result.success(MessageConstant.DATA_NOT_FOUND, new PageResult<>(0L, null));
         }
 
+        CacheTags.tag(CacheTags.listOf(CacheTags.PLAYLIST));
+        CacheTags.tag(CacheTags.PLAYLIST, playlistPage.getRecords().stream().map(Playlist::getPlaylistId).toList());
+
         // 转换为 PlaylistVO
         List<PlaylistVO> playlistVOList = playlistPage.getRecords().stream()
                 .map(playlist -> {
@@ -107,7 +133,14 @@ public class PlaylistServiceImpl extends ServiceImpl<PlaylistMapper, Playlist> i
         QueryWrapper<Playlist> queryWrapper = new QueryWrapper<>();
         // 根据 playlistDTO 的条件构建查询条件
         if (playlistDTO.getTitle() != null) {
-            queryWrapper.like("title", playlistDTO.getTitle());
+            List<Long> matchedIds = playlistDTO.getTitle().trim().isEmpty() ? null : catalogSearchService.searchPlaylistIds(playlistDTO.getTitle());
+            if (matchedIds == null) {
+                queryWrapper.like("title", playlistDTO.getTitle());
+            } else if (matchedIds.isEmpty()) {
+                return Result.success(MessageConstant.DATA_NOT_FOUND, new PageResult<>(0L, null));
+            } else {
+                queryWrapper.in("id", matchedIds);
+            }
         }
         if (playlistDTO.getStyle() != null) {
             queryWrapper.eq("style", playlistDTO.getStyle());
@@ -120,6 +153,9 @@ public class PlaylistServiceImpl extends ServiceImpl<PlaylistMapper, Playlist> i
             return Result.success(MessageConstant.DATA_NOT_FOUND, new PageResult<>(0L, null));
         }
 
+        CacheTags.tag(CacheTags.listOf(CacheTags.PLAYLIST));
+        CacheTags.tag(CacheTags.PLAYLIST, playlistPage.getRecords().stream().map(Playlist::getPlaylistId).toList());
+
         return Result.success(new PageResult<>(playlistPage.getTotal(), playlistPage.getRecords()));
     }
 
@@ -127,50 +163,22 @@ public class PlaylistServiceImpl extends ServiceImpl<PlaylistMapper, Playlist> i
      * 获取推荐歌单
      * 推荐歌单的数量为 10
      *
-     * @param request HttpServletRequest，用于获取请求头中的 token
+     * @param authContext 当前登录信息
      * @return 随机歌单列表
      */
     @Override
-    public Result<List<PlaylistVO>> getRecommendedPlaylists(HttpServletRequest request) {
-        // 获取请求头中的 token
-        String token = request.getHeader("Authorization");
-        if (token != null && token.startsWith("Bearer ")) {
-            token = token.substring(7);  // 去掉 "Bearer " 前缀
-        }
-
-        Map<String, Object> map = null;
-        if (token != null && !token.isEmpty()) {
-            try {
-                map = JwtUtil.parseToken(token);
-            } catch (com.auth0.jwt.exceptions.TokenExpiredException e) {
-                // Token 过期，按未登录处理
-                log.warn("Token expired, treating as unauthenticated user");
-                map = null;
-            } catch (Exception e) {
-                // Token 解析失败，按未登录处理
-                log.warn("Token parse failed: " + e.getMessage() + ", treating as unauthenticated user");
-                map = null;
-            }
-        }
-
-        Long userId = null;
-        if (map != null) {
-            String role = (String) map.get(JwtClaimsConstant.ROLE);
-            if (role.equals(RoleEnum.USER.getRole())) {
-                Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-                userId = TypeConversionUtil.toLong(userIdObj);
-            }
-        }
+    public Result<List<PlaylistVO>> getRecommendedPlaylists(AuthContext authContext) {
+        Long userId = RoleEnum.USER.getRole().equals(authContext.getRole()) ? authContext.getUserId() : null;
 
         // 用户未登录，返回随机歌单
         if (userId == null) {
-            return Result.success(playlistMapper.getRandomPlaylists(10));
+            return Result.success(randomSampleService.samplePlaylists(10));
         }
 
         // 获取用户收藏的歌单 ID
         List<Long> favoritePlaylistIds = userFavoriteMapper.getFavoritePlaylistIdsByUserId(userId);
         if (favoritePlaylistIds.isEmpty()) {
-            return Result.success(playlistMapper.getRandomPlaylists(10)); // 如果用户没有收藏歌单，返回随机歌单
+            return Result.success(randomSampleService.samplePlaylists(10)); // 如果用户没有收藏歌单，返回随机歌单
         }
 
         // 查询用户收藏的歌单风格并统计频率
@@ -190,7 +198,7 @@ public class PlaylistServiceImpl extends ServiceImpl<PlaylistMapper, Playlist> i
 
         // 如果推荐的歌单不足 10 个，则用随机歌单填充
         if (recommendedPlaylists.size() < 10) {
-            List<PlaylistVO> randomPlaylists = playlistMapper.getRandomPlaylists(10);
+            List<PlaylistVO> randomPlaylists = randomSampleService.samplePlaylists(10);
             Set<Long> addedPlaylistIds = recommendedPlaylists.stream().map(PlaylistVO::getPlaylistId).collect(Collectors.toSet());
 
             for (PlaylistVO playlist : randomPlaylists) {
@@ -207,72 +215,59 @@ public class PlaylistServiceImpl extends ServiceImpl<PlaylistMapper, Playlist> i
     /**
      * 获取歌单详情
      *
-     * @param playlistId 歌单id
-     * @param request    HttpServletRequest，用于获取请求头中的 token
+     * @param playlistId  歌单id
+     * @param authContext 当前登录信息
      * @return 歌单详情
      */
     @Override
-    @Cacheable(key = "#playlistId")
-    public Result<PlaylistDetailVO> getPlaylistDetail(Long playlistId, HttpServletRequest request) {
-        PlaylistDetailVO playlistDetailVO = playlistMapper.getPlaylistDetailById(playlistId);
+    public Result<PlaylistDetailVO> getPlaylistDetail(Long playlistId, AuthContext authContext) {
+        // 查询歌单详情（公共缓存，不含收藏状态）
+        PlaylistDetailVO cachedDetail = cacheManager.getCache("playlistCache").get("detail-" + playlistId, () -> {
+            PlaylistDetailVO detail = playlistMapper.getPlaylistDetailById(playlistId);
+            CacheTags.tag(CacheTags.of(CacheTags.PLAYLIST, playlistId));
+            if (detail != null && detail.getSongs() != null) {
+                CacheTags.tag(CacheTags.SONG, detail.getSongs().stream().map(SongVO::getSongId).toList());
+            }
+            return detail;
+        });
+        if (cachedDetail == null) {
+            return Result.error(MessageConstant.PLAYLIST + MessageConstant.NOT_FOUND);
+        }
+
+        // 复制后再标记收藏状态，避免修改缓存中的共享对象
+        PlaylistDetailVO playlistDetailVO = new PlaylistDetailVO();
+        BeanUtils.copyProperties(cachedDetail, playlistDetailVO);
+        List<SongVO> songVOList = cachedDetail.getSongs() == null ? new ArrayList<>()
+                : cachedDetail.getSongs().stream().map(songVO -> {
+                    SongVO copy = new SongVO();
+                    BeanUtils.copyProperties(songVO, copy);
+                    return copy;
+                }).collect(Collectors.toList());
+        playlistDetailVO.setSongs(songVOList);
 
         // 设置默认状态
-        List<SongVO> songVOList = playlistDetailVO.getSongs();
         songVOList.forEach(songVO -> songVO.setLikeStatus(LikeStatusEnum.DEFAULT.getId()));
         playlistDetailVO.setLikeStatus(LikeStatusEnum.DEFAULT.getId());
 
-        // 获取请求头中的 token
-        String token = request.getHeader("Authorization");
-        if (token != null && token.startsWith("Bearer ")) {
-            token = token.substring(7);  // 去掉 "Bearer " 前缀
-        }
-
-        Map<String, Object> map = null;
-        if (token != null && !token.isEmpty()) {
-            try {
-                map = JwtUtil.parseToken(token);
-            } catch (com.auth0.jwt.exceptions.TokenExpiredException e) {
-                // Token 过期，按未登录处理
-                log.warn("Token expired, treating as unauthenticated user");
-                map = null;
-            } catch (Exception e) {
-                // Token 解析失败，按未登录处理
-                log.warn("Token parse failed: " + e.getMessage() + ", treating as unauthenticated user");
-                map = null;
+        // 用户为登录状态，进一步操作
+        if (RoleEnum.USER.getRole().equals(authContext.getRole())) {
+            Long userId = authContext.getUserId();
+
+            // 获取用户收藏的歌单
+            UserFavorite favoritePlaylist = userFavoriteMapper.selectOne(new QueryWrapper<UserFavorite>()
+                    .eq("user_id", userId)
+                    .eq("type", 1)
+                    .eq("playlist_id", playlistId));
+            if (favoritePlaylist != null) {
+                playlistDetailVO.setLikeStatus(LikeStatusEnum.LIKE.getId());
             }
-        }
-
-        // 如果 token 解析成功且用户为登录状态，进一步操作
-        if (map != null) {
-            String role = (String) map.get(JwtClaimsConstant.ROLE);
-            if (role.equals(RoleEnum.USER.getRole())) {
-                Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-                Long userId = TypeConversionUtil.toLong(userIdObj);
-
-                // 获取用户收藏的歌单
-                UserFavorite favoritePlaylist = userFavoriteMapper.selectOne(new QueryWrapper<UserFavorite>()
-                        .eq("user_id", userId)
-                        .eq("type", 1)
-                        .eq("playlist_id", playlistId));
-                if (favoritePlaylist != null) {
-                    playlistDetailVO.setLikeStatus(LikeStatusEnum.LIKE.getId());
-                }
 
-                // 获取用户收藏的歌曲
-                List<UserFavorite> favoriteSongs = userFavoriteMapper.selectList(new QueryWrapper<UserFavorite>()
-                        .eq("user_id", userId)
-                        .eq("type", 0));
-
-                // 获取用户收藏的歌曲 id
-                Set<Long> favoriteSongIds = favoriteSongs.stream()
-                        .map(UserFavorite::getSongId)
-                        .collect(Collectors.toSet());
-
-                // 检查并更新状态
-                for (SongVO songVO : songVOList) {
-                    if (favoriteSongIds.contains(songVO.getSongId())) {
-                        songVO.setLikeStatus(LikeStatusEnum.LIKE.getId());
-                    }
+            // 通过收藏位图批量检查并更新状态
+            long[] songIds = songVOList.stream().mapToLong(SongVO::getSongId).toArray();
+            boolean[] favorites = favoriteBitmapService.contains(userId, songIds);
+            for (int i = 0; i < favorites.length; i++) {
+                if (favorites[i]) {
+                    songVOList.get(i).setLikeStatus(LikeStatusEnum.LIKE.getId());
                 }
             }
         }
@@ -303,7 +298,6 @@ public class PlaylistServiceImpl extends ServiceImpl<PlaylistMapper, Playlist> i
      * @return 添加结果
      */
     @Override
-    @CacheEvict(cacheNames = "playlistCache", allEntries = true)
     public Result addPlaylist(PlaylistAddDTO playlistAddDTOO) {
         QueryWrapper<Playlist> queryWrapper = new QueryWrapper<>();
         queryWrapper.eq("title", playlistAddDTOO.getTitle());
@@ -315,6 +309,9 @@ public class PlaylistServiceImpl extends ServiceImpl<PlaylistMapper, Playlist> i
         BeanUtils.copyProperties(playlistAddDTOO, playlist);
         playlistMapper.insert(playlist);
 
+        catalogSearchService.refreshPlaylists(List.of(playlist.getPlaylistId()));
+        cacheManager.evictTags(CacheTags.listOf(CacheTags.PLAYLIST));
+
         return Result.success(MessageConstant.ADD + MessageConstant.SUCCESS);
     }
 
@@ -325,7 +322,6 @@ public class PlaylistServiceImpl extends ServiceImpl<PlaylistMapper, Playlist> i
      * @return 更新结果
      */
     @Override
-    @CacheEvict(cacheNames = "playlistCache", allEntries = true)
     public Result updatePlaylist(PlaylistUpdateDTO playlistUpdateDTO) {
         Long playlistId = playlistUpdateDTO.getPlaylistId();
 
@@ -340,6 +336,9 @@ public class PlaylistServiceImpl extends ServiceImpl<PlaylistMapper, Playlist> i
             return Result.error(MessageConstant.UPDATE + MessageConstant.FAILED);
         }
 
+        catalogSearchService.refreshPlaylists(List.of(playlistId));
+        cacheManager.evictTags(CacheTags.of(CacheTags.PLAYLIST, playlistId), CacheTags.listOf(CacheTags.PLAYLIST));
+
         return Result.success(MessageConstant.UPDATE + MessageConstant.SUCCESS);
     }
 
@@ -351,18 +350,20 @@ public class PlaylistServiceImpl extends ServiceImpl<PlaylistMapper, Playlist> i
      * @return 更新结果
      */
     @Override
-    @CacheEvict(cacheNames = "playlistCache", allEntries = true)
+    @Transactional
     public Result updatePlaylistCover(Long playlistId, String coverUrl) {
         Playlist playlist = playlistMapper.selectById(playlistId);
         String cover = playlist.getCoverUrl();
-        if (cover != null && !cover.isEmpty()) {
-            minioService.deleteFile(cover);
-        }
 
         playlist.setCoverUrl(coverUrl);
         if (playlistMapper.updateById(playlist) == 0) {
             return Result.error(MessageConstant.UPDATE + MessageConstant.FAILED);
         }
+        // 旧封面与歌单更新一起提交到删除队列
+        if (cover != null && !cover.isEmpty()) {
+            storageDeletionService.enqueue(List.of(cover));
+        }
+        cacheManager.evictTags(CacheTags.of(CacheTags.PLAYLIST, playlistId));
 
         return Result.success(MessageConstant.UPDATE + MessageConstant.SUCCESS);
     }
@@ -374,7 +375,7 @@ public class PlaylistServiceImpl extends ServiceImpl<PlaylistMapper, Playlist> i
      * @return 删除结果
      */
     @Override
-    @CacheEvict(cacheNames = "playlistCache", allEntries = true)
+    @Transactional
     public Result deletePlaylist(Long playlistId) {
         // 1. 查询歌单信息，获取封面 URL
         Playlist playlist = playlistMapper.selectById(playlistId);
@@ -383,16 +384,19 @@ public class PlaylistServiceImpl extends ServiceImpl<PlaylistMapper, Playlist> i
         }
         String coverUrl = playlist.getCoverUrl();
 
-        // 2. 先删除 MinIO 里的封面文件
-        if (coverUrl != null && !coverUrl.isEmpty()) {
-            minioService.deleteFile(coverUrl);
-        }
-
-        // 3. 删除数据库中的歌单信息
+        // 2. 删除数据库中的歌单信息
         if (playlistMapper.deleteById(playlistId) == 0) {
             return Result.error(MessageConstant.DELETE + MessageConstant.FAILED);
         }
 
+        // 3. MinIO 里的封面文件登记到删除队列，由后台删除
+        if (coverUrl != null && !coverUrl.isEmpty()) {
+            storageDeletionService.enqueue(List.of(coverUrl));
+        }
+
+        catalogSearchService.refreshPlaylists(List.of(playlistId));
+        cacheManager.evictTags(CacheTags.of(CacheTags.PLAYLIST, playlistId), CacheTags.listOf(CacheTags.PLAYLIST));
+
         return Result.success(MessageConstant.DELETE + MessageConstant.SUCCESS);
     }
 
@@ -403,7 +407,7 @@ public class PlaylistServiceImpl extends ServiceImpl<PlaylistMapper, Playlist> i
      * @return 删除结果
      */
     @Override
-    @CacheEvict(cacheNames = "playlistCache", allEntries = true)
+    @Transactional
     public Result deletePlaylists(List<Long> playlistIds) {
         List<Playlist> playlists = playlistMapper.selectBatchIds(playlistIds);
         List<String> coverUrlList = playlists.stream()
@@ -411,16 +415,18 @@ public class PlaylistServiceImpl extends ServiceImpl<PlaylistMapper, Playlist> i
                 .filter(coverUrl -> coverUrl != null && !coverUrl.isEmpty())
                 .toList();
 
-        // 2. 先删除 MinIO 里的封面文件
-        for (String coverUrl : coverUrlList) {
-            minioService.deleteFile(coverUrl);
-        }
-
-        // 3. 删除数据库中的歌单信息
+        // 2. 删除数据库中的歌单信息
         if (playlistMapper.deleteBatchIds(playlistIds) == 0) {
             return Result.error(MessageConstant.DELETE + MessageConstant.FAILED);
         }
 
+        // 3. MinIO 里的封面文件登记到删除队列，与歌单删除同一事务提交，由后台批量删除
+        storageDeletionService.enqueue(coverUrlList);
+
+        catalogSearchService.refreshPlaylists(playlistIds);
+        cacheManager.evictTags(CacheTags.of(CacheTags.PLAYLIST, playlistIds));
+        cacheManager.evictTags(CacheTags.listOf(CacheTags.PLAYLIST));
+
         return Result.success(MessageConstant.DELETE + MessageConstant.SUCCESS);
     }
 
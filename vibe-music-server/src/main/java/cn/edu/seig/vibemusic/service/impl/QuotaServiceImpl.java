@@ -0,0 +1,185 @@
+package cn.edu.seig.vibemusic.service.impl;
+
+import cn.edu.seig.vibemusic.config.QuotaConfig;
+import cn.edu.seig.vibemusic.enumeration.QuotaActionEnum;
+import cn.edu.seig.vibemusic.service.QuotaService;
+import cn.edu.seig.vibemusic.util.SlidingWindowLimiter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 用户操作配额服务实现类
+ * <p>
+ * quota:{操作}:{用户ID} 是窗口内每次占用的有序集合（分值为占用时间），随最后一次占用过期。
+ * Redis 访问失败后在 quota.redis-retry-interval 内只使用本地计数，不再等待 Redis 超时；
+ * 本地计数只在本节点有效，Redis 恢复后不合并，切换期间实际上限可能略高于配置。
+ */
+@Slf4j
+@Service
+public class QuotaServiceImpl implements QuotaService {
+
+    private static final String KEY_PREFIX = "quota:";
+    // 本地计数的凭证前缀，归还时据此选择计数位置
+    private static final String LOCAL_PERMIT_PREFIX = "local:";
+
+    // 丢弃窗口外的占用，未达上限时记录本次占用；返回是否占用成功
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>("""
+            local now = tonumber(ARGV[1])
+            local window = tonumber(ARGV[2])
+            redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - window)
+            if redis.call('ZCARD', KEYS[1]) >= tonumber(ARGV[3]) then
+                return 0
+            end
+            redis.call('ZADD', KEYS[1], now, ARGV[4])
+            redis.call('PEXPIRE', KEYS[1], window)
+            return 1
+            """, Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private QuotaConfig quotaConfig;
+
+    private final SlidingWindowLimiter localLimiter = new SlidingWindowLimiter();
+    // 在该时间之前不访问 Redis，毫秒时间戳
+    private volatile long redisRetryAt;
+
+    /**
+     * 窗口内的次数是否已用完，不占用配额
+     *
+     * @param action 操作
+     * @param userId 用户ID
+     * @return 是否已用完
+     */
+    @Override
+    public boolean isExhausted(QuotaActionEnum action, Long userId) {
+        QuotaConfig.QuotaSpec spec = specOf(action);
+        if (spec == null) {
+            return false;
+        }
+        String key = key(action, userId);
+        long now = System.currentTimeMillis();
+        if (now >= redisRetryAt) {
+            try {
+                Long count = stringRedisTemplate.opsForZSet().count(key, now - spec.getWindow() + 1, Double.POSITIVE_INFINITY);
+                return count != null && count >= spec.getLimit();
+            } catch (Exception e) {
+                redisFailed(e, now);
+            }
+        }
+        return localLimiter.count(key, now) >= spec.getLimit();
+    }
+
+    /**
+     * 尝试占用一次配额
+     *
+     * @param action 操作
+     * @param userId 用户ID
+     * @return 占用凭证，超出配额时返回 null
+     */
+    @Override
+    public String tryAcquire(QuotaActionEnum action, Long userId) {
+        long now = System.currentTimeMillis();
+        String permit = now + "-" + Long.toHexString(ThreadLocalRandom.current().nextLong());
+        QuotaConfig.QuotaSpec spec = specOf(action);
+        if (spec == null) {
+            return permit;
+        }
+        String key = key(action, userId);
+        if (now >= redisRetryAt) {
+            try {
+                Long acquired = stringRedisTemplate.execute(ACQUIRE_SCRIPT, List.of(key),
+                        String.valueOf(now), String.valueOf(spec.getWindow()), String.valueOf(spec.getLimit()), permit);
+                return acquired != null && acquired == 1 ? permit : null;
+            } catch (Exception e) {
+                redisFailed(e, now);
+            }
+        }
+        String localPermit = LOCAL_PERMIT_PREFIX + permit;
+        return localLimiter.tryAcquire(key, localPermit, spec.getLimit(), spec.getWindow(), now) ? localPermit : null;
+    }
+
+    /**
+     * 归还一次配额
+     *
+     * @param action 操作
+     * @param userId 用户ID
+     * @param permit tryAcquire 返回的凭证
+     */
+    @Override
+    public void release(QuotaActionEnum action, Long userId, String permit) {
+        if (permit == null || specOf(action) == null) {
+            return;
+        }
+        String key = key(action, userId);
+        if (permit.startsWith(LOCAL_PERMIT_PREFIX)) {
+            localLimiter.release(key, permit);
+            return;
+        }
+        try {
+            stringRedisTemplate.opsForZSet().remove(key, permit);
+        } catch (Exception e) {
+            log.warn("归还配额失败，key: {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * 超出配额时的提示信息
+     *
+     * @param action 操作
+     * @return 提示信息
+     */
+    @Override
+    public String exceededMessage(QuotaActionEnum action) {
+        QuotaConfig.QuotaSpec spec = specOf(action);
+        if (spec == null) {
+            return action.getAction() + "过于频繁，请稍后再试";
+        }
+        return action.getAction() + "次数已达上限（" + formatWindow(spec.getWindow()) + "内最多" + spec.getLimit() + "次），请稍后再试";
+    }
+
+    /**
+     * 定时移除本地计数中已过期的 key
+     */
+    @Scheduled(fixedDelayString = "${quota.local-evict-interval:60000}")
+    public void evictLocal() {
+        localLimiter.evictExpired(System.currentTimeMillis());
+    }
+
+    private QuotaConfig.QuotaSpec specOf(QuotaActionEnum action) {
+        QuotaConfig.QuotaSpec spec = quotaConfig.getLimits().get(action.getKey());
+        return spec == null || spec.getLimit() <= 0 || spec.getWindow() <= 0 ? null : spec;
+    }
+
+    private void redisFailed(Exception e, long now) {
+        // 只在切换到本地计数时记录一次
+        if (now >= redisRetryAt) {
+            log.warn("配额计数访问 Redis 失败，{} 毫秒内改用本地计数: {}", quotaConfig.getRedisRetryInterval(), e.getMessage());
+        }
+        redisRetryAt = now + quotaConfig.getRedisRetryInterval();
+    }
+
+    private static String key(QuotaActionEnum action, Long userId) {
+        return KEY_PREFIX + action.getKey() + ":" + userId;
+    }
+
+    // 86400000 -> 24小时，60000 -> 1分钟
+    private static String formatWindow(long window) {
+        if (window % 3600000 == 0) {
+            return window / 3600000 + "小时";
+        }
+        if (window % 60000 == 0) {
+            return window / 60000 + "分钟";
+        }
+        return Math.max(1, window / 1000) + "秒";
+    }
+
+}
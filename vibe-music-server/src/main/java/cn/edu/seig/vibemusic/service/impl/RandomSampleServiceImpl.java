@@ -0,0 +1,245 @@
+package cn.edu.seig.vibemusic.service.impl;
+
+import cn.edu.seig.vibemusic.cache.SongCatalog;
+import cn.edu.seig.vibemusic.mapper.ArtistMapper;
+import cn.edu.seig.vibemusic.mapper.PlaylistMapper;
+import cn.edu.seig.vibemusic.mapper.SongMapper;
+import cn.edu.seig.vibemusic.model.vo.ArtistVO;
+import cn.edu.seig.vibemusic.model.vo.PlaylistVO;
+import cn.edu.seig.vibemusic.model.vo.SongVO;
+import cn.edu.seig.vibemusic.service.RandomSampleService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ResultHandler;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 随机抽样服务实现类
+ * <p>
+ * id 池在首次抽样时加载，之后由定时任务整体替换。两次刷新之间被删除或下架的条目在回填时被过滤，
+ * 因此每次多抽取少量 id 作为余量；新增的条目在下次刷新后才会被抽到。
+ */
+@Slf4j
+@Service
+public class RandomSampleServiceImpl implements RandomSampleService {
+
+    @Autowired
+    private SongMapper songMapper;
+    @Autowired
+    private SongCatalog songCatalog;
+    @Autowired
+    private PlaylistMapper playlistMapper;
+    @Autowired
+    private ArtistMapper artistMapper;
+
+    private volatile long[] songIds;
+    private volatile long[] playlistIds;
+    private volatile long[] artistIds;
+
+    /**
+     * 随机抽取已通过审核的歌曲
+     *
+     * @param count 数量
+     * @return 歌曲列表
+     */
+    @Override
+    public List<SongVO> sampleSongs(int count) {
+        long[] pool = songIds;
+        if (pool == null) {
+            pool = ensureSongIds();
+        }
+        List<Long> ids = sample(pool, withMargin(count));
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<SongVO> songs = songCatalog.getAll(ids);
+        return new ArrayList<>(songs.subList(0, Math.min(count, songs.size())));
+    }
+
+    /**
+     * 随机抽取歌单
+     *
+     * @param count 数量
+     * @return 歌单列表
+     */
+    @Override
+    public List<PlaylistVO> samplePlaylists(int count) {
+        long[] pool = playlistIds;
+        if (pool == null) {
+            pool = ensurePlaylistIds();
+        }
+        List<Long> ids = sample(pool, withMargin(count));
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<PlaylistVO> playlists = playlistMapper.selectByIds(ids).stream()
+                .map(playlist -> {
+                    PlaylistVO playlistVO = new PlaylistVO();
+                    playlistVO.setPlaylistId(playlist.getPlaylistId());
+                    playlistVO.setTitle(playlist.getTitle());
+                    playlistVO.setCoverUrl(playlist.getCoverUrl());
+                    return playlistVO;
+                }).toList();
+        return inOrder(ids, playlists, PlaylistVO::getPlaylistId, count);
+    }
+
+    /**
+     * 随机抽取可展示的歌手
+     *
+     * @param count 数量
+     * @return 歌手列表
+     */
+    @Override
+    public List<ArtistVO> sampleArtists(int count) {
+        long[] pool = artistIds;
+        if (pool == null) {
+            pool = ensureArtistIds();
+        }
+        List<Long> ids = sample(pool, withMargin(count));
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<ArtistVO> artists = artistMapper.selectByIds(ids).stream()
+                .map(artist -> {
+                    ArtistVO artistVO = new ArtistVO();
+                    BeanUtils.copyProperties(artist, artistVO);
+                    return artistVO;
+                }).toList();
+        return inOrder(ids, artists, ArtistVO::getArtistId, count);
+    }
+
+    /**
+     * 定时刷新 id 池
+     */
+    @Scheduled(initialDelayString = "${random-sample.refresh-interval:300000}",
+            fixedDelayString = "${random-sample.refresh-interval:300000}")
+    public void scheduledRefresh() {
+        // 尚未被使用过的池不需要刷新，首次抽样时再加载
+        if (songIds == null && playlistIds == null && artistIds == null) {
+            return;
+        }
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.error("随机抽样 id 池刷新失败，继续使用旧数据: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 从数据库重新加载全部 id 池
+     */
+    @Override
+    public void refresh() {
+        long start = System.currentTimeMillis();
+        loadSongIds();
+        loadPlaylistIds();
+        loadArtistIds();
+        log.info("随机抽样 id 池刷新完成：歌曲 {}，歌单 {}，歌手 {}，耗时 {} ms",
+                songIds.length, playlistIds.length, artistIds.length, System.currentTimeMillis() - start);
+    }
+
+    // 首次抽样时加载，获得锁后再检查一次，并发的首次请求只扫描一次
+    private synchronized long[] ensureSongIds() {
+        return songIds != null ? songIds : loadSongIds();
+    }
+
+    private synchronized long[] ensurePlaylistIds() {
+        return playlistIds != null ? playlistIds : loadPlaylistIds();
+    }
+
+    private synchronized long[] ensureArtistIds() {
+        return artistIds != null ? artistIds : loadArtistIds();
+    }
+
+    private synchronized long[] loadSongIds() {
+        return songIds = scan(songMapper::scanApprovedSongIds);
+    }
+
+    private synchronized long[] loadPlaylistIds() {
+        return playlistIds = scan(playlistMapper::scanPlaylistIds);
+    }
+
+    private synchronized long[] loadArtistIds() {
+        return artistIds = scan(artistMapper::scanVisibleArtistIds);
+    }
+
+    private static long[] scan(Consumer<ResultHandler<Long>> scanner) {
+        long[][] buffer = {new long[1024]};
+        int[] size = {0};
+        scanner.accept(context -> {
+            if (size[0] == buffer[0].length) {
+                buffer[0] = Arrays.copyOf(buffer[0], size[0] * 2);
+            }
+            buffer[0][size[0]++] = context.getResultObject();
+        });
+        return Arrays.copyOf(buffer[0], size[0]);
+    }
+
+    // 多抽取约 1/4 作为被删除条目的余量
+    private static int withMargin(int count) {
+        return count + count / 4 + 2;
+    }
+
+    /**
+     * 从 id 池中无放回地均匀抽取 count 个 id（Floyd 算法），并打乱顺序
+     *
+     * @param pool  id 池
+     * @param count 数量
+     * @return 随机顺序的 id
+     */
+    static List<Long> sample(long[] pool, int count) {
+        int n = pool.length;
+        int k = Math.min(count, n);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Set<Integer> chosen = new HashSet<>(k * 2);
+        int[] picked = new int[k];
+        for (int j = n - k, i = 0; j < n; j++, i++) {
+            int t = random.nextInt(j + 1);
+            picked[i] = chosen.add(t) ? t : j;
+            chosen.add(picked[i]);
+        }
+        // Floyd 算法得到的集合是均匀的，但顺序不是，需再做一次 Fisher-Yates 洗牌
+        for (int i = k - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = picked[i];
+            picked[i] = picked[j];
+            picked[j] = tmp;
+        }
+        List<Long> ids = new ArrayList<>(k);
+        for (int index : picked) {
+            ids.add(pool[index]);
+        }
+        return ids;
+    }
+
+    // 按抽样顺序排列回填结果，丢弃已不存在的 id，并截取到 count 个
+    private static <T> List<T> inOrder(Collection<Long> ids, List<T> rows, Function<T, Long> idOf, int count) {
+        Map<Long, T> byId = rows.stream().collect(Collectors.toMap(idOf, Function.identity(), (a, b) -> a));
+        List<T> result = new ArrayList<>(count);
+        for (Long id : ids) {
+            T row = byId.get(id);
+            if (row != null) {
+                result.add(row);
+                if (result.size() >= count) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+}
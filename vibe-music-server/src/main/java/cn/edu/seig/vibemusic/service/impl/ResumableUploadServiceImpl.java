@@ -0,0 +1,563 @@
+package cn.edu.seig.vibemusic.service.impl;
+
+import cn.edu.seig.vibemusic.enumeration.QuotaActionEnum;
+import cn.edu.seig.vibemusic.mapper.UserMapper;
+import cn.edu.seig.vibemusic.model.dto.ResumableUploadCreateDTO;
+import cn.edu.seig.vibemusic.model.entity.User;
+import cn.edu.seig.vibemusic.model.vo.ResumableUploadVO;
+import cn.edu.seig.vibemusic.result.Result;
+import cn.edu.seig.vibemusic.service.MinioService;
+import cn.edu.seig.vibemusic.service.QuotaService;
+import cn.edu.seig.vibemusic.service.ResumableUploadService;
+import cn.edu.seig.vibemusic.util.AuthContext;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 断点续传服务实现
+ * <p>
+ * Redis 中每个会话对应三处数据：
+ * resumable_upload:{id} 哈希保存会话信息，resumable_upload:{id}:parts 哈希保存分片号 -> ETag，
+ * resumable_upload:active 有序集合按最近一次进展的时间记录全部会话，供定时任务查找被放弃的会话。
+ * 合并期间存在带有效期的 resumable_upload:{id}:completing，附件被认领后会话改名为 resumable_upload:{id}:claimed。
+ * 附件会话与发帖一样要求积分大于 0，创建时占用一次附件上传配额（凭证保存在会话中），取消或被清理时归还，
+ * 被帖子引用后不再归还；歌曲文件的配额在申请直传时已占用。
+ */
+@Slf4j
+@Service
+public class ResumableUploadServiceImpl implements ResumableUploadService {
+
+    private static final String UPLOAD_KEY = "resumable_upload:";
+    private static final String PARTS_SUFFIX = ":parts";
+    private static final String COMPLETING_SUFFIX = ":completing";
+    private static final String CLAIMED_SUFFIX = ":claimed";
+    private static final String ACTIVE_KEY = "resumable_upload:active";
+    private static final String STATUS_UPLOADING = "uploading";
+    private static final String STATUS_COMPLETED = "completed";
+    // MinIO 分片下限 5MB（最后一片除外），分片数量上限 10000
+    private static final int MIN_CHUNK_SIZE = 5 * 1024 * 1024;
+    private static final int MAX_CHUNKS = 10000;
+    // 会话数据比判定放弃的时间多保留一段，保证定时任务还能读到分片上传id
+    private static final long SESSION_GRACE_SECONDS = 3600;
+    // 合并标记的有效期，节点在合并中崩溃时标记过期后可以重新合并
+    private static final long COMPLETING_TTL_SECONDS = 600;
+    // 认领到确认或归还之间的最长时间，节点崩溃时认领随之过期，对象由存储核对处理
+    private static final long CLAIM_TTL_SECONDS = 600;
+
+    // 会话存在且尚未被认领时改名为认领状态并设置有效期
+    private static final RedisScript<Long> CLAIM_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 or redis.call('EXISTS', KEYS[2]) == 1 then
+                return 0
+            end
+            redis.call('RENAME', KEYS[1], KEYS[2])
+            redis.call('EXPIRE', KEYS[2], ARGV[1])
+            return 1
+            """, Long.class);
+
+    // 原创歌曲直传中的文件：用途 -> 直传会话中的字段
+    private static final Map<String, String> SONG_FIELDS = Map.of(
+            "song-audio", "audio", "song-cover", "cover", "song-reward-qr", "rewardQr");
+    // 帖子附件：用途 -> 存储目录，与 ForumPostServiceImpl 表单上传使用的目录一致
+    private static final Map<String, String> ATTACHMENT_FOLDERS = Map.of(
+            "post-attachment", "post-attachments", "requirement-attachment", "requirement-attachments");
+    private static final Map<String, Long> MAX_SIZES = Map.of(
+            "song-audio", 100L * 1024 * 1024,
+            "song-cover", 10L * 1024 * 1024,
+            "song-reward-qr", 5L * 1024 * 1024,
+            "post-attachment", 100L * 1024 * 1024,
+            "requirement-attachment", 100L * 1024 * 1024);
+
+    @Autowired
+    private MinioService minioService;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private UserMapper userMapper;
+    @Autowired
+    private QuotaService quotaService;
+
+    // 分片大小，单位字节
+    @Value("${resumable-upload.chunk-size:8388608}")
+    private int chunkSize;
+    // 会话无进展多久视为放弃，单位秒
+    @Value("${resumable-upload.session-ttl:86400}")
+    private long sessionTtl;
+
+    @PostConstruct
+    public void checkChunkSize() {
+        if (chunkSize < MIN_CHUNK_SIZE) {
+            throw new IllegalArgumentException("resumable-upload.chunk-size 不能小于 5MB");
+        }
+    }
+
+    /**
+     * 创建上传会话
+     * 歌曲文件写入申请直传时分配的对象，完成后仍通过 /song/finalizeOriginalSongUpload 创建歌曲；
+     * 帖子附件合并完成后在发帖时认领
+     *
+     * @param resumableUploadCreateDTO 上传用途与文件信息
+     * @return 会话状态
+     */
+    @Override
+    public Result<ResumableUploadVO> createUpload(ResumableUploadCreateDTO resumableUploadCreateDTO) {
+        Long userId = currentUserId();
+        String purpose = resumableUploadCreateDTO.getPurpose();
+        long fileSize = resumableUploadCreateDTO.getFileSize();
+        if (fileSize > MAX_SIZES.get(purpose)) {
+            return Result.error("文件大小超过限制");
+        }
+        if ((fileSize + chunkSize - 1) / chunkSize > MAX_CHUNKS) {
+            return Result.error("文件分片数量超过限制");
+        }
+
+        String objectName;
+        String contentType;
+        String songUploadKey = null;
+        String permit = null;
+        String songField = SONG_FIELDS.get(purpose);
+        if (songField != null) {
+            String songUploadId = resumableUploadCreateDTO.getSongUploadId();
+            if (songUploadId == null || songUploadId.isBlank()) {
+                return Result.error("上传id不能为空");
+            }
+            songUploadKey = SongServiceImpl.SONG_UPLOAD_KEY + songUploadId;
+            Map<Object, Object> songUpload = stringRedisTemplate.opsForHash().entries(songUploadKey);
+            if (songUpload.isEmpty() || !String.valueOf(userId).equals(songUpload.get("userId"))) {
+                return Result.error("上传已过期，请重新上传");
+            }
+            objectName = (String) songUpload.get(songField);
+            contentType = (String) songUpload.get(songField + "Type");
+            if (objectName == null) {
+                return Result.error("申请上传时未包含该文件");
+            }
+        } else {
+            String fileName = resumableUploadCreateDTO.getFileName();
+            if (fileName == null || fileName.isBlank()) {
+                return Result.error("文件名不能为空");
+            }
+            // 与发帖的权限检查一致
+            User user = userMapper.selectById(userId);
+            if (user == null) {
+                return Result.error("用户不存在");
+            }
+            int userScore = user.getScore() != null ? user.getScore() : 100;
+            if (userScore <= 0) {
+                return Result.error("当前账号无发布权限，积分不足（积分为0时无法发帖、发歌、回复）");
+            }
+            permit = quotaService.tryAcquire(QuotaActionEnum.ATTACHMENT_UPLOAD, userId);
+            if (permit == null) {
+                return Result.error(quotaService.exceededMessage(QuotaActionEnum.ATTACHMENT_UPLOAD));
+            }
+            // 与 MinioService.uploadFile 的命名规则一致，去掉文件名中的路径
+            String baseName = fileName.substring(Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\')) + 1);
+            objectName = ATTACHMENT_FOLDERS.get(purpose) + "/" + UUID.randomUUID() + "-" + baseName;
+            contentType = resumableUploadCreateDTO.getContentType() == null || resumableUploadCreateDTO.getContentType().isBlank()
+                    ? "application/octet-stream" : resumableUploadCreateDTO.getContentType();
+        }
+
+        String multipartId;
+        try {
+            multipartId = minioService.createMultipartUpload(objectName, contentType);
+        } catch (Exception e) {
+            log.error("创建分片上传失败，objectName: {}", objectName, e);
+            quotaService.release(QuotaActionEnum.ATTACHMENT_UPLOAD, userId, permit);
+            return Result.error("上传失败：" + e.getMessage());
+        }
+
+        String uploadId = UUID.randomUUID().toString().replace("-", "");
+        Map<String, String> session = new HashMap<>();
+        session.put("userId", String.valueOf(userId));
+        session.put("purpose", purpose);
+        session.put("objectName", objectName);
+        session.put("contentType", contentType);
+        session.put("totalSize", String.valueOf(fileSize));
+        session.put("chunkSize", String.valueOf(chunkSize));
+        session.put("multipartId", multipartId);
+        session.put("status", STATUS_UPLOADING);
+        if (songUploadKey != null) {
+            session.put("songUploadKey", songUploadKey);
+        }
+        if (permit != null) {
+            session.put("quotaPermit", permit);
+        }
+        String key = UPLOAD_KEY + uploadId;
+        stringRedisTemplate.opsForHash().putAll(key, session);
+        touch(uploadId, session);
+
+        return Result.success(toVO(uploadId, session, Map.of()));
+    }
+
+    /**
+     * 上传一个分片
+     * 请求体按分片长度直接交给 MinIO 客户端，单个请求占用的内存不超过一个分片
+     *
+     * @param uploadId      会话id
+     * @param index         分片序号，从 0 开始
+     * @param contentLength 请求体长度
+     * @param data          请求体
+     * @return 会话状态
+     */
+    @Override
+    public Result<ResumableUploadVO> uploadChunk(String uploadId, int index, long contentLength, InputStream data) {
+        Map<String, String> session = getOwnSession(uploadId);
+        if (session == null) {
+            return Result.error("上传已过期，请重新上传");
+        }
+        if (!STATUS_UPLOADING.equals(session.get("status"))
+                || Boolean.TRUE.equals(stringRedisTemplate.hasKey(UPLOAD_KEY + uploadId + COMPLETING_SUFFIX))) {
+            return Result.error("文件已上传完成");
+        }
+        long totalSize = Long.parseLong(session.get("totalSize"));
+        int sessionChunkSize = Integer.parseInt(session.get("chunkSize"));
+        int chunkCount = chunkCount(totalSize, sessionChunkSize);
+        if (index < 0 || index >= chunkCount) {
+            return Result.error("分片序号无效");
+        }
+        long expectedLength = Math.min(sessionChunkSize, totalSize - (long) index * sessionChunkSize);
+        if (contentLength != expectedLength) {
+            return Result.error("分片长度应为 " + expectedLength + " 字节");
+        }
+
+        String etag;
+        try {
+            etag = minioService.uploadPart(session.get("objectName"), session.get("multipartId"), index + 1, data, expectedLength);
+        } catch (Exception e) {
+            log.warn("分片上传失败，uploadId: {}, index: {}, {}", uploadId, index, e.getMessage());
+            return Result.error("分片上传失败，请重试该分片");
+        }
+        String partsKey = UPLOAD_KEY + uploadId + PARTS_SUFFIX;
+        stringRedisTemplate.opsForHash().put(partsKey, String.valueOf(index + 1), etag);
+        touch(uploadId, session);
+
+        return Result.success(toVO(uploadId, session, stringRedisTemplate.opsForHash().entries(partsKey)));
+    }
+
+    /**
+     * 查询上传进度
+     *
+     * @param uploadId 会话id
+     * @return 会话状态
+     */
+    @Override
+    public Result<ResumableUploadVO> getUpload(String uploadId) {
+        Map<String, String> session = getOwnSession(uploadId);
+        if (session == null) {
+            return Result.error("上传已过期，请重新上传");
+        }
+        return Result.success(toVO(uploadId, session,
+                stringRedisTemplate.opsForHash().entries(UPLOAD_KEY + uploadId + PARTS_SUFFIX)));
+    }
+
+    /**
+     * 合并全部分片，并核对合并后的对象大小
+     *
+     * @param uploadId 会话id
+     * @return 会话状态
+     */
+    @Override
+    public Result<ResumableUploadVO> completeUpload(String uploadId) {
+        Map<String, String> session = getOwnSession(uploadId);
+        if (session == null) {
+            return Result.error("上传已过期，请重新上传");
+        }
+        if (STATUS_COMPLETED.equals(session.get("status"))) {
+            return Result.success(toVO(uploadId, session, Map.of()));
+        }
+        String key = UPLOAD_KEY + uploadId;
+        String partsKey = key + PARTS_SUFFIX;
+        long totalSize = Long.parseLong(session.get("totalSize"));
+        int chunkCount = chunkCount(totalSize, Integer.parseInt(session.get("chunkSize")));
+        SortedMap<Integer, String> parts = new TreeMap<>();
+        stringRedisTemplate.opsForHash().entries(partsKey)
+                .forEach((partNumber, etag) -> parts.put(Integer.parseInt((String) partNumber), (String) etag));
+        if (parts.size() < chunkCount) {
+            return Result.error("还有 " + (chunkCount - parts.size()) + " 个分片未上传");
+        }
+        // 并发的合并请求只有一个执行，标记带有效期，合并中的节点崩溃后可以重新合并
+        String completingKey = key + COMPLETING_SUFFIX;
+        if (!Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                .setIfAbsent(completingKey, "1", COMPLETING_TTL_SECONDS, TimeUnit.SECONDS))) {
+            return Result.error("文件正在合并，请稍后查询");
+        }
+
+        String objectName = session.get("objectName");
+        try {
+            minioService.completeMultipartUpload(objectName, session.get("multipartId"), parts);
+        } catch (Exception e) {
+            log.error("分片合并失败，uploadId: {}", uploadId, e);
+            stringRedisTemplate.delete(completingKey);
+            return Result.error("上传失败：" + e.getMessage());
+        }
+        MinioService.ObjectInfo info = minioService.statObject(objectName);
+        if (info == null || info.size() != totalSize) {
+            removeSession(uploadId);
+            removeObject(objectName);
+            releasePermit(session);
+            return Result.error("文件大小与上传时声明的不一致，请重新上传");
+        }
+
+        session.put("status", STATUS_COMPLETED);
+        if (SONG_FIELDS.containsKey(session.get("purpose"))) {
+            // 歌曲文件已写入直传会话分配的对象，由完成直传接口校验并创建歌曲；
+            // 始终未完成直传时，直传会话过期后由 SongServiceImpl 的定时任务删除对象
+            removeSession(uploadId);
+        } else {
+            // 附件等待发帖时认领，超时未认领的由定时任务删除
+            stringRedisTemplate.opsForHash().put(key, "status", STATUS_COMPLETED);
+            stringRedisTemplate.delete(List.of(partsKey, completingKey));
+            touch(uploadId, session);
+        }
+        return Result.success(toVO(uploadId, session, Map.of()));
+    }
+
+    /**
+     * 取消上传
+     *
+     * @param uploadId 会话id
+     * @return 结果
+     */
+    @Override
+    public Result abortUpload(String uploadId) {
+        Map<String, String> session = getOwnSession(uploadId);
+        if (session == null || !removeSession(uploadId)) {
+            return Result.error("上传已过期，请重新上传");
+        }
+        release(uploadId, session);
+        return Result.success();
+    }
+
+    /**
+     * 认领已合并完成的附件
+     * 会话改名为认领状态，不再被定时任务清理；保存成功后调用 confirmAttachment 删除，失败时调用 restoreAttachment 恢复
+     *
+     * @param uploadId 会话id
+     * @param userId   用户id
+     * @param purpose  上传用途
+     * @return 附件 URL，无法认领时返回 null
+     */
+    @Override
+    public String claimAttachment(String uploadId, Long userId, String purpose) {
+        if (uploadId == null || uploadId.isBlank()) {
+            return null;
+        }
+        Map<String, String> session = getSession(uploadId);
+        if (session == null || !String.valueOf(userId).equals(session.get("userId"))
+                || !purpose.equals(session.get("purpose")) || !STATUS_COMPLETED.equals(session.get("status"))) {
+            return null;
+        }
+        // 改名即认领，同一附件不会被两个帖子引用
+        String key = UPLOAD_KEY + uploadId;
+        Long claimed = stringRedisTemplate.execute(CLAIM_SCRIPT, List.of(key, key + CLAIMED_SUFFIX),
+                String.valueOf(CLAIM_TTL_SECONDS));
+        if (claimed == null || claimed == 0) {
+            return null;
+        }
+        stringRedisTemplate.opsForZSet().remove(ACTIVE_KEY, uploadId);
+        return minioService.getObjectUrl(session.get("objectName"));
+    }
+
+    /**
+     * 附件已被帖子引用，删除认领的会话
+     *
+     * @param uploadId 会话id
+     */
+    @Override
+    public void confirmAttachment(String uploadId) {
+        stringRedisTemplate.delete(UPLOAD_KEY + uploadId + CLAIMED_SUFFIX);
+    }
+
+    /**
+     * 帖子保存失败，恢复认领的会话，附件可以再次认领或由定时任务清理
+     *
+     * @param uploadId 会话id
+     */
+    @Override
+    public void restoreAttachment(String uploadId) {
+        String key = UPLOAD_KEY + uploadId;
+        try {
+            if (!Boolean.TRUE.equals(stringRedisTemplate.renameIfAbsent(key + CLAIMED_SUFFIX, key))) {
+                return;
+            }
+            Map<String, String> session = getSession(uploadId);
+            if (session != null) {
+                touch(uploadId, session);
+            }
+        } catch (Exception e) {
+            log.warn("恢复附件上传会话失败，uploadId: {}, {}", uploadId, e.getMessage());
+        }
+    }
+
+    /**
+     * 定时取消长时间无进展的会话：未完成的取消分片上传，合并后未被认领的附件删除对象
+     */
+    @Override
+    @Scheduled(initialDelayString = "${resumable-upload.gc-interval:600000}",
+            fixedDelayString = "${resumable-upload.gc-interval:600000}")
+    public void collectAbandonedUploads() {
+        try {
+            long deadline = System.currentTimeMillis() - sessionTtl * 1000;
+            Set<String> abandoned = stringRedisTemplate.opsForZSet().rangeByScore(ACTIVE_KEY, 0, deadline);
+            if (abandoned == null || abandoned.isEmpty()) {
+                return;
+            }
+            int released = 0;
+            for (String uploadId : abandoned) {
+                // 多个节点同时清理时，只有移出有序集合的节点处理该会话
+                Long removed = stringRedisTemplate.opsForZSet().remove(ACTIVE_KEY, uploadId);
+                if (removed == null || removed == 0) {
+                    continue;
+                }
+                Map<String, String> session = getSession(uploadId);
+                stringRedisTemplate.delete(List.of(UPLOAD_KEY + uploadId, UPLOAD_KEY + uploadId + PARTS_SUFFIX,
+                        UPLOAD_KEY + uploadId + COMPLETING_SUFFIX));
+                if (session != null) {
+                    release(uploadId, session);
+                    released++;
+                }
+            }
+            log.info("断点续传清理完成，释放被放弃的会话 {} 个", released);
+        } catch (Exception e) {
+            log.error("断点续传清理失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 释放会话占用的存储与配额：未完成的取消分片上传，已合并的附件删除对象
+     */
+    private void release(String uploadId, Map<String, String> session) {
+        releasePermit(session);
+        if (STATUS_COMPLETED.equals(session.get("status"))) {
+            if (!SONG_FIELDS.containsKey(session.get("purpose"))) {
+                removeObject(session.get("objectName"));
+            }
+            return;
+        }
+        try {
+            minioService.abortMultipartUpload(session.get("objectName"), session.get("multipartId"));
+        } catch (Exception e) {
+            log.warn("取消分片上传失败，uploadId: {}, {}", uploadId, e.getMessage());
+        }
+    }
+
+    // 附件未被帖子引用，归还创建会话时占用的配额
+    private void releasePermit(Map<String, String> session) {
+        String permit = session.get("quotaPermit");
+        if (permit != null) {
+            quotaService.release(QuotaActionEnum.ATTACHMENT_UPLOAD, Long.valueOf(session.get("userId")), permit);
+        }
+    }
+
+    private void removeObject(String objectName) {
+        try {
+            minioService.deleteFile(minioService.getObjectUrl(objectName));
+        } catch (Exception e) {
+            log.warn("删除上传对象失败，objectName: {}, {}", objectName, e.getMessage());
+        }
+    }
+
+    /**
+     * 删除会话数据
+     *
+     * @return 会话数据是否由本次调用删除
+     */
+    private boolean removeSession(String uploadId) {
+        stringRedisTemplate.opsForZSet().remove(ACTIVE_KEY, uploadId);
+        stringRedisTemplate.delete(List.of(UPLOAD_KEY + uploadId + PARTS_SUFFIX, UPLOAD_KEY + uploadId + COMPLETING_SUFFIX));
+        return Boolean.TRUE.equals(stringRedisTemplate.delete(UPLOAD_KEY + uploadId));
+    }
+
+    /**
+     * 记录会话的进展，延长会话数据及其关联的歌曲直传会话的有效期
+     */
+    private void touch(String uploadId, Map<String, String> session) {
+        long expireSeconds = sessionTtl + SESSION_GRACE_SECONDS;
+        stringRedisTemplate.opsForZSet().add(ACTIVE_KEY, uploadId, System.currentTimeMillis());
+        stringRedisTemplate.expire(UPLOAD_KEY + uploadId, expireSeconds, TimeUnit.SECONDS);
+        stringRedisTemplate.expire(UPLOAD_KEY + uploadId + PARTS_SUFFIX, expireSeconds, TimeUnit.SECONDS);
+        String songUploadKey = session.get("songUploadKey");
+        if (songUploadKey != null) {
+            // 大文件分片上传可能超过直传会话的有效期，上传仍有进展时保留直传会话
+            Long remaining = stringRedisTemplate.getExpire(songUploadKey, TimeUnit.SECONDS);
+            if (remaining != null && remaining >= 0 && remaining < sessionTtl) {
+                stringRedisTemplate.expire(songUploadKey, sessionTtl, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    private Map<String, String> getSession(String uploadId) {
+        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(UPLOAD_KEY + uploadId);
+        if (entries.isEmpty() || !entries.containsKey("objectName")) {
+            return null;
+        }
+        Map<String, String> session = new HashMap<>();
+        entries.forEach((field, value) -> session.put((String) field, (String) value));
+        return session;
+    }
+
+    private Map<String, String> getOwnSession(String uploadId) {
+        Map<String, String> session = getSession(uploadId);
+        if (session == null || !String.valueOf(currentUserId()).equals(session.get("userId"))) {
+            return null;
+        }
+        return session;
+    }
+
+    private static Long currentUserId() {
+        return AuthContext.current().getUserId();
+    }
+
+    private static int chunkCount(long totalSize, int chunkSize) {
+        return (int) ((totalSize + chunkSize - 1) / chunkSize);
+    }
+
+    private static ResumableUploadVO toVO(String uploadId, Map<String, String> session, Map<Object, Object> parts) {
+        long totalSize = Long.parseLong(session.get("totalSize"));
+        int sessionChunkSize = Integer.parseInt(session.get("chunkSize"));
+        int chunkCount = chunkCount(totalSize, sessionChunkSize);
+        boolean completed = STATUS_COMPLETED.equals(session.get("status"));
+
+        List<Integer> uploaded = new ArrayList<>();
+        if (completed) {
+            for (int i = 0; i < chunkCount; i++) {
+                uploaded.add(i);
+            }
+        } else {
+            parts.keySet().forEach(partNumber -> uploaded.add(Integer.parseInt((String) partNumber) - 1));
+            uploaded.sort(null);
+        }
+        int contiguous = 0;
+        while (contiguous < uploaded.size() && uploaded.get(contiguous) == contiguous) {
+            contiguous++;
+        }
+
+        ResumableUploadVO uploadVO = new ResumableUploadVO();
+        uploadVO.setUploadId(uploadId);
+        uploadVO.setObjectName(session.get("objectName"));
+        uploadVO.setTotalSize(totalSize);
+        uploadVO.setChunkSize(sessionChunkSize);
+        uploadVO.setChunkCount(chunkCount);
+        uploadVO.setUploadedChunks(uploaded);
+        uploadVO.setOffset(Math.min(totalSize, (long) contiguous * sessionChunkSize));
+        uploadVO.setCompleted(completed);
+        return uploadVO;
+    }
+
+}
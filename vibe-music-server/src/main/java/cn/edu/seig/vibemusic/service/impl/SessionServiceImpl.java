@@ -0,0 +1,272 @@
+package cn.edu.seig.vibemusic.service.impl;
+
+import cn.edu.seig.vibemusic.cache.TokenCache;
+import cn.edu.seig.vibemusic.config.RedisSubscriber;
+import cn.edu.seig.vibemusic.service.SessionService;
+import cn.edu.seig.vibemusic.util.AuthContext;
+import cn.edu.seig.vibemusic.util.BloomFilter;
+import cn.edu.seig.vibemusic.util.JwtUtil;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 登录会话服务实现类
+ * <p>
+ * session:{角色}:{ID} 是会话 ID → 过期时间的哈希，随最近签发的令牌过期；
+ * session:revoked 是已注销会话的有序集合（分值为令牌过期时间），过期后清理。
+ * 注销时通过发布订阅通知各节点移除本地令牌缓存并加入布隆过滤器，过滤器定时从已注销集合重建，兜底丢失的通知。
+ */
+@Slf4j
+@Service
+public class SessionServiceImpl implements SessionService {
+
+    private static final String KEY_PREFIX = "session:";
+    private static final String REVOKED_KEY = "session:revoked";
+
+    // 清理过期会话，超出设备数上限时注销最早签发的会话，再登记新会话；返回被注销的会话 ID
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CREATE_SCRIPT = new DefaultRedisScript<>("""
+            local now = tonumber(ARGV[3])
+            local max = tonumber(ARGV[4])
+            local sessions = redis.call('HGETALL', KEYS[1])
+            local live = {}
+            for i = 1, #sessions, 2 do
+                local expiresAt = tonumber(sessions[i + 1])
+                if expiresAt == nil or expiresAt <= now then
+                    redis.call('HDEL', KEYS[1], sessions[i])
+                else
+                    live[#live + 1] = {sessions[i], expiresAt}
+                end
+            end
+            local evicted = {}
+            if max > 0 and #live >= max then
+                table.sort(live, function(a, b) return a[2] < b[2] end)
+                for i = 1, #live - max + 1 do
+                    redis.call('HDEL', KEYS[1], live[i][1])
+                    redis.call('ZADD', KEYS[2], live[i][2], live[i][1])
+                    evicted[#evicted + 1] = live[i][1]
+                end
+            end
+            redis.call('HSET', KEYS[1], ARGV[1], ARGV[2])
+            redis.call('PEXPIREAT', KEYS[1], ARGV[2])
+            return evicted
+            """, List.class);
+
+    // 注销单个会话，返回会话是否存在
+    private static final RedisScript<Long> REVOKE_SCRIPT = new DefaultRedisScript<>("""
+            local expiresAt = redis.call('HGET', KEYS[1], ARGV[1])
+            if not expiresAt then
+                return 0
+            end
+            redis.call('HDEL', KEYS[1], ARGV[1])
+            redis.call('ZADD', KEYS[2], expiresAt, ARGV[1])
+            return 1
+            """, Long.class);
+
+    // 注销全部会话，返回被注销的会话 ID
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> REVOKE_ALL_SCRIPT = new DefaultRedisScript<>("""
+            local sessions = redis.call('HGETALL', KEYS[1])
+            local revoked = {}
+            for i = 1, #sessions, 2 do
+                redis.call('ZADD', KEYS[2], sessions[i + 1], sessions[i])
+                revoked[#revoked + 1] = sessions[i]
+            end
+            redis.call('DEL', KEYS[1])
+            return revoked
+            """, List.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private RedisSubscriber redisSubscriber;
+    @Autowired
+    private TokenCache tokenCache;
+
+    // 会话注销通知频道，同一 Redis 上的所有节点须一致
+    @Value("${session.channel:session:revoke}")
+    private String channel;
+    // 每个用户或管理员同时有效的会话数，不大于 0 时不限制
+    @Value("${session.max-devices:3}")
+    private int maxDevices;
+    // 布隆过滤器的预期容量（令牌有效期内的注销次数）与误判率
+    @Value("${session.revoked-expected:100000}")
+    private int revokedExpected;
+    @Value("${session.revoked-fpp:0.01}")
+    private double revokedFpp;
+
+    private final SecureRandom random = new SecureRandom();
+    // 已注销会话的布隆过滤器，首次从 Redis 加载成功之前为 null，此时每个未缓存的令牌都查询会话
+    private volatile BloomFilter revoked;
+    // 重建中的过滤器，重建期间收到的注销通知同时加入
+    private volatile BloomFilter building;
+
+    @PostConstruct
+    public void init() {
+        redisSubscriber.subscribe(channel, message -> markRevoked(Arrays.asList(message.split(","))));
+    }
+
+    /**
+     * 创建会话并签发令牌，超出设备数上限时注销最早的会话
+     *
+     * @param claims 令牌中的业务数据，须包含角色与用户ID或管理员ID
+     * @return 令牌
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public String createToken(Map<String, Object> claims) {
+        AuthContext authContext = AuthContext.of(claims);
+        if (authContext.getRole() == null || authContext.getPrincipalId() == null) {
+            throw new IllegalArgumentException("令牌须包含角色与用户ID或管理员ID");
+        }
+        byte[] bytes = new byte[12];
+        random.nextBytes(bytes);
+        String sessionId = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        long now = System.currentTimeMillis();
+        long expiresAt = now + JwtUtil.EXPIRATION_TIME;
+
+        List<String> evicted = stringRedisTemplate.execute(CREATE_SCRIPT,
+                List.of(key(authContext.getRole(), authContext.getPrincipalId()), REVOKED_KEY),
+                sessionId, String.valueOf(expiresAt), String.valueOf(now), String.valueOf(maxDevices));
+        if (evicted != null && !evicted.isEmpty()) {
+            publish(evicted);
+        }
+        return JwtUtil.generateToken(claims, sessionId, expiresAt);
+    }
+
+    /**
+     * 验证令牌并获取登录信息：先查本地令牌缓存，未命中时验证签名，
+     * 会话不在已注销过滤器中时直接放行，否则查询 Redis 中的会话
+     *
+     * @param token 令牌
+     * @return 登录信息，会话已注销或已过期时返回 null
+     */
+    @Override
+    public AuthContext authenticate(String token) {
+        AuthContext cached = tokenCache.get(token);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = tokenCache.generation();
+        DecodedJWT jwt = JwtUtil.verifyToken(token);
+        String sessionId = jwt.getId();
+        // 没有会话 ID 的旧令牌需要重新登录
+        if (sessionId == null) {
+            return null;
+        }
+        AuthContext authContext = AuthContext.of(JwtUtil.getClaims(jwt), sessionId);
+        if (authContext.getRole() == null || authContext.getPrincipalId() == null) {
+            return null;
+        }
+
+        BloomFilter filter = revoked;
+        if (filter == null || filter.mightContain(sessionId)) {
+            Object expiresAt = stringRedisTemplate.opsForHash()
+                    .get(key(authContext.getRole(), authContext.getPrincipalId()), sessionId);
+            if (expiresAt == null || Long.parseLong(expiresAt.toString()) <= System.currentTimeMillis()) {
+                return null;
+            }
+        }
+        tokenCache.put(token, authContext, jwt.getExpiresAt().getTime(), generation);
+        return authContext;
+    }
+
+    /**
+     * 注销会话
+     *
+     * @param authContext 登录信息
+     * @return 会话是否存在
+     */
+    @Override
+    public boolean revoke(AuthContext authContext) {
+        String sessionId = authContext.getSessionId();
+        if (sessionId == null) {
+            return false;
+        }
+        Long removed = stringRedisTemplate.execute(REVOKE_SCRIPT,
+                List.of(key(authContext.getRole(), authContext.getPrincipalId()), REVOKED_KEY), sessionId);
+        publish(List.of(sessionId));
+        return removed != null && removed > 0;
+    }
+
+    /**
+     * 注销用户或管理员的全部会话
+     *
+     * @param role        角色
+     * @param principalId 用户ID或管理员ID
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void revokeAll(String role, Long principalId) {
+        List<String> revokedIds = stringRedisTemplate.execute(REVOKE_ALL_SCRIPT, List.of(key(role, principalId), REVOKED_KEY));
+        if (revokedIds != null && !revokedIds.isEmpty()) {
+            publish(revokedIds);
+        }
+    }
+
+    /**
+     * 定时清理已注销集合中过期的会话，并据此重建布隆过滤器
+     */
+    @Scheduled(fixedDelayString = "${session.revoked-refresh-interval:60000}")
+    public void refreshRevoked() {
+        BloomFilter next = new BloomFilter(revokedExpected, revokedFpp);
+        building = next;
+        try {
+            long now = System.currentTimeMillis();
+            stringRedisTemplate.opsForZSet().removeRangeByScore(REVOKED_KEY, Double.NEGATIVE_INFINITY, now);
+            Set<String> sessionIds = stringRedisTemplate.opsForZSet().rangeByScore(REVOKED_KEY, now, Double.POSITIVE_INFINITY);
+            if (sessionIds != null) {
+                sessionIds.forEach(next::put);
+            }
+            revoked = next;
+        } catch (Exception e) {
+            log.warn("加载已注销会话失败: {}", e.getMessage());
+        } finally {
+            building = null;
+        }
+    }
+
+    // 先在本节点生效，再通知其他节点
+    private void publish(List<String> sessionIds) {
+        markRevoked(sessionIds);
+        try {
+            stringRedisTemplate.convertAndSend(channel, String.join(",", sessionIds));
+        } catch (Exception e) {
+            log.warn("会话注销通知发送失败，其他节点在刷新已注销会话后生效: {}", e.getMessage());
+        }
+    }
+
+    private void markRevoked(Collection<String> sessionIds) {
+        BloomFilter next = building;
+        if (next != null) {
+            sessionIds.forEach(next::put);
+        }
+        BloomFilter current = revoked;
+        if (current != null) {
+            sessionIds.forEach(current::put);
+        }
+        tokenCache.invalidateSessions(sessionIds);
+    }
+
+    private static String key(String role, Long principalId) {
+        return KEY_PREFIX + role + ":" + principalId;
+    }
+
+}
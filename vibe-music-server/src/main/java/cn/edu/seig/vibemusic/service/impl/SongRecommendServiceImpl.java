@@ -0,0 +1,133 @@
+package cn.edu.seig.vibemusic.service.impl;
+
+import cn.edu.seig.vibemusic.mapper.UserFavoriteMapper;
+import cn.edu.seig.vibemusic.model.entity.UserFavorite;
+import cn.edu.seig.vibemusic.service.SongRecommendService;
+import cn.edu.seig.vibemusic.util.ItemSimilarityModel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 歌曲协同过滤推荐服务实现类
+ * <p>
+ * 模型在后台构建完成后整体替换，构建期间继续使用旧模型。新收藏在下次重建后才会影响相似度，
+ * 但推荐时总是使用用户当前的收藏列表，因此新收藏的歌曲会立即参与合并并被排除。
+ */
+@Slf4j
+@Service
+public class SongRecommendServiceImpl implements SongRecommendService {
+
+    @Autowired
+    private UserFavoriteMapper userFavoriteMapper;
+
+    // 每首歌曲保留的相似歌曲数
+    @Value("${song-recommend.top-k:50}")
+    private int topK;
+    // 构建模型时每个用户最多使用的最近收藏数，限制单个用户的共现对数量
+    @Value("${song-recommend.max-favorites-per-user:200}")
+    private int maxFavoritesPerUser;
+    // 推荐时合并的最近收藏数
+    @Value("${song-recommend.recent-favorites:50}")
+    private int recentFavorites;
+    // 相邻两次收藏之间的权重衰减
+    @Value("${song-recommend.decay:0.95}")
+    private double decay;
+    // 构建并行度，0 表示 CPU 核数
+    @Value("${song-recommend.parallelism:0}")
+    private int parallelism;
+
+    private volatile ItemSimilarityModel model;
+    private final AtomicBoolean building = new AtomicBoolean(false);
+
+    /**
+     * 根据用户的收藏推荐歌曲
+     *
+     * @param favoriteSongIds 用户收藏的歌曲 id，按收藏时间倒序
+     * @param count           推荐数量
+     * @return 歌曲 id，模型未就绪时返回 null
+     */
+    @Override
+    public long[] recommend(List<Long> favoriteSongIds, int count) {
+        ItemSimilarityModel current = model;
+        if (current == null) {
+            return null;
+        }
+        long[] favorites = favoriteSongIds.stream().mapToLong(Long::longValue).toArray();
+        long[] recent = Arrays.copyOf(favorites, Math.min(recentFavorites, favorites.length));
+        Arrays.sort(favorites);
+        return current.recommend(recent, favorites, decay, count);
+    }
+
+    /**
+     * 定时全量重建模型，首次执行即为初始构建
+     */
+    @Scheduled(initialDelayString = "${song-recommend.initial-delay:20000}",
+            fixedDelayString = "${song-recommend.rebuild-interval:3600000}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("歌曲推荐模型构建失败，推荐将回退到按风格推荐: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 全量重建模型
+     */
+    @Override
+    public void rebuild() {
+        if (!building.compareAndSet(false, true)) {
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        try {
+            long start = System.currentTimeMillis();
+
+            // 收藏记录按用户分组读入基本类型数组，每个用户只保留最近的 maxFavoritesPerUser 首
+            long[][] favorites = {new long[4096]};
+            int[][] userStarts = {new int[1024]};
+            int[] size = {0};
+            int[] users = {0};
+            long[] lastUser = {Long.MIN_VALUE};
+            int[] taken = {0};
+            userFavoriteMapper.scanAllFavoriteSongs(context -> {
+                UserFavorite favorite = context.getResultObject();
+                if (favorite.getUserId() != lastUser[0]) {
+                    lastUser[0] = favorite.getUserId();
+                    taken[0] = 0;
+                    if (users[0] + 1 == userStarts[0].length) {
+                        userStarts[0] = Arrays.copyOf(userStarts[0], userStarts[0].length * 2);
+                    }
+                    userStarts[0][users[0]++] = size[0];
+                }
+                if (taken[0]++ >= maxFavoritesPerUser) {
+                    return;
+                }
+                if (size[0] == favorites[0].length) {
+                    favorites[0] = Arrays.copyOf(favorites[0], size[0] * 2);
+                }
+                favorites[0][size[0]++] = favorite.getSongId();
+            });
+            userStarts[0][users[0]] = size[0];
+
+            ItemSimilarityModel built = ItemSimilarityModel.build(
+                    Arrays.copyOf(userStarts[0], users[0] + 1), favorites[0], topK, pool);
+            model = built;
+
+            log.info("歌曲推荐模型构建完成：用户 {}，歌曲 {}，相似对 {}，耗时 {} ms",
+                    built.userCount(), built.itemCount(), built.neighborCount(), System.currentTimeMillis() - start);
+        } finally {
+            pool.shutdown();
+            building.set(false);
+        }
+    }
+
+}
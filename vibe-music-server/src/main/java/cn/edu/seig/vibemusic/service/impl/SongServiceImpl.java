@@ -1,8 +1,11 @@
 package cn.edu.seig.vibemusic.service.impl;
 
-import cn.edu.seig.vibemusic.constant.JwtClaimsConstant;
+import cn.edu.seig.vibemusic.cache.CacheTags;
+import cn.edu.seig.vibemusic.cache.SongCatalog;
+import cn.edu.seig.vibemusic.cache.TaggedCacheManager;
 import cn.edu.seig.vibemusic.constant.MessageConstant;
 import cn.edu.seig.vibemusic.enumeration.LikeStatusEnum;
+import cn.edu.seig.vibemusic.enumeration.QuotaActionEnum;
 import cn.edu.seig.vibemusic.enumeration.RoleEnum;
 import cn.edu.seig.vibemusic.mapper.ArtistMapper;
 import cn.edu.seig.vibemusic.mapper.GenreMapper;
@@ -12,44 +15,64 @@ import cn.edu.seig.vibemusic.mapper.UserFavoriteMapper;
 import cn.edu.seig.vibemusic.mapper.UserMapper;
 import cn.edu.seig.vibemusic.model.dto.SongAddDTO;
 import cn.edu.seig.vibemusic.model.dto.SongAndArtistDTO;
+import cn.edu.seig.vibemusic.model.dto.SongCursorDTO;
 import cn.edu.seig.vibemusic.model.dto.SongDTO;
 import cn.edu.seig.vibemusic.model.dto.SongUpdateDTO;
 import cn.edu.seig.vibemusic.model.dto.SongUploadDTO;
+import cn.edu.seig.vibemusic.model.dto.SongUploadFinalizeDTO;
+import cn.edu.seig.vibemusic.model.dto.SongUploadPresignDTO;
 import cn.edu.seig.vibemusic.model.entity.Artist;
 import cn.edu.seig.vibemusic.model.entity.Genre;
 import cn.edu.seig.vibemusic.model.entity.Song;
 import cn.edu.seig.vibemusic.model.entity.Style;
 import cn.edu.seig.vibemusic.model.entity.User;
 import cn.edu.seig.vibemusic.model.entity.UserFavorite;
+import cn.edu.seig.vibemusic.model.vo.PresignedUploadVO;
 import cn.edu.seig.vibemusic.model.vo.SongAdminVO;
 import cn.edu.seig.vibemusic.model.vo.SongDetailVO;
+import cn.edu.seig.vibemusic.model.vo.SongUploadPresignVO;
 import cn.edu.seig.vibemusic.model.vo.SongVO;
+import cn.edu.seig.vibemusic.result.CursorPageResult;
 import cn.edu.seig.vibemusic.result.PageResult;
 import cn.edu.seig.vibemusic.result.Result;
+import cn.edu.seig.vibemusic.service.AudioAnalysisService;
+import cn.edu.seig.vibemusic.service.CatalogSearchService;
+import cn.edu.seig.vibemusic.service.FavoriteBitmapService;
 import cn.edu.seig.vibemusic.service.IArtistService;
 import cn.edu.seig.vibemusic.service.ISongService;
 import cn.edu.seig.vibemusic.service.MinioService;
-import cn.edu.seig.vibemusic.util.JwtUtil;
-import cn.edu.seig.vibemusic.util.ThreadLocalUtil;
-import cn.edu.seig.vibemusic.util.TypeConversionUtil;
+import cn.edu.seig.vibemusic.service.QuotaService;
+import cn.edu.seig.vibemusic.service.RandomSampleService;
+import cn.edu.seig.vibemusic.service.SongRecommendService;
+import cn.edu.seig.vibemusic.service.StorageDeletionService;
+import cn.edu.seig.vibemusic.util.AudioAnalyzer;
+import cn.edu.seig.vibemusic.util.AuthContext;
+import cn.edu.seig.vibemusic.util.CursorUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
-import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheConfig;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * <p>
@@ -64,6 +87,21 @@ import java.util.stream.Collectors;
 @CacheConfig(cacheNames = "songCache")
 public class SongServiceImpl extends ServiceImpl<SongMapper, Song> implements ISongService {
 
+    // 原创歌曲直传的上传会话，key 后缀为上传id；断点续传上传歌曲文件时也会读取
+    public static final String SONG_UPLOAD_KEY = "song_upload:";
+    // 尚未完成的直传：有序集合记录上传id -> 申请时间，哈希记录上传id -> 分配的对象名（换行分隔），会话过期后据此删除对象
+    private static final String SONG_UPLOAD_PENDING_KEY = "song_upload:pending";
+    private static final String SONG_UPLOAD_OBJECTS_KEY = "song_upload:objects";
+    // 上传地址过期后保留会话的时长，单位秒
+    private static final long SONG_UPLOAD_GRACE_SECONDS = 600;
+    private static final long MAX_AUDIO_SIZE = 100 * 1024 * 1024;
+    private static final long MAX_COVER_SIZE = 10 * 1024 * 1024;
+    private static final long MAX_REWARD_QR_SIZE = 5 * 1024 * 1024;
+    // 扩展名 -> 直传时约定的 Content-Type
+    private static final Map<String, String> AUDIO_CONTENT_TYPES = Map.of("mp3", "audio/mpeg", "wav", "audio/wav");
+    private static final Map<String, String> IMAGE_CONTENT_TYPES = Map.of("jpg", "image/jpeg", "jpeg", "image/jpeg",
+            "png", "image/png", "gif", "image/gif", "webp", "image/webp");
+
     @Autowired
     private SongMapper songMapper;
     @Autowired
@@ -81,77 +119,180 @@ public class SongServiceImpl extends ServiceImpl<SongMapper, Song> implements IS
     @Autowired
     private MinioService minioService;
     @Autowired
-    private RedisTemplate redisTemplate;
+    private AudioAnalysisService audioAnalysisService;
+    @Autowired
+    private StorageDeletionService storageDeletionService;
+    @Autowired
+    private CatalogSearchService catalogSearchService;
+    @Autowired
+    private FavoriteBitmapService favoriteBitmapService;
+    @Autowired
+    private RandomSampleService randomSampleService;
+    @Autowired
+    private SongRecommendService songRecommendService;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private SongCatalog songCatalog;
+    @Autowired
+    private TaggedCacheManager cacheManager;
+    @Autowired
+    private QuotaService quotaService;
+
+    // 直传地址有效期，单位秒
+    @Value("${song-upload.presign-expiry:900}")
+    private int presignExpiry;
 
     /**
      * 获取所有歌曲
+     * 缓存中只保存与用户无关的歌曲分页，收藏状态在取出缓存后按当前用户单独标记，
+     * 因此用户收藏或取消收藏时无需清空歌曲缓存
      *
-     * @param songDTO songDTO
+     * @param songDTO     songDTO
+     * @param authContext 当前登录信息
      * @return 歌曲列表
      */
     @Override
-    @Cacheable(key = "#songDTO.pageNum + '-' + #songDTO.pageSize + '-' + #songDTO.songName + '-' + #songDTO.artistName")
-    public Result<PageResult<SongVO>> getAllSongs(SongDTO songDTO, HttpServletRequest request) {
-        // 获取请求头中的 token
-        String token = request.getHeader("Authorization");
-        if (token != null && token.startsWith("Bearer ")) {
-            token = token.substring(7); // 去掉 "Bearer " 前缀
-        }
-
-        Map<String, Object> map = null;
-        if (token != null && !token.isEmpty()) {
-            try {
-                map = JwtUtil.parseToken(token);
-            } catch (com.auth0.jwt.exceptions.TokenExpiredException e) {
-                // Token 过期，按未登录处理
-                log.warn("Token expired, treating as unauthenticated user");
-                map = null;
-            } catch (Exception e) {
-                // Token 解析失败，按未登录处理
-                log.warn("Token parse failed: {}, treating as unauthenticated user", e.getMessage());
-                map = null;
-            }
+    public Result<PageResult<SongVO>> getAllSongs(SongDTO songDTO, AuthContext authContext) {
+        // 查询歌曲列表（公共分页缓存）
+        String key = "page-" + songDTO.getPageNum() + '-' + songDTO.getPageSize() + '-' + songDTO.getSongName() + '-' + songDTO.getArtistName();
+        PageResult<SongVO> songPage = cacheManager.getCache("songCache").get(key, () -> {
+            IPage<SongVO> page = searchSongPage(songDTO);
+            CacheTags.tag(CacheTags.listOf(CacheTags.SONG));
+            CacheTags.tag(CacheTags.SONG, page.getRecords().stream().map(SongVO::getSongId).toList());
+            return new PageResult<>(page.getTotal(), page.getRecords());
+        });
+        if (songPage == null || songPage.getItems() == null || songPage.getItems().isEmpty()) {
+            return Result.success(MessageConstant.DATA_NOT_FOUND, new PageResult<>(0L, null));
         }
 
-        // 查询歌曲列表
-        Page<SongVO> page = new Page<>(songDTO.getPageNum(), songDTO.getPageSize());
-        IPage<SongVO> songPage = songMapper.getSongsWithArtist(page, songDTO.getSongName(), songDTO.getArtistName());
-        if (songPage.getRecords().isEmpty()) {
-            return Result.success(MessageConstant.DATA_NOT_FOUND, new PageResult<>(0L, null));
+        // 复制后再标记收藏状态，避免修改缓存中的共享对象
+        List<SongVO> songVOList = songPage.getItems().stream().map(songVO -> {
+            SongVO copy = new SongVO();
+            BeanUtils.copyProperties(songVO, copy);
+            return copy;
+        }).collect(Collectors.toList());
+        applyLikeStatus(songVOList, authContext);
+
+        return Result.success(new PageResult<>(songPage.getTotal(), songVOList));
+    }
+
+    /**
+     * 游标分页获取歌曲
+     * 无关键字时按 id 倒序做 keyset 分页；有关键字且索引就绪时按相关度排序，游标记录结果序号
+     *
+     * @param songCursorDTO songCursorDTO
+     * @param authContext   当前登录信息
+     * @return 歌曲列表
+     */
+    @Override
+    public Result<CursorPageResult<SongVO>> getSongsByCursor(SongCursorDTO songCursorDTO, AuthContext authContext) {
+        int pageSize = CursorUtil.limitPageSize(songCursorDTO.getPageSize());
+        String songName = songCursorDTO.getSongName();
+        String artistName = songCursorDTO.getArtistName();
+        String cursor = songCursorDTO.getCursor();
+        boolean withTotal = Boolean.TRUE.equals(songCursorDTO.getWithTotal());
+        boolean hasCursor = cursor != null && !cursor.isEmpty();
+        boolean hasKeyword = (songName != null && !songName.trim().isEmpty())
+                || (artistName != null && !artistName.trim().isEmpty());
+
+        String[] rankCursor = hasCursor ? CursorUtil.decode(cursor, "song-rank", 1) : null;
+        String[] idCursor = hasCursor && rankCursor == null ? CursorUtil.decode(cursor, "song", 1) : null;
+        if (hasCursor && rankCursor == null && idCursor == null) {
+            return Result.error(MessageConstant.CURSOR + MessageConstant.INVALID);
+        }
+
+        CursorPageResult<SongVO> result;
+        try {
+            // 首页由索引是否就绪决定走哪条路径，之后的页跟随游标类型，保证同一次翻页结果连续
+            long[] matchedIds = hasKeyword && idCursor == null
+                    ? catalogSearchService.searchSongs(songName, artistName) : null;
+            if (rankCursor != null && matchedIds == null) {
+                return Result.error(MessageConstant.CURSOR + MessageConstant.INVALID);
+            }
+
+            if (matchedIds != null) {
+                int from = rankCursor == null ? 0 : Math.min(Integer.parseInt(rankCursor[0]), matchedIds.length);
+                int to = Math.min(from + pageSize, matchedIds.length);
+                List<SongVO> songVOList = getSongsInOrder(Arrays.stream(matchedIds, from, to).boxed().toList());
+                result = new CursorPageResult<>(songVOList,
+                        to < matchedIds.length ? CursorUtil.encode("song-rank", to) : null,
+                        to < matchedIds.length,
+                        withTotal ? (long) matchedIds.length : null);
+            } else {
+                Long lastSongId = idCursor == null ? null : Long.parseLong(idCursor[0]);
+                List<SongVO> rows = songMapper.getSongsWithArtistByCursor(songName, artistName, lastSongId, pageSize + 1);
+                result = CursorPageResult.of(rows, pageSize,
+                        songVO -> CursorUtil.encode("song", songVO.getSongId()),
+                        withTotal ? songMapper.countSongsWithArtist(songName, artistName) : null);
+            }
+        } catch (NumberFormatException e) {
+            return Result.error(MessageConstant.CURSOR + MessageConstant.INVALID);
         }
 
+        applyLikeStatus(result.getItems(), authContext);
+        return Result.success(result);
+    }
+
+    /**
+     * 设置歌曲的收藏状态：默认未收藏，登录用户按其收藏记录标记
+     *
+     * @param songVOList 歌曲列表
+     * @param authContext 当前登录信息
+     */
+    private void applyLikeStatus(List<SongVO> songVOList, AuthContext authContext) {
         // 设置默认状态
-        List<SongVO> songVOList = songPage.getRecords().stream()
-                .peek(songVO -> songVO.setLikeStatus(LikeStatusEnum.DEFAULT.getId()))
-                .toList();
-
-        // 如果 token 解析成功且用户为登录状态，进一步操作
-        if (map != null) {
-            String role = (String) map.get(JwtClaimsConstant.ROLE);
-            if (role.equals(RoleEnum.USER.getRole())) {
-                Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-                Long userId = TypeConversionUtil.toLong(userIdObj);
-
-                // 获取用户收藏的歌曲
-                List<UserFavorite> favoriteSongs = userFavoriteMapper.selectList(new QueryWrapper<UserFavorite>()
-                        .eq("user_id", userId)
-                        .eq("type", 0));
-
-                // 获取用户收藏的歌曲 id
-                Set<Long> favoriteSongIds = favoriteSongs.stream()
-                        .map(UserFavorite::getSongId)
-                        .collect(Collectors.toSet());
-
-                // 检查并更新状态
-                for (SongVO songVO : songVOList) {
-                    if (favoriteSongIds.contains(songVO.getSongId())) {
-                        songVO.setLikeStatus(LikeStatusEnum.LIKE.getId());
-                    }
+        songVOList.forEach(songVO -> songVO.setLikeStatus(LikeStatusEnum.DEFAULT.getId()));
+        if (songVOList.isEmpty()) {
+            return;
+        }
+
+        // 用户为登录状态，进一步操作
+        if (RoleEnum.USER.getRole().equals(authContext.getRole())) {
+            // 通过收藏位图批量检查并更新状态
+            long[] songIds = songVOList.stream().mapToLong(SongVO::getSongId).toArray();
+            boolean[] favorites = favoriteBitmapService.contains(authContext.getUserId(), songIds);
+            for (int i = 0; i < favorites.length; i++) {
+                if (favorites[i]) {
+                    songVOList.get(i).setLikeStatus(LikeStatusEnum.LIKE.getId());
                 }
             }
         }
+    }
 
-        return Result.success(new PageResult<>(songPage.getTotal(), songVOList));
+    /**
+     * 分页查询歌曲列表
+     * 有搜索关键字且索引就绪时走内存倒排索引，按相关度排序后只回填当前页；否则走数据库查询
+     *
+     * @param songDTO songDTO
+     * @return 歌曲分页
+     */
+    private IPage<SongVO> searchSongPage(SongDTO songDTO) {
+        Page<SongVO> page = new Page<>(songDTO.getPageNum(), songDTO.getPageSize());
+        boolean hasKeyword = (songDTO.getSongName() != null && !songDTO.getSongName().trim().isEmpty())
+                || (songDTO.getArtistName() != null && !songDTO.getArtistName().trim().isEmpty());
+        long[] matchedIds = hasKeyword ? catalogSearchService.searchSongs(songDTO.getSongName(), songDTO.getArtistName()) : null;
+        if (matchedIds == null) {
+            return songMapper.getSongsWithArtist(page, songDTO.getSongName(), songDTO.getArtistName());
+        }
+
+        page.setTotal(matchedIds.length);
+        long from = Math.min(page.offset(), matchedIds.length);
+        long to = Math.min(from + page.getSize(), matchedIds.length);
+        return page.setRecords(getSongsInOrder(Arrays.stream(matchedIds, (int) from, (int) to).boxed().toList()));
+    }
+
+    /**
+     * 根据歌曲 id 列表查询歌曲，并按 id 列表的顺序返回
+     *
+     * @param songIds 歌曲 id 列表
+     * @return 歌曲列表
+     */
+    private List<SongVO> getSongsInOrder(List<Long> songIds) {
+        if (songIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return songCatalog.getAll(songIds);
     }
 
     /**
@@ -166,6 +307,7 @@ public class SongServiceImpl extends ServiceImpl<SongMapper, Song> implements IS
         // 分页查询
         Page<SongAdminVO> page = new Page<>(songDTO.getPageNum(), songDTO.getPageSize());
         IPage<SongAdminVO> songPage = songMapper.getSongsWithArtistName(page, songDTO.getArtistId(), songDTO.getSongName());
+        CacheTags.tag(CacheTags.listOf(CacheTags.SONG));
 
         if (songPage.getRecords().isEmpty()) {
             return Result.success(MessageConstant.DATA_NOT_FOUND, new PageResult<>(0L, null));
@@ -176,101 +318,59 @@ public class SongServiceImpl extends ServiceImpl<SongMapper, Song> implements IS
 
     /**
      * 获取推荐歌曲
-     * 推荐歌曲的数量为 20
+     * 推荐歌曲的数量为 20，已登录用户优先使用协同过滤推荐，冷启动时按收藏歌曲的风格推荐
      *
-     * @param request HttpServletRequest，用于获取请求头中的 token
+     * @param authContext 当前登录信息
      * @return 推荐歌曲列表
      */
     @Override
-    public Result<List<SongVO>> getRecommendedSongs(HttpServletRequest request) {
-        // 获取请求头中的 token
-        String token = request.getHeader("Authorization");
-        if (token != null && token.startsWith("Bearer ")) {
-            token = token.substring(7);  // 去掉 "Bearer " 前缀
-        }
-
-        Map<String, Object> map = null;
-        if (token != null && !token.isEmpty()) {
-            try {
-                map = JwtUtil.parseToken(token);
-            } catch (com.auth0.jwt.exceptions.TokenExpiredException e) {
-                // Token 过期，按未登录处理
-                log.warn("Token expired, treating as unauthenticated user");
-                map = null;
-            } catch (Exception e) {
-                // Token 解析失败，按未登录处理
-                log.warn("Token parse failed: {}, treating as unauthenticated user", e.getMessage());
-                map = null;
-            }
-        }
+    public Result<List<SongVO>> getRecommendedSongs(AuthContext authContext) {
+        // 获取用户 ID
+        Long userId = authContext.getUserId();
 
         // 用户未登录，返回随机歌曲列表
-        if (map == null) {
-            return Result.success(songMapper.getRandomSongsWithArtist());
+        if (userId == null) {
+            return Result.success(randomSampleService.sampleSongs(20));
         }
 
-        // 获取用户 ID
-        Long userId = TypeConversionUtil.toLong(map.get(JwtClaimsConstant.USER_ID));
-
-        // 查询用户收藏的歌曲 ID
-        List<Long> favoriteSongIds = userFavoriteMapper.getFavoriteSongIdsByUserId(userId);
+        // 查询用户收藏的歌曲 ID（按收藏时间倒序）
+        List<Long> favoriteSongIds = userFavoriteMapper.getUserFavoriteSongIds(userId);
         if (favoriteSongIds.isEmpty()) {
-            return Result.success(songMapper.getRandomSongsWithArtist());
+            return Result.success(randomSampleService.sampleSongs(20));
         }
 
-        // 查询用户收藏的歌曲风格并统计频率
-        List<Long> favoriteStyleIds = songMapper.getFavoriteSongStyles(favoriteSongIds);
-        Map<Long, Long> styleFrequency = favoriteStyleIds.stream()
-                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
-
-        // 按风格出现次数降序排序
-        List<Long> sortedStyleIds = styleFrequency.entrySet().stream()
-                .sorted((a, b) -> Long.compare(b.getValue(), a.getValue()))
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
-
-        // 从 Redis 获取缓存的推荐列表
-        String redisKey = "recommended_songs:" + userId;
-        List<SongVO> cachedSongs = redisTemplate.opsForList().range(redisKey, 0, -1);
-
-        // 如果 Redis 没有缓存，则查询数据库并缓存
-        if (cachedSongs == null || cachedSongs.isEmpty()) {
-            // 只有当 sortedStyleIds 和 favoriteSongIds 都不为空时才调用推荐方法
-            // 否则 SQL 的 IN 子句会变成 IN () 导致语法错误
-            if (sortedStyleIds != null && !sortedStyleIds.isEmpty() 
-                    && favoriteSongIds != null && !favoriteSongIds.isEmpty()) {
-                // 根据排序后的风格推荐歌曲（排除已收藏歌曲）
-                cachedSongs = songMapper.getRecommendedSongsByStyles(sortedStyleIds, favoriteSongIds, 80);
+        // Redis 中只保存推荐歌曲的 id 集合，由 Redis 随机抽取 20 个
+        String redisKey = "recommended_song_ids:" + userId;
+        Set<String> sampledIds = stringRedisTemplate.opsForSet().distinctRandomMembers(redisKey, 20);
+        List<SongVO> recommendedSongs;
+        if (sampledIds != null && !sampledIds.isEmpty()) {
+            recommendedSongs = songCatalog.getAll(sampledIds.stream().map(Long::valueOf).toList());
+        } else {
+            // 如果 Redis 没有缓存，则生成推荐列表并缓存其 id
+            List<SongVO> songs = null;
+            // 优先使用协同过滤：合并最近收藏歌曲的相似歌曲
+            long[] recommendedIds = songRecommendService.recommend(favoriteSongIds, 80);
+            if (recommendedIds != null && recommendedIds.length > 0) {
+                songs = songCatalog.getAll(Arrays.stream(recommendedIds).boxed().toList());
             }
-            // 确保 cachedSongs 不为 null
-            if (cachedSongs == null) {
-                cachedSongs = new ArrayList<>();
+            // 模型未就绪或收藏的歌曲没有相似歌曲（冷启动），回退到按风格推荐
+            if (songs == null || songs.isEmpty()) {
+                songs = getRecommendedSongsByFavoriteStyles(favoriteSongIds);
             }
             // 只有当列表不为空时才缓存
-            if (!cachedSongs.isEmpty()) {
-                redisTemplate.opsForList().rightPushAll(redisKey, cachedSongs);
-                redisTemplate.expire(redisKey, 30, TimeUnit.MINUTES); // 设置过期时间 30 分钟
-            }
-        }
-
-        // 如果缓存列表为空，使用随机歌曲
-        if (cachedSongs == null || cachedSongs.isEmpty()) {
-            cachedSongs = songMapper.getRandomSongsWithArtist();
-            if (cachedSongs == null) {
-                cachedSongs = new ArrayList<>();
+            if (!songs.isEmpty()) {
+                stringRedisTemplate.opsForSet().add(redisKey,
+                        songs.stream().map(song -> String.valueOf(song.getSongId())).toArray(String[]::new));
+                stringRedisTemplate.expire(redisKey, 30, TimeUnit.MINUTES); // 设置过期时间 30 分钟
             }
+            // 随机选取 20 首
+            Collections.shuffle(songs);
+            recommendedSongs = new ArrayList<>(songs.subList(0, Math.min(20, songs.size())));
         }
 
-        // 随机选取 20 首
-        if (!cachedSongs.isEmpty()) {
-            Collections.shuffle(cachedSongs);
-        }
-        int size = Math.min(20, cachedSongs.size());
-        List<SongVO> recommendedSongs = size > 0 ? cachedSongs.subList(0, size) : new ArrayList<>();
-
         // 如果推荐的歌曲不足 20 首，则用随机歌曲填充
         if (recommendedSongs.size() < 20) {
-            List<SongVO> randomSongs = songMapper.getRandomSongsWithArtist();
+            List<SongVO> randomSongs = randomSampleService.sampleSongs(20);
             if (randomSongs != null && !randomSongs.isEmpty()) {
                 Set<Long> addedSongIds = recommendedSongs.stream().map(SongVO::getSongId).collect(Collectors.toSet());
                 for (SongVO song : randomSongs) {
@@ -285,87 +385,64 @@ public class SongServiceImpl extends ServiceImpl<SongMapper, Song> implements IS
         return Result.success(recommendedSongs);
     }
 
+    /**
+     * 按用户收藏歌曲的风格推荐歌曲（排除已收藏歌曲），作为协同过滤的冷启动回退
+     *
+     * @param favoriteSongIds 用户收藏的歌曲 id
+     * @return 推荐歌曲列表
+     */
+    private List<SongVO> getRecommendedSongsByFavoriteStyles(List<Long> favoriteSongIds) {
+        // 查询用户收藏的歌曲风格并统计频率
+        List<Long> favoriteStyleIds = songMapper.getFavoriteSongStyles(favoriteSongIds);
+        Map<Long, Long> styleFrequency = favoriteStyleIds.stream()
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+
+        // 按风格出现次数降序排序
+        List<Long> sortedStyleIds = styleFrequency.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue(), a.getValue()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+
+        // 风格为空时 SQL 的 IN 子句会变成 IN () 导致语法错误
+        if (sortedStyleIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // 根据排序后的风格推荐歌曲（排除已收藏歌曲）
+        List<SongVO> songs = songMapper.getRecommendedSongsByStyles(sortedStyleIds, favoriteSongIds, 80);
+        return songs != null ? songs : new ArrayList<>();
+    }
+
     /**
      * 获取歌曲详情
      *
-     * @param songId  歌曲id
-     * @param request HttpServletRequest，用于获取请求头中的 token
+     * @param songId      歌曲id
+     * @param authContext 当前登录信息
      * @return 歌曲详情
      */
     @Override
-    // @Cacheable(key = "#songId")  // 临时禁用缓存进行调试
-    public Result<SongDetailVO> getSongDetail(Long songId, HttpServletRequest request) {
-        // 先查询原始数据，检查数据库
-        Song song = songMapper.selectById(songId);
-        if (song != null) {
-            log.info("========== 数据库原始数据 ==========");
-            log.info("songId: {}", songId);
-            log.info("songName: {}", song.getSongName());
-            log.info("isOriginal: {}", song.getIsOriginal());
-            log.info("isRewardEnabled: {}", song.getIsRewardEnabled());
-            log.info("rewardQrUrl: {}", song.getRewardQrUrl());
-            log.info("creatorId: {}", song.getCreatorId());
-            log.info("artistId: {}", song.getArtistId());
-            log.info("===================================");
-        } else {
-            log.warn("数据库中未找到歌曲 - songId: {}", songId);
-        }
-        
-        SongDetailVO songDetailVO = songMapper.getSongDetailById(songId);
-        
+    public Result<SongDetailVO> getSongDetail(Long songId, AuthContext authContext) {
+        // 查询歌曲详情（公共缓存，不含收藏状态与评论，评论通过评论流单独分页获取）
+        SongDetailVO cachedDetail = cacheManager.getCache("songCache").get("detail-" + songId, () -> {
+            SongDetailVO detail = songMapper.getSongDetailById(songId);
+            CacheTags.tag(CacheTags.of(CacheTags.SONG, songId));
+            return detail;
+        });
+
         // 如果查询结果为null，说明歌曲不存在或未审核通过
-        if (songDetailVO == null) {
+        if (cachedDetail == null) {
             return Result.error(MessageConstant.NOT_FOUND);
         }
-        
-        // 调试日志：输出完整的歌曲详情信息
-        log.info("========== MyBatis查询结果 ==========");
-        log.info("songId: {}", songId);
-        log.info("songName: {}", songDetailVO.getSongName());
-        log.info("isOriginal: {}", songDetailVO.getIsOriginal());
-        log.info("isRewardEnabled: {}", songDetailVO.getIsRewardEnabled());
-        log.info("rewardQrUrl: {}", songDetailVO.getRewardQrUrl());
-        log.info("creatorName: {}", songDetailVO.getCreatorName());
-        log.info("artistName: {}", songDetailVO.getArtistName());
-        log.info("===================================");
-
-        // 获取请求头中的 token
-        String token = request.getHeader("Authorization");
-        if (token != null && token.startsWith("Bearer ")) {
-            token = token.substring(7);  // 去掉 "Bearer " 前缀
-        }
-
-        Map<String, Object> map = null;
-        if (token != null && !token.isEmpty()) {
-            try {
-                map = JwtUtil.parseToken(token);
-            } catch (com.auth0.jwt.exceptions.TokenExpiredException e) {
-                // Token 过期，按未登录处理
-                log.warn("Token expired, treating as unauthenticated user");
-                map = null;
-            } catch (Exception e) {
-                // Token 解析失败，按未登录处理
-                log.warn("Token parse failed: {}, treating as unauthenticated user", e.getMessage());
-                map = null;
-            }
-        }
 
-        // 如果 token 解析成功且用户为登录状态，进一步操作
-        if (map != null) {
-            String role = (String) map.get(JwtClaimsConstant.ROLE);
-            if (role.equals(RoleEnum.USER.getRole())) {
-                Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-                Long userId = TypeConversionUtil.toLong(userIdObj);
-
-                // 获取用户收藏的歌曲
-                UserFavorite favoriteSong = userFavoriteMapper.selectOne(new QueryWrapper<UserFavorite>()
-                        .eq("user_id", userId)
-                        .eq("type", 0)
-                        .eq("song_id", songId));
-                if (favoriteSong != null) {
-                    songDetailVO.setLikeStatus(LikeStatusEnum.LIKE.getId());
-                }
-            }
+        // 复制后再标记收藏状态，避免修改缓存中的共享对象
+        SongDetailVO songDetailVO = new SongDetailVO();
+        BeanUtils.copyProperties(cachedDetail, songDetailVO);
+        songDetailVO.setComments(new ArrayList<>());
+        songDetailVO.setLikeStatus(LikeStatusEnum.DEFAULT.getId());
+
+        // 用户为登录状态，通过收藏位图检查收藏状态
+        if (RoleEnum.USER.getRole().equals(authContext.getRole())
+                && favoriteBitmapService.contains(authContext.getUserId(), new long[]{songId})[0]) {
+            songDetailVO.setLikeStatus(LikeStatusEnum.LIKE.getId());
         }
 
         return Result.success(songDetailVO);
@@ -379,6 +456,13 @@ public class SongServiceImpl extends ServiceImpl<SongMapper, Song> implements IS
      */
     @Override
     public Result<Long> getAllSongsCount(String style) {
+        if (style != null && !style.trim().isEmpty()) {
+            Long count = catalogSearchService.countSongsByStyle(style);
+            if (count != null) {
+                return Result.success(count);
+            }
+        }
+
         QueryWrapper<Song> queryWrapper = new QueryWrapper<>();
         // 只统计审核通过的歌曲
         queryWrapper.and(wrapper -> wrapper.isNull("audit_status").or().eq("audit_status", 1));
@@ -396,7 +480,6 @@ public class SongServiceImpl extends ServiceImpl<SongMapper, Song> implements IS
      * @return 结果
      */
     @Override
-    @CacheEvict(cacheNames = "songCache", allEntries = true)
     public Result addSong(SongAddDTO songAddDTO) {
         Song song = new Song();
         BeanUtils.copyProperties(songAddDTO, song);
@@ -436,6 +519,8 @@ public class SongServiceImpl extends ServiceImpl<SongMapper, Song> implements IS
             }
         }
 
+        catalogSearchService.refreshSongs(List.of(songId));
+        cacheManager.evictTags(CacheTags.listOf(CacheTags.SONG));
         return Result.success(MessageConstant.ADD + MessageConstant.SUCCESS);
     }
 
@@ -446,7 +531,6 @@ public class SongServiceImpl extends ServiceImpl<SongMapper, Song> implements IS
      * @return 结果
      */
     @Override
-    @CacheEvict(cacheNames = "songCache", allEntries = true)
     public Result updateSong(SongUpdateDTO songUpdateDTO) {
         // 查询数据库中是否存在该歌曲
         Song songInDB = songMapper.selectById(songUpdateDTO.getSongId());
@@ -483,6 +567,8 @@ public class SongServiceImpl extends ServiceImpl<SongMapper, Song> implements IS
             }
         }
 
+        catalogSearchService.refreshSongs(List.of(songId));
+        cacheManager.evictTags(CacheTags.of(CacheTags.SONG, songId), CacheTags.listOf(CacheTags.SONG));
         return Result.success(MessageConstant.UPDATE + MessageConstant.SUCCESS);
     }
 
@@ -494,18 +580,20 @@ public class SongServiceImpl extends ServiceImpl<SongMapper, Song> implements IS
      * @return 更新结果
      */
     @Override
-    @CacheEvict(cacheNames = "songCache", allEntries = true)
+    @Transactional
     public Result updateSongCover(Long songId, String coverUrl) {
         Song song = songMapper.selectById(songId);
         String cover = song.getCoverUrl();
-        if (cover != null && !cover.isEmpty()) {
-            minioService.deleteFile(cover);
-        }
 
         song.setCoverUrl(coverUrl);
         if (songMapper.updateById(song) == 0) {
             return Result.error(MessageConstant.UPDATE + MessageConstant.FAILED);
         }
+        // 旧封面与歌曲更新一起提交到删除队列
+        List<String> replacedFiles = new ArrayList<>();
+        addIfPresent(replacedFiles, cover);
+        storageDeletionService.enqueue(replacedFiles);
+        cacheManager.evictTags(CacheTags.of(CacheTags.SONG, songId));
 
         return Result.success(MessageConstant.UPDATE + MessageConstant.SUCCESS);
     }
@@ -518,18 +606,20 @@ public class SongServiceImpl extends ServiceImpl<SongMapper, Song> implements IS
      * @return 更新结果
      */
     @Override
-    @CacheEvict(cacheNames = "songCache", allEntries = true)
+    @Transactional
     public Result updateSongAudio(Long songId, String audioUrl, String duration) {
         Song song = songMapper.selectById(songId);
         String audio = song.getAudioUrl();
-        if (audio != null && !audio.isEmpty()) {
-            minioService.deleteFile(audio);
-        }
 
         song.setAudioUrl(audioUrl).setDuration(duration);
         if (songMapper.updateById(song) == 0) {
             return Result.error(MessageConstant.UPDATE + MessageConstant.FAILED);
         }
+        // 旧音频及其波形与歌曲更新一起提交到删除队列
+        storageDeletionService.enqueue(audioFilesOf(audio));
+        // 播放与波形接口从歌曲目录读取音频地址
+        songCatalog.refresh(List.of(songId));
+        cacheManager.evictTags(CacheTags.of(CacheTags.SONG, songId));
 
         return Result.success(MessageConstant.UPDATE + MessageConstant.SUCCESS);
     }
@@ -541,26 +631,21 @@ public class SongServiceImpl extends ServiceImpl<SongMapper, Song> implements IS
      * @return 删除结果
      */
     @Override
-    @CacheEvict(cacheNames = "songCache", allEntries = true)
+    @Transactional
     public Result deleteSong(Long songId) {
         Song song = songMapper.selectById(songId);
         if (song == null) {
             return Result.error(MessageConstant.SONG + MessageConstant.NOT_FOUND);
         }
-        String cover = song.getCoverUrl();
-        String audio = song.getAudioUrl();
-
-        if (cover != null && !cover.isEmpty()) {
-            minioService.deleteFile(cover);
-        }
-        if (audio != null && !audio.isEmpty()) {
-            minioService.deleteFile(audio);
-        }
 
         if (songMapper.deleteById(songId) == 0) {
             return Result.error(MessageConstant.DELETE + MessageConstant.FAILED);
         }
+        // 封面、音频与波形登记到删除队列，提交后由后台批量删除
+        storageDeletionService.enqueue(filesOf(List.of(song)));
 
+        catalogSearchService.refreshSongs(List.of(songId));
+        cacheManager.evictTags(CacheTags.of(CacheTags.SONG, songId), CacheTags.listOf(CacheTags.SONG));
         return Result.success(MessageConstant.DELETE + MessageConstant.SUCCESS);
     }
 
@@ -571,32 +656,22 @@ public class SongServiceImpl extends ServiceImpl<SongMapper, Song> implements IS
      * @return 删除结果
      */
     @Override
-    @CacheEvict(cacheNames = "songCache", allEntries = true)
+    @Transactional
     public Result deleteSongs(List<Long> songIds) {
-        // 1. 查询歌曲信息，获取歌曲封面 URL 列表
+        // 1. 查询歌曲信息，获取歌曲封面、音频 URL
         List<Song> songs = songMapper.selectByIds(songIds);
-        List<String> coverUrlList = songs.stream()
-                .map(Song::getCoverUrl)
-                .filter(coverUrl -> coverUrl != null && !coverUrl.isEmpty())
-                .toList();
-        List<String> audioUrlList = songs.stream()
-                .map(Song::getAudioUrl)
-                .filter(audioUrl -> audioUrl != null && !audioUrl.isEmpty())
-                .toList();
-
-        // 2. 先删除 MinIO 里的歌曲封面和音频文件
-        for (String coverUrl : coverUrlList) {
-            minioService.deleteFile(coverUrl);
-        }
-        for (String audioUrl : audioUrlList) {
-            minioService.deleteFile(audioUrl);
-        }
 
-        // 3. 删除数据库中的歌曲信息
+        // 2. 删除数据库中的歌曲信息
         if (songMapper.deleteByIds(songIds) == 0) {
             return Result.error(MessageConstant.DELETE + MessageConstant.FAILED);
         }
 
+        // 3. MinIO 里的文件登记到删除队列，与歌曲删除同一事务提交，由后台批量删除
+        storageDeletionService.enqueue(filesOf(songs));
+
+        catalogSearchService.refreshSongs(songIds);
+        cacheManager.evictTags(CacheTags.of(CacheTags.SONG, songIds));
+        cacheManager.evictTags(CacheTags.listOf(CacheTags.SONG));
         return Result.success(MessageConstant.DELETE + MessageConstant.SUCCESS);
     }
 
@@ -607,151 +682,461 @@ public class SongServiceImpl extends ServiceImpl<SongMapper, Song> implements IS
      * @return 上传结果
      */
     @Override
-    @CacheEvict(cacheNames = "songCache", allEntries = true)
     public Result uploadOriginalSong(SongUploadDTO songUploadDTO) {
         // 获取当前用户ID
-        Map<String, Object> map = ThreadLocalUtil.get();
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long userId = TypeConversionUtil.toLong(userIdObj);
+        Long userId = AuthContext.current().getUserId();
 
-        // 检查用户是否填写了完整的歌手信息（生日、国籍、简介）
         User user = userMapper.selectById(userId);
+        String permissionError = checkOriginalUploadPermission(user, userId, true);
+        if (permissionError != null) {
+            return Result.error(permissionError);
+        }
+
+        // 验证文件格式和大小
+        String validationError = validateUploadFiles(songUploadDTO);
+        if (validationError != null) {
+            return Result.error(validationError);
+        }
+
+        // 封面、音频、收款码并发上传，请求耗时取决于最慢的一个文件
+        Map<String, MultipartFile> files = new LinkedHashMap<>();
+        if (songUploadDTO.getCoverFile() != null && !songUploadDTO.getCoverFile().isEmpty()) {
+            files.put("covers", songUploadDTO.getCoverFile());
+        }
+        if (songUploadDTO.getAudioFile() != null && !songUploadDTO.getAudioFile().isEmpty()) {
+            files.put("songs", songUploadDTO.getAudioFile());
+        }
+        // 上传收款码文件（如果开启打赏）
+        if (songUploadDTO.getIsRewardEnabled() != null && songUploadDTO.getIsRewardEnabled()
+            && songUploadDTO.getRewardQrFile() != null && !songUploadDTO.getRewardQrFile().isEmpty()) {
+            files.put("reward-qr", songUploadDTO.getRewardQrFile());
+        }
+        // 音频上传的同时分析时长与波形，时长以服务端计算结果为准
+        AudioAnalyzer analyzer = audioAnalysisService.createAnalyzer(songUploadDTO.getAudioFile().getOriginalFilename());
+        Map<String, String> urls;
+        try {
+            urls = uploadConcurrently(files, analyzer == null ? Map.of() : Map.of("songs", analyzer));
+        } catch (Exception e) {
+            log.error("原创歌曲上传失败", e);
+            return Result.error("上传失败：" + e.getMessage());
+        }
+        AudioAnalyzer.Analysis analysis = audioAnalysisService.saveAnalysis(urls.get("songs"), analyzer);
+        List<String> uploadedFiles = new ArrayList<>(urls.values());
+        if (analysis != null) {
+            addIfPresent(uploadedFiles, audioAnalysisService.getPeaksUrl(urls.get("songs")));
+        }
+
+        try {
+            Result result = saveOriginalSong(user, userId, songUploadDTO.getSongName(), songUploadDTO.getStyle(),
+                    urls.get("covers"), urls.get("songs"), songUploadDTO.getIsRewardEnabled(), urls.get("reward-qr"),
+                    analysis != null ? analysis.durationSeconds() : songUploadDTO.getDuration(), null);
+            if (result.getCode() != 0) {
+                deleteFilesAsync(uploadedFiles);
+            }
+            return result;
+        } catch (Exception e) {
+            log.error("原创歌曲上传失败", e);
+            deleteFilesAsync(uploadedFiles);
+            return Result.error("上传失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 申请原创歌曲直传地址（两阶段上传的第一阶段）
+     * 客户端使用返回的预签名 POST 表单把文件直接上传到 MinIO，应用服务器不再缓冲文件内容；
+     * 表单策略限定了 Content-Type 与文件大小。每次申请占用一次上传配额，完成上传时不再重复占用
+     *
+     * @param songUploadPresignDTO 待上传文件的文件名与大小
+     * @return 上传id与各文件的直传地址
+     */
+    @Override
+    public Result<SongUploadPresignVO> presignOriginalSongUpload(SongUploadPresignDTO songUploadPresignDTO) {
+        Long userId = AuthContext.current().getUserId();
+
+        String permissionError = checkOriginalUploadPermission(userMapper.selectById(userId), userId, false);
+        if (permissionError != null) {
+            return Result.error(permissionError);
+        }
+
+        // 按申请时声明的文件名与大小预先校验，完成上传时再按 MinIO 中的实际对象校验
+        String audioType = AUDIO_CONTENT_TYPES.get(extensionOf(songUploadPresignDTO.getAudioFileName()));
+        if (audioType == null) {
+            return Result.error("音频文件格式仅支持MP3和WAV");
+        }
+        if (songUploadPresignDTO.getAudioSize() > MAX_AUDIO_SIZE) {
+            return Result.error("文件大于100M，请压缩后上传");
+        }
+        String coverName = songUploadPresignDTO.getCoverFileName();
+        String coverType = null;
+        if (coverName != null && !coverName.isBlank()) {
+            coverType = IMAGE_CONTENT_TYPES.get(extensionOf(coverName));
+            if (coverType == null) {
+                return Result.error("封面文件格式仅支持JPG、PNG、GIF和WEBP");
+            }
+            if (songUploadPresignDTO.getCoverSize() != null && songUploadPresignDTO.getCoverSize() > MAX_COVER_SIZE) {
+                return Result.error("封面文件大小不能超过10MB");
+            }
+        }
+        String rewardQrName = songUploadPresignDTO.getRewardQrFileName();
+        String rewardQrType = null;
+        if (rewardQrName != null && !rewardQrName.isBlank()) {
+            rewardQrType = IMAGE_CONTENT_TYPES.get(extensionOf(rewardQrName));
+            if (rewardQrType == null) {
+                return Result.error("收款码图片格式仅支持JPG、PNG、GIF和WEBP");
+            }
+            if (songUploadPresignDTO.getRewardQrSize() != null && songUploadPresignDTO.getRewardQrSize() > MAX_REWARD_QR_SIZE) {
+                return Result.error("收款码图片大小不能超过5MB");
+            }
+        }
+
+        // 每个直传地址都允许上传文件，申请时即占用配额，未完成的上传不归还
+        String permit = quotaService.tryAcquire(QuotaActionEnum.SONG_UPLOAD, userId);
+        if (permit == null) {
+            return Result.error(quotaService.exceededMessage(QuotaActionEnum.SONG_UPLOAD));
+        }
+
+        String uploadId = UUID.randomUUID().toString().replace("-", "");
+        SongUploadPresignVO presignVO = new SongUploadPresignVO();
+        presignVO.setUploadId(uploadId);
+        presignVO.setExpireTime(LocalDateTime.now().plusSeconds(presignExpiry));
+        Map<String, String> upload = new HashMap<>();
+        upload.put("userId", String.valueOf(userId));
+        upload.put("permit", permit);
+        try {
+            presignVO.setAudio(presignUpload("songs", songUploadPresignDTO.getAudioFileName(), audioType, MAX_AUDIO_SIZE, "audio", upload));
+            if (coverType != null) {
+                presignVO.setCover(presignUpload("covers", coverName, coverType, MAX_COVER_SIZE, "cover", upload));
+            }
+            if (rewardQrType != null) {
+                presignVO.setRewardQr(presignUpload("reward-qr", rewardQrName, rewardQrType, MAX_REWARD_QR_SIZE, "rewardQr", upload));
+            }
+        } catch (Exception e) {
+            log.error("生成直传地址失败", e);
+            quotaService.release(QuotaActionEnum.SONG_UPLOAD, userId, permit);
+            return Result.error("上传失败：" + e.getMessage());
+        }
+
+        // 先登记分配的对象，会话过期后由定时任务删除未完成上传的对象
+        String objectNames = String.join("\n", Stream.of(upload.get("audio"), upload.get("cover"), upload.get("rewardQr"))
+                .filter(Objects::nonNull).toList());
+        stringRedisTemplate.opsForHash().put(SONG_UPLOAD_OBJECTS_KEY, uploadId, objectNames);
+        stringRedisTemplate.opsForZSet().add(SONG_UPLOAD_PENDING_KEY, uploadId, System.currentTimeMillis());
+
+        // 上传会话比上传地址多保留一段时间，留给客户端调用完成接口
+        String redisKey = SONG_UPLOAD_KEY + uploadId;
+        stringRedisTemplate.opsForHash().putAll(redisKey, upload);
+        stringRedisTemplate.expire(redisKey, presignExpiry + SONG_UPLOAD_GRACE_SECONDS, TimeUnit.SECONDS);
+        return Result.success(presignVO);
+    }
+
+    /**
+     * 完成原创歌曲直传（两阶段上传的第二阶段）
+     * 校验 MinIO 中的对象确实存在且大小、类型符合要求后创建歌曲，校验失败时删除已上传的对象
+     *
+     * @param songUploadFinalizeDTO 上传id与歌曲信息
+     * @return 上传结果，成功时 data 为歌曲ID
+     */
+    @Override
+    public Result finalizeOriginalSongUpload(SongUploadFinalizeDTO songUploadFinalizeDTO) {
+        Long userId = AuthContext.current().getUserId();
+
+        String redisKey = SONG_UPLOAD_KEY + songUploadFinalizeDTO.getUploadId();
+        Map<Object, Object> upload = stringRedisTemplate.opsForHash().entries(redisKey);
+        if (upload.isEmpty() || !String.valueOf(userId).equals(upload.get("userId"))) {
+            return Result.error("上传已过期，请重新上传");
+        }
+
+        User user = userMapper.selectById(userId);
+        String permissionError = checkOriginalUploadPermission(user, userId, false);
+        if (permissionError != null) {
+            return Result.error(permissionError);
+        }
+
+        // 删除会话即认领本次上传，重复提交不会创建多首歌曲
+        if (!Boolean.TRUE.equals(stringRedisTemplate.delete(redisKey))) {
+            return Result.error("上传已过期，请重新上传");
+        }
+        // 认领后由本次请求负责对象：创建歌曲后保留，校验失败时删除
+        forgetPendingUpload(songUploadFinalizeDTO.getUploadId());
+
+        String audioObject = (String) upload.get("audio");
+        String coverObject = (String) upload.get("cover");
+        String rewardQrObject = (String) upload.get("rewardQr");
+        boolean rewardEnabled = Boolean.TRUE.equals(songUploadFinalizeDTO.getIsRewardEnabled());
+        List<String> uploadedObjects = new ArrayList<>();
+        try {
+            String audioError = verifyUploadedObject(audioObject, (String) upload.get("audioType"),
+                    MAX_AUDIO_SIZE, "音频文件", "文件大于100M，请压缩后上传", uploadedObjects);
+            String coverError = coverObject == null ? null : verifyUploadedObject(coverObject,
+                    (String) upload.get("coverType"), MAX_COVER_SIZE, "封面文件", "封面文件大小不能超过10MB", uploadedObjects);
+            String rewardQrError = rewardQrObject == null ? null : verifyUploadedObject(rewardQrObject,
+                    (String) upload.get("rewardQrType"), MAX_REWARD_QR_SIZE, "收款码图片", "收款码图片大小不能超过5MB", uploadedObjects);
+            boolean audioUploaded = uploadedObjects.contains(audioObject);
+            boolean coverUploaded = coverObject != null && uploadedObjects.contains(coverObject);
+            boolean rewardQrUploaded = rewardQrObject != null && uploadedObjects.contains(rewardQrObject);
+
+            String validationError = audioError != null ? audioError
+                    : !audioUploaded ? "请上传音频文件"
+                    : coverError != null ? coverError
+                    : rewardEnabled && rewardQrError != null ? rewardQrError
+                    : rewardEnabled && !rewardQrUploaded ? "开启打赏功能必须上传收款码图片"
+                    : null;
+            if (validationError != null) {
+                removeUploadedObjects(uploadedObjects);
+                return Result.error(validationError);
+            }
+            // 未开启打赏时不保留已上传的收款码
+            if (!rewardEnabled && rewardQrUploaded) {
+                removeUploadedObjects(List.of(rewardQrObject));
+            }
+
+            Result result = saveOriginalSong(user, userId, songUploadFinalizeDTO.getSongName(), songUploadFinalizeDTO.getStyle(),
+                    coverUploaded ? minioService.getObjectUrl(coverObject) : null,
+                    minioService.getObjectUrl(audioObject), rewardEnabled,
+                    rewardEnabled ? minioService.getObjectUrl(rewardQrObject) : null,
+                    songUploadFinalizeDTO.getDuration(), (String) upload.get("permit"));
+            if (result.getCode() != 0) {
+                removeUploadedObjects(uploadedObjects);
+            } else {
+                // 直传的音频不经过应用服务器，创建歌曲后在后台读取一遍，计算时长并生成波形
+                audioAnalysisService.analyzeStoredAudio((Long) result.getData(), minioService.getObjectUrl(audioObject));
+            }
+            return result;
+        } catch (Exception e) {
+            log.error("原创歌曲直传完成失败，uploadId: {}", songUploadFinalizeDTO.getUploadId(), e);
+            removeUploadedObjects(uploadedObjects);
+            return Result.error("上传失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 定时删除过期未完成的直传对象
+     * 会话过期（含断点续传延长的有效期）后仍未完成的上传，删除为其分配的对象；
+     * 完成接口认领会话时已移除登记，这里只处理认领前被放弃的上传。认领后节点崩溃时登记已移除，由存储核对兜底
+     */
+    @Override
+    @Scheduled(initialDelayString = "${song-upload.gc-interval:600000}",
+            fixedDelayString = "${song-upload.gc-interval:600000}")
+    public void collectAbandonedSongUploads() {
+        try {
+            long deadline = System.currentTimeMillis() - (presignExpiry + SONG_UPLOAD_GRACE_SECONDS) * 1000;
+            Set<String> expired = stringRedisTemplate.opsForZSet().rangeByScore(SONG_UPLOAD_PENDING_KEY, 0, deadline);
+            if (expired == null || expired.isEmpty()) {
+                return;
+            }
+            List<String> fileUrls = new ArrayList<>();
+            for (String uploadId : expired) {
+                // 断点续传仍有进展时会话被延长，下次再检查
+                if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(SONG_UPLOAD_KEY + uploadId))) {
+                    continue;
+                }
+                // 多个节点同时清理时，只有移出有序集合的节点处理该上传
+                Long removed = stringRedisTemplate.opsForZSet().remove(SONG_UPLOAD_PENDING_KEY, uploadId);
+                if (removed == null || removed == 0) {
+                    continue;
+                }
+                Object objectNames = stringRedisTemplate.opsForHash().get(SONG_UPLOAD_OBJECTS_KEY, uploadId);
+                stringRedisTemplate.opsForHash().delete(SONG_UPLOAD_OBJECTS_KEY, uploadId);
+                if (objectNames != null) {
+                    for (String objectName : ((String) objectNames).split("\n")) {
+                        fileUrls.add(minioService.getObjectUrl(objectName));
+                    }
+                }
+            }
+            if (!fileUrls.isEmpty()) {
+                deleteFilesAsync(fileUrls);
+                log.info("原创歌曲直传清理完成，删除未完成上传的对象 {} 个", fileUrls.size());
+            }
+        } catch (Exception e) {
+            log.error("原创歌曲直传清理失败: {}", e.getMessage());
+        }
+    }
+
+    // 移除未完成直传的登记
+    private void forgetPendingUpload(String uploadId) {
+        stringRedisTemplate.opsForZSet().remove(SONG_UPLOAD_PENDING_KEY, uploadId);
+        stringRedisTemplate.opsForHash().delete(SONG_UPLOAD_OBJECTS_KEY, uploadId);
+    }
+
+    /**
+     * 生成单个文件的直传表单，并把对象名与约定的 Content-Type 记入上传会话
+     */
+    private PresignedUploadVO presignUpload(String folder, String fileName, String contentType, long maxSize, String field,
+                                            Map<String, String> upload) {
+        // 与 MinioService.uploadFile 的命名规则一致，去掉文件名中的路径
+        String baseName = fileName.substring(Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\')) + 1);
+        String objectName = folder + "/" + UUID.randomUUID() + "-" + baseName;
+        upload.put(field, objectName);
+        upload.put(field + "Type", contentType);
+        MinioService.PresignedPost post = minioService.getPresignedPost(objectName, contentType, maxSize, presignExpiry);
+        return new PresignedUploadVO(objectName, post.url(), contentType, post.formData());
+    }
+
+    /**
+     * 校验客户端上传到 MinIO 的对象，对象存在时加入 uploadedObjects
+     *
+     * @return 错误信息，对象不存在或校验通过时返回 null
+     */
+    private String verifyUploadedObject(String objectName, String expectedType, long maxSize, String label,
+                                        String sizeError, List<String> uploadedObjects) {
+        MinioService.ObjectInfo info = minioService.statObject(objectName);
+        if (info == null) {
+            return null;
+        }
+        uploadedObjects.add(objectName);
+        if (info.size() > maxSize) {
+            return sizeError;
+        }
+        if (info.size() == 0) {
+            return label + "为空，请重新上传";
+        }
+        String contentType = info.contentType() == null ? "" : info.contentType().split(";")[0].trim();
+        if (!contentType.equalsIgnoreCase(expectedType)) {
+            return label + "类型与申请上传时不一致，请重新上传";
+        }
+        return null;
+    }
+
+    private void removeUploadedObjects(List<String> objectNames) {
+        deleteFilesAsync(objectNames.stream().map(minioService::getObjectUrl).toList());
+    }
+
+    private static String extensionOf(String fileName) {
+        if (fileName == null) {
+            return "";
+        }
+        return fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase();
+    }
+
+    /**
+     * 检查用户是否可以上传原创歌曲
+     *
+     * @param user       用户
+     * @param userId     用户ID
+     * @param checkQuota 是否检查上传配额
+     * @return 错误信息，允许上传时返回 null
+     */
+    private String checkOriginalUploadPermission(User user, Long userId, boolean checkQuota) {
         if (user == null) {
-            return Result.error("用户不存在");
+            return "用户不存在";
         }
         
         // 检查用户积分是否大于0
         int userScore = user.getScore() != null ? user.getScore() : 100;
         if (userScore <= 0) {
-            return Result.error("当前账号无发布权限，积分不足（积分为0时无法发帖、发歌、回复）");
+            return "当前账号无发布权限，积分不足（积分为0时无法发帖、发歌、回复）";
         }
         
+        // 检查用户是否填写了完整的歌手信息（生日、国籍、简介）
         if (user.getBirth() == null 
             || user.getArea() == null || user.getArea().trim().isEmpty()
             || user.getIntroduction() == null || user.getIntroduction().trim().isEmpty()) {
-            return Result.error("上传歌曲前，请先在个人信息页面填写完整的歌手信息（生日、国籍、简介）");
-        }
-
-        // 检查当日上传限制（最多10首）
-        Integer todayUploads = songMapper.countUserTodayUploads(userId);
-        if (todayUploads >= 10) {
-            return Result.error("今日上传次数已达上限（10首），请明天再试");
+            return "上传歌曲前，请先在个人信息页面填写完整的歌手信息（生日、国籍、简介）";
         }
 
-        // 验证文件格式和大小
-        String validationError = validateUploadFiles(songUploadDTO);
-        if (validationError != null) {
-            return Result.error(validationError);
+        // 检查上传配额，只提前拒绝，保存歌曲时才占用；申请直传时直接占用，完成直传时已持有配额
+        if (checkQuota && quotaService.isExhausted(QuotaActionEnum.SONG_UPLOAD, userId)) {
+            return quotaService.exceededMessage(QuotaActionEnum.SONG_UPLOAD);
         }
 
-        try {
-            // 上传封面文件
-            String coverUrl = null;
-            if (songUploadDTO.getCoverFile() != null && !songUploadDTO.getCoverFile().isEmpty()) {
-                coverUrl = minioService.uploadFile(songUploadDTO.getCoverFile(), "covers");
-            }
-
-            // 上传音频文件
-            String audioUrl = null;
-            if (songUploadDTO.getAudioFile() != null && !songUploadDTO.getAudioFile().isEmpty()) {
-                audioUrl = minioService.uploadFile(songUploadDTO.getAudioFile(), "songs");
-            }
+        return null;
+    }
 
-            // 上传收款码文件（如果开启打赏）
-            String rewardQrUrl = null;
-            if (songUploadDTO.getIsRewardEnabled() != null && songUploadDTO.getIsRewardEnabled()
-                && songUploadDTO.getRewardQrFile() != null && !songUploadDTO.getRewardQrFile().isEmpty()) {
-                rewardQrUrl = minioService.uploadFile(songUploadDTO.getRewardQrFile(), "reward-qr");
-            }
+    /**
+     * 保存原创歌曲（待审核），并创建或更新用户对应的原创歌手记录
+     *
+     * @return 上传结果，成功时 data 为歌曲ID
+     */
+    private Result saveOriginalSong(User user, Long userId, String songName, String style, String coverUrl, String audioUrl,
+                                    Boolean isRewardEnabled, String rewardQrUrl, String duration, String heldPermit) {
+        // 占用上传配额（直传申请时已占用的沿用），并发上传时由配额原子判断，插入失败时归还
+        String permit = heldPermit != null ? heldPermit : quotaService.tryAcquire(QuotaActionEnum.SONG_UPLOAD, userId);
+        if (permit == null) {
+            return Result.error(quotaService.exceededMessage(QuotaActionEnum.SONG_UPLOAD));
+        }
 
-            // 创建歌曲实体
-            Song song = new Song();
-            song.setSongName(songUploadDTO.getSongName());
-            song.setStyle(songUploadDTO.getStyle());
-            song.setCoverUrl(coverUrl);
-            song.setAudioUrl(audioUrl);
-            song.setArtistId(null); // 原创歌曲没有关联艺术家，设置为null
-            song.setReleaseTime(java.time.LocalDate.now()); // 设置发行时间为当前日期
-            song.setCreatorId(userId);
-            song.setIsOriginal(true);
-            song.setIsRewardEnabled(songUploadDTO.getIsRewardEnabled() != null ? songUploadDTO.getIsRewardEnabled() : false);
-            song.setRewardQrUrl(rewardQrUrl);
-            song.setDuration(songUploadDTO.getDuration()); // 设置歌曲时长
-            song.setAuditStatus(0); // 设置审核状态为待审核
-            song.setCreateTime(java.time.LocalDateTime.now());
-            song.setUpdateTime(java.time.LocalDateTime.now());
+        // 创建歌曲实体
+        Song song = new Song();
+        song.setSongName(songName);
+        song.setStyle(style);
+        song.setCoverUrl(coverUrl);
+        song.setAudioUrl(audioUrl);
+        song.setArtistId(null); // 原创歌曲没有关联艺术家，设置为null
+        song.setReleaseTime(java.time.LocalDate.now()); // 设置发行时间为当前日期
+        song.setCreatorId(userId);
+        song.setIsOriginal(true);
+        song.setIsRewardEnabled(isRewardEnabled != null ? isRewardEnabled : false);
+        song.setRewardQrUrl(rewardQrUrl);
+        song.setDuration(duration); // 设置歌曲时长
+        song.setAuditStatus(0); // 设置审核状态为待审核
+        song.setCreateTime(java.time.LocalDateTime.now());
+        song.setUpdateTime(java.time.LocalDateTime.now());
 
+        try {
             if (songMapper.insert(song) == 0) {
+                quotaService.release(QuotaActionEnum.SONG_UPLOAD, userId, permit);
                 return Result.error(MessageConstant.ADD + MessageConstant.FAILED);
             }
+        } catch (RuntimeException e) {
+            quotaService.release(QuotaActionEnum.SONG_UPLOAD, userId, permit);
+            throw e;
+        }
 
-            // 上传成功后，创建或更新歌手记录（原创歌手）
-            try {
-                // 查询是否已存在同名歌手（原创歌手）
-                QueryWrapper<Artist> artistQueryWrapper = new QueryWrapper<>();
-                artistQueryWrapper.eq("name", user.getUsername())
-                                  .eq("gender", 3); // 原创歌手类型为3
-                Artist existingArtist = artistMapper.selectOne(artistQueryWrapper);
-
-                if (existingArtist != null) {
-                    // 更新现有歌手信息
-                    log.info("更新现有原创歌手信息，userId: {}, artistId: {}", userId, existingArtist.getArtistId());
-                    existingArtist.setGender(3); // 确保类型为原创歌手
-                    existingArtist.setBirth(user.getBirth());
-                    existingArtist.setArea(user.getArea());
-                    existingArtist.setIntroduction(user.getIntroduction());
-                    // 如果用户有头像，也更新歌手头像
-                    if (user.getUserAvatar() != null) {
-                        existingArtist.setAvatar(user.getUserAvatar());
-                    }
-                    int updateResult = artistMapper.updateById(existingArtist);
-                    if (updateResult > 0) {
-                        log.info("成功更新原创歌手信息，userId: {}, artistId: {}", userId, existingArtist.getArtistId());
-                    } else {
-                        log.warn("更新原创歌手信息失败，userId: {}, artistId: {}", userId, existingArtist.getArtistId());
-                    }
+        // 上传成功后，创建或更新歌手记录（原创歌手）
+        try {
+            // 查询是否已存在同名歌手（原创歌手）
+            QueryWrapper<Artist> artistQueryWrapper = new QueryWrapper<>();
+            artistQueryWrapper.eq("name", user.getUsername())
+                              .eq("gender", 3); // 原创歌手类型为3
+            Artist existingArtist = artistMapper.selectOne(artistQueryWrapper);
+
+            if (existingArtist != null) {
+                // 更新现有歌手信息
+                log.info("更新现有原创歌手信息，userId: {}, artistId: {}", userId, existingArtist.getArtistId());
+                existingArtist.setGender(3); // 确保类型为原创歌手
+                existingArtist.setBirth(user.getBirth());
+                existingArtist.setArea(user.getArea());
+                existingArtist.setIntroduction(user.getIntroduction());
+                // 如果用户有头像，也更新歌手头像
+                if (user.getUserAvatar() != null) {
+                    existingArtist.setAvatar(user.getUserAvatar());
+                }
+                int updateResult = artistMapper.updateById(existingArtist);
+                if (updateResult > 0) {
+                    log.info("成功更新原创歌手信息，userId: {}, artistId: {}", userId, existingArtist.getArtistId());
                 } else {
-                    // 创建新歌手记录（默认类型为原创歌手）
-                    log.info("创建新原创歌手记录，userId: {}, username: {}", userId, user.getUsername());
-                    Artist artist = new Artist();
-                    artist.setArtistName(user.getUsername());
-                    artist.setGender(3); // 原创歌手类型为3
-                    artist.setBirth(user.getBirth());
-                    artist.setArea(user.getArea());
-                    artist.setIntroduction(user.getIntroduction());
-                    // 如果用户有头像，也设置歌手头像
-                    if (user.getUserAvatar() != null) {
-                        artist.setAvatar(user.getUserAvatar());
-                    }
-                    int insertResult = artistMapper.insert(artist);
-                    if (insertResult > 0) {
-                        log.info("成功创建原创歌手记录，userId: {}, username: {}, artistId: {}", 
-                                userId, user.getUsername(), artist.getArtistId());
-                    } else {
-                        log.warn("创建原创歌手记录失败，userId: {}, username: {}", userId, user.getUsername());
-                    }
+                    log.warn("更新原创歌手信息失败，userId: {}, artistId: {}", userId, existingArtist.getArtistId());
                 }
-                // 清除歌手缓存，确保新创建的歌手能立即显示
-                try {
-                    // 清除所有以 "artistCache" 开头的缓存
-                    Set<String> keys = redisTemplate.keys("artistCache::*");
-                    if (keys != null && !keys.isEmpty()) {
-                        redisTemplate.delete(keys);
-                        log.info("已清除歌手缓存，清除数量: {}", keys.size());
-                    }
-                } catch (Exception cacheException) {
-                    log.warn("清除歌手缓存失败", cacheException);
+            } else {
+                // 创建新歌手记录（默认类型为原创歌手）
+                log.info("创建新原创歌手记录，userId: {}, username: {}", userId, user.getUsername());
+                Artist artist = new Artist();
+                artist.setArtistName(user.getUsername());
+                artist.setGender(3); // 原创歌手类型为3
+                artist.setBirth(user.getBirth());
+                artist.setArea(user.getArea());
+                artist.setIntroduction(user.getIntroduction());
+                // 如果用户有头像，也设置歌手头像
+                if (user.getUserAvatar() != null) {
+                    artist.setAvatar(user.getUserAvatar());
+                }
+                int insertResult = artistMapper.insert(artist);
+                if (insertResult > 0) {
+                    log.info("成功创建原创歌手记录，userId: {}, username: {}, artistId: {}", 
+                            userId, user.getUsername(), artist.getArtistId());
+                } else {
+                    log.warn("创建原创歌手记录失败，userId: {}, username: {}", userId, user.getUsername());
                 }
-            } catch (Exception e) {
-                // 记录错误但不影响歌曲上传
-                log.error("创建或更新歌手记录失败，userId: {}, username: {}", userId, user.getUsername(), e);
             }
-
-            return Result.success("歌曲上传成功，等待审核", song.getSongId());
+            // 清除歌手缓存，确保新创建的歌手能立即显示
+            cacheManager.clearCache("artistCache");
         } catch (Exception e) {
-            log.error("原创歌曲上传失败", e);
-            return Result.error("上传失败：" + e.getMessage());
+            // 记录错误但不影响歌曲上传
+            log.error("创建或更新歌手记录失败，userId: {}, username: {}", userId, user.getUsername(), e);
         }
+
+        cacheManager.evictTags(CacheTags.listOf(CacheTags.SONG));
+        return Result.success("歌曲上传成功，等待审核", song.getSongId());
     }
 
     /**
@@ -806,19 +1191,16 @@ public class SongServiceImpl extends ServiceImpl<SongMapper, Song> implements IS
      * @return 删除结果
      */
     @Override
-    @CacheEvict(cacheNames = "songCache", allEntries = true)
+    @Transactional
     public Result deleteOriginalSong(Long songId) {
         log.info("开始删除原创歌曲，songId: {}", songId);
         
         // 获取当前用户ID
-        Map<String, Object> map = ThreadLocalUtil.get();
-        if (map == null) {
+        Long userId = AuthContext.current().getUserId();
+        if (userId == null) {
             log.error("ThreadLocal中没有用户信息");
             return Result.error("用户未登录");
         }
-        
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long userId = TypeConversionUtil.toLong(userIdObj);
         log.info("当前用户ID: {}", userId);
 
         // 查询歌曲信息
@@ -841,38 +1223,15 @@ public class SongServiceImpl extends ServiceImpl<SongMapper, Song> implements IS
             return Result.error("只能删除自己上传的歌曲");
         }
 
-        // 删除MinIO中的文件
-        String cover = song.getCoverUrl();
-        String audio = song.getAudioUrl();
-        String rewardQr = song.getRewardQrUrl();
-
-        if (cover != null && !cover.isEmpty()) {
-            try {
-                minioService.deleteFile(cover);
-            } catch (Exception e) {
-                log.warn("删除封面文件失败: {}", cover, e);
-            }
-        }
-        if (audio != null && !audio.isEmpty()) {
-            try {
-                minioService.deleteFile(audio);
-            } catch (Exception e) {
-                log.warn("删除音频文件失败: {}", audio, e);
-            }
-        }
-        if (rewardQr != null && !rewardQr.isEmpty()) {
-            try {
-                minioService.deleteFile(rewardQr);
-            } catch (Exception e) {
-                log.warn("删除收款码文件失败: {}", rewardQr, e);
-            }
-        }
-
         // 删除数据库记录
         if (songMapper.deleteById(songId) == 0) {
             return Result.error(MessageConstant.DELETE + MessageConstant.FAILED);
         }
+        // MinIO 中的封面、音频、波形与收款码登记到删除队列
+        storageDeletionService.enqueue(filesOf(List.of(song)));
 
+        catalogSearchService.refreshSongs(List.of(songId));
+        cacheManager.evictTags(CacheTags.of(CacheTags.SONG, songId), CacheTags.listOf(CacheTags.SONG));
         return Result.success(MessageConstant.DELETE + MessageConstant.SUCCESS);
     }
 
@@ -883,18 +1242,14 @@ public class SongServiceImpl extends ServiceImpl<SongMapper, Song> implements IS
      * @return 更新结果
      */
     @Override
-    @CacheEvict(cacheNames = "songCache", allEntries = true)
     public Result updateOriginalSong(SongUploadDTO songUploadDTO) {
         // 获取当前用户ID
-        Map<String, Object> map = ThreadLocalUtil.get();
-        if (map == null) {
+        Long userId = AuthContext.current().getUserId();
+        if (userId == null) {
             log.error("ThreadLocal中没有用户信息");
             return Result.error("用户未登录");
         }
         
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long userId = TypeConversionUtil.toLong(userIdObj);
-        
         // 检查songId是否存在
         if (songUploadDTO.getSongId() == null) {
             return Result.error("歌曲ID不能为空");
@@ -924,68 +1279,69 @@ public class SongServiceImpl extends ServiceImpl<SongMapper, Song> implements IS
             }
         }
         
+        // 新文件并发上传，任一失败时已上传的新文件会被删除，歌曲保持不变
+        boolean rewardEnabled = songUploadDTO.getIsRewardEnabled() != null && songUploadDTO.getIsRewardEnabled();
+        Map<String, MultipartFile> files = new LinkedHashMap<>();
+        if (songUploadDTO.getCoverFile() != null && !songUploadDTO.getCoverFile().isEmpty()) {
+            files.put("covers", songUploadDTO.getCoverFile());
+        }
+        if (songUploadDTO.getAudioFile() != null && !songUploadDTO.getAudioFile().isEmpty()) {
+            files.put("songs", songUploadDTO.getAudioFile());
+        }
+        if (rewardEnabled && songUploadDTO.getRewardQrFile() != null && !songUploadDTO.getRewardQrFile().isEmpty()) {
+            files.put("reward-qr", songUploadDTO.getRewardQrFile());
+        }
+        AudioAnalyzer analyzer = files.containsKey("songs")
+                ? audioAnalysisService.createAnalyzer(songUploadDTO.getAudioFile().getOriginalFilename()) : null;
+        Map<String, String> urls;
+        try {
+            urls = uploadConcurrently(files, analyzer == null ? Map.of() : Map.of("songs", analyzer));
+        } catch (Exception e) {
+            log.error("更新原创歌曲失败", e);
+            return Result.error("更新失败：" + e.getMessage());
+        }
+        AudioAnalyzer.Analysis analysis = audioAnalysisService.saveAnalysis(urls.get("songs"), analyzer);
+        List<String> uploadedFiles = new ArrayList<>(urls.values());
+        if (analysis != null) {
+            addIfPresent(uploadedFiles, audioAnalysisService.getPeaksUrl(urls.get("songs")));
+        }
+
+        // 被替换的旧文件在数据库更新成功后才登记删除，更新失败时歌曲仍然引用旧文件
+        List<String> replacedFiles = new ArrayList<>();
         try {
             // 更新封面文件（如果提供了新封面）
-            if (songUploadDTO.getCoverFile() != null && !songUploadDTO.getCoverFile().isEmpty()) {
-                // 删除旧封面
-                String oldCover = song.getCoverUrl();
-                if (oldCover != null && !oldCover.isEmpty()) {
-                    try {
-                        minioService.deleteFile(oldCover);
-                    } catch (Exception e) {
-                        log.warn("删除旧封面文件失败: {}", oldCover, e);
-                    }
-                }
-                // 上传新封面
-                String coverUrl = minioService.uploadFile(songUploadDTO.getCoverFile(), "covers");
+            String coverUrl = urls.get("covers");
+            if (coverUrl != null) {
+                addIfPresent(replacedFiles, song.getCoverUrl());
                 song.setCoverUrl(coverUrl);
             }
             
             // 更新音频文件（如果提供了新音频）
-            if (songUploadDTO.getAudioFile() != null && !songUploadDTO.getAudioFile().isEmpty()) {
-                // 删除旧音频
-                String oldAudio = song.getAudioUrl();
-                if (oldAudio != null && !oldAudio.isEmpty()) {
-                    try {
-                        minioService.deleteFile(oldAudio);
-                    } catch (Exception e) {
-                        log.warn("删除旧音频文件失败: {}", oldAudio, e);
-                    }
-                }
-                // 上传新音频
-                String audioUrl = minioService.uploadFile(songUploadDTO.getAudioFile(), "songs");
+            String audioUrl = urls.get("songs");
+            if (audioUrl != null) {
+                addIfPresent(replacedFiles, song.getAudioUrl());
+                addIfPresent(replacedFiles, audioAnalysisService.getPeaksUrl(song.getAudioUrl()));
                 song.setAudioUrl(audioUrl);
-                // 更新时长
-                if (songUploadDTO.getDuration() != null) {
+                // 更新时长，能够分析时以服务端计算结果为准
+                if (analysis != null) {
+                    song.setDuration(analysis.durationSeconds());
+                } else if (songUploadDTO.getDuration() != null) {
                     song.setDuration(songUploadDTO.getDuration());
                 }
             }
             
             // 更新收款码文件（如果开启打赏且提供了新收款码）
-            if (songUploadDTO.getIsRewardEnabled() != null && songUploadDTO.getIsRewardEnabled()) {
-                if (songUploadDTO.getRewardQrFile() != null && !songUploadDTO.getRewardQrFile().isEmpty()) {
-                    // 删除旧收款码
-                    String oldRewardQr = song.getRewardQrUrl();
-                    if (oldRewardQr != null && !oldRewardQr.isEmpty()) {
-                        try {
-                            minioService.deleteFile(oldRewardQr);
-                        } catch (Exception e) {
-                            log.warn("删除旧收款码文件失败: {}", oldRewardQr, e);
-                        }
-                    }
-                    // 上传新收款码
-                    String rewardQrUrl = minioService.uploadFile(songUploadDTO.getRewardQrFile(), "reward-qr");
+            if (rewardEnabled) {
+                String rewardQrUrl = urls.get("reward-qr");
+                if (rewardQrUrl != null) {
+                    addIfPresent(replacedFiles, song.getRewardQrUrl());
                     song.setRewardQrUrl(rewardQrUrl);
                 }
                 song.setIsRewardEnabled(true);
             } else {
                 // 如果关闭打赏，删除收款码
                 if (song.getRewardQrUrl() != null && !song.getRewardQrUrl().isEmpty()) {
-                    try {
-                        minioService.deleteFile(song.getRewardQrUrl());
-                    } catch (Exception e) {
-                        log.warn("删除收款码文件失败: {}", song.getRewardQrUrl(), e);
-                    }
+                    replacedFiles.add(song.getRewardQrUrl());
                     song.setRewardQrUrl(null);
                 }
                 song.setIsRewardEnabled(false);
@@ -1005,14 +1361,83 @@ public class SongServiceImpl extends ServiceImpl<SongMapper, Song> implements IS
             
             // 更新数据库
             if (songMapper.updateById(song) == 0) {
+                deleteFilesAsync(uploadedFiles);
                 return Result.error(MessageConstant.UPDATE + MessageConstant.FAILED);
             }
-            
-            return Result.success("歌曲更新成功，已重新提交审核");
         } catch (Exception e) {
             log.error("更新原创歌曲失败", e);
+            deleteFilesAsync(uploadedFiles);
             return Result.error("更新失败：" + e.getMessage());
         }
+
+        storageDeletionService.enqueue(replacedFiles);
+        // 待审核的歌曲不再出现在搜索结果中
+        catalogSearchService.refreshSongs(List.of(song.getSongId()));
+        cacheManager.evictTags(CacheTags.of(CacheTags.SONG, song.getSongId()), CacheTags.listOf(CacheTags.SONG));
+        return Result.success("歌曲更新成功，已重新提交审核");
+    }
+
+    /**
+     * 并发上传多个文件
+     * 任一文件上传失败时等待其余上传结束，删除已上传成功的文件后抛出第一个失败的异常
+     *
+     * @param filesByFolder 存储目录 -> 文件，每个目录一个文件
+     * @param tapsByFolder  存储目录 -> 旁路输出流（例如音频分析器），上传时读取的数据同时写入
+     * @return 存储目录 -> 文件 URL
+     */
+    private Map<String, String> uploadConcurrently(Map<String, MultipartFile> filesByFolder,
+                                                   Map<String, ? extends OutputStream> tapsByFolder) {
+        Map<String, CompletableFuture<String>> uploads = new LinkedHashMap<>();
+        filesByFolder.forEach((folder, file) ->
+                uploads.put(folder, minioService.uploadFileAsync(file, folder, tapsByFolder.get(folder))));
+        try {
+            CompletableFuture.allOf(uploads.values().toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            // allOf 在全部上传结束后才完成，此时可以确定哪些文件已经上传成功
+            deleteFilesAsync(uploads.values().stream()
+                    .filter(upload -> !upload.isCompletedExceptionally())
+                    .map(CompletableFuture::join)
+                    .toList());
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        Map<String, String> urls = new LinkedHashMap<>();
+        uploads.forEach((folder, upload) -> urls.put(folder, upload.join()));
+        return urls;
+    }
+
+    /**
+     * 登记到删除队列，由后台批量删除并在失败时重试
+     */
+    private void deleteFilesAsync(Collection<String> fileUrls) {
+        storageDeletionService.enqueue(fileUrls);
+    }
+
+    /**
+     * 歌曲引用的全部文件：封面、音频及其波形、收款码
+     */
+    private List<String> filesOf(List<Song> songs) {
+        List<String> fileUrls = new ArrayList<>();
+        for (Song song : songs) {
+            addIfPresent(fileUrls, song.getCoverUrl());
+            fileUrls.addAll(audioFilesOf(song.getAudioUrl()));
+            addIfPresent(fileUrls, song.getRewardQrUrl());
+        }
+        return fileUrls;
+    }
+
+    private List<String> audioFilesOf(String audioUrl) {
+        List<String> fileUrls = new ArrayList<>();
+        if (audioUrl != null && !audioUrl.isEmpty()) {
+            fileUrls.add(audioUrl);
+            addIfPresent(fileUrls, audioAnalysisService.getPeaksUrl(audioUrl));
+        }
+        return fileUrls;
+    }
+
+    private static void addIfPresent(List<String> fileUrls, String fileUrl) {
+        if (fileUrl != null && !fileUrl.isEmpty()) {
+            fileUrls.add(fileUrl);
+        }
     }
 
     /**
@@ -1038,14 +1463,14 @@ public class SongServiceImpl extends ServiceImpl<SongMapper, Song> implements IS
 
         // 检查音频文件大小（100MB）
         long audioSize = songUploadDTO.getAudioFile().getSize();
-        if (audioSize > 100 * 1024 * 1024) {
+        if (audioSize > MAX_AUDIO_SIZE) {
             return "文件大于100M，请压缩后上传";
         }
 
         // 验证封面文件（如果提供）
         if (songUploadDTO.getCoverFile() != null && !songUploadDTO.getCoverFile().isEmpty()) {
             long coverSize = songUploadDTO.getCoverFile().getSize();
-            if (coverSize > 10 * 1024 * 1024) { // 封面文件最大10MB
+            if (coverSize > MAX_COVER_SIZE) { // 封面文件最大10MB
                 return "封面文件大小不能超过10MB";
             }
         }
@@ -1057,7 +1482,7 @@ public class SongServiceImpl extends ServiceImpl<SongMapper, Song> implements IS
             }
 
             long qrSize = songUploadDTO.getRewardQrFile().getSize();
-            if (qrSize > 5 * 1024 * 1024) { // 收款码文件最大5MB
+            if (qrSize > MAX_REWARD_QR_SIZE) { // 收款码文件最大5MB
                 return "收款码图片大小不能超过5MB";
             }
         }
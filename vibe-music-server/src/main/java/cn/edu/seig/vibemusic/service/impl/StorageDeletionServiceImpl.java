@@ -0,0 +1,227 @@
+package cn.edu.seig.vibemusic.service.impl;
+
+import cn.edu.seig.vibemusic.mapper.StorageDeletionMapper;
+import cn.edu.seig.vibemusic.model.entity.StorageDeletion;
+import cn.edu.seig.vibemusic.model.vo.StorageDeletionStatsVO;
+import cn.edu.seig.vibemusic.service.MinioService;
+import cn.edu.seig.vibemusic.service.StorageDeletionService;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 对象存储删除队列实现类
+ * <p>
+ * 多个节点可能同时取到同一批对象，MinIO 删除不存在的对象视为成功，重复删除没有副作用。
+ */
+@Slf4j
+@Service
+public class StorageDeletionServiceImpl implements StorageDeletionService {
+
+    private static final int STATUS_PENDING = 0;
+    private static final int STATUS_FAILED = 1;
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    @Autowired
+    private StorageDeletionMapper storageDeletionMapper;
+    @Autowired
+    private MinioService minioService;
+
+    // 每批删除的对象数，MinIO 单次批量删除最多 1000 个
+    @Value("${storage-deletion.batch-size:500}")
+    private int batchSize;
+    // 单次执行最多处理的批数，避免积压时长时间占用调度线程
+    @Value("${storage-deletion.max-batches:20}")
+    private int maxBatches;
+    @Value("${storage-deletion.max-attempts:10}")
+    private int maxAttempts;
+    // 第 n 次失败后等待 base-backoff * 2^(n-1)，不超过 max-backoff，单位毫秒
+    @Value("${storage-deletion.base-backoff:5000}")
+    private long baseBackoff;
+    @Value("${storage-deletion.max-backoff:3600000}")
+    private long maxBackoff;
+
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder deleted = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final AtomicLong lastBatchMillis = new AtomicLong();
+    private final AtomicReference<String> lastError = new AtomicReference<>();
+
+    /**
+     * 登记待删除的文件
+     *
+     * @param fileUrls 文件 URL
+     */
+    @Override
+    public void enqueue(Collection<String> fileUrls) {
+        Set<String> objectNames = new LinkedHashSet<>();
+        for (String fileUrl : fileUrls) {
+            String objectName = minioService.getObjectName(fileUrl);
+            if (objectName != null) {
+                objectNames.add(objectName);
+            }
+        }
+        if (objectNames.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<StorageDeletion> deletions = new ArrayList<>(objectNames.size());
+        for (String objectName : objectNames) {
+            deletions.add(new StorageDeletion()
+                    .setObjectName(objectName)
+                    .setStatus(STATUS_PENDING)
+                    .setAttempts(0)
+                    .setNextAttemptTime(now)
+                    .setCreateTime(now));
+        }
+        storageDeletionMapper.insert(deletions);
+        enqueued.add(deletions.size());
+    }
+
+    /**
+     * 定时删除队列中已到期的对象
+     */
+    @Override
+    @Scheduled(initialDelayString = "${storage-deletion.initial-delay:10000}",
+            fixedDelayString = "${storage-deletion.interval:2000}")
+    public void drain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            for (int i = 0; i < maxBatches; i++) {
+                if (drainBatch() < batchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            lastError.set(e.getMessage());
+            log.error("对象删除队列处理失败: {}", e.getMessage());
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    /**
+     * 删除一批到期的对象
+     *
+     * @return 本批取到的任务数
+     */
+    private int drainBatch() {
+        QueryWrapper<StorageDeletion> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("status", STATUS_PENDING)
+                .le("next_attempt_time", LocalDateTime.now())
+                .orderByAsc("id")
+                .last("LIMIT " + batchSize);
+        List<StorageDeletion> due = storageDeletionMapper.selectList(queryWrapper);
+        if (due.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> objectNames = new LinkedHashSet<>();
+        due.forEach(deletion -> objectNames.add(deletion.getObjectName()));
+        long start = System.currentTimeMillis();
+        Map<String, String> failures;
+        String batchError = null;
+        try {
+            failures = minioService.removeObjects(objectNames);
+        } catch (RuntimeException e) {
+            // 整批请求失败（例如 MinIO 不可用），整批按失败处理
+            failures = Map.of();
+            batchError = e.getMessage();
+        }
+        batches.increment();
+        lastBatchMillis.set(System.currentTimeMillis() - start);
+
+        List<Long> succeeded = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (StorageDeletion deletion : due) {
+            String error = batchError != null ? batchError : failures.get(deletion.getObjectName());
+            if (error == null) {
+                succeeded.add(deletion.getDeletionId());
+                continue;
+            }
+            backOff(deletion, error, now);
+        }
+        if (!succeeded.isEmpty()) {
+            storageDeletionMapper.deleteByIds(succeeded);
+            deleted.add(succeeded.size());
+        }
+        if (succeeded.size() < due.size()) {
+            log.warn("对象批量删除部分失败：成功 {} 个，失败 {} 个", succeeded.size(), due.size() - succeeded.size());
+        }
+        return due.size();
+    }
+
+    /**
+     * 记录失败并安排下次重试，重试次数耗尽时标记为失败
+     */
+    private void backOff(StorageDeletion deletion, String error, LocalDateTime now) {
+        int attempts = deletion.getAttempts() + 1;
+        String message = error == null ? "" : error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+        long delay = Math.min(maxBackoff, baseBackoff << Math.min(attempts - 1, 30));
+        deletion.setAttempts(attempts)
+                .setLastError(message)
+                .setNextAttemptTime(now.plusNanos(delay * 1_000_000));
+        if (attempts >= maxAttempts) {
+            deletion.setStatus(STATUS_FAILED);
+            log.error("对象删除重试次数耗尽: {}, {}", deletion.getObjectName(), message);
+        }
+        storageDeletionMapper.updateById(deletion);
+        retries.increment();
+        lastError.set(message);
+    }
+
+    /**
+     * 把重试次数耗尽的对象重新放回队列
+     *
+     * @return 重新放回的对象数
+     */
+    @Override
+    public int retryFailed() {
+        UpdateWrapper<StorageDeletion> updateWrapper = new UpdateWrapper<>();
+        updateWrapper.eq("status", STATUS_FAILED)
+                .set("status", STATUS_PENDING)
+                .set("attempts", 0)
+                .set("next_attempt_time", LocalDateTime.now());
+        return storageDeletionMapper.update(null, updateWrapper);
+    }
+
+    /**
+     * 队列统计信息
+     *
+     * @return 待删除、失败数量与本节点的删除计数
+     */
+    @Override
+    public StorageDeletionStatsVO getStats() {
+        StorageDeletionStatsVO stats = new StorageDeletionStatsVO();
+        stats.setPending(storageDeletionMapper.selectCount(new QueryWrapper<StorageDeletion>().eq("status", STATUS_PENDING)));
+        stats.setFailed(storageDeletionMapper.selectCount(new QueryWrapper<StorageDeletion>().eq("status", STATUS_FAILED)));
+        stats.setEnqueued(enqueued.sum());
+        stats.setDeleted(deleted.sum());
+        stats.setRetries(retries.sum());
+        stats.setBatches(batches.sum());
+        stats.setLastBatchMillis(lastBatchMillis.get());
+        stats.setLastError(lastError.get());
+        return stats;
+    }
+
+}
@@ -0,0 +1,658 @@
+package cn.edu.seig.vibemusic.service.impl;
+
+import cn.edu.seig.vibemusic.mapper.StorageReferenceMapper;
+import cn.edu.seig.vibemusic.model.vo.StorageReconcileStatusVO;
+import cn.edu.seig.vibemusic.model.vo.StorageReferenceVO;
+import cn.edu.seig.vibemusic.service.MinioService;
+import cn.edu.seig.vibemusic.service.StorageDeletionService;
+import cn.edu.seig.vibemusic.service.StorageReconcileService;
+import cn.edu.seig.vibemusic.util.SortedMerge;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 对象存储核对实现类
+ * <p>
+ * 同一时间只有一个节点在核对（Redis 锁，保存进度时续期）；每处理 page-size 个对象与引用保存一次进度并按 rate 限速。
+ * 删除模式下孤立对象登记到删除队列，由删除队列按批删除；只判断受管目录下、超过保留时间的对象，
+ * 保留时间覆盖直传与断点续传会话的有效期，避免删除尚未提交的上传。
+ */
+@Slf4j
+@Service
+public class StorageReconcileServiceImpl implements StorageReconcileService {
+
+    private static final String STATE_KEY = "storage_reconcile:state";
+    private static final String LOCK_KEY = "storage_reconcile:lock";
+    private static final String ORPHANS_KEY = "storage_reconcile:orphans";
+    private static final String BROKEN_LINKS_KEY = "storage_reconcile:broken_links";
+    private static final String STATUS_IDLE = "idle";
+    private static final String STATUS_RUNNING = "running";
+    private static final String STATUS_STOPPED = "stopped";
+    private static final String STATUS_FAILED = "failed";
+    private static final String STATUS_COMPLETED = "completed";
+    private static final String PHASE_OBJECTS = "objects";
+    private static final String PHASE_UPLOADS = "uploads";
+    // 由歌曲音频派生的波形文件，缺失时读取波形会重新生成，不算断链
+    private static final String PEAKS_SOURCE = "tb_song.peaks#";
+    private static final String PEAKS_DIR = "peaks/";
+    private static final String PEAKS_SUFFIX = ".peaks";
+    // 引用了存储桶对象的 {表名, 字段名}，同一 URL 被多处引用时取排在前面的字段作为来源
+    private static final String[][] REFERENCE_COLUMNS = {
+            {"tb_song", "cover_url"},
+            {"tb_song", "audio_url"},
+            {"tb_song", "reward_qr_url"},
+            {"tb_playlist", "cover_url"},
+            {"tb_banner", "banner_url"},
+            {"tb_user", "user_avatar"},
+            {"tb_artist", "avatar"},
+            {"tb_forum_post", "reference_attachment"},
+    };
+
+    @Autowired
+    private MinioService minioService;
+    @Autowired
+    private StorageReferenceMapper storageReferenceMapper;
+    @Autowired
+    private StorageDeletionService storageDeletionService;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    // 每个引用字段每页读取的引用数，也是保存进度的间隔（按处理的对象与引用数计）
+    @Value("${storage-reconcile.page-size:1000}")
+    private int pageSize;
+    // 每秒最多处理的对象与引用数
+    @Value("${storage-reconcile.rate:2000}")
+    private int rate;
+    // 对象、分片上传创建超过该时间才会被判定为孤立，单位毫秒
+    @Value("${storage-reconcile.min-age:172800000}")
+    private long minAge;
+    // 由应用写入的对象目录，其他目录下的对象不做判断
+    @Value("${storage-reconcile.managed-prefixes:songs/,songCovers/,covers/,reward-qr/,playlists/,banners/,users/,artists/,post-attachments/,requirement-attachments/,peaks/}")
+    private String[] managedPrefixes;
+    // 保留的孤立对象、断链示例数
+    @Value("${storage-reconcile.sample-size:100}")
+    private int sampleSize;
+    // 定时核对是否删除孤立对象
+    @Value("${storage-reconcile.delete-orphans:false}")
+    private boolean scheduledDeleteOrphans;
+    // 运行锁的有效期，单位秒
+    @Value("${storage-reconcile.lock-ttl:300}")
+    private long lockTtl;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile boolean stopRequested;
+    private final ThreadPoolExecutor threadPool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new SynchronousQueue<>(), task -> {
+                Thread thread = new Thread(task, "storage-reconcile");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    @PreDestroy
+    public void shutdown() {
+        // 中断限速等待，进度已保存，下次启动后可以继续
+        threadPool.shutdownNow();
+    }
+
+    /**
+     * 在后台开始核对，上次核对未完成时从保存的进度继续
+     *
+     * @param deleteOrphans 是否把孤立对象登记到删除队列并取消过期的分片上传
+     * @param restart       是否丢弃上次的进度重新开始
+     * @return 是否开始，已有核对在运行时返回 false
+     */
+    @Override
+    public boolean start(boolean deleteOrphans, boolean restart) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        String token = UUID.randomUUID().toString();
+        try {
+            Boolean locked = stringRedisTemplate.opsForValue().setIfAbsent(LOCK_KEY, token, lockTtl, TimeUnit.SECONDS);
+            if (!Boolean.TRUE.equals(locked)) {
+                running.set(false);
+                return false;
+            }
+            Progress progress = prepare(deleteOrphans, restart);
+            stopRequested = false;
+            threadPool.execute(() -> run(progress, token));
+            return true;
+        } catch (RuntimeException e) {
+            releaseLock(token);
+            running.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * 请求停止正在运行的核对，运行中的节点在下次保存进度时停止
+     */
+    @Override
+    public void stop() {
+        stopRequested = true;
+        if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(LOCK_KEY))) {
+            stringRedisTemplate.opsForHash().put(STATE_KEY, "stopRequested", "1");
+        }
+    }
+
+    /**
+     * 核对进度与结果
+     *
+     * @return 进度与结果
+     */
+    @Override
+    public StorageReconcileStatusVO getStatus() {
+        Progress progress = new Progress(stringRedisTemplate.opsForHash().entries(STATE_KEY));
+        StorageReconcileStatusVO status = new StorageReconcileStatusVO();
+        status.setStatus(progress.status);
+        status.setPhase(progress.phase);
+        status.setDeleteOrphans(progress.deleteOrphans);
+        status.setCheckpoint(progress.checkpoint);
+        status.setStartTime(toDateTime(progress.startTime));
+        status.setUpdateTime(toDateTime(progress.updateTime));
+        status.setScannedObjects(progress.scannedObjects);
+        status.setScannedReferences(progress.scannedReferences);
+        status.setOrphans(progress.orphans);
+        status.setOrphanBytes(progress.orphanBytes);
+        status.setQueuedDeletions(progress.queuedDeletions);
+        status.setUnmanagedObjects(progress.unmanagedObjects);
+        status.setBrokenLinks(progress.brokenLinks);
+        status.setStaleUploads(progress.staleUploads);
+        status.setAbortedUploads(progress.abortedUploads);
+        status.setLastError(progress.lastError);
+        status.setOrphanSamples(stringRedisTemplate.opsForList().range(ORPHANS_KEY, 0, -1));
+        status.setBrokenLinkSamples(stringRedisTemplate.opsForList().range(BROKEN_LINKS_KEY, 0, -1));
+        return status;
+    }
+
+    /**
+     * 按配置的时间定时核对，上次核对未完成时继续
+     */
+    @Override
+    @Scheduled(cron = "${storage-reconcile.cron:-}")
+    public void runScheduled() {
+        try {
+            if (start(scheduledDeleteOrphans, false)) {
+                log.info("定时对象存储核对已开始");
+            }
+        } catch (Exception e) {
+            log.error("定时对象存储核对启动失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 读取上次的进度，不继续时清空进度与示例
+     */
+    private Progress prepare(boolean deleteOrphans, boolean restart) {
+        Map<Object, Object> state = stringRedisTemplate.opsForHash().entries(STATE_KEY);
+        Object status = state.get("status");
+        // 状态为 running 说明上次运行的节点已退出（锁已过期）
+        boolean resume = !restart && (STATUS_RUNNING.equals(status) || STATUS_STOPPED.equals(status)
+                || STATUS_FAILED.equals(status));
+        if (!resume) {
+            stringRedisTemplate.delete(List.of(STATE_KEY, ORPHANS_KEY, BROKEN_LINKS_KEY));
+            state = Map.of();
+        }
+        stringRedisTemplate.opsForHash().delete(STATE_KEY, "stopRequested", "lastError");
+        Progress progress = new Progress(state);
+        if (!resume) {
+            progress.phase = PHASE_OBJECTS;
+            progress.startTime = System.currentTimeMillis();
+        }
+        progress.status = STATUS_RUNNING;
+        progress.deleteOrphans = deleteOrphans;
+        progress.lastError = null;
+        save(progress);
+        return progress;
+    }
+
+    private void run(Progress progress, String token) {
+        progress.runStart = System.currentTimeMillis();
+        try {
+            if (PHASE_OBJECTS.equals(progress.phase)) {
+                reconcileObjects(progress, token);
+                progress.phase = PHASE_UPLOADS;
+                progress.checkpoint = null;
+                progress.checkpointUploadId = null;
+                save(progress);
+            }
+            reconcileUploads(progress, token);
+            progress.status = STATUS_COMPLETED;
+            save(progress);
+            log.info("对象存储核对完成：对象 {} 个，引用 {} 个，孤立对象 {} 个，断链 {} 个，过期分片上传 {} 个",
+                    progress.scannedObjects, progress.scannedReferences, progress.orphans,
+                    progress.brokenLinks, progress.staleUploads);
+        } catch (CancellationException e) {
+            // 停止前已保存进度
+            progress.status = STATUS_STOPPED;
+            saveStatus(progress.status, null);
+            log.info("对象存储核对已停止，进度: {} {}", progress.phase, progress.checkpoint);
+        } catch (Exception e) {
+            // 内存中的进度可能超过已保存的位置，只记录状态，继续时从已保存的位置开始
+            saveStatus(STATUS_FAILED, e.getMessage());
+            log.error("对象存储核对失败: {}", e.getMessage());
+        } finally {
+            releaseLock(token);
+            running.set(false);
+        }
+    }
+
+    /**
+     * 有序归并存储桶列表与数据库引用，只在存储桶中出现的是孤立对象，只在数据库中出现的是断链。
+     * 每个 URL 字段按索引顺序单独分页读取，再多路归并为一个有序的引用序列
+     */
+    private void reconcileObjects(Progress progress, String token) {
+        String prefix = minioService.getObjectUrl("");
+        long cutoff = System.currentTimeMillis() - minAge;
+        Iterator<MinioService.ListedObject> objects = minioService.listObjects(progress.checkpoint).iterator();
+        String after = progress.checkpoint == null ? prefix : prefix + progress.checkpoint;
+        List<Iterator<StorageReferenceVO>> columns = new ArrayList<>();
+        for (String[] column : REFERENCE_COLUMNS) {
+            columns.add(new ColumnIterator(column[0], column[1], column[0] + "." + column[1], prefix, after));
+        }
+        // 波形文件都在 peaks/ 目录下，进度已越过该目录时不再读取
+        String checkpoint = progress.checkpoint;
+        if (checkpoint == null || checkpoint.startsWith(PEAKS_DIR)
+                || SortedMerge.CODE_POINT_ORDER.compare(checkpoint, PEAKS_DIR) < 0) {
+            columns.add(new PeaksIterator(prefix, after));
+        }
+        Iterator<StorageReferenceVO> references = SortedMerge.union(columns, StorageReferenceVO::getUrl);
+
+        SortedMerge.merge(objects, MinioService.ListedObject::objectName,
+                references, reference -> reference.getUrl().substring(prefix.length()),
+                new SortedMerge.Listener<>() {
+                    @Override
+                    public void leftOnly(MinioService.ListedObject object) {
+                        progress.scannedObjects++;
+                        if (!isManaged(object.objectName())) {
+                            progress.unmanagedObjects++;
+                        } else if (object.lastModified() < cutoff) {
+                            progress.orphans++;
+                            progress.orphanBytes += object.size();
+                            if (progress.orphans <= sampleSize) {
+                                progress.orphanSamples.add(object.objectName());
+                            }
+                            if (progress.deleteOrphans) {
+                                progress.orphanUrls.add(prefix + object.objectName());
+                            }
+                        }
+                        advance(progress, object.objectName(), token);
+                    }
+
+                    @Override
+                    public void rightOnly(StorageReferenceVO reference) {
+                        progress.scannedReferences++;
+                        if (!reference.getSource().startsWith(PEAKS_SOURCE)) {
+                            progress.brokenLinks++;
+                            if (progress.brokenLinks <= sampleSize) {
+                                progress.brokenLinkSamples.add(reference.getSource() + " " + reference.getUrl());
+                            }
+                        }
+                        advance(progress, reference.getUrl().substring(prefix.length()), token);
+                    }
+
+                    @Override
+                    public void both(MinioService.ListedObject object, StorageReferenceVO reference) {
+                        progress.scannedObjects++;
+                        progress.scannedReferences++;
+                        advance(progress, object.objectName(), token);
+                    }
+                });
+        checkpoint(progress, token);
+    }
+
+    /**
+     * 检查未完成的分片上传，超过保留时间的视为被放弃（断点续传会话过期后未能取消的）。
+     * 进度记录最后处理的对象名与分片上传id，继续运行时从它之后列出，同一对象的其他分片上传不会被跳过
+     */
+    private void reconcileUploads(Progress progress, String token) {
+        long cutoff = System.currentTimeMillis() - minAge;
+        for (MinioService.IncompleteUpload upload
+                : minioService.listIncompleteUploads(progress.checkpoint, progress.checkpointUploadId)) {
+            if (upload.initiated() < cutoff) {
+                progress.staleUploads++;
+                if (progress.deleteOrphans) {
+                    try {
+                        minioService.abortMultipartUpload(upload.objectName(), upload.uploadId());
+                        progress.abortedUploads++;
+                    } catch (RuntimeException e) {
+                        log.warn("取消过期的分片上传失败: {}, {}", upload.objectName(), e.getMessage());
+                    }
+                }
+            }
+            progress.checkpointUploadId = upload.uploadId();
+            advance(progress, upload.objectName(), token);
+        }
+        checkpoint(progress, token);
+    }
+
+    private void advance(Progress progress, String key, String token) {
+        progress.checkpoint = key;
+        if (++progress.pending >= pageSize) {
+            checkpoint(progress, token);
+        }
+    }
+
+    /**
+     * 登记待删除的孤立对象、保存示例与进度，然后续期运行锁、限速并检查是否需要停止
+     */
+    private void checkpoint(Progress progress, String token) {
+        if (!progress.orphanUrls.isEmpty()) {
+            storageDeletionService.enqueue(progress.orphanUrls);
+            progress.queuedDeletions += progress.orphanUrls.size();
+            progress.orphanUrls.clear();
+        }
+        appendSamples(ORPHANS_KEY, progress.orphanSamples);
+        appendSamples(BROKEN_LINKS_KEY, progress.brokenLinkSamples);
+        save(progress);
+
+        if (!token.equals(stringRedisTemplate.opsForValue().get(LOCK_KEY))) {
+            throw new IllegalStateException("核对运行锁已失效");
+        }
+        stringRedisTemplate.expire(LOCK_KEY, lockTtl, TimeUnit.SECONDS);
+
+        progress.processed += progress.pending;
+        progress.pending = 0;
+        long delay = progress.processed * 1000 / rate - (System.currentTimeMillis() - progress.runStart);
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException();
+            }
+        }
+        if (stopRequested || stringRedisTemplate.opsForHash().hasKey(STATE_KEY, "stopRequested")) {
+            throw new CancellationException();
+        }
+    }
+
+    private void appendSamples(String key, List<String> samples) {
+        if (samples.isEmpty()) {
+            return;
+        }
+        stringRedisTemplate.opsForList().rightPushAll(key, samples);
+        stringRedisTemplate.opsForList().trim(key, 0, sampleSize - 1);
+        samples.clear();
+    }
+
+    private void save(Progress progress) {
+        progress.updateTime = System.currentTimeMillis();
+        stringRedisTemplate.opsForHash().putAll(STATE_KEY, progress.toMap());
+        if (progress.checkpoint == null) {
+            stringRedisTemplate.opsForHash().delete(STATE_KEY, "checkpoint");
+        }
+        if (progress.checkpointUploadId == null) {
+            stringRedisTemplate.opsForHash().delete(STATE_KEY, "checkpointUploadId");
+        }
+    }
+
+    private void saveStatus(String status, String lastError) {
+        try {
+            Map<String, String> fields = new HashMap<>();
+            fields.put("status", status);
+            fields.put("updateTime", String.valueOf(System.currentTimeMillis()));
+            if (lastError != null) {
+                fields.put("lastError", lastError);
+            }
+            stringRedisTemplate.opsForHash().putAll(STATE_KEY, fields);
+        } catch (Exception e) {
+            log.warn("对象存储核对状态保存失败: {}", e.getMessage());
+        }
+    }
+
+    private void releaseLock(String token) {
+        try {
+            if (token.equals(stringRedisTemplate.opsForValue().get(LOCK_KEY))) {
+                stringRedisTemplate.delete(LOCK_KEY);
+            }
+        } catch (Exception e) {
+            log.warn("对象存储核对运行锁释放失败: {}", e.getMessage());
+        }
+    }
+
+    private boolean isManaged(String objectName) {
+        for (String managedPrefix : managedPrefixes) {
+            if (objectName.startsWith(managedPrefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static LocalDateTime toDateTime(Long millis) {
+        return millis == null ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    /**
+     * 按 URL 顺序分页读取一个 URL 字段，只返回本存储桶的 URL
+     */
+    private class ColumnIterator implements Iterator<StorageReferenceVO> {
+
+        private final String table;
+        private final String column;
+        private final String source;
+        private final String prefix;
+        private String after;
+        private Iterator<StorageReferenceVO> page = Collections.emptyIterator();
+        private boolean exhausted;
+        private StorageReferenceVO next;
+
+        /**
+         * @param after 从该 URL 之后开始读取，不能小于 prefix
+         */
+        ColumnIterator(String table, String column, String source, String prefix, String after) {
+            this.table = table;
+            this.column = column;
+            this.source = source;
+            this.prefix = prefix;
+            this.after = after;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                if (page.hasNext()) {
+                    StorageReferenceVO reference = page.next();
+                    // 从 prefix 开始按二进制顺序读取，第一个不以 prefix 开头的 URL 之后都不是本存储桶的
+                    if (!reference.getUrl().startsWith(prefix)) {
+                        exhausted = true;
+                        page = Collections.emptyIterator();
+                        return false;
+                    }
+                    next = reference;
+                    continue;
+                }
+                if (exhausted) {
+                    return false;
+                }
+                List<StorageReferenceVO> references = storageReferenceMapper.selectColumnAfter(
+                        table, column, source, after, pageSize);
+                exhausted = references.size() < pageSize;
+                if (!references.isEmpty()) {
+                    after = references.get(references.size() - 1).getUrl();
+                }
+                page = references.iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public StorageReferenceVO next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            StorageReferenceVO reference = next;
+            next = null;
+            return reference;
+        }
+    }
+
+    /**
+     * 由歌曲音频 URL 派生的波形文件 URL（peaks/ + 音频对象名 + .peaks），按 URL 顺序返回
+     * <p>
+     * 音频对象名是另一个的前缀时（如 a 与 a.mp3），加上后缀后的顺序可能与音频 URL 的顺序相反，
+     * 派生的 URL 先放入缓冲区，确定之后读到的音频不会派生出更小的 URL 时才返回。
+     * 之后的音频 URL 不小于当前的 r，派生出的 URL 一定大于 peaks/ + r，缓冲区中小于它的可以返回
+     */
+    private class PeaksIterator implements Iterator<StorageReferenceVO> {
+
+        private final String prefix;
+        private final String after;
+        private final ColumnIterator audios;
+        private final TreeMap<String, StorageReferenceVO> buffer = new TreeMap<>(SortedMerge.CODE_POINT_ORDER);
+        private StorageReferenceVO pendingAudio;
+
+        /**
+         * @param after 只返回大于该 URL 的波形文件 URL
+         */
+        PeaksIterator(String prefix, String after) {
+            this.prefix = prefix;
+            this.after = after;
+            this.audios = new ColumnIterator("tb_song", "audio_url", "tb_song.peaks", prefix, prefix);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (true) {
+                if (pendingAudio == null && audios.hasNext()) {
+                    pendingAudio = audios.next();
+                }
+                if (pendingAudio == null) {
+                    return !buffer.isEmpty();
+                }
+                String bound = prefix + PEAKS_DIR + pendingAudio.getUrl().substring(prefix.length());
+                if (!buffer.isEmpty() && SortedMerge.CODE_POINT_ORDER.compare(buffer.firstKey(), bound) < 0) {
+                    return true;
+                }
+                String url = bound + PEAKS_SUFFIX;
+                if (SortedMerge.CODE_POINT_ORDER.compare(url, after) > 0) {
+                    StorageReferenceVO peaks = new StorageReferenceVO();
+                    peaks.setUrl(url);
+                    peaks.setSource(pendingAudio.getSource());
+                    buffer.put(url, peaks);
+                }
+                pendingAudio = null;
+            }
+        }
+
+        @Override
+        public StorageReferenceVO next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return buffer.pollFirstEntry().getValue();
+        }
+    }
+
+    /**
+     * 核对进度，计数跨多次运行累计；示例与待删除对象在保存进度时写出
+     */
+    private static class Progress {
+
+        private String status;
+        private String phase;
+        private boolean deleteOrphans;
+        private String checkpoint;
+        // 分片上传阶段最后处理的分片上传id，与 checkpoint 中的对象名一起确定继续的位置
+        private String checkpointUploadId;
+        private Long startTime;
+        private Long updateTime;
+        private long scannedObjects;
+        private long scannedReferences;
+        private long orphans;
+        private long orphanBytes;
+        private long queuedDeletions;
+        private long unmanagedObjects;
+        private long brokenLinks;
+        private long staleUploads;
+        private long abortedUploads;
+        private String lastError;
+
+        private final List<String> orphanUrls = new ArrayList<>();
+        private final List<String> orphanSamples = new ArrayList<>();
+        private final List<String> brokenLinkSamples = new ArrayList<>();
+        // 本次运行的开始时间与已处理数，用于限速
+        private long runStart;
+        private long processed;
+        private int pending;
+
+        Progress(Map<Object, Object> state) {
+            status = (String) state.getOrDefault("status", STATUS_IDLE);
+            phase = (String) state.get("phase");
+            deleteOrphans = Boolean.parseBoolean((String) state.get("deleteOrphans"));
+            checkpoint = (String) state.get("checkpoint");
+            checkpointUploadId = (String) state.get("checkpointUploadId");
+            startTime = parseLong(state.get("startTime"));
+            updateTime = parseLong(state.get("updateTime"));
+            scannedObjects = count(state, "scannedObjects");
+            scannedReferences = count(state, "scannedReferences");
+            orphans = count(state, "orphans");
+            orphanBytes = count(state, "orphanBytes");
+            queuedDeletions = count(state, "queuedDeletions");
+            unmanagedObjects = count(state, "unmanagedObjects");
+            brokenLinks = count(state, "brokenLinks");
+            staleUploads = count(state, "staleUploads");
+            abortedUploads = count(state, "abortedUploads");
+            lastError = (String) state.get("lastError");
+        }
+
+        Map<String, String> toMap() {
+            Map<String, String> map = new HashMap<>();
+            map.put("status", status);
+            map.put("phase", phase);
+            map.put("deleteOrphans", String.valueOf(deleteOrphans));
+            if (checkpoint != null) {
+                map.put("checkpoint", checkpoint);
+            }
+            if (checkpointUploadId != null) {
+                map.put("checkpointUploadId", checkpointUploadId);
+            }
+            map.put("startTime", String.valueOf(startTime));
+            map.put("updateTime", String.valueOf(updateTime));
+            map.put("scannedObjects", String.valueOf(scannedObjects));
+            map.put("scannedReferences", String.valueOf(scannedReferences));
+            map.put("orphans", String.valueOf(orphans));
+            map.put("orphanBytes", String.valueOf(orphanBytes));
+            map.put("queuedDeletions", String.valueOf(queuedDeletions));
+            map.put("unmanagedObjects", String.valueOf(unmanagedObjects));
+            map.put("brokenLinks", String.valueOf(brokenLinks));
+            map.put("staleUploads", String.valueOf(staleUploads));
+            map.put("abortedUploads", String.valueOf(abortedUploads));
+            return map;
+        }
+
+        private static long count(Map<Object, Object> state, String field) {
+            Long value = parseLong(state.get(field));
+            return value == null ? 0 : value;
+        }
+
+        private static Long parseLong(Object value) {
+            return value == null ? null : Long.valueOf((String) value);
+        }
+    }
+
+}
@@ -1,22 +1,27 @@
 package cn.edu.seig.vibemusic.service.impl;
 
-import cn.edu.seig.vibemusic.constant.JwtClaimsConstant;
+import cn.edu.seig.vibemusic.cache.CacheTags;
+import cn.edu.seig.vibemusic.cache.SongCatalog;
+import cn.edu.seig.vibemusic.cache.TaggedCacheManager;
 import cn.edu.seig.vibemusic.constant.MessageConstant;
 import cn.edu.seig.vibemusic.enumeration.LikeStatusEnum;
 import cn.edu.seig.vibemusic.mapper.PlaylistMapper;
 import cn.edu.seig.vibemusic.mapper.SongMapper;
 import cn.edu.seig.vibemusic.mapper.UserFavoriteMapper;
 import cn.edu.seig.vibemusic.model.dto.PlaylistDTO;
+import cn.edu.seig.vibemusic.model.dto.SongCursorDTO;
 import cn.edu.seig.vibemusic.model.dto.SongDTO;
 import cn.edu.seig.vibemusic.model.entity.Playlist;
 import cn.edu.seig.vibemusic.model.entity.UserFavorite;
 import cn.edu.seig.vibemusic.model.vo.PlaylistVO;
 import cn.edu.seig.vibemusic.model.vo.SongVO;
+import cn.edu.seig.vibemusic.result.CursorPageResult;
 import cn.edu.seig.vibemusic.result.PageResult;
 import cn.edu.seig.vibemusic.result.Result;
+import cn.edu.seig.vibemusic.service.FavoriteBitmapService;
 import cn.edu.seig.vibemusic.service.IUserFavoriteService;
-import cn.edu.seig.vibemusic.util.ThreadLocalUtil;
-import cn.edu.seig.vibemusic.util.TypeConversionUtil;
+import cn.edu.seig.vibemusic.util.AuthContext;
+import cn.edu.seig.vibemusic.util.CursorUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
@@ -24,7 +29,6 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheConfig;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
@@ -53,6 +57,12 @@ public class UserFavoriteServiceImpl extends ServiceImpl<UserFavoriteMapper, Use
     private SongMapper songMapper;
     @Autowired
     private PlaylistMapper playlistMapper;
+    @Autowired
+    private FavoriteBitmapService favoriteBitmapService;
+    @Autowired
+    private TaggedCacheManager cacheManager;
+    @Autowired
+    private SongCatalog songCatalog;
 
     /**
      * 获取用户收藏的歌曲列表
@@ -61,11 +71,9 @@ public class UserFavoriteServiceImpl extends ServiceImpl<UserFavoriteMapper, Use
      * @return 用户收藏的歌曲列表
      */
     @Override
-    @Cacheable(key = "#songDTO.pageNum + '-' + #songDTO.pageSize + '-' + #songDTO.songName + '-' + #songDTO.artistName")
+    @Cacheable(key = "T(cn.edu.seig.vibemusic.util.AuthContext).current().userId + '-' + #songDTO.pageNum + '-' + #songDTO.pageSize + '-' + #songDTO.songName + '-' + #songDTO.artistName")
     public Result<PageResult<SongVO>> getUserFavoriteSongs(SongDTO songDTO) {
-        Map<String, Object> map = ThreadLocalUtil.get();
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long userId = TypeConversionUtil.toLong(userIdObj);
+        Long userId = AuthContext.current().getUserId();
 
         // 获取用户收藏的歌曲 ID 列表（已去重）
         List<Long> favoriteSongIds = userFavoriteMapper.getUserFavoriteSongIds(userId);
@@ -91,10 +99,56 @@ public class UserFavoriteServiceImpl extends ServiceImpl<UserFavoriteMapper, Use
             }
         }
         List<SongVO> songVOList = new ArrayList<>(songMap.values());
+        CacheTags.tag(CacheTags.of(CacheTags.USER, userId));
+        CacheTags.tag(CacheTags.SONG, songMap.keySet());
 
         return Result.success(new PageResult<>((long) songMap.size(), songVOList));
     }
 
+    /**
+     * 游标分页获取用户收藏的歌曲列表
+     * 按收藏时间倒序做 keyset 分页，只回表查询当前页的歌曲
+     *
+     * @param songCursorDTO 歌曲查询条件
+     * @return 用户收藏的歌曲列表
+     */
+    @Override
+    public Result<CursorPageResult<SongVO>> getFavoriteSongsByCursor(SongCursorDTO songCursorDTO) {
+        Long userId = AuthContext.current().getUserId();
+
+        int pageSize = CursorUtil.limitPageSize(songCursorDTO.getPageSize());
+        LocalDateTime createTime = null;
+        Long songId = null;
+        if (songCursorDTO.getCursor() != null && !songCursorDTO.getCursor().isEmpty()) {
+            String[] values = CursorUtil.decode(songCursorDTO.getCursor(), "favorite", 2);
+            try {
+                if (values == null) {
+                    throw new IllegalArgumentException();
+                }
+                createTime = LocalDateTime.parse(values[0]);
+                songId = Long.parseLong(values[1]);
+            } catch (RuntimeException e) {
+                return Result.error(MessageConstant.CURSOR + MessageConstant.INVALID);
+            }
+        }
+
+        String songName = songCursorDTO.getSongName();
+        String artistName = songCursorDTO.getArtistName();
+        List<UserFavorite> rows = userFavoriteMapper.getFavoriteSongsByCursor(userId, songName, artistName, createTime, songId, pageSize + 1);
+        Long total = Boolean.TRUE.equals(songCursorDTO.getWithTotal())
+                ? userFavoriteMapper.countFavoriteSongs(userId, songName, artistName) : null;
+        CursorPageResult<UserFavorite> favoritePage = CursorPageResult.of(rows, pageSize,
+                favorite -> CursorUtil.encode("favorite", favorite.getCreateTime(), favorite.getSongId()), total);
+
+        // 按收藏顺序回填歌曲信息
+        List<Long> songIds = favoritePage.getItems().stream().map(UserFavorite::getSongId).toList();
+        List<SongVO> songVOList = songCatalog.getAll(songIds);
+        songVOList.forEach(songVO -> songVO.setLikeStatus(LikeStatusEnum.LIKE.getId())); // 设置为已收藏
+
+        return Result.success(new CursorPageResult<>(songVOList, favoritePage.getNextCursor(),
+                favoritePage.getHasMore(), favoritePage.getTotal()));
+    }
+
     /**
      * 收藏歌曲
      *
@@ -102,11 +156,8 @@ public class UserFavoriteServiceImpl extends ServiceImpl<UserFavoriteMapper, Use
      * @return 成功或失败
      */
     @Override
-    @CacheEvict(cacheNames = {"userFavoriteCache", "songCache", "artistCache", "playlistCache"}, allEntries = true)
     public Result collectSong(Long songId) {
-        Map<String, Object> map = ThreadLocalUtil.get();
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long userId = TypeConversionUtil.toLong(userIdObj);
+        Long userId = AuthContext.current().getUserId();
 
         // 先检查是否已收藏（防止重复插入）
         QueryWrapper<UserFavorite> queryWrapper = new QueryWrapper<>();
@@ -127,6 +178,8 @@ public class UserFavoriteServiceImpl extends ServiceImpl<UserFavoriteMapper, Use
             }
             throw e; // 其他异常继续抛出
         }
+        favoriteBitmapService.add(userId, songId);
+        cacheManager.evictTags(CacheTags.of(CacheTags.USER, userId));
 
         return Result.success(MessageConstant.ADD + MessageConstant.SUCCESS);
     }
@@ -138,11 +191,8 @@ public class UserFavoriteServiceImpl extends ServiceImpl<UserFavoriteMapper, Use
      * @return 成功或失败
      */
     @Override
-    @CacheEvict(cacheNames = {"userFavoriteCache", "songCache", "artistCache", "playlistCache"}, allEntries = true)
     public Result cancelCollectSong(Long songId) {
-        Map<String, Object> map = ThreadLocalUtil.get();
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long userId = TypeConversionUtil.toLong(userIdObj);
+        Long userId = AuthContext.current().getUserId();
 
         // 删除所有重复的收藏记录（如果有的话）
         QueryWrapper<UserFavorite> queryWrapper = new QueryWrapper<>();
@@ -152,6 +202,8 @@ public class UserFavoriteServiceImpl extends ServiceImpl<UserFavoriteMapper, Use
         if (deletedCount == 0) {
             return Result.error(MessageConstant.DELETE + MessageConstant.FAILED);
         }
+        favoriteBitmapService.remove(userId, songId);
+        cacheManager.evictTags(CacheTags.of(CacheTags.USER, userId));
 
         return Result.success(MessageConstant.DELETE + MessageConstant.SUCCESS);
     }
@@ -163,11 +215,9 @@ public class UserFavoriteServiceImpl extends ServiceImpl<UserFavoriteMapper, Use
      * @return 用户收藏的歌单列表
      */
     @Override
-    @Cacheable(key = "#playlistDTO.pageNum + '-' + #playlistDTO.pageSize + '-' + #playlistDTO.title + '-' + #playlistDTO.style")
+    @Cacheable(key = "T(cn.edu.seig.vibemusic.util.AuthContext).current().userId + '-' + #playlistDTO.pageNum + '-' + #playlistDTO.pageSize + '-' + #playlistDTO.title + '-' + #playlistDTO.style")
     public Result<PageResult<PlaylistVO>> getUserFavoritePlaylists(PlaylistDTO playlistDTO) {
-        Map<String, Object> map = ThreadLocalUtil.get();
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long userId = TypeConversionUtil.toLong(userIdObj);
+        Long userId = AuthContext.current().getUserId();
 
         // 获取用户收藏的歌单 ID 列表
         List<Long> favoritePlaylistIds = userFavoriteMapper.getUserFavoritePlaylistIds(userId);
@@ -185,6 +235,9 @@ public class UserFavoriteServiceImpl extends ServiceImpl<UserFavoriteMapper, Use
                 playlistDTO.getStyle()
         );
 
+        CacheTags.tag(CacheTags.of(CacheTags.USER, userId));
+        CacheTags.tag(CacheTags.PLAYLIST, playlistPage.getRecords().stream().map(PlaylistVO::getPlaylistId).toList());
+
         return Result.success(new PageResult<>(playlistPage.getTotal(), playlistPage.getRecords()));
     }
 
@@ -195,11 +248,8 @@ public class UserFavoriteServiceImpl extends ServiceImpl<UserFavoriteMapper, Use
      * @return 成功或失败
      */
     @Override
-    @CacheEvict(cacheNames = {"userFavoriteCache", "songCache", "artistCache", "playlistCache"}, allEntries = true)
     public Result collectPlaylist(Long playlistId) {
-        Map<String, Object> map = ThreadLocalUtil.get();
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long userId = TypeConversionUtil.toLong(userIdObj);
+        Long userId = AuthContext.current().getUserId();
 
         QueryWrapper<UserFavorite> queryWrapper = new QueryWrapper<>();
         queryWrapper.eq("user_id", userId).eq("type", 1).eq("playlist_id", playlistId);
@@ -210,6 +260,7 @@ public class UserFavoriteServiceImpl extends ServiceImpl<UserFavoriteMapper, Use
         UserFavorite userFavorite = new UserFavorite();
         userFavorite.setUserId(userId).setType(1).setPlaylistId(playlistId).setCreateTime(LocalDateTime.now());
         userFavoriteMapper.insert(userFavorite);
+        cacheManager.evictTags(CacheTags.of(CacheTags.USER, userId));
 
         return Result.success(MessageConstant.ADD + MessageConstant.SUCCESS);
     }
@@ -221,17 +272,15 @@ public class UserFavoriteServiceImpl extends ServiceImpl<UserFavoriteMapper, Use
      * @return 成功或失败
      */
     @Override
-    @CacheEvict(cacheNames = {"userFavoriteCache", "songCache", "artistCache", "playlistCache"}, allEntries = true)
     public Result cancelCollectPlaylist(Long playlistId) {
-        Map<String, Object> map = ThreadLocalUtil.get();
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long userId = TypeConversionUtil.toLong(userIdObj);
+        Long userId = AuthContext.current().getUserId();
 
         QueryWrapper<UserFavorite> queryWrapper = new QueryWrapper<>();
         queryWrapper.eq("user_id", userId).eq("type", 1).eq("playlist_id", playlistId);
         if (userFavoriteMapper.delete(queryWrapper) == 0) {
             return Result.error(MessageConstant.DELETE + MessageConstant.FAILED);
         }
+        cacheManager.evictTags(CacheTags.of(CacheTags.USER, userId));
 
         return Result.success(MessageConstant.DELETE + MessageConstant.SUCCESS);
     }
@@ -1,6 +1,7 @@
 package cn.edu.seig.vibemusic.service.impl;
 
 
+import cn.edu.seig.vibemusic.cache.TaggedCacheManager;
 import cn.edu.seig.vibemusic.constant.JwtClaimsConstant;
 import cn.edu.seig.vibemusic.constant.MessageConstant;
 import cn.edu.seig.vibemusic.enumeration.RoleEnum;
@@ -14,12 +15,13 @@ import cn.edu.seig.vibemusic.model.vo.UserManagementVO;
 import cn.edu.seig.vibemusic.model.vo.UserVO;
 import cn.edu.seig.vibemusic.result.PageResult;
 import cn.edu.seig.vibemusic.result.Result;
+import cn.edu.seig.vibemusic.service.CatalogSearchService;
 import cn.edu.seig.vibemusic.service.EmailService;
 import cn.edu.seig.vibemusic.service.IUserService;
 import cn.edu.seig.vibemusic.service.MinioService;
-import cn.edu.seig.vibemusic.util.JwtUtil;
-import cn.edu.seig.vibemusic.util.ThreadLocalUtil;
-import cn.edu.seig.vibemusic.util.TypeConversionUtil;
+import cn.edu.seig.vibemusic.service.SessionService;
+import cn.edu.seig.vibemusic.util.AuthContext;
+import cn.edu.seig.vibemusic.util.RandomCodeUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
@@ -27,10 +29,10 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.util.DigestUtils;
@@ -39,7 +41,9 @@ import lombok.extern.slf4j.Slf4j;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -66,23 +70,40 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
     @Autowired
     private ArtistMapper artistMapper;
     @Autowired
-    private RedisTemplate<Object, Object> redisTemplate;
+    private TaggedCacheManager cacheManager;
+    @Autowired
+    private CatalogSearchService catalogSearchService;
+    @Autowired
+    private SessionService sessionService;
+
+    // 同一邮箱两次发送验证码的最小间隔，单位毫秒
+    @Value("${verification-code.cooldown:60000}")
+    private long verificationCodeCooldown;
 
     /**
-     * 发送验证码
+     * 发送验证码：验证码存入 Redis 后邮件加入发送队列即返回，不等待 SMTP；
+     * 冷却时间内对同一邮箱的重复请求不再生成新验证码，也不重复发送
      *
      * @param email 用户邮箱
      * @return 结果
      */
     @Override
     public Result sendVerificationCode(String email) {
-        String verificationCode = emailService.sendVerificationCodeEmail(email);
-        if (verificationCode == null) {
-            return Result.error(MessageConstant.EMAIL_SEND_FAILED);
+        // 大小写或首尾空格不同的同一邮箱共用冷却时间与验证码
+        String cooldownKey = "verificationCode:cooldown:" + normalizeEmail(email);
+        if (!Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                .setIfAbsent(cooldownKey, "1", verificationCodeCooldown, TimeUnit.MILLISECONDS))) {
+            // 上一封验证码邮件仍有效，视为发送成功
+            return Result.success(MessageConstant.EMAIL_SEND_SUCCESS);
         }
 
         // 将验证码存储到Redis中，设置过期时间为5分钟
-        stringRedisTemplate.opsForValue().set("verificationCode:" + email, verificationCode, 5, TimeUnit.MINUTES);
+        String verificationCode = RandomCodeUtil.generateRandomCode();
+        stringRedisTemplate.opsForValue().set(verificationCodeKey(email), verificationCode, 5, TimeUnit.MINUTES);
+        if (!emailService.sendVerificationCodeEmail(email.trim(), verificationCode)) {
+            stringRedisTemplate.delete(cooldownKey);
+            return Result.error(MessageConstant.EMAIL_SEND_FAILED);
+        }
         return Result.success(MessageConstant.EMAIL_SEND_SUCCESS);
     }
 
@@ -95,10 +116,19 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
      */
     @Override
     public boolean verifyVerificationCode(String email, String verificationCode) {
-        String storedCode = stringRedisTemplate.opsForValue().get("verificationCode:" + email);
+        String storedCode = stringRedisTemplate.opsForValue().get(verificationCodeKey(email));
         return storedCode != null && storedCode.equals(verificationCode);
     }
 
+    private static String verificationCodeKey(String email) {
+        return "verificationCode:" + normalizeEmail(email);
+    }
+
+    // 邮箱去掉首尾空格并转为小写后作为 Redis key 的一部分
+    private static String normalizeEmail(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
     /**
      * 用户注册
      *
@@ -109,7 +139,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
     @CacheEvict(cacheNames = "userCache", allEntries = true)
     public Result register(UserRegisterDTO userRegisterDTO) {
         // 删除Redis中的验证码
-        stringRedisTemplate.delete("verificationCode:" + userRegisterDTO.getEmail());
+        stringRedisTemplate.delete(verificationCodeKey(userRegisterDTO.getEmail()));
 
         User userByUsername = userMapper.selectOne(new QueryWrapper<User>().eq("username", userRegisterDTO.getUsername()));
         if (userByUsername != null) {
@@ -157,20 +187,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
             claims.put(JwtClaimsConstant.USER_ID, user.getUserId());
             claims.put(JwtClaimsConstant.USERNAME, user.getUsername());
             claims.put(JwtClaimsConstant.EMAIL, user.getEmail());
-            String token = JwtUtil.generateToken(claims);
-
-            // 先删除该用户之前的token（如果存在）
-            String oldTokenKey = "user:token:" + user.getUserId();
-            String oldToken = stringRedisTemplate.opsForValue().get(oldTokenKey);
-            if (oldToken != null && !oldToken.isEmpty()) {
-                // 删除旧的token
-                stringRedisTemplate.delete(oldToken);
-            }
-
-            // 将新token存入redis（使用token作为key，用于验证）
-            stringRedisTemplate.opsForValue().set(token, token, 6, TimeUnit.HOURS);
-            // 同时存储userId到token的映射（用于快速查找和清理）
-            stringRedisTemplate.opsForValue().set(oldTokenKey, token, 6, TimeUnit.HOURS);
+            // 登记会话并签发token，超出设备数上限时注销最早登录的会话
+            String token = sessionService.createToken(claims);
 
             return Result.success(MessageConstant.LOGIN + MessageConstant.SUCCESS, token);
         }
@@ -185,9 +203,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
      */
     @Override
     public Result<UserVO> userInfo() {
-        Map<String, Object> map = ThreadLocalUtil.get();
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long userId = TypeConversionUtil.toLong(userIdObj);
+        Long userId = AuthContext.current().getUserId();
         User user = userMapper.selectById(userId);
         if (user == null) {
             return Result.error(MessageConstant.NOT_FOUND);
@@ -217,9 +233,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
     @Override
     @CacheEvict(cacheNames = "userCache", allEntries = true)
     public Result updateUserInfo(UserDTO userDTO) {
-        Map<String, Object> map = ThreadLocalUtil.get();
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long userId = TypeConversionUtil.toLong(userIdObj);
+        Long userId = AuthContext.current().getUserId();
 
         User userByUsername = userMapper.selectOne(new QueryWrapper<User>().eq("username", userDTO.getUsername()));
         if (userByUsername != null && !userByUsername.getUserId().equals(userId)) {
@@ -266,6 +280,11 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
             return Result.error(MessageConstant.UPDATE + MessageConstant.FAILED);
         }
 
+        // 用户名即原创歌曲的歌手名，改名后重新索引其原创歌曲
+        if (!Objects.equals(userDTO.getUsername(), existingUser.getUsername())) {
+            catalogSearchService.refreshSongsOfCreator(userId);
+        }
+
         // 如果用户是原创歌手（gender=3），同步更新歌手表中的信息
         if (existingUser.getGender() != null && existingUser.getGender() == 3) {
             try {
@@ -302,15 +321,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
                 }
                 
                 // 清除歌手缓存，确保更新后的信息能立即显示
-                try {
-                    java.util.Set<Object> keys = redisTemplate.keys("artistCache::*");
-                    if (keys != null && !keys.isEmpty()) {
-                        redisTemplate.delete(keys);
-                        log.info("已清除歌手缓存，清除数量: {}", keys.size());
-                    }
-                } catch (Exception cacheException) {
-                    log.warn("清除歌手缓存失败", cacheException);
-                }
+                cacheManager.clearCache("artistCache");
             } catch (Exception e) {
                 log.error("同步更新歌手信息失败，userId: {}", userId, e);
                 // 不抛出异常，因为用户信息更新已经成功
@@ -329,9 +340,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
     @Override
     @CacheEvict(cacheNames = "userCache", allEntries = true)
     public Result updateUserAvatar(String avatarUrl) {
-        Map<String, Object> map = ThreadLocalUtil.get();
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long userId = TypeConversionUtil.toLong(userIdObj);
+        Long userId = AuthContext.current().getUserId();
 
         User user = userMapper.selectById(userId);
         String userAvatar = user.getUserAvatar();
@@ -368,15 +377,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
                     }
                     
                     // 清除歌手缓存，确保更新后的头像能立即显示
-                    try {
-                        java.util.Set<Object> keys = redisTemplate.keys("artistCache::*");
-                        if (keys != null && !keys.isEmpty()) {
-                            redisTemplate.delete(keys);
-                            log.info("已清除歌手缓存，清除数量: {}", keys.size());
-                        }
-                    } catch (Exception cacheException) {
-                        log.warn("清除歌手缓存失败", cacheException);
-                    }
+                    cacheManager.clearCache("artistCache");
                 } else {
                     log.info("用户是原创歌手但未找到对应的歌手记录，userId: {}, username: {}", 
                             userId, user.getUsername());
@@ -394,14 +395,12 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
      * 更新用户密码
      *
      * @param userPasswordDTO 用户密码信息
-     * @param token           认证token
+     * @param authContext     当前登录信息
      * @return 结果
      */
     @Override
-    public Result updateUserPassword(UserPasswordDTO userPasswordDTO, String token) {
-        Map<String, Object> map = ThreadLocalUtil.get();
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long userId = TypeConversionUtil.toLong(userIdObj);
+    public Result updateUserPassword(UserPasswordDTO userPasswordDTO, AuthContext authContext) {
+        Long userId = authContext.getUserId();
         User user = userMapper.selectById(userId);
         if (!user.getPassword().equals(DigestUtils.md5DigestAsHex(userPasswordDTO.getOldPassword().getBytes()))) {
             return Result.error(MessageConstant.OLD_PASSWORD_ERROR);
@@ -420,8 +419,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
             return Result.error(MessageConstant.UPDATE + MessageConstant.FAILED);
         }
 
-        // 注销token
-        stringRedisTemplate.delete(token);
+        // 注销该用户在所有设备上的会话
+        sessionService.revokeAll(authContext.getRole(), userId);
 
         return Result.success(MessageConstant.UPDATE + MessageConstant.SUCCESS);
     }
@@ -435,7 +434,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
     @Override
     public Result resetUserPassword(UserResetPasswordDTO userResetPasswordDTO) {
         // 删除Redis中的验证码
-        stringRedisTemplate.delete("verificationCode:" + userResetPasswordDTO.getEmail());
+        stringRedisTemplate.delete(verificationCodeKey(userResetPasswordDTO.getEmail()));
 
         User user = userMapper.selectOne(new QueryWrapper<User>().eq("email", userResetPasswordDTO.getEmail()));
         if (user == null) {
@@ -451,42 +450,23 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
             return Result.error(MessageConstant.PASSWORD + MessageConstant.RESET + MessageConstant.FAILED);
         }
 
+        // 注销该用户在所有设备上的会话
+        sessionService.revokeAll(RoleEnum.USER.getRole(), user.getUserId());
+
         return Result.success(MessageConstant.PASSWORD + MessageConstant.RESET + MessageConstant.SUCCESS);
     }
 
     /**
      * 登出
      *
-     * @param token 认证token
+     * @param authContext 当前登录信息
      * @return 结果
      */
     @Override
-    @CacheEvict(cacheNames = {"userCache", "userFavoriteCache", "songCache", "artistCache", "playlistCache"}, allEntries = true)
-    public Result logout(String token) {
-        // 尝试从token中提取实际的token值（去掉Bearer前缀）
-        String actualToken = token;
-        if (token != null && token.startsWith("Bearer ")) {
-            actualToken = token.substring(7);
-        }
-        
-        // 注销token（如果token存在则删除，不存在也视为成功，因为用户已经登出）
+    public Result logout(AuthContext authContext) {
+        // 注销当前会话（会话不存在也视为成功，因为用户已经登出）
         try {
-            // 先尝试从token中解析userId
-            try {
-                Map<String, Object> claims = JwtUtil.parseToken(actualToken);
-                Object userIdObj = claims.get(JwtClaimsConstant.USER_ID);
-                if (userIdObj != null) {
-                    Long userId = TypeConversionUtil.toLong(userIdObj);
-                    // 删除userId到token的映射
-                    stringRedisTemplate.delete("user:token:" + userId);
-                }
-            } catch (Exception e) {
-                // 如果解析失败，继续删除token本身
-                log.warn("解析token失败，继续删除token: " + e.getMessage());
-            }
-            
-            // 删除token本身
-            stringRedisTemplate.delete(actualToken);
+            sessionService.revoke(authContext);
             // 无论删除是否成功，都返回成功，因为用户已经登出
             return Result.success(MessageConstant.LOGOUT + MessageConstant.SUCCESS);
         } catch (Exception e) {
@@ -503,9 +483,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
     @Override
     @CacheEvict(cacheNames = "userCache", allEntries = true)
     public Result deleteAccount() {
-        Map<String, Object> map = ThreadLocalUtil.get();
-        Object userIdObj = map.get(JwtClaimsConstant.USER_ID);
-        Long userId = TypeConversionUtil.toLong(userIdObj);
+        Long userId = AuthContext.current().getUserId();
 
         // 查询用户信息，获取头像 URL
         User user = userMapper.selectById(userId);
@@ -523,6 +501,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
         if (userMapper.deleteById(userId) == 0) {
             return Result.error(MessageConstant.DELETE + MessageConstant.FAILED);
         }
+        // 注销该用户在所有设备上的会话
+        sessionService.revokeAll(RoleEnum.USER.getRole(), userId);
         return Result.success(MessageConstant.DELETE + MessageConstant.SUCCESS);
     }
 
@@ -693,6 +673,10 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
         if (rows == 0) {
             return Result.error(MessageConstant.UPDATE + MessageConstant.FAILED);
         }
+        // 禁用后立即注销该用户在所有设备上的会话
+        if (statusEnum == UserStatusEnum.DISABLE) {
+            sessionService.revokeAll(RoleEnum.USER.getRole(), userId);
+        }
         return Result.success(MessageConstant.UPDATE + MessageConstant.SUCCESS);
     }
 
@@ -708,6 +692,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
         if (userMapper.deleteById(userId) == 0) {
             return Result.error(MessageConstant.DELETE + MessageConstant.FAILED);
         }
+        sessionService.revokeAll(RoleEnum.USER.getRole(), userId);
         return Result.success(MessageConstant.DELETE + MessageConstant.SUCCESS);
     }
 
@@ -723,6 +708,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
         if (userMapper.deleteByIds(userIds) == 0) {
             return Result.error(MessageConstant.DELETE + MessageConstant.FAILED);
         }
+        userIds.forEach(userId -> sessionService.revokeAll(RoleEnum.USER.getRole(), userId));
         return Result.success(MessageConstant.DELETE + MessageConstant.SUCCESS);
     }
 
@@ -0,0 +1,1143 @@
+package cn.edu.seig.vibemusic.util;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 音频单遍流式分析器（MP3 / FLAC / WAV）
+ * <p>
+ * 分析器是一个 {@link OutputStream}，上传时把写入对象存储的数据同时写入分析器即可，
+ * 数据按到达顺序解析，只缓冲当前的帧头（FLAC 为当前帧），不保存整个文件：
+ * <ul>
+ *     <li>MP3：逐帧解析帧头，按帧数计算精确时长（跳过 Xing/Info/VBRI 信息帧）。不解码音频，
+ *     波形使用每个 granule 边信息中的 global_gain（量化步长，每级约 1.5dB）近似响度</li>
+ *     <li>FLAC：解码子帧得到采样，时长按解码出的采样数计算，波形为真实峰值</li>
+ *     <li>WAV：直接读取 PCM 采样，波形为真实峰值</li>
+ * </ul>
+ * 波形按时间均分为固定数量的桶，每个桶保存区间内的峰值（0-255）。总时长事先未知，
+ * 桶写满后两两合并、每桶覆盖的采样数翻倍，内存占用与文件大小无关。
+ * <p>
+ * 解析出错时分析器静默失效，{@link #finish()} 返回 null，不影响上传本身。
+ */
+public class AudioAnalyzer extends OutputStream {
+
+    public static final int DEFAULT_BUCKETS = 1024;
+
+    /**
+     * 波形文件格式（大端）：magic "VMPK"(4) | 版本(1) | 标志(1，bit0 为近似波形) | 桶数(2) |
+     * 时长毫秒(4) | 采样率(4) | 码率 bps(4) | 各桶峰值(桶数 × 1，0-255)
+     */
+    public static final int SIDECAR_HEADER_SIZE = 20;
+    private static final byte[] SIDECAR_MAGIC = {'V', 'M', 'P', 'K'};
+    private static final int SIDECAR_VERSION = 1;
+
+    private static final int INITIAL_BUFFER = 64 * 1024;
+    // 缓冲区上限，FLAC 帧需要完整缓冲后才能解码，正常的帧远小于该值
+    private static final int MAX_BUFFER = 4 * 1024 * 1024;
+
+    private final Parser parser;
+    private byte[] buffer = new byte[INITIAL_BUFFER];
+    private int start;
+    private int end;
+    // 解析器要求跳过、尚未到达的字节数
+    private long skip;
+    private long totalBytes;
+    private boolean failed;
+    private boolean finished;
+    private Analysis analysis;
+
+    private AudioAnalyzer(Parser parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * 按文件扩展名创建分析器
+     *
+     * @param fileName    文件名
+     * @param bucketCount 波形桶数
+     * @return 分析器，不支持的格式返回 null
+     */
+    public static AudioAnalyzer forFileName(String fileName, int bucketCount) {
+        if (fileName == null || bucketCount <= 0) {
+            return null;
+        }
+        PeakBuilder peaks = new PeakBuilder(bucketCount);
+        return switch (extensionOf(fileName)) {
+            case "mp3" -> new AudioAnalyzer(new Mp3Parser(peaks));
+            case "flac" -> new AudioAnalyzer(new FlacParser(peaks));
+            case "wav" -> new AudioAnalyzer(new WavParser(peaks));
+            default -> null;
+        };
+    }
+
+    /**
+     * 是否支持该文件的格式（按扩展名判断，不创建分析器）
+     *
+     * @param fileName 文件名
+     * @return 是否支持
+     */
+    public static boolean supports(String fileName) {
+        return fileName != null && switch (extensionOf(fileName)) {
+            case "mp3", "flac", "wav" -> true;
+            default -> false;
+        };
+    }
+
+    private static String extensionOf(String fileName) {
+        return fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void write(int b) {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] data, int off, int len) {
+        if (failed || finished) {
+            return;
+        }
+        totalBytes += len;
+        try {
+            while (len > 0) {
+                if (skip > 0) {
+                    int skipped = (int) Math.min(skip, len);
+                    skip -= skipped;
+                    off += skipped;
+                    len -= skipped;
+                    continue;
+                }
+                if (end == buffer.length) {
+                    makeRoom();
+                }
+                int copied = Math.min(len, buffer.length - end);
+                System.arraycopy(data, off, buffer, end, copied);
+                end += copied;
+                off += copied;
+                len -= copied;
+                parse(false);
+            }
+        } catch (RuntimeException e) {
+            fail();
+        }
+    }
+
+    /**
+     * 数据写入完毕，返回分析结果
+     *
+     * @return 分析结果，格式无法识别或解析失败时返回 null
+     */
+    public Analysis finish() {
+        if (!finished) {
+            finished = true;
+            if (!failed) {
+                try {
+                    parse(true);
+                    analysis = parser.result(totalBytes);
+                } catch (RuntimeException e) {
+                    analysis = null;
+                }
+            }
+            buffer = null;
+        }
+        return analysis;
+    }
+
+    private void parse(boolean eof) {
+        while (true) {
+            int available = end - start;
+            long consumed = parser.parse(buffer, start, available, eof);
+            if (consumed <= 0) {
+                return;
+            }
+            if (consumed >= available) {
+                skip = consumed - available;
+                start = 0;
+                end = 0;
+                return;
+            }
+            start += (int) consumed;
+        }
+    }
+
+    private void makeRoom() {
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+            end -= start;
+            start = 0;
+            return;
+        }
+        if (buffer.length >= MAX_BUFFER) {
+            throw new IllegalStateException("音频帧超过缓冲区上限");
+        }
+        buffer = Arrays.copyOf(buffer, Math.min(MAX_BUFFER, buffer.length * 2));
+    }
+
+    private void fail() {
+        failed = true;
+        buffer = null;
+    }
+
+    /**
+     * 分析结果
+     *
+     * @param format           格式：mp3、flac、wav
+     * @param durationMillis   时长，单位毫秒
+     * @param bitrate          平均码率，单位 bps
+     * @param sampleRate       采样率
+     * @param channels         声道数
+     * @param peaks            各桶峰值（0-255）
+     * @param approximatePeaks 波形是否为近似值（MP3 未解码）
+     */
+    public record Analysis(String format, long durationMillis, int bitrate, int sampleRate, int channels,
+                           byte[] peaks, boolean approximatePeaks) {
+
+        /**
+         * 与客户端上报格式一致的时长（秒，保留两位小数）
+         */
+        public String durationSeconds() {
+            return String.format(Locale.ROOT, "%.2f", durationMillis / 1000.0);
+        }
+
+        /**
+         * 编码为波形文件
+         */
+        public byte[] toSidecar() {
+            ByteBuffer sidecar = ByteBuffer.allocate(SIDECAR_HEADER_SIZE + peaks.length);
+            sidecar.put(SIDECAR_MAGIC)
+                    .put((byte) SIDECAR_VERSION)
+                    .put((byte) (approximatePeaks ? 1 : 0))
+                    .putShort((short) peaks.length)
+                    .putInt((int) Math.min(durationMillis, Integer.MAX_VALUE))
+                    .putInt(sampleRate)
+                    .putInt(bitrate)
+                    .put(peaks);
+            return sidecar.array();
+        }
+    }
+
+    /**
+     * 格式解析器
+     */
+    private interface Parser {
+
+        /**
+         * 解析缓冲区开头的数据
+         *
+         * @return 消费的字节数，0 表示需要更多数据；大于 len 时多出的部分在到达后跳过
+         */
+        long parse(byte[] data, int off, int len, boolean eof);
+
+        Analysis result(long totalBytes);
+    }
+
+    /**
+     * 波形桶：桶写满后两两合并，保证任意时长都落在 [bucketCount, 2 * bucketCount] 个桶内
+     */
+    private static final class PeakBuilder {
+
+        private final int bucketCount;
+        private final int[] buckets;
+        private int count;
+        private int current;
+        private long unitsInCurrent;
+        private long unitsPerBucket = 1;
+
+        PeakBuilder(int bucketCount) {
+            this.bucketCount = bucketCount;
+            this.buckets = new int[bucketCount * 2];
+        }
+
+        void add(int level) {
+            if (level > current) {
+                current = level;
+            }
+            if (++unitsInCurrent == unitsPerBucket) {
+                buckets[count++] = current;
+                current = 0;
+                unitsInCurrent = 0;
+                if (count == buckets.length) {
+                    for (int i = 0; i < count / 2; i++) {
+                        buckets[i] = Math.max(buckets[2 * i], buckets[2 * i + 1]);
+                    }
+                    count /= 2;
+                    unitsPerBucket *= 2;
+                }
+            }
+        }
+
+        /**
+         * 重采样为 bucketCount 个桶：桶多时取区间最大值，桶少时（音频很短）取最近的桶
+         */
+        int[] levels() {
+            int n = count + (unitsInCurrent > 0 ? 1 : 0);
+            int[] levels = new int[bucketCount];
+            if (n == 0) {
+                return levels;
+            }
+            int[] all = Arrays.copyOf(buckets, n);
+            if (n > count) {
+                all[count] = current;
+            }
+            for (int i = 0; i < bucketCount; i++) {
+                int from = (int) ((long) i * n / bucketCount);
+                if (n < bucketCount) {
+                    levels[i] = all[from];
+                    continue;
+                }
+                int to = (int) ((long) (i + 1) * n / bucketCount);
+                int max = 0;
+                for (int j = from; j < to; j++) {
+                    max = Math.max(max, all[j]);
+                }
+                levels[i] = max;
+            }
+            return levels;
+        }
+    }
+
+    /**
+     * 解析开头的 ID3v2 标签
+     *
+     * @return 标签总长度，没有标签时返回 0，数据不足时返回 -1
+     */
+    private static long id3Length(byte[] data, int off, int len, boolean eof) {
+        if (len < 10) {
+            return eof ? 0 : -1;
+        }
+        if (data[off] != 'I' || data[off + 1] != 'D' || data[off + 2] != '3') {
+            return 0;
+        }
+        // 同步安全整数，每字节 7 位
+        long size = ((data[off + 6] & 0x7F) << 21) | ((data[off + 7] & 0x7F) << 14)
+                | ((data[off + 8] & 0x7F) << 7) | (data[off + 9] & 0x7F);
+        boolean footer = (data[off + 5] & 0x10) != 0;
+        return 10 + size + (footer ? 10 : 0);
+    }
+
+    /**
+     * 16 位满量程下的采样幅度转换为 0-255 的峰值
+     */
+    private static byte[] toPeakBytes(int[] levels) {
+        byte[] peaks = new byte[levels.length];
+        for (int i = 0; i < levels.length; i++) {
+            peaks[i] = (byte) Math.min(255, (int) Math.round(levels[i] * 255.0 / 32768));
+        }
+        return peaks;
+    }
+
+    /**
+     * MP3（MPEG-1/2/2.5 Layer III）
+     */
+    private static final class Mp3Parser implements Parser {
+
+        // Layer III 码率表，单位 kbps：[0] MPEG-1，[1] MPEG-2/2.5
+        private static final int[][] BITRATES = {
+                {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320},
+                {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160}};
+        // 采样率表：[0] MPEG-1，[1] MPEG-2，[2] MPEG-2.5
+        private static final int[][] SAMPLE_RATES = {{44100, 48000, 32000}, {22050, 24000, 16000}, {11025, 12000, 8000}};
+
+        private final PeakBuilder peaks;
+        private boolean tagChecked;
+        // 已确认帧同步：连续的帧不再检查下一帧帧头
+        private boolean locked;
+        private long frames;
+        private long samples;
+        private long audioBytes;
+        private int sampleRate;
+        private int channels;
+
+        Mp3Parser(PeakBuilder peaks) {
+            this.peaks = peaks;
+        }
+
+        @Override
+        public long parse(byte[] data, int off, int len, boolean eof) {
+            if (!tagChecked) {
+                long tag = id3Length(data, off, len, eof);
+                if (tag < 0) {
+                    return 0;
+                }
+                tagChecked = true;
+                if (tag > 0) {
+                    return tag;
+                }
+            }
+            if (len < 4) {
+                return eof ? len : 0;
+            }
+            Header header = Header.decode(data, off);
+            if (header == null || (sampleRate != 0 && header.sampleRate != sampleRate)) {
+                locked = false;
+                return 1;
+            }
+            if (!locked) {
+                // 未同步时要求下一帧帧头同样有效，避免把标签或音频数据中的同步字误认为帧头
+                if (len < header.frameLength + 4) {
+                    return eof && len >= header.frameLength ? parseFrame(header, data, off) : eof ? 1 : 0;
+                }
+                Header next = Header.decode(data, off + header.frameLength);
+                if (next == null || next.sampleRate != header.sampleRate) {
+                    return 1;
+                }
+                locked = true;
+            }
+            if (len < header.sideInfoEnd()) {
+                return eof ? len : 0;
+            }
+            return parseFrame(header, data, off);
+        }
+
+        private long parseFrame(Header header, byte[] data, int off) {
+            if (frames == 0 && samples == 0 && audioBytes == 0 && isInfoFrame(header, data, off)) {
+                // 编码器写入的 Xing/Info/VBRI 信息帧不含音频
+                audioBytes = -1;
+                return header.frameLength;
+            }
+            if (audioBytes < 0) {
+                audioBytes = 0;
+            }
+            BitReader side = new BitReader(data, off + header.sideInfoStart(), off + header.sideInfoEnd());
+            int granules = header.mpeg1 ? 2 : 1;
+            int[] levels = new int[granules];
+            if (header.mpeg1) {
+                side.skip(9 + (header.channels == 1 ? 5 : 3) + 4 * header.channels);
+            } else {
+                side.skip(8 + (header.channels == 1 ? 1 : 2));
+            }
+            for (int gr = 0; gr < granules; gr++) {
+                for (int ch = 0; ch < header.channels; ch++) {
+                    int part23Length = (int) side.readBits(12);
+                    side.skip(9);
+                    int globalGain = (int) side.readBits(8);
+                    // part2_3_length 为 0 的 granule 是静音
+                    if (part23Length > 0) {
+                        levels[gr] = Math.max(levels[gr], globalGain);
+                    }
+                    side.skip(header.mpeg1 ? 4 + 1 + 22 + 3 : 9 + 1 + 22 + 2);
+                }
+            }
+            for (int level : levels) {
+                peaks.add(level);
+            }
+            frames++;
+            samples += header.samplesPerFrame;
+            audioBytes += header.frameLength;
+            sampleRate = header.sampleRate;
+            channels = header.channels;
+            return header.frameLength;
+        }
+
+        private static boolean isInfoFrame(Header header, byte[] data, int off) {
+            int xing = off + header.sideInfoEnd();
+            int vbri = off + 36;
+            return matches(data, xing, "Xing") || matches(data, xing, "Info") || matches(data, vbri, "VBRI");
+        }
+
+        private static boolean matches(byte[] data, int off, String tag) {
+            if (off + tag.length() > data.length) {
+                return false;
+            }
+            for (int i = 0; i < tag.length(); i++) {
+                if (data[off + i] != tag.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Analysis result(long totalBytes) {
+            if (frames == 0) {
+                return null;
+            }
+            long durationMillis = samples * 1000 / sampleRate;
+            int bitrate = durationMillis == 0 ? 0 : (int) (audioBytes * 8 * 1000 / durationMillis);
+            // global_gain 每级约 1.5dB，换算为相对最响 granule 的线性幅度
+            int[] gains = peaks.levels();
+            int maxGain = Arrays.stream(gains).max().orElse(0);
+            byte[] values = new byte[gains.length];
+            for (int i = 0; i < gains.length; i++) {
+                values[i] = gains[i] == 0 ? 0 : (byte) Math.round(255 * Math.pow(2, (gains[i] - maxGain) / 4.0));
+            }
+            return new Analysis("mp3", durationMillis, bitrate, sampleRate, channels, values, true);
+        }
+
+        /**
+         * Layer III 帧头
+         */
+        private record Header(boolean mpeg1, boolean crc, int channels, int sampleRate, int frameLength,
+                              int samplesPerFrame) {
+
+            static Header decode(byte[] data, int off) {
+                if (off + 4 > data.length) {
+                    return null;
+                }
+                int b1 = data[off + 1] & 0xFF;
+                int b2 = data[off + 2] & 0xFF;
+                int b3 = data[off + 3] & 0xFF;
+                if ((data[off] & 0xFF) != 0xFF || (b1 & 0xE0) != 0xE0) {
+                    return null;
+                }
+                int version = (b1 >> 3) & 0x03;
+                int layer = (b1 >> 1) & 0x03;
+                int bitrateIndex = b2 >> 4;
+                int sampleRateIndex = (b2 >> 2) & 0x03;
+                // 版本 01 保留；只接受 Layer III；不支持自由码率
+                if (version == 1 || layer != 1 || bitrateIndex == 0 || bitrateIndex == 15 || sampleRateIndex == 3) {
+                    return null;
+                }
+                boolean mpeg1 = version == 3;
+                int sampleRate = SAMPLE_RATES[mpeg1 ? 0 : version == 2 ? 1 : 2][sampleRateIndex];
+                int bitrate = BITRATES[mpeg1 ? 0 : 1][bitrateIndex] * 1000;
+                int padding = (b2 >> 1) & 0x01;
+                int frameLength = (mpeg1 ? 144 : 72) * bitrate / sampleRate + padding;
+                int channels = (b3 >> 6) == 3 ? 1 : 2;
+                return new Header(mpeg1, (b1 & 0x01) == 0, channels, sampleRate, frameLength, mpeg1 ? 1152 : 576);
+            }
+
+            int sideInfoStart() {
+                return crc ? 6 : 4;
+            }
+
+            int sideInfoEnd() {
+                int sideInfo = mpeg1 ? (channels == 1 ? 17 : 32) : (channels == 1 ? 9 : 17);
+                return sideInfoStart() + sideInfo;
+            }
+        }
+    }
+
+    /**
+     * WAV（PCM 整数 8/16/24/32 位，IEEE 浮点 32 位）
+     */
+    private static final class WavParser implements Parser {
+
+        private static final int RIFF = 0;
+        private static final int CHUNK = 1;
+        private static final int FMT = 2;
+        private static final int DATA = 3;
+
+        private final PeakBuilder peaks;
+        private int state = RIFF;
+        private long chunkSize;
+        private long dataRemaining;
+        private int format;
+        private int channels;
+        private int sampleRate;
+        private int bitsPerSample;
+        private int blockAlign;
+        private long frames;
+
+        WavParser(PeakBuilder peaks) {
+            this.peaks = peaks;
+        }
+
+        @Override
+        public long parse(byte[] data, int off, int len, boolean eof) {
+            switch (state) {
+                case RIFF -> {
+                    if (len < 12) {
+                        return eof ? len : 0;
+                    }
+                    if (!tag(data, off, "RIFF") || !tag(data, off + 8, "WAVE")) {
+                        throw new IllegalArgumentException("不是 WAV 文件");
+                    }
+                    state = CHUNK;
+                    return 12;
+                }
+                case CHUNK -> {
+                    if (len < 8) {
+                        return eof ? len : 0;
+                    }
+                    chunkSize = readIntLE(data, off + 4) & 0xFFFFFFFFL;
+                    if (tag(data, off, "fmt ")) {
+                        if (chunkSize < 16 || chunkSize > 1024) {
+                            throw new IllegalArgumentException("fmt 块长度无效");
+                        }
+                        state = FMT;
+                        return 8;
+                    }
+                    if (tag(data, off, "data")) {
+                        if (blockAlign == 0) {
+                            throw new IllegalArgumentException("data 块出现在 fmt 块之前");
+                        }
+                        // 流式写出的 WAV 可能把长度写为 0 或最大值，此时读到文件结尾
+                        dataRemaining = chunkSize == 0 || chunkSize == 0xFFFFFFFFL ? Long.MAX_VALUE : chunkSize;
+                        state = DATA;
+                        return 8;
+                    }
+                    return 8 + chunkSize + (chunkSize & 1);
+                }
+                case FMT -> {
+                    if (len < chunkSize) {
+                        return eof ? len : 0;
+                    }
+                    parseFormat(data, off);
+                    state = CHUNK;
+                    return chunkSize + (chunkSize & 1);
+                }
+                default -> {
+                    long usable = Math.min(len, dataRemaining);
+                    usable -= usable % blockAlign;
+                    if (usable == 0) {
+                        return eof ? len : 0;
+                    }
+                    for (int frame = off; frame < off + usable; frame += blockAlign) {
+                        int level = 0;
+                        for (int ch = 0; ch < channels; ch++) {
+                            level = Math.max(level, sampleLevel(data, frame + ch * (bitsPerSample / 8)));
+                        }
+                        peaks.add(level);
+                    }
+                    frames += usable / blockAlign;
+                    if (dataRemaining != Long.MAX_VALUE) {
+                        dataRemaining -= usable;
+                        if (dataRemaining < blockAlign) {
+                            // data 块结束，跳过不足一帧的剩余字节与补齐字节，继续解析后面的块
+                            state = CHUNK;
+                            return usable + dataRemaining + (chunkSize & 1);
+                        }
+                    }
+                    return usable;
+                }
+            }
+        }
+
+        private void parseFormat(byte[] data, int off) {
+            format = readShortLE(data, off);
+            channels = readShortLE(data, off + 2);
+            sampleRate = readIntLE(data, off + 4);
+            blockAlign = readShortLE(data, off + 12);
+            bitsPerSample = readShortLE(data, off + 14);
+            if (format == 0xFFFE && chunkSize >= 26) {
+                // WAVE_FORMAT_EXTENSIBLE：子格式 GUID 的前两个字节即格式编号
+                format = readShortLE(data, off + 24);
+            }
+            boolean pcm = format == 1 && (bitsPerSample == 8 || bitsPerSample == 16 || bitsPerSample == 24 || bitsPerSample == 32);
+            boolean floating = format == 3 && bitsPerSample == 32;
+            if (!pcm && !floating || channels <= 0 || sampleRate <= 0 || blockAlign != channels * bitsPerSample / 8) {
+                throw new IllegalArgumentException("不支持的 WAV 格式");
+            }
+        }
+
+        /**
+         * 采样幅度，换算到 16 位满量程
+         */
+        private int sampleLevel(byte[] data, int off) {
+            return switch (bitsPerSample) {
+                case 8 -> Math.abs((data[off] & 0xFF) - 128) << 8;
+                case 16 -> Math.abs((short) readShortLE(data, off));
+                case 24 -> Math.abs(((data[off + 2] << 16) | ((data[off + 1] & 0xFF) << 8) | (data[off] & 0xFF))) >> 8;
+                default -> format == 3
+                        ? (int) Math.min(32768, Math.abs(Float.intBitsToFloat(readIntLE(data, off))) * 32768)
+                        : (int) (Math.abs((long) readIntLE(data, off)) >> 16);
+            };
+        }
+
+        @Override
+        public Analysis result(long totalBytes) {
+            if (blockAlign == 0 || frames == 0) {
+                return null;
+            }
+            return new Analysis("wav", frames * 1000 / sampleRate, sampleRate * blockAlign * 8,
+                    sampleRate, channels, toPeakBytes(peaks.levels()), false);
+        }
+
+        private static boolean tag(byte[] data, int off, String tag) {
+            return new String(data, off, 4, StandardCharsets.US_ASCII).equals(tag);
+        }
+
+        private static int readShortLE(byte[] data, int off) {
+            return (data[off] & 0xFF) | ((data[off + 1] & 0xFF) << 8);
+        }
+
+        private static int readIntLE(byte[] data, int off) {
+            return (data[off] & 0xFF) | ((data[off + 1] & 0xFF) << 8) | ((data[off + 2] & 0xFF) << 16) | (data[off + 3] << 24);
+        }
+    }
+
+    /**
+     * FLAC：解码全部子帧类型（CONSTANT、VERBATIM、FIXED、LPC）与立体声去相关，帧头 CRC-8 与整帧 CRC-16 校验通过才计入
+     */
+    private static final class FlacParser implements Parser {
+
+        private static final int MAGIC = 0;
+        private static final int METADATA = 1;
+        private static final int FRAMES = 2;
+        private static final int[] SAMPLE_RATES = {0, 88200, 176400, 192000, 8000, 16000, 22050, 24000, 32000, 44100, 48000, 96000};
+        private static final int[] SAMPLE_SIZES = {0, 8, 12, 0, 16, 20, 24, 32};
+        private static final int[] CRC8 = new int[256];
+        private static final int[] CRC16 = new int[256];
+
+        static {
+            for (int i = 0; i < 256; i++) {
+                int crc8 = i;
+                int crc16 = i << 8;
+                for (int bit = 0; bit < 8; bit++) {
+                    crc8 = (crc8 & 0x80) != 0 ? (crc8 << 1) ^ 0x07 : crc8 << 1;
+                    crc16 = (crc16 & 0x8000) != 0 ? (crc16 << 1) ^ 0x8005 : crc16 << 1;
+                }
+                CRC8[i] = crc8 & 0xFF;
+                CRC16[i] = crc16 & 0xFFFF;
+            }
+        }
+
+        private final PeakBuilder peaks;
+        private boolean tagChecked;
+        private int state = MAGIC;
+        private int streamSampleRate;
+        private int streamChannels;
+        private int streamBitsPerSample;
+        private long streamTotalSamples;
+        private int maxFrameSize;
+        private int sampleRate;
+        private int channels;
+        private long decodedSamples;
+        private long frameBytes;
+        // 上次解码数据不足时的缓冲长度，数据明显增加后再重试，避免每次写入都重新解码同一帧
+        private int retryLength;
+        private long[][] samples = new long[0][];
+
+        FlacParser(PeakBuilder peaks) {
+            this.peaks = peaks;
+        }
+
+        @Override
+        public long parse(byte[] data, int off, int len, boolean eof) {
+            if (!tagChecked) {
+                long tag = id3Length(data, off, len, eof);
+                if (tag < 0) {
+                    return 0;
+                }
+                tagChecked = true;
+                if (tag > 0) {
+                    return tag;
+                }
+            }
+            switch (state) {
+                case MAGIC -> {
+                    if (len < 4) {
+                        return eof ? len : 0;
+                    }
+                    if (data[off] != 'f' || data[off + 1] != 'L' || data[off + 2] != 'a' || data[off + 3] != 'C') {
+                        throw new IllegalArgumentException("不是 FLAC 文件");
+                    }
+                    state = METADATA;
+                    return 4;
+                }
+                case METADATA -> {
+                    if (len < 4) {
+                        return eof ? len : 0;
+                    }
+                    boolean last = (data[off] & 0x80) != 0;
+                    int type = data[off] & 0x7F;
+                    int length = ((data[off + 1] & 0xFF) << 16) | ((data[off + 2] & 0xFF) << 8) | (data[off + 3] & 0xFF);
+                    if (type == 0) {
+                        if (len < 4 + 34) {
+                            return eof ? len : 0;
+                        }
+                        parseStreamInfo(data, off + 4);
+                    }
+                    if (last) {
+                        state = FRAMES;
+                    }
+                    return 4L + length;
+                }
+                default -> {
+                    return parseFrames(data, off, len, eof);
+                }
+            }
+        }
+
+        private void parseStreamInfo(byte[] data, int off) {
+            BitReader reader = new BitReader(data, off, off + 34);
+            reader.skip(16 + 16 + 24);
+            maxFrameSize = (int) reader.readBits(24);
+            streamSampleRate = (int) reader.readBits(20);
+            streamChannels = (int) reader.readBits(3) + 1;
+            streamBitsPerSample = (int) reader.readBits(5) + 1;
+            streamTotalSamples = reader.readBits(36);
+        }
+
+        private long parseFrames(byte[] data, int off, int len, boolean eof) {
+            if (len < 2) {
+                return eof ? len : 0;
+            }
+            if ((data[off] & 0xFF) != 0xFF || (data[off + 1] & 0xFE) != 0xF8) {
+                // 失去同步，跳到下一个可能的同步字
+                for (int i = 1; i < len; i++) {
+                    if ((data[off + i] & 0xFF) == 0xFF) {
+                        return i;
+                    }
+                }
+                return len;
+            }
+            if (!eof && len < retryLength) {
+                return 0;
+            }
+            try {
+                long frameLength = decodeFrame(data, off, len);
+                retryLength = 0;
+                return frameLength;
+            } catch (NeedMoreData e) {
+                if (eof || (maxFrameSize > 0 && len > maxFrameSize + 16)) {
+                    // 文件被截断，或者超过最大帧长仍未解出，说明是误判的同步字
+                    return eof ? len : 1;
+                }
+                retryLength = len + 4096;
+                return 0;
+            } catch (InvalidFrame e) {
+                return 1;
+            }
+        }
+
+        private long decodeFrame(byte[] data, int off, int len) {
+            BitReader reader = new BitReader(data, off, off + len);
+            reader.skip(15);
+            int blockingStrategy = (int) reader.readBits(1);
+            int blockSizeCode = (int) reader.readBits(4);
+            int sampleRateCode = (int) reader.readBits(4);
+            int channelAssignment = (int) reader.readBits(4);
+            int sampleSizeCode = (int) reader.readBits(3);
+            if (reader.readBits(1) != 0 || blockSizeCode == 0 || sampleRateCode == 15
+                    || channelAssignment > 10 || sampleSizeCode == 3) {
+                throw InvalidFrame.INSTANCE;
+            }
+            readUtf8Number(reader, blockingStrategy == 1 ? 7 : 6);
+            int blockSize = switch (blockSizeCode) {
+                case 1 -> 192;
+                case 2, 3, 4, 5 -> 576 << (blockSizeCode - 2);
+                case 6 -> (int) reader.readBits(8) + 1;
+                case 7 -> (int) reader.readBits(16) + 1;
+                default -> 256 << (blockSizeCode - 8);
+            };
+            int frameSampleRate = switch (sampleRateCode) {
+                case 0 -> streamSampleRate;
+                case 12 -> (int) reader.readBits(8) * 1000;
+                case 13 -> (int) reader.readBits(16);
+                case 14 -> (int) reader.readBits(16) * 10;
+                default -> SAMPLE_RATES[sampleRateCode];
+            };
+            int bitsPerSample = sampleSizeCode == 0 ? streamBitsPerSample : SAMPLE_SIZES[sampleSizeCode];
+            int frameChannels = channelAssignment < 8 ? channelAssignment + 1 : 2;
+            if (frameSampleRate <= 0 || bitsPerSample <= 0) {
+                throw InvalidFrame.INSTANCE;
+            }
+            int headerEnd = reader.bytePosition();
+            if (crc8(data, off, headerEnd) != reader.readBits(8)) {
+                throw InvalidFrame.INSTANCE;
+            }
+
+            if (samples.length < frameChannels || samples[0].length < blockSize) {
+                samples = new long[Math.max(frameChannels, samples.length)][Math.max(blockSize, samples.length == 0 ? 0 : samples[0].length)];
+            }
+            for (int ch = 0; ch < frameChannels; ch++) {
+                // 差值声道比原始声道多 1 位
+                boolean side = (channelAssignment == 8 && ch == 1) || (channelAssignment == 9 && ch == 0)
+                        || (channelAssignment == 10 && ch == 1);
+                decodeSubframe(reader, blockSize, bitsPerSample + (side ? 1 : 0), samples[ch]);
+            }
+            reader.alignToByte();
+            int crcEnd = reader.bytePosition();
+            if (crc16(data, off, crcEnd) != reader.readBits(16)) {
+                throw InvalidFrame.INSTANCE;
+            }
+
+            decorrelate(channelAssignment, blockSize);
+            int shift = bitsPerSample - 16;
+            for (int i = 0; i < blockSize; i++) {
+                long level = 0;
+                for (int ch = 0; ch < frameChannels; ch++) {
+                    level = Math.max(level, Math.abs(samples[ch][i]));
+                }
+                peaks.add((int) Math.min(32768, shift >= 0 ? level >> shift : level << -shift));
+            }
+            decodedSamples += blockSize;
+            int frameLength = reader.bytePosition() - off;
+            frameBytes += frameLength;
+            sampleRate = frameSampleRate;
+            channels = frameChannels;
+            return frameLength;
+        }
+
+        private static void readUtf8Number(BitReader reader, int maxBytes) {
+            int first = (int) reader.readBits(8);
+            int extra = Integer.numberOfLeadingZeros(~first << 24);
+            if (extra == 1 || extra > maxBytes) {
+                throw InvalidFrame.INSTANCE;
+            }
+            for (int i = 1; i < extra; i++) {
+                if ((reader.readBits(8) & 0xC0) != 0x80) {
+                    throw InvalidFrame.INSTANCE;
+                }
+            }
+        }
+
+        private static void decodeSubframe(BitReader reader, int blockSize, int bitsPerSample, long[] out) {
+            if (reader.readBits(1) != 0) {
+                throw InvalidFrame.INSTANCE;
+            }
+            int type = (int) reader.readBits(6);
+            int wasted = 0;
+            if (reader.readBits(1) == 1) {
+                wasted = (int) reader.readUnary() + 1;
+            }
+            int bits = bitsPerSample - wasted;
+            if (bits <= 0) {
+                throw InvalidFrame.INSTANCE;
+            }
+            if (type == 0) {
+                Arrays.fill(out, 0, blockSize, reader.readSigned(bits));
+            } else if (type == 1) {
+                for (int i = 0; i < blockSize; i++) {
+                    out[i] = reader.readSigned(bits);
+                }
+            } else if (type >= 8 && type <= 12) {
+                int order = type - 8;
+                readWarmUp(reader, order, bits, blockSize, out);
+                readResidual(reader, blockSize, order, out);
+                restoreFixed(order, blockSize, out);
+            } else if (type >= 32) {
+                int order = type - 31;
+                readWarmUp(reader, order, bits, blockSize, out);
+                int precision = (int) reader.readBits(4) + 1;
+                int shift = (int) reader.readSigned(5);
+                if (precision == 16 || shift < 0) {
+                    throw InvalidFrame.INSTANCE;
+                }
+                long[] coefficients = new long[order];
+                for (int i = 0; i < order; i++) {
+                    coefficients[i] = reader.readSigned(precision);
+                }
+                readResidual(reader, blockSize, order, out);
+                for (int i = order; i < blockSize; i++) {
+                    long prediction = 0;
+                    for (int j = 0; j < order; j++) {
+                        prediction += coefficients[j] * out[i - 1 - j];
+                    }
+                    out[i] += prediction >> shift;
+                }
+            } else {
+                throw InvalidFrame.INSTANCE;
+            }
+            if (wasted > 0) {
+                for (int i = 0; i < blockSize; i++) {
+                    out[i] <<= wasted;
+                }
+            }
+        }
+
+        private static void readWarmUp(BitReader reader, int order, int bits, int blockSize, long[] out) {
+            if (order > blockSize) {
+                throw InvalidFrame.INSTANCE;
+            }
+            for (int i = 0; i < order; i++) {
+                out[i] = reader.readSigned(bits);
+            }
+        }
+
+        /**
+         * 读取 Rice 编码的残差，写入 out[order..blockSize)
+         */
+        private static void readResidual(BitReader reader, int blockSize, int order, long[] out) {
+            int method = (int) reader.readBits(2);
+            if (method > 1) {
+                throw InvalidFrame.INSTANCE;
+            }
+            int parameterBits = method == 0 ? 4 : 5;
+            int escape = method == 0 ? 15 : 31;
+            int partitionOrder = (int) reader.readBits(4);
+            int partitionSize = blockSize >> partitionOrder;
+            if (partitionSize << partitionOrder != blockSize || partitionSize < order) {
+                throw InvalidFrame.INSTANCE;
+            }
+            int i = order;
+            for (int partition = 0; partition < 1 << partitionOrder; partition++) {
+                int count = partition == 0 ? partitionSize - order : partitionSize;
+                int parameter = (int) reader.readBits(parameterBits);
+                if (parameter == escape) {
+                    int bits = (int) reader.readBits(5);
+                    for (int n = 0; n < count; n++) {
+                        out[i++] = bits == 0 ? 0 : reader.readSigned(bits);
+                    }
+                    continue;
+                }
+                for (int n = 0; n < count; n++) {
+                    long value = (reader.readUnary() << parameter) | (parameter == 0 ? 0 : reader.readBits(parameter));
+                    out[i++] = (value >>> 1) ^ -(value & 1);
+                }
+            }
+        }
+
+        private static void restoreFixed(int order, int blockSize, long[] out) {
+            for (int i = order; i < blockSize; i++) {
+                out[i] += switch (order) {
+                    case 0 -> 0;
+                    case 1 -> out[i - 1];
+                    case 2 -> 2 * out[i - 1] - out[i - 2];
+                    case 3 -> 3 * out[i - 1] - 3 * out[i - 2] + out[i - 3];
+                    default -> 4 * out[i - 1] - 6 * out[i - 2] + 4 * out[i - 3] - out[i - 4];
+                };
+            }
+        }
+
+        private void decorrelate(int channelAssignment, int blockSize) {
+            long[] first = samples[0];
+            long[] second = channelAssignment >= 8 ? samples[1] : null;
+            for (int i = 0; i < blockSize && second != null; i++) {
+                switch (channelAssignment) {
+                    // 左声道 / 差值
+                    case 8 -> second[i] = first[i] - second[i];
+                    // 差值 / 右声道
+                    case 9 -> first[i] += second[i];
+                    // 中间 / 差值
+                    default -> {
+                        long mid = (first[i] << 1) | (second[i] & 1);
+                        long side = second[i];
+                        first[i] = (mid + side) >> 1;
+                        second[i] = (mid - side) >> 1;
+                    }
+                }
+            }
+        }
+
+        private static int crc8(byte[] data, int from, int to) {
+            int crc = 0;
+            for (int i = from; i < to; i++) {
+                crc = CRC8[(crc ^ data[i]) & 0xFF];
+            }
+            return crc;
+        }
+
+        private static int crc16(byte[] data, int from, int to) {
+            int crc = 0;
+            for (int i = from; i < to; i++) {
+                crc = ((crc << 8) ^ CRC16[((crc >> 8) ^ data[i]) & 0xFF]) & 0xFFFF;
+            }
+            return crc;
+        }
+
+        @Override
+        public Analysis result(long totalBytes) {
+            long totalSamples = decodedSamples > 0 ? decodedSamples : streamTotalSamples;
+            int rate = sampleRate > 0 ? sampleRate : streamSampleRate;
+            if (totalSamples == 0 || rate == 0) {
+                return null;
+            }
+            long durationMillis = totalSamples * 1000 / rate;
+            long bytes = frameBytes > 0 ? frameBytes : totalBytes;
+            int bitrate = durationMillis == 0 ? 0 : (int) (bytes * 8 * 1000 / durationMillis);
+            return new Analysis("flac", durationMillis, bitrate, rate, channels > 0 ? channels : streamChannels,
+                    toPeakBytes(peaks.levels()), false);
+        }
+    }
+
+    /**
+     * 按位读取（高位在前），越过 limit 时抛出 {@link NeedMoreData}
+     */
+    private static final class BitReader {
+
+        private final byte[] data;
+        private final int limit;
+        private int position;
+        private int bit;
+
+        BitReader(byte[] data, int from, int limit) {
+            this.data = data;
+            this.position = from;
+            this.limit = limit;
+        }
+
+        long readBits(int count) {
+            long value = 0;
+            while (count > 0) {
+                if (position >= limit) {
+                    throw NeedMoreData.INSTANCE;
+                }
+                int available = 8 - bit;
+                int take = Math.min(available, count);
+                int bits = ((data[position] & 0xFF) >>> (available - take)) & ((1 << take) - 1);
+                value = (value << take) | bits;
+                bit += take;
+                count -= take;
+                if (bit == 8) {
+                    bit = 0;
+                    position++;
+                }
+            }
+            return value;
+        }
+
+        long readSigned(int count) {
+            long value = readBits(count);
+            return (value << (64 - count)) >> (64 - count);
+        }
+
+        /**
+         * 读取一元编码：连续的 0 的个数（以 1 结束）
+         */
+        long readUnary() {
+            long count = 0;
+            while (true) {
+                if (position >= limit) {
+                    throw NeedMoreData.INSTANCE;
+                }
+                int remaining = (data[position] << bit) & 0xFF;
+                if (remaining == 0) {
+                    count += 8 - bit;
+                    bit = 0;
+                    position++;
+                    continue;
+                }
+                int zeros = Integer.numberOfLeadingZeros(remaining) - 24;
+                count += zeros;
+                bit += zeros + 1;
+                if (bit == 8) {
+                    bit = 0;
+                    position++;
+                }
+                return count;
+            }
+        }
+
+        void skip(int count) {
+            while (count > 32) {
+                readBits(32);
+                count -= 32;
+            }
+            readBits(count);
+        }
+
+        void alignToByte() {
+            if (bit != 0) {
+                bit = 0;
+                position++;
+            }
+        }
+
+        int bytePosition() {
+            return position;
+        }
+    }
+
+    private static final class NeedMoreData extends RuntimeException {
+        static final NeedMoreData INSTANCE = new NeedMoreData();
+
+        private NeedMoreData() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final class InvalidFrame extends RuntimeException {
+        static final InvalidFrame INSTANCE = new InvalidFrame();
+
+        private InvalidFrame() {
+            super(null, null, false, false);
+        }
+    }
+
+}
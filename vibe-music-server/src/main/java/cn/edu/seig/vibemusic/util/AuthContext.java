@@ -0,0 +1,102 @@
+package cn.edu.seig.vibemusic.util;
+
+import cn.edu.seig.vibemusic.constant.JwtClaimsConstant;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 当前请求的登录信息
+ * <p>
+ * 由登录拦截器在每个请求中解析一次（令牌本地缓存命中时直接复用），之后只读。
+ * 控制器方法声明 AuthContext 参数即可注入；服务层通过 {@link #current()} 获取，不再自行解析令牌。
+ */
+public final class AuthContext {
+
+    // 未登录（没有令牌、令牌失效或路径不经过登录拦截器）
+    public static final AuthContext ANONYMOUS = new AuthContext(Collections.emptyMap(), null);
+
+    private final Map<String, Object> claims;
+    private final String role;
+    private final Long userId;
+    private final Long adminId;
+    private final String sessionId;
+
+    private AuthContext(Map<String, Object> claims, String sessionId) {
+        this.claims = claims;
+        this.sessionId = sessionId;
+        Object roleObj = claims.get(JwtClaimsConstant.ROLE);
+        Object userIdObj = claims.get(JwtClaimsConstant.USER_ID);
+        Object adminIdObj = claims.get(JwtClaimsConstant.ADMIN_ID);
+        this.role = roleObj == null ? null : roleObj.toString();
+        this.userId = userIdObj == null ? null : TypeConversionUtil.toLong(userIdObj);
+        this.adminId = adminIdObj == null ? null : TypeConversionUtil.toLong(adminIdObj);
+    }
+
+    /**
+     * 根据令牌中的业务数据创建登录信息
+     *
+     * @param claims 令牌中的业务数据
+     * @return 登录信息
+     */
+    public static AuthContext of(Map<String, Object> claims) {
+        return of(claims, null);
+    }
+
+    /**
+     * 根据令牌中的业务数据与会话 ID 创建登录信息
+     *
+     * @param claims    令牌中的业务数据
+     * @param sessionId 会话 ID（令牌的 jti）
+     * @return 登录信息
+     */
+    public static AuthContext of(Map<String, Object> claims, String sessionId) {
+        return new AuthContext(Collections.unmodifiableMap(claims), sessionId);
+    }
+
+    /**
+     * 获取当前线程的登录信息
+     *
+     * @return 登录信息，未登录时返回 {@link #ANONYMOUS}
+     */
+    public static AuthContext current() {
+        AuthContext authContext = ThreadLocalUtil.get();
+        return authContext == null ? ANONYMOUS : authContext;
+    }
+
+    // 是否已登录
+    public boolean isAuthenticated() {
+        return this != ANONYMOUS;
+    }
+
+    // 角色，未登录时为 null
+    public String getRole() {
+        return role;
+    }
+
+    // 用户ID，未登录或管理员登录时为 null
+    public Long getUserId() {
+        return userId;
+    }
+
+    // 管理员ID，未登录或用户登录时为 null
+    public Long getAdminId() {
+        return adminId;
+    }
+
+    // 用户或管理员ID，未登录时为 null
+    public Long getPrincipalId() {
+        return userId != null ? userId : adminId;
+    }
+
+    // 会话 ID，未登录时为 null
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    // 令牌中的其他业务数据（只读）
+    public Map<String, Object> getClaims() {
+        return claims;
+    }
+
+}
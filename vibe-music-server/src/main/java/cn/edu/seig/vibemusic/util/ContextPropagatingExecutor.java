@@ -0,0 +1,57 @@
+package cn.edu.seig.vibemusic.util;
+
+import org.slf4j.MDC;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * 传递请求上下文的执行器
+ * <p>
+ * 提交任务时捕获当前线程的登录信息（{@link ThreadLocalUtil}）、请求属性与日志 MDC，
+ * 在执行任务的线程中恢复，任务结束后还原该线程原有的值。
+ * 线程池饱和、任务在提交线程中直接执行时同样适用。
+ */
+public class ContextPropagatingExecutor implements Executor {
+
+    private final Executor delegate;
+
+    public ContextPropagatingExecutor(Executor delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        AuthContext authContext = ThreadLocalUtil.get();
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        delegate.execute(() -> {
+            AuthContext previousAuthContext = ThreadLocalUtil.get();
+            RequestAttributes previousAttributes = RequestContextHolder.getRequestAttributes();
+            Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+            apply(authContext, attributes, mdc);
+            try {
+                task.run();
+            } finally {
+                apply(previousAuthContext, previousAttributes, previousMdc);
+            }
+        });
+    }
+
+    private static void apply(AuthContext authContext, RequestAttributes attributes, Map<String, String> mdc) {
+        if (authContext == null) {
+            ThreadLocalUtil.remove();
+        } else {
+            ThreadLocalUtil.set(authContext);
+        }
+        RequestContextHolder.setRequestAttributes(attributes);
+        if (mdc == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(mdc);
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+package cn.edu.seig.vibemusic.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 分页游标工具类
+ * <p>
+ * 将排序键编码为不透明的字符串，下一页请求原样带回，服务端据此做 keyset 分页（WHERE 排序键 &lt; 上一页末尾）。
+ */
+public class CursorUtil {
+
+    // 游标格式版本，排序键变化时递增，旧游标将被拒绝
+    private static final String VERSION = "1";
+    private static final String SEPARATOR = "|";
+    // 游标分页每页最大条数
+    public static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * 编码游标
+     *
+     * @param kind   游标类型，区分不同列表，防止游标串用
+     * @param values 排序键
+     * @return 游标字符串
+     */
+    public static String encode(String kind, Object... values) {
+        StringBuilder builder = new StringBuilder(VERSION).append(SEPARATOR).append(kind);
+        for (Object value : values) {
+            builder.append(SEPARATOR).append(value == null ? "" : value);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 规范化每页条数，限制在 [1, MAX_PAGE_SIZE]
+     *
+     * @param pageSize 请求的每页条数
+     * @return 规范化后的每页条数
+     */
+    public static int limitPageSize(Integer pageSize) {
+        if (pageSize == null || pageSize < 1) {
+            return 10;
+        }
+        return Math.min(pageSize, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * 解码游标
+     *
+     * @param cursor 游标字符串
+     * @param kind   期望的游标类型
+     * @param size   期望的排序键个数
+     * @return 排序键，游标无效时返回 null
+     */
+    public static String[] decode(String cursor, String kind, int size) {
+        try {
+            String text = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = text.split("\\|", -1);
+            if (parts.length != size + 2 || !VERSION.equals(parts[0]) || !kind.equals(parts[1])) {
+                return null;
+            }
+            String[] values = new String[size];
+            System.arraycopy(parts, 2, values, 0, size);
+            return values;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,320 @@
+package cn.edu.seig.vibemusic.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 内存倒排索引
+ * <p>
+ * 每个文档由 id 和若干字段组成，每个字段独立维护 词项 -> 有序 id 数组 的倒排表。
+ * 查询时各字段条件取交集，再确认查询片段是字段文本的子串（n-gram 交集可能误命中），
+ * 按 idf 与整体匹配程度打分排序，分数相同按 id 倒序（新的在前）。
+ * 读写通过读写锁保护，可在查询的同时增量更新。
+ */
+public class InvertedIndex {
+
+    // 各字段权重
+    private final int[] fieldWeights;
+    // 各字段的倒排表：词项 -> 文档 id
+    private final List<Map<String, LongPostings>> fieldPostings;
+    // 文档 id -> 规范化后的字段文本
+    private final Map<Long, String[]> documents = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public InvertedIndex(int... fieldWeights) {
+        this.fieldWeights = fieldWeights.clone();
+        this.fieldPostings = new ArrayList<>(fieldWeights.length);
+        for (int i = 0; i < fieldWeights.length; i++) {
+            fieldPostings.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * 新增或替换文档
+     *
+     * @param id     文档 id
+     * @param fields 字段文本，顺序与构造时的权重一致
+     */
+    public void put(long id, String... fields) {
+        String[] normalized = new String[fieldWeights.length];
+        for (int i = 0; i < normalized.length; i++) {
+            normalized[i] = i < fields.length ? TextTokenizer.normalize(fields[i]) : "";
+        }
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+            documents.put(id, normalized);
+            for (int i = 0; i < normalized.length; i++) {
+                Map<String, LongPostings> postings = fieldPostings.get(i);
+                for (String token : TextTokenizer.indexTokens(normalized[i])) {
+                    postings.computeIfAbsent(token, k -> new LongPostings()).add(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除文档
+     *
+     * @param id 文档 id
+     */
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 文档数量
+     *
+     * @return 文档数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按字段查询，返回按相关度排序的文档 id
+     *
+     * @param fieldQueries 各字段的查询文本，为空表示该字段不限
+     * @return 命中的文档 id；没有任何可检索的词元，或某个字段的查询文本不含可检索的字符（如只有标点）时返回 null，
+     * 索引无法回答这类查询，由调用方回退到数据库查询
+     */
+    public long[] search(String... fieldQueries) {
+        lock.readLock().lock();
+        try {
+            long[] candidates = null;
+            List<List<String>> fieldTokens = new ArrayList<>(fieldWeights.length);
+            for (int i = 0; i < fieldWeights.length; i++) {
+                String query = i < fieldQueries.length ? fieldQueries[i] : null;
+                List<String> tokens = query == null ? List.of() : TextTokenizer.queryTokens(query);
+                if (query != null && tokens.isEmpty()) {
+                    return null;
+                }
+                fieldTokens.add(tokens);
+                for (String token : tokens) {
+                    LongPostings postings = fieldPostings.get(i).get(token);
+                    if (postings == null) {
+                        return new long[0];
+                    }
+                    candidates = candidates == null ? postings.toArray() : postings.intersect(candidates);
+                    if (candidates.length == 0) {
+                        return candidates;
+                    }
+                }
+            }
+            if (candidates == null) {
+                return null;
+            }
+            candidates = verify(candidates, fieldQueries);
+
+            // 打分
+            double[] scores = new double[candidates.length];
+            for (int c = 0; c < candidates.length; c++) {
+                String[] document = documents.get(candidates[c]);
+                double score = 0;
+                for (int i = 0; i < fieldWeights.length; i++) {
+                    List<String> tokens = fieldTokens.get(i);
+                    if (tokens.isEmpty()) {
+                        continue;
+                    }
+                    for (String token : tokens) {
+                        score += fieldWeights[i] * idf(fieldPostings.get(i).get(token).size());
+                    }
+                    String query = TextTokenizer.normalize(fieldQueries[i]);
+                    String text = document[i];
+                    if (text.equals(query)) {
+                        score += fieldWeights[i] * 10;
+                    } else if (text.startsWith(query)) {
+                        score += fieldWeights[i] * 5;
+                    } else if (text.contains(query)) {
+                        score += fieldWeights[i] * 3;
+                    }
+                }
+                scores[c] = score;
+            }
+
+            int[] order = new int[candidates.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            long[] ids = candidates;
+            sortByScore(order, scores, ids);
+            long[] result = new long[order.length];
+            for (int i = 0; i < order.length; i++) {
+                result[i] = ids[order[i]];
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 保留每个查询片段都是对应字段文本子串的文档
+    private long[] verify(long[] candidates, String[] fieldQueries) {
+        List<List<String>> fieldRuns = new ArrayList<>(fieldWeights.length);
+        for (int i = 0; i < fieldWeights.length; i++) {
+            String query = i < fieldQueries.length ? fieldQueries[i] : null;
+            fieldRuns.add(query == null ? List.of() : TextTokenizer.queryRuns(query));
+        }
+        long[] matched = new long[candidates.length];
+        int count = 0;
+        for (long id : candidates) {
+            String[] document = documents.get(id);
+            boolean contains = true;
+            for (int i = 0; i < fieldWeights.length && contains; i++) {
+                for (String run : fieldRuns.get(i)) {
+                    if (!document[i].contains(run)) {
+                        contains = false;
+                        break;
+                    }
+                }
+            }
+            if (contains) {
+                matched[count++] = id;
+            }
+        }
+        return count == matched.length ? matched : Arrays.copyOf(matched, count);
+    }
+
+    // 按分数倒序、id 倒序排列下标，自底向上归并排序，避免 Integer 装箱
+    private static void sortByScore(int[] order, double[] scores, long[] ids) {
+        int[] buffer = new int[order.length];
+        int[] from = order;
+        int[] to = buffer;
+        for (int width = 1; width < order.length; width <<= 1) {
+            for (int left = 0; left < order.length; left += width << 1) {
+                int mid = Math.min(left + width, order.length);
+                int right = Math.min(left + (width << 1), order.length);
+                int i = left;
+                int j = mid;
+                for (int k = left; k < right; k++) {
+                    if (j >= right || (i < mid && !before(from[j], from[i], scores, ids))) {
+                        to[k] = from[i++];
+                    } else {
+                        to[k] = from[j++];
+                    }
+                }
+            }
+            int[] swap = from;
+            from = to;
+            to = swap;
+        }
+        if (from != order) {
+            System.arraycopy(from, 0, order, 0, order.length);
+        }
+    }
+
+    private static boolean before(int a, int b, double[] scores, long[] ids) {
+        return scores[a] != scores[b] ? scores[a] > scores[b] : ids[a] > ids[b];
+    }
+
+    private double idf(int documentFrequency) {
+        return Math.log(1 + (double) documents.size() / Math.max(1, documentFrequency));
+    }
+
+    private void removeInternal(long id) {
+        String[] old = documents.remove(id);
+        if (old == null) {
+            return;
+        }
+        for (int i = 0; i < old.length; i++) {
+            Map<String, LongPostings> postings = fieldPostings.get(i);
+            for (String token : TextTokenizer.indexTokens(old[i])) {
+                LongPostings list = postings.get(token);
+                if (list != null && list.remove(id) && list.size() == 0) {
+                    postings.remove(token);
+                }
+            }
+        }
+    }
+
+    /**
+     * 有序 long 数组实现的倒排表，避免装箱
+     */
+    static class LongPostings {
+
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long id) {
+            // 全量构建时按 id 递增写入，直接追加
+            if (size == 0 || ids[size - 1] < id) {
+                ensureCapacity();
+                ids[size++] = id;
+                return;
+            }
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) {
+                return;
+            }
+            int insert = -pos - 1;
+            ensureCapacity();
+            System.arraycopy(ids, insert, ids, insert + 1, size - insert);
+            ids[insert] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+
+        /**
+         * 与有序数组求交集
+         */
+        long[] intersect(long[] sorted) {
+            long[] result = new long[Math.min(size, sorted.length)];
+            int count = 0;
+            // 遍历较短的一方，在较长的一方中二分查找
+            if (size <= sorted.length) {
+                for (int i = 0; i < size; i++) {
+                    if (Arrays.binarySearch(sorted, ids[i]) >= 0) {
+                        result[count++] = ids[i];
+                    }
+                }
+            } else {
+                for (long id : sorted) {
+                    if (Arrays.binarySearch(ids, 0, size, id) >= 0) {
+                        result[count++] = id;
+                    }
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+
+        private void ensureCapacity() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length + (ids.length >> 1) + 1);
+            }
+        }
+    }
+
+}
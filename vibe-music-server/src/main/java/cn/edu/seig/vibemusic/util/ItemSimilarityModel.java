@@ -0,0 +1,465 @@
+package cn.edu.seig.vibemusic.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+/**
+ * 物品-物品协同过滤模型
+ * <p>
+ * 由用户收藏记录构建稀疏共现矩阵，相似度为余弦相似度 co(a, b) / sqrt(n(a) * n(b))，
+ * 每个物品只保留相似度最高的 K 个邻居。模型构建后不可变，全部数据保存在基本类型数组中：
+ * 物品 id 有序排列，第 i 个物品的邻居位于 neighbors[offsets[i] .. offsets[i + 1])，按相似度降序。
+ */
+public class ItemSimilarityModel {
+
+    // 叶子任务处理的用户数
+    private static final int USERS_PER_TASK = 256;
+
+    private final long[] itemIds;
+    private final int[] offsets;
+    private final int[] neighbors;
+    private final float[] scores;
+    private final int users;
+
+    private ItemSimilarityModel(long[] itemIds, int[] offsets, int[] neighbors, float[] scores, int users) {
+        this.itemIds = itemIds;
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.scores = scores;
+        this.users = users;
+    }
+
+    /**
+     * 构建模型
+     *
+     * @param userStarts 第 u 个用户的收藏位于 favorites[userStarts[u] .. userStarts[u + 1])，长度为用户数 + 1
+     * @param favorites  按用户分组的收藏物品 id，组内可以重复
+     * @param topK       每个物品保留的邻居数
+     * @param pool       并行构建使用的线程池
+     * @return 模型
+     */
+    public static ItemSimilarityModel build(int[] userStarts, long[] favorites, int topK, ForkJoinPool pool) {
+        int userCount = userStarts.length - 1;
+        long[] itemIds = Arrays.stream(favorites, 0, userStarts[userCount]).sorted().distinct().toArray();
+        int n = itemIds.length;
+
+        // 收藏转换为物品下标，组内排序去重
+        int[] items = new int[userStarts[userCount]];
+        int[] starts = new int[userCount + 1];
+        int size = 0;
+        for (int u = 0; u < userCount; u++) {
+            starts[u] = size;
+            int from = size;
+            for (int i = userStarts[u]; i < userStarts[u + 1]; i++) {
+                items[size++] = Arrays.binarySearch(itemIds, favorites[i]);
+            }
+            Arrays.sort(items, from, size);
+            size = from + dedupe(items, from, size);
+        }
+        starts[userCount] = size;
+
+        int[] itemCounts = new int[n];
+        for (int i = 0; i < size; i++) {
+            itemCounts[items[i]]++;
+        }
+
+        // 按用户分区并行统计共现次数
+        PairCounts pairs = pool.invoke(new CooccurrenceTask(starts, items, 0, userCount));
+
+        // 转换为双向邻接表（CSR），并计算余弦相似度
+        int[] degrees = new int[n + 1];
+        pairs.forEach((a, b, count) -> {
+            degrees[a]++;
+            degrees[b]++;
+        });
+        int[] adjacencyOffsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            adjacencyOffsets[i + 1] = adjacencyOffsets[i] + degrees[i];
+        }
+        int[] adjacency = new int[adjacencyOffsets[n]];
+        float[] similarities = new float[adjacencyOffsets[n]];
+        int[] cursor = Arrays.copyOf(adjacencyOffsets, n);
+        pairs.forEach((a, b, count) -> {
+            float similarity = (float) (count / Math.sqrt((double) itemCounts[a] * itemCounts[b]));
+            adjacency[cursor[a]] = b;
+            similarities[cursor[a]++] = similarity;
+            adjacency[cursor[b]] = a;
+            similarities[cursor[b]++] = similarity;
+        });
+
+        // 每个物品并行选出前 K 个邻居
+        int[] kept = new int[n];
+        int[][] keptNeighbors = new int[n][];
+        float[][] keptScores = new float[n][];
+        pool.submit(() -> IntStream.range(0, n).parallel().forEach(i -> {
+            TopK top = new TopK(topK);
+            for (int j = adjacencyOffsets[i]; j < adjacencyOffsets[i + 1]; j++) {
+                top.offer(adjacency[j], similarities[j]);
+            }
+            keptNeighbors[i] = top.sortedIds();
+            keptScores[i] = top.sortedScores();
+            kept[i] = keptNeighbors[i].length;
+        })).join();
+
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] = offsets[i] + kept[i];
+        }
+        int[] neighbors = new int[offsets[n]];
+        float[] scores = new float[offsets[n]];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(keptNeighbors[i], 0, neighbors, offsets[i], kept[i]);
+            System.arraycopy(keptScores[i], 0, scores, offsets[i], kept[i]);
+        }
+        return new ItemSimilarityModel(itemIds, offsets, neighbors, scores, userCount);
+    }
+
+    /**
+     * 根据用户最近的收藏推荐物品
+     *
+     * @param recent  最近收藏的物品 id，越靠前权重越高
+     * @param exclude 需要排除的物品 id（通常是用户的全部收藏），升序
+     * @param decay   相邻两次收藏之间的权重衰减系数，取值 (0, 1]
+     * @param count   推荐数量
+     * @return 按得分降序排列的物品 id，没有可推荐的物品时为空数组
+     */
+    public long[] recommend(long[] recent, long[] exclude, double decay, int count) {
+        ScoreMap candidates = new ScoreMap(recent.length * 16);
+        double weight = 1;
+        for (long id : recent) {
+            int item = Arrays.binarySearch(itemIds, id);
+            if (item >= 0) {
+                for (int j = offsets[item]; j < offsets[item + 1]; j++) {
+                    candidates.add(neighbors[j], (float) (scores[j] * weight));
+                }
+            }
+            weight *= decay;
+        }
+
+        TopK top = new TopK(count);
+        candidates.forEach((item, score) -> {
+            if (Arrays.binarySearch(exclude, itemIds[item]) < 0) {
+                top.offer(item, score);
+            }
+        });
+        int[] picked = top.sortedIds();
+        long[] result = new long[picked.length];
+        for (int i = 0; i < picked.length; i++) {
+            result[i] = itemIds[picked[i]];
+        }
+        return result;
+    }
+
+    /**
+     * 物品的相似邻居
+     *
+     * @param id 物品 id
+     * @return 按相似度降序排列的邻居 id，物品不存在时为空数组
+     */
+    public long[] neighborsOf(long id) {
+        int item = Arrays.binarySearch(itemIds, id);
+        if (item < 0) {
+            return new long[0];
+        }
+        long[] result = new long[offsets[item + 1] - offsets[item]];
+        for (int j = 0; j < result.length; j++) {
+            result[j] = itemIds[neighbors[offsets[item] + j]];
+        }
+        return result;
+    }
+
+    public int itemCount() {
+        return itemIds.length;
+    }
+
+    public int userCount() {
+        return users;
+    }
+
+    public int neighborCount() {
+        return neighbors.length;
+    }
+
+    // 去除有序区间内的重复值，返回去重后的长度
+    private static int dedupe(int[] values, int from, int to) {
+        if (from == to) {
+            return 0;
+        }
+        int size = 1;
+        for (int i = from + 1; i < to; i++) {
+            if (values[i] != values[from + size - 1]) {
+                values[from + size++] = values[i];
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 统计一段用户的物品共现次数，超过阈值时二分后合并
+     */
+    private static class CooccurrenceTask extends RecursiveTask<PairCounts> {
+
+        private final int[] starts;
+        private final int[] items;
+        private final int fromUser;
+        private final int toUser;
+
+        CooccurrenceTask(int[] starts, int[] items, int fromUser, int toUser) {
+            this.starts = starts;
+            this.items = items;
+            this.fromUser = fromUser;
+            this.toUser = toUser;
+        }
+
+        @Override
+        protected PairCounts compute() {
+            if (toUser - fromUser <= USERS_PER_TASK) {
+                PairCounts counts = new PairCounts(64);
+                for (int u = fromUser; u < toUser; u++) {
+                    for (int i = starts[u]; i < starts[u + 1]; i++) {
+                        for (int j = i + 1; j < starts[u + 1]; j++) {
+                            // 组内已升序，items[i] < items[j]
+                            counts.add(((long) items[i] << 32) | items[j], 1);
+                        }
+                    }
+                }
+                return counts;
+            }
+            int middle = (fromUser + toUser) >>> 1;
+            CooccurrenceTask left = new CooccurrenceTask(starts, items, fromUser, middle);
+            left.fork();
+            PairCounts right = new CooccurrenceTask(starts, items, middle, toUser).compute();
+            return PairCounts.merge(left.join(), right);
+        }
+    }
+
+    @FunctionalInterface
+    private interface PairConsumer {
+        void accept(int a, int b, int count);
+    }
+
+    /**
+     * 物品对 -> 共现次数，开放寻址哈希表，键为 (a << 32) | b
+     */
+    private static class PairCounts {
+
+        private static final long EMPTY = -1L;
+
+        private long[] keys;
+        private int[] counts;
+        private int size;
+
+        PairCounts(int capacity) {
+            int length = Integer.highestOneBit(Math.max(capacity, 4) - 1) << 1;
+            keys = new long[length];
+            counts = new int[length];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        void add(long key, int count) {
+            int mask = keys.length - 1;
+            int slot = (int) mix(key) & mask;
+            while (keys[slot] != EMPTY) {
+                if (keys[slot] == key) {
+                    counts[slot] += count;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            counts[slot] = count;
+            if (++size * 2 > keys.length) {
+                resize();
+            }
+        }
+
+        void forEach(PairConsumer consumer) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY) {
+                    consumer.accept((int) (keys[i] >>> 32), (int) keys[i], counts[i]);
+                }
+            }
+        }
+
+        // 把较小的表合并进较大的表
+        static PairCounts merge(PairCounts a, PairCounts b) {
+            PairCounts target = a.size >= b.size ? a : b;
+            PairCounts source = target == a ? b : a;
+            for (int i = 0; i < source.keys.length; i++) {
+                if (source.keys[i] != EMPTY) {
+                    target.add(source.keys[i], source.counts[i]);
+                }
+            }
+            return target;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldCounts = counts;
+            keys = new long[oldKeys.length * 2];
+            counts = new int[oldKeys.length * 2];
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    add(oldKeys[i], oldCounts[i]);
+                }
+            }
+        }
+
+        private static long mix(long key) {
+            key ^= key >>> 33;
+            key *= 0xff51afd7ed558ccdL;
+            return key ^ (key >>> 33);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ScoreConsumer {
+        void accept(int item, float score);
+    }
+
+    /**
+     * 候选物品下标 -> 累计得分，开放寻址哈希表
+     */
+    private static class ScoreMap {
+
+        private int[] keys;
+        private float[] values;
+        private int size;
+
+        ScoreMap(int capacity) {
+            int length = Integer.highestOneBit(Math.max(capacity, 4) - 1) << 1;
+            keys = new int[length];
+            values = new float[length];
+            Arrays.fill(keys, -1);
+        }
+
+        void add(int key, float value) {
+            int mask = keys.length - 1;
+            int slot = (key * 0x9e3779b9) & mask;
+            while (keys[slot] != -1) {
+                if (keys[slot] == key) {
+                    values[slot] += value;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            if (++size * 2 > keys.length) {
+                int[] oldKeys = keys;
+                float[] oldValues = values;
+                keys = new int[oldKeys.length * 2];
+                values = new float[oldKeys.length * 2];
+                Arrays.fill(keys, -1);
+                size = 0;
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] != -1) {
+                        add(oldKeys[i], oldValues[i]);
+                    }
+                }
+            }
+        }
+
+        void forEach(ScoreConsumer consumer) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != -1) {
+                    consumer.accept(keys[i], values[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * 保留得分最高的 K 个下标的小顶堆
+     */
+    private static class TopK {
+
+        private final int[] ids;
+        private final float[] heap;
+        private int size;
+        private boolean sorted;
+
+        TopK(int capacity) {
+            ids = new int[capacity];
+            heap = new float[capacity];
+        }
+
+        void offer(int id, float score) {
+            if (size < heap.length) {
+                ids[size] = id;
+                heap[size] = score;
+                siftUp(size++);
+            } else if (size > 0 && score > heap[0]) {
+                ids[0] = id;
+                heap[0] = score;
+                siftDown(0, size);
+            }
+        }
+
+        // 堆排序为降序，之后堆不再可用
+        int[] sortedIds() {
+            sortDescending();
+            return Arrays.copyOf(ids, size);
+        }
+
+        float[] sortedScores() {
+            sortDescending();
+            return Arrays.copyOf(heap, size);
+        }
+
+        private void sortDescending() {
+            if (sorted) {
+                return;
+            }
+            sorted = true;
+            for (int end = size - 1; end > 0; end--) {
+                swap(0, end);
+                siftDown(0, end);
+            }
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= heap[i]) {
+                    break;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i, int end) {
+            while (true) {
+                int smallest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < end && heap[left] < heap[smallest]) {
+                    smallest = left;
+                }
+                if (right < end && heap[right] < heap[smallest]) {
+                    smallest = right;
+                }
+                if (smallest == i) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+            float score = heap[a];
+            heap[a] = heap[b];
+            heap[b] = score;
+        }
+    }
+
+}
@@ -1,7 +1,9 @@
 package cn.edu.seig.vibemusic.util;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
 
 import java.util.Date;
 import java.util.Map;
@@ -14,7 +16,10 @@ public class JwtUtil {
     // 密钥
     private static final String SECRET_KEY = "VIBE_MUSIC"; // 更改为你的密钥
     // 设置 JWT 的过期时间 6 小时
-    private static final long EXPIRATION_TIME = 1000 * 60 * 60 * 6;
+    public static final long EXPIRATION_TIME = 1000 * 60 * 60 * 6;
+    // 算法与验证器线程安全，只创建一次
+    private static final Algorithm ALGORITHM = Algorithm.HMAC256(SECRET_KEY);
+    private static final JWTVerifier VERIFIER = JWT.require(ALGORITHM).build();
 
     /**
      * 生成 JWT token
@@ -23,10 +28,23 @@ public class JwtUtil {
      * @return JWT token
      */
     public static String generateToken(Map<String, Object> claims) {
+        return generateToken(claims, null, System.currentTimeMillis() + EXPIRATION_TIME);
+    }
+
+    /**
+     * 生成带会话 ID 的 JWT token
+     *
+     * @param claims    自定义的业务数据
+     * @param sessionId 会话 ID（jti），为 null 时不设置
+     * @param expiresAt 过期时间，毫秒时间戳
+     * @return JWT token
+     */
+    public static String generateToken(Map<String, Object> claims, String sessionId, long expiresAt) {
         return JWT.create()
                 .withClaim("claims", claims) // 自定义的业务数据
-                .withExpiresAt(new Date(System.currentTimeMillis() + EXPIRATION_TIME)) // 设置过期时间
-                .sign(Algorithm.HMAC256(SECRET_KEY)); // 使用 HMAC256 算法加密
+                .withJWTId(sessionId) // 会话 ID
+                .withExpiresAt(new Date(expiresAt)) // 设置过期时间
+                .sign(ALGORITHM); // 使用 HMAC256 算法加密
     }
 
     /**
@@ -36,11 +54,27 @@ public class JwtUtil {
      * @return 自定义的业务数据
      */
     public static Map<String, Object> parseToken(String token) {
-        return JWT.require(Algorithm.HMAC256(SECRET_KEY))
-                .build()
-                .verify(token)
-                .getClaim("claims")
-                .asMap();
+        return getClaims(verifyToken(token));
+    }
+
+    /**
+     * 验证 JWT token 的签名与过期时间
+     *
+     * @param token JWT token
+     * @return 解码后的 token
+     */
+    public static DecodedJWT verifyToken(String token) {
+        return VERIFIER.verify(token);
+    }
+
+    /**
+     * 获取已验证 token 中的业务数据
+     *
+     * @param jwt 已验证的 token
+     * @return 自定义的业务数据
+     */
+    public static Map<String, Object> getClaims(DecodedJWT jwt) {
+        return jwt.getClaim("claims").asMap();
     }
 
 }
@@ -0,0 +1,387 @@
+package cn.edu.seig.vibemusic.util;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 压缩位图（Roaring 风格）
+ * <p>
+ * 按 id 的高 48 位分桶，每个桶保存低 16 位：元素较少时用有序 char 数组，超过 4096 个时转为 1024 个 long 的位图。
+ * 全部使用基本类型数组，不装箱。非线程安全，并发访问由调用方加锁。
+ */
+public class LongBitmap {
+
+    // 数组容器的最大元素个数，超过后转为位图容器
+    private static final int ARRAY_MAX_SIZE = 4096;
+    // 序列化格式版本
+    private static final byte VERSION = 1;
+    private static final byte TYPE_ARRAY = 0;
+    private static final byte TYPE_BITMAP = 1;
+
+    // 有序的桶号（id 高 48 位）
+    private long[] keys = new long[4];
+    // 与桶号一一对应的容器
+    private Container[] containers = new Container[4];
+    private int size;
+
+    /**
+     * 由 id 数组构建位图
+     *
+     * @param ids id 数组，可无序、可重复
+     * @return 位图
+     */
+    public static LongBitmap of(long... ids) {
+        long[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        LongBitmap bitmap = new LongBitmap();
+        for (long id : sorted) {
+            bitmap.add(id);
+        }
+        return bitmap;
+    }
+
+    /**
+     * 添加 id
+     *
+     * @param id id
+     * @return 是否新增（已存在时返回 false）
+     */
+    public boolean add(long id) {
+        long key = id >>> 16;
+        char low = (char) id;
+        int index = indexOf(key);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, key, new ArrayContainer());
+        }
+        Container container = containers[index];
+        boolean added = container.add(low);
+        if (added && container instanceof ArrayContainer array && array.size > ARRAY_MAX_SIZE) {
+            containers[index] = array.toBitmap();
+        }
+        return added;
+    }
+
+    /**
+     * 移除 id
+     *
+     * @param id id
+     * @return 是否移除（不存在时返回 false）
+     */
+    public boolean remove(long id) {
+        int index = indexOf(id >>> 16);
+        if (index < 0) {
+            return false;
+        }
+        Container container = containers[index];
+        boolean removed = container.remove((char) id);
+        if (!removed) {
+            return false;
+        }
+        if (container.cardinality() == 0) {
+            removeContainer(index);
+        } else if (container instanceof BitmapContainer bitmap && bitmap.cardinality <= ARRAY_MAX_SIZE) {
+            containers[index] = bitmap.toArray();
+        }
+        return true;
+    }
+
+    /**
+     * 判断 id 是否存在
+     *
+     * @param id id
+     * @return 是否存在
+     */
+    public boolean contains(long id) {
+        int index = indexOf(id >>> 16);
+        return index >= 0 && containers[index].contains((char) id);
+    }
+
+    /**
+     * 批量判断 id 是否存在
+     *
+     * @param ids id 数组
+     * @return 与 ids 一一对应的结果
+     */
+    public boolean[] contains(long[] ids) {
+        boolean[] result = new boolean[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            result[i] = contains(ids[i]);
+        }
+        return result;
+    }
+
+    /**
+     * 元素个数
+     *
+     * @return 元素个数
+     */
+    public long cardinality() {
+        long cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    /**
+     * 序列化为字节数组
+     *
+     * @return 字节数组
+     */
+    public byte[] toBytes() {
+        int length = 1 + 4;
+        for (int i = 0; i < size; i++) {
+            length += 8 + 1 + 4 + containers[i].byteSize();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.put(VERSION).putInt(size);
+        for (int i = 0; i < size; i++) {
+            buffer.putLong(keys[i]);
+            containers[i].writeTo(buffer);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * 从字节数组反序列化
+     *
+     * @param bytes 由 {@link #toBytes()} 生成的字节数组
+     * @return 位图
+     * @throws IllegalArgumentException 格式不正确
+     */
+    public static LongBitmap fromBytes(byte[] bytes) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            if (buffer.get() != VERSION) {
+                throw new IllegalArgumentException("不支持的位图格式版本");
+            }
+            int count = buffer.getInt();
+            LongBitmap bitmap = new LongBitmap();
+            bitmap.keys = new long[Math.max(count, 4)];
+            bitmap.containers = new Container[Math.max(count, 4)];
+            for (int i = 0; i < count; i++) {
+                bitmap.keys[i] = buffer.getLong();
+                byte type = buffer.get();
+                int cardinality = buffer.getInt();
+                if (type == TYPE_ARRAY) {
+                    ArrayContainer array = new ArrayContainer(cardinality);
+                    for (int j = 0; j < cardinality; j++) {
+                        array.values[j] = buffer.getChar();
+                    }
+                    array.size = cardinality;
+                    bitmap.containers[i] = array;
+                } else if (type == TYPE_BITMAP) {
+                    BitmapContainer words = new BitmapContainer();
+                    for (int j = 0; j < words.words.length; j++) {
+                        words.words[j] = buffer.getLong();
+                    }
+                    words.cardinality = cardinality;
+                    bitmap.containers[i] = words;
+                } else {
+                    throw new IllegalArgumentException("未知的容器类型: " + type);
+                }
+            }
+            bitmap.size = count;
+            return bitmap;
+        } catch (BufferUnderflowException | NegativeArraySizeException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("位图数据不完整", e);
+        }
+    }
+
+    private int indexOf(long key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertContainer(int index, long key, Container container) {
+        if (size == keys.length) {
+            int capacity = size + (size >> 1) + 1;
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        containers[--size] = null;
+    }
+
+    /**
+     * 桶内容器，保存 id 的低 16 位
+     */
+    private interface Container {
+
+        boolean add(char value);
+
+        boolean remove(char value);
+
+        boolean contains(char value);
+
+        int cardinality();
+
+        int byteSize();
+
+        void writeTo(ByteBuffer buffer);
+    }
+
+    /**
+     * 有序 char 数组容器，适合稀疏数据
+     */
+    private static class ArrayContainer implements Container {
+
+        private char[] values;
+        private int size;
+
+        ArrayContainer() {
+            this(4);
+        }
+
+        ArrayContainer(int capacity) {
+            values = new char[Math.max(capacity, 4)];
+        }
+
+        @Override
+        public boolean add(char value) {
+            // 按 id 递增写入时直接追加
+            if (size == 0 || values[size - 1] < value) {
+                ensureCapacity();
+                values[size++] = value;
+                return true;
+            }
+            int pos = Arrays.binarySearch(values, 0, size, value);
+            if (pos >= 0) {
+                return false;
+            }
+            int insert = -pos - 1;
+            ensureCapacity();
+            System.arraycopy(values, insert, values, insert + 1, size - insert);
+            values[insert] = value;
+            size++;
+            return true;
+        }
+
+        @Override
+        public boolean remove(char value) {
+            int pos = Arrays.binarySearch(values, 0, size, value);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return size;
+        }
+
+        @Override
+        public int byteSize() {
+            return size * 2;
+        }
+
+        @Override
+        public void writeTo(ByteBuffer buffer) {
+            buffer.put(TYPE_ARRAY).putInt(size);
+            for (int i = 0; i < size; i++) {
+                buffer.putChar(values[i]);
+            }
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < size; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+
+        private void ensureCapacity() {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(values.length * 2, ARRAY_MAX_SIZE + 1));
+            }
+        }
+    }
+
+    /**
+     * 位图容器，固定 8KB，适合稠密数据
+     */
+    private static class BitmapContainer implements Container {
+
+        private final long[] words = new long[1024];
+        private int cardinality;
+
+        @Override
+        public boolean add(char value) {
+            long mask = 1L << value;
+            int index = value >>> 6;
+            if ((words[index] & mask) != 0) {
+                return false;
+            }
+            words[index] |= mask;
+            cardinality++;
+            return true;
+        }
+
+        @Override
+        public boolean remove(char value) {
+            long mask = 1L << value;
+            int index = value >>> 6;
+            if ((words[index] & mask) == 0) {
+                return false;
+            }
+            words[index] &= ~mask;
+            cardinality--;
+            return true;
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public int byteSize() {
+            return words.length * 8;
+        }
+
+        @Override
+        public void writeTo(ByteBuffer buffer) {
+            buffer.put(TYPE_BITMAP).putInt(cardinality);
+            for (long word : words) {
+                buffer.putLong(word);
+            }
+        }
+
+        ArrayContainer toArray() {
+            ArrayContainer array = new ArrayContainer(cardinality);
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    array.values[array.size++] = (char) (i * 64 + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return array;
+        }
+    }
+
+}
@@ -0,0 +1,140 @@
+package cn.edu.seig.vibemusic.util;
+
+import java.util.Arrays;
+
+/**
+ * 按路径段组织的前缀树，把请求路径映射为位掩码
+ * <p>
+ * 启动时一次性构建，之后只读，可以并发查询。每个节点保存两个掩码：路径正好止于该节点时生效的掩码，
+ * 以及路径还有后续路径段时生效的掩码；查询沿路径逐段下行并合并沿途的掩码，
+ * 不分配对象，耗时只与路径段数有关，与登记的路径数量无关。
+ */
+public class PathTrie {
+
+    private final Node root = new Node("");
+
+    /**
+     * 登记完整路径
+     *
+     * @param path 路径，如 /user/login
+     * @param bits 掩码
+     */
+    public void addExact(String path, long bits) {
+        node(path).exactBits |= bits;
+    }
+
+    /**
+     * 登记路径前缀，与 String.startsWith 的判断结果一致
+     *
+     * @param prefix 前缀，须以 / 结尾，如 /admin/
+     * @param bits   掩码
+     */
+    public void addPrefix(String prefix, long bits) {
+        if (!prefix.endsWith("/")) {
+            throw new IllegalArgumentException("路径前缀须以 / 结尾: " + prefix);
+        }
+        node(prefix.substring(0, prefix.length() - 1)).descendantBits |= bits;
+    }
+
+    /**
+     * 登记 Ant 风格的路径模式，只支持完整路径与以 /** 结尾的模式（与 AntPathMatcher 一致，/a/** 也匹配 /a）
+     *
+     * @param pattern 路径模式
+     * @param bits    掩码
+     */
+    public void addPattern(String pattern, long bits) {
+        if (pattern.endsWith("/**")) {
+            Node node = node(pattern.substring(0, pattern.length() - 3));
+            node.exactBits |= bits;
+            node.descendantBits |= bits;
+        } else if (pattern.contains("*") || pattern.contains("?") || pattern.contains("{")) {
+            throw new IllegalArgumentException("不支持的路径模式: " + pattern);
+        } else {
+            addExact(pattern, bits);
+        }
+    }
+
+    /**
+     * 查询路径命中的掩码
+     *
+     * @param path 请求路径
+     * @return 所有命中的完整路径、前缀与模式的掩码之并，未命中时为 0
+     */
+    public long match(String path) {
+        if (path == null || path.isEmpty() || path.charAt(0) != '/') {
+            return 0;
+        }
+        long bits = 0;
+        Node node = root;
+        int start = 1;
+        while (true) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            // 当前节点之后还有路径段
+            bits |= node.descendantBits;
+            node = node.child(path, start, end);
+            if (node == null) {
+                return bits;
+            }
+            if (end == path.length()) {
+                return bits | node.exactBits;
+            }
+            start = end + 1;
+        }
+    }
+
+    private Node node(String path) {
+        Node node = root;
+        // 前缀 / 与模式 /** 对应根节点
+        if (path.isEmpty()) {
+            return node;
+        }
+        if (!path.startsWith("/")) {
+            throw new IllegalArgumentException("路径须以 / 开头: " + path);
+        }
+        for (String segment : path.substring(1).split("/", -1)) {
+            node = node.childOrCreate(segment);
+        }
+        return node;
+    }
+
+    private static class Node {
+
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private final String segment;
+        // 子节点数量很少（同一级的接口数），线性比较比哈希查找更省，且不需要截取路径段
+        private Node[] children = NO_CHILDREN;
+        private long exactBits;
+        private long descendantBits;
+
+        Node(String segment) {
+            this.segment = segment;
+        }
+
+        Node child(String path, int start, int end) {
+            int length = end - start;
+            for (Node child : children) {
+                if (child.segment.length() == length && path.regionMatches(start, child.segment, 0, length)) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        Node childOrCreate(String segment) {
+            for (Node child : children) {
+                if (child.segment.equals(segment)) {
+                    return child;
+                }
+            }
+            Node child = new Node(segment);
+            children = Arrays.copyOf(children, children.length + 1);
+            children[children.length - 1] = child;
+            return child;
+        }
+    }
+
+}
@@ -0,0 +1,119 @@
+package cn.edu.seig.vibemusic.util;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 本地滑动窗口计数（滑动日志）
+ * <p>
+ * 每个 key 记录窗口内每次占用的时间与凭证，占用前先丢弃窗口外的记录，剩余记录数小于上限时才占用。
+ * 同一 key 的读写都在 ConcurrentHashMap.compute 中完成，判断与占用之间不会插入其他线程的占用。
+ * 内存与窗口内的次数成正比，只适合上限较小的配额。
+ */
+public class SlidingWindowLimiter {
+
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    /**
+     * 尝试占用一次
+     *
+     * @param key    计数 key
+     * @param permit 占用凭证，归还时使用
+     * @param limit  窗口内最多次数
+     * @param window 窗口长度，单位毫秒
+     * @param now    当前时间，毫秒时间戳
+     * @return 是否占用成功
+     */
+    public boolean tryAcquire(String key, String permit, int limit, long window, long now) {
+        boolean[] acquired = new boolean[1];
+        windows.compute(key, (k, w) -> {
+            if (w == null) {
+                w = new Window(window);
+            }
+            w.evict(now);
+            if (w.entries.size() < limit) {
+                w.entries.addLast(new Entry(now, permit));
+                acquired[0] = true;
+            }
+            return w.entries.isEmpty() ? null : w;
+        });
+        return acquired[0];
+    }
+
+    /**
+     * 窗口内已占用的次数
+     *
+     * @param key 计数 key
+     * @param now 当前时间，毫秒时间戳
+     * @return 已占用次数
+     */
+    public int count(String key, long now) {
+        int[] count = new int[1];
+        windows.computeIfPresent(key, (k, w) -> {
+            w.evict(now);
+            count[0] = w.entries.size();
+            return w.entries.isEmpty() ? null : w;
+        });
+        return count[0];
+    }
+
+    /**
+     * 归还一次占用
+     *
+     * @param key    计数 key
+     * @param permit 占用时的凭证
+     */
+    public void release(String key, String permit) {
+        windows.computeIfPresent(key, (k, w) -> {
+            w.entries.removeIf(e -> e.permit().equals(permit));
+            return w.entries.isEmpty() ? null : w;
+        });
+    }
+
+    /**
+     * 移除整个窗口都已过期的 key
+     *
+     * @param now 当前时间，毫秒时间戳
+     */
+    public void evictExpired(long now) {
+        for (String key : windows.keySet()) {
+            windows.computeIfPresent(key, (k, w) -> {
+                w.evict(now);
+                return w.entries.isEmpty() ? null : w;
+            });
+        }
+    }
+
+    /**
+     * 记录的 key 数
+     *
+     * @return key 数
+     */
+    public int size() {
+        return windows.size();
+    }
+
+    private static final class Window {
+
+        private final long length;
+        // 按占用时间升序
+        private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+
+        private Window(long length) {
+            this.length = length;
+        }
+
+        private void evict(long now) {
+            Iterator<Entry> iterator = entries.iterator();
+            while (iterator.hasNext() && iterator.next().time() <= now - length) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private record Entry(long time, String permit) {
+    }
+
+}
@@ -0,0 +1,182 @@
+package cn.edu.seig.vibemusic.util;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * 有序归并比较
+ * <p>
+ * 两侧都按键严格递增时，同时顺序读取两侧即可找出只在一侧出现的键，内存占用与数据量无关。
+ * 键按 Unicode 码点比较，与 UTF-8 字节序、MinIO 列表顺序以及 MySQL 的 utf8mb4_0900_bin 排序一致
+ * （String.compareTo 按 UTF-16 编码单元比较，增补字符与 U+E000 以上字符的顺序不同）。
+ */
+public final class SortedMerge {
+
+    // 按 Unicode 码点比较字符串
+    public static final Comparator<String> CODE_POINT_ORDER = SortedMerge::compareCodePoints;
+
+    private SortedMerge() {
+    }
+
+    /**
+     * 归并结果的回调
+     *
+     * @param <L> 左侧元素类型
+     * @param <R> 右侧元素类型
+     */
+    public interface Listener<L, R> {
+
+        // 键只在左侧出现
+        void leftOnly(L left);
+
+        // 键只在右侧出现
+        void rightOnly(R right);
+
+        // 键在两侧都出现
+        void both(L left, R right);
+    }
+
+    /**
+     * 归并两侧有序序列，回调按键从小到大的顺序触发
+     *
+     * @param left     左侧序列，键严格递增
+     * @param leftKey  左侧元素的键
+     * @param right    右侧序列，键严格递增
+     * @param rightKey 右侧元素的键
+     * @param listener 回调
+     * @throws IllegalStateException 任一侧的键不是严格递增时（两侧排序规则不一致，继续比较会得到错误结果）
+     */
+    public static <L, R> void merge(Iterator<L> left, Function<L, String> leftKey,
+                                    Iterator<R> right, Function<R, String> rightKey,
+                                    Listener<L, R> listener) {
+        Cursor<L> l = new Cursor<>(left, leftKey, "左侧", 0);
+        Cursor<R> r = new Cursor<>(right, rightKey, "右侧", 1);
+        while (l.item != null || r.item != null) {
+            int cmp;
+            if (l.item == null) {
+                cmp = 1;
+            } else if (r.item == null) {
+                cmp = -1;
+            } else {
+                cmp = compareCodePoints(l.key, r.key);
+            }
+            if (cmp < 0) {
+                listener.leftOnly(l.item);
+                l.advance();
+            } else if (cmp > 0) {
+                listener.rightOnly(r.item);
+                r.advance();
+            } else {
+                listener.both(l.item, r.item);
+                l.advance();
+                r.advance();
+            }
+        }
+    }
+
+    /**
+     * 多路归并多个有序序列，得到按键严格递增的序列；同一个键在多个序列中出现时只保留排在前面的序列的元素。
+     * 结果是惰性的，只保存每个序列的当前元素
+     *
+     * @param sources 有序序列，各自的键严格递增
+     * @param keyOf   元素的键
+     * @return 归并后的序列
+     * @throws IllegalStateException 遍历时发现某个序列的键不是严格递增时
+     */
+    public static <T> Iterator<T> union(List<Iterator<T>> sources, Function<T, String> keyOf) {
+        PriorityQueue<Cursor<T>> heads = new PriorityQueue<>((a, b) -> {
+            int cmp = compareCodePoints(a.key, b.key);
+            return cmp != 0 ? cmp : Integer.compare(a.index, b.index);
+        });
+        for (int i = 0; i < sources.size(); i++) {
+            Cursor<T> cursor = new Cursor<>(sources.get(i), keyOf, "第 " + (i + 1) + " 个", i);
+            if (cursor.item != null) {
+                heads.add(cursor);
+            }
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                Cursor<T> head = heads.poll();
+                if (head == null) {
+                    throw new NoSuchElementException();
+                }
+                T item = head.item;
+                String key = head.key;
+                requeue(head);
+                // 其他序列中键相同的元素丢弃
+                while (!heads.isEmpty() && heads.peek().key.equals(key)) {
+                    requeue(heads.poll());
+                }
+                return item;
+            }
+
+            private void requeue(Cursor<T> cursor) {
+                cursor.advance();
+                if (cursor.item != null) {
+                    heads.add(cursor);
+                }
+            }
+        };
+    }
+
+    private static int compareCodePoints(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int ca = a.codePointAt(i);
+            int cb = b.codePointAt(j);
+            if (ca != cb) {
+                return Integer.compare(ca, cb);
+            }
+            i += Character.charCount(ca);
+            j += Character.charCount(cb);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+
+    /**
+     * 一侧序列的当前元素，前进时检查键是否严格递增
+     */
+    private static class Cursor<T> {
+
+        private final Iterator<T> iterator;
+        private final Function<T, String> keyOf;
+        private final String side;
+        // 序列的序号，键相同时序号小的排在前面
+        private final int index;
+        private T item;
+        private String key;
+
+        Cursor(Iterator<T> iterator, Function<T, String> keyOf, String side, int index) {
+            this.iterator = iterator;
+            this.keyOf = keyOf;
+            this.side = side;
+            this.index = index;
+            advance();
+        }
+
+        void advance() {
+            String previous = key;
+            if (!iterator.hasNext()) {
+                item = null;
+                return;
+            }
+            item = iterator.next();
+            key = keyOf.apply(item);
+            if (previous != null && compareCodePoints(previous, key) >= 0) {
+                throw new IllegalStateException(side + "序列不是按键严格递增: " + previous + " -> " + key);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,144 @@
+package cn.edu.seig.vibemusic.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 中英文混合分词工具类
+ * <p>
+ * 中日韩文字按单字 + 相邻二元组切分，拉丁字母与数字按单词切分为长度 1 到 3 的 n-gram，
+ * 用于内存倒排索引的建立与查询。n-gram 只用于筛选候选文档，
+ * 查询片段须是字段文本的子串才算命中（与 LIKE %kw% 一致，如 "ove" 可以查到 "Love"）。
+ */
+public class TextTokenizer {
+
+    // 拉丁字母与数字片段的 n-gram 最大长度
+    public static final int MAX_GRAM_LENGTH = 3;
+
+    /**
+     * 规范化文本：全角转半角、转小写、去除首尾空白
+     *
+     * @param text 原始文本
+     * @return 规范化后的文本，text 为 null 时返回空字符串
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT).trim();
+    }
+
+    /**
+     * 生成建立索引所用的词项
+     *
+     * @param text 原始文本
+     * @return 去重后的词项集合
+     */
+    public static Set<String> indexTokens(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String run : splitRuns(normalize(text))) {
+            if (isCjk(run.codePointAt(0))) {
+                int[] codePoints = run.codePoints().toArray();
+                for (int i = 0; i < codePoints.length; i++) {
+                    tokens.add(new String(codePoints, i, 1));
+                    if (i + 1 < codePoints.length) {
+                        tokens.add(new String(codePoints, i, 2));
+                    }
+                }
+            } else {
+                for (int i = 0; i < run.length(); i++) {
+                    for (int n = 1; n <= MAX_GRAM_LENGTH && i + n <= run.length(); n++) {
+                        tokens.add(run.substring(i, i + n));
+                    }
+                }
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 生成查询所用的词项，所有词项须同时命中；命中后还须用 {@link #queryRuns} 确认子串匹配
+     *
+     * @param text 查询文本
+     * @return 去重后的词项列表
+     */
+    public static List<String> queryTokens(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String run : splitRuns(normalize(text))) {
+            if (isCjk(run.codePointAt(0))) {
+                int[] codePoints = run.codePoints().toArray();
+                if (codePoints.length == 1) {
+                    tokens.add(run);
+                }
+                for (int i = 0; i + 1 < codePoints.length; i++) {
+                    tokens.add(new String(codePoints, i, 2));
+                }
+            } else if (run.length() <= MAX_GRAM_LENGTH) {
+                tokens.add(run);
+            } else {
+                for (int i = 0; i + MAX_GRAM_LENGTH <= run.length(); i++) {
+                    tokens.add(run.substring(i, i + MAX_GRAM_LENGTH));
+                }
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    /**
+     * 查询文本切分后的片段，每个片段须是字段规范化文本的子串
+     *
+     * @param text 查询文本
+     * @return 片段列表
+     */
+    public static List<String> queryRuns(String text) {
+        return splitRuns(normalize(text));
+    }
+
+    /**
+     * 按字符类别切分为连续片段：中日韩文字片段、字母数字片段，其余字符视为分隔符
+     *
+     * @param normalized 规范化后的文本
+     * @return 片段列表
+     */
+    private static List<String> splitRuns(String normalized) {
+        List<String> runs = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int currentType = 0;
+        for (int i = 0; i < normalized.length(); ) {
+            int codePoint = normalized.codePointAt(i);
+            i += Character.charCount(codePoint);
+            int type = isCjk(codePoint) ? 1 : Character.isLetterOrDigit(codePoint) ? 2 : 0;
+            if (type != currentType && !current.isEmpty()) {
+                runs.add(current.toString());
+                current.setLength(0);
+            }
+            if (type != 0) {
+                current.appendCodePoint(codePoint);
+            }
+            currentType = type;
+        }
+        if (!current.isEmpty()) {
+            runs.add(current.toString());
+        }
+        return runs;
+    }
+
+    /**
+     * 判断字符是否属于中日韩文字
+     *
+     * @param codePoint 字符码点
+     * @return 是否为中日韩文字
+     */
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+
+}
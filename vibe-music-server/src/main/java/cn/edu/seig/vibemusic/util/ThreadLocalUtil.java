@@ -1,21 +1,20 @@
 package cn.edu.seig.vibemusic.util;
 
 /**
- * ThreadLocal 工具类
+ * ThreadLocal 工具类，保存当前线程的登录信息
  */
-@SuppressWarnings("all")
 public class ThreadLocalUtil {
 
-    // 提供ThreadLocal对象,
-    private static final ThreadLocal THREAD_LOCAL = new ThreadLocal();
+    // 提供ThreadLocal对象
+    private static final ThreadLocal<AuthContext> THREAD_LOCAL = new ThreadLocal<>();
 
-    // 根据键获取值
-    public static <T> T get() {
-        return (T) THREAD_LOCAL.get();
+    // 获取登录信息，未设置时为 null
+    public static AuthContext get() {
+        return THREAD_LOCAL.get();
     }
 
-    // 存储键值对
-    public static void set(Object value) {
+    // 存储登录信息
+    public static void set(AuthContext value) {
         THREAD_LOCAL.set(value);
     }
 
@@ -0,0 +1,354 @@
+package cn.edu.seig.vibemusic;
+
+import cn.edu.seig.vibemusic.util.AudioAnalyzer;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AudioAnalyzerTest {
+
+    private static final int BUCKETS = 1024;
+
+    /**
+     * WAV：时长按采样帧数计算，波形为每段的真实峰值，与写入时的分块方式无关
+     */
+    @Test
+    public void testWav() {
+        int sampleRate = 8000;
+        int frames = sampleRate * 4;
+        ByteBuffer pcm = ByteBuffer.allocate(frames * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < frames; i++) {
+            // 前一半幅度 8192，后一半 32767，左右声道相反
+            short value = (short) ((i % 2 == 0 ? 1 : -1) * (i < frames / 2 ? 8192 : 32767));
+            pcm.putShort(value).putShort((short) -value);
+        }
+        ByteBuffer wav = ByteBuffer.allocate(44 + 20 + pcm.capacity()).order(ByteOrder.LITTLE_ENDIAN);
+        wav.put("RIFF".getBytes()).putInt(wav.capacity() - 8).put("WAVE".getBytes());
+        // fmt 之前的未知块需要被跳过
+        wav.put("LIST".getBytes()).putInt(12).put(new byte[12]);
+        wav.put("fmt ".getBytes()).putInt(16).putShort((short) 1).putShort((short) 2)
+                .putInt(sampleRate).putInt(sampleRate * 4).putShort((short) 4).putShort((short) 16);
+        wav.put("data".getBytes()).putInt(pcm.capacity()).put(pcm.array());
+
+        AudioAnalyzer.Analysis whole = analyze("a.wav", wav.array(), wav.capacity());
+        AudioAnalyzer.Analysis pieces = analyze("a.wav", wav.array(), 7);
+        assertNotNull(whole);
+        assertEquals(4000, whole.durationMillis());
+        assertEquals("4.00", whole.durationSeconds());
+        assertEquals(sampleRate * 32, whole.bitrate());
+        assertEquals(2, whole.channels());
+        assertFalse(whole.approximatePeaks());
+        assertEquals(BUCKETS, whole.peaks().length);
+        assertEquals(64, whole.peaks()[0] & 0xFF);
+        assertEquals(64, whole.peaks()[BUCKETS / 2 - 1] & 0xFF);
+        assertEquals(255, whole.peaks()[BUCKETS / 2] & 0xFF);
+        assertEquals(255, whole.peaks()[BUCKETS - 1] & 0xFF);
+        assertArrayEquals(whole.peaks(), pieces.peaks());
+        assertEquals(whole.durationMillis(), pieces.durationMillis());
+
+        byte[] sidecar = whole.toSidecar();
+        assertEquals(AudioAnalyzer.SIDECAR_HEADER_SIZE + BUCKETS, sidecar.length);
+        assertEquals('V', sidecar[0]);
+    }
+
+    /**
+     * MP3：跳过 ID3 标签与 Info 帧，按帧数计算精确时长，波形由 global_gain 近似
+     */
+    @Test
+    public void testMp3() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // ID3v2 标签，内容中包含容易误认为帧头的同步字
+        byte[] tag = new byte[200];
+        tag[50] = (byte) 0xFF;
+        tag[51] = (byte) 0xFB;
+        out.write(new byte[]{'I', 'D', '3', 4, 0, 0, 0, 0, 1, 72}, 0, 10);
+        out.write(tag, 0, tag.length);
+
+        int frames = 200;
+        out.writeBytes(mp3Frame(0, 0, true));
+        for (int i = 0; i < frames; i++) {
+            // 前一半 global_gain 为 150，后一半 170，第一帧静音
+            int gain = i < frames / 2 ? 150 : 170;
+            out.writeBytes(mp3Frame(i == 0 ? 0 : gain, i % 3 == 0 ? 1 : 0, false));
+        }
+        // 结尾的 ID3v1 标签
+        byte[] trailer = new byte[128];
+        trailer[0] = 'T';
+        trailer[1] = 'A';
+        trailer[2] = 'G';
+        out.writeBytes(trailer);
+        byte[] mp3 = out.toByteArray();
+
+        AudioAnalyzer.Analysis analysis = analyze("b.MP3", mp3, 333);
+        assertNotNull(analysis);
+        assertEquals(frames * 1152L * 1000 / 44100, analysis.durationMillis());
+        assertEquals(44100, analysis.sampleRate());
+        assertTrue(analysis.approximatePeaks());
+        assertTrue(Math.abs(analysis.bitrate() - 128000) < 1000);
+        byte[] peaks = analysis.peaks();
+        assertEquals(0, peaks[0]);
+        // 低 20 级约为 1/32
+        assertEquals(Math.round(255 / 32.0), peaks[BUCKETS / 4] & 0xFF);
+        assertEquals(255, peaks[BUCKETS - 1] & 0xFF);
+        assertEquals(analysis.durationMillis(), analyze("b.mp3", mp3, 1).durationMillis());
+    }
+
+    /**
+     * FLAC：解码各种子帧与立体声模式，CRC 校验通过的帧才计入
+     */
+    @Test
+    public void testFlac() {
+        int blockSize = 4096;
+        int[] amplitudes = {1000, 4000, 16000, 30000, 2000};
+        int[] subframeTypes = {VERBATIM, FIXED, LPC, CONSTANT, FIXED};
+        FlacWriter flac = new FlacWriter(44100, blockSize * amplitudes.length);
+        Random random = new Random(7);
+        for (int f = 0; f < amplitudes.length; f++) {
+            long[] left = new long[blockSize];
+            long[] right = new long[blockSize];
+            for (int i = 0; i < blockSize; i++) {
+                // 每 16 个采样出现一次满幅，其余为较小的平滑信号
+                int amplitude = amplitudes[f];
+                left[i] = subframeTypes[f] == CONSTANT ? amplitude
+                        : i % 16 == 0 ? amplitude : (long) (amplitude / 2 * Math.sin(i / 20.0));
+                right[i] = subframeTypes[f] == CONSTANT ? amplitude : left[i] - random.nextInt(5);
+            }
+            flac.frame(f, left, right, subframeTypes[f], f == 2);
+        }
+        byte[] data = flac.toByteArray();
+        // 在第 2 帧中间插入垃圾数据，对应帧 CRC 失败后重新同步
+        byte[] corrupted = data.clone();
+        int secondFrame = flac.frameOffsets[1];
+        corrupted[secondFrame + 40] ^= 0x5A;
+
+        AudioAnalyzer.Analysis analysis = analyze("c.flac", data, 1000);
+        assertNotNull(analysis);
+        assertEquals(blockSize * amplitudes.length * 1000L / 44100, analysis.durationMillis());
+        assertEquals(2, analysis.channels());
+        assertFalse(analysis.approximatePeaks());
+        for (int f = 0; f < amplitudes.length; f++) {
+            int expected = (int) Math.round(amplitudes[f] * 255.0 / 32768);
+            // 桶边界处可能跨两帧，只检查每帧中间的桶
+            for (int b = f * BUCKETS / amplitudes.length + 2; b < (f + 1) * BUCKETS / amplitudes.length - 2; b++) {
+                assertEquals(expected, analysis.peaks()[b] & 0xFF, "frame " + f + " bucket " + b);
+            }
+        }
+        assertArrayEquals(analysis.peaks(), analyze("c.flac", data, data.length).peaks());
+
+        AudioAnalyzer.Analysis damaged = analyze("c.flac", corrupted, 4096);
+        assertNotNull(damaged);
+        assertEquals(blockSize * (amplitudes.length - 1) * 1000L / 44100, damaged.durationMillis());
+    }
+
+    /**
+     * 不支持的格式与无法解析的内容
+     */
+    @Test
+    public void testUnsupported() {
+        assertNull(AudioAnalyzer.forFileName("cover.png", BUCKETS));
+        assertNull(AudioAnalyzer.forFileName(null, BUCKETS));
+        assertFalse(AudioAnalyzer.supports("songs/a.m4a"));
+        assertFalse(AudioAnalyzer.supports(null));
+        assertTrue(AudioAnalyzer.supports("songs/a.MP3"));
+        byte[] garbage = new byte[10000];
+        new Random(1).nextBytes(garbage);
+        assertNull(analyze("x.wav", garbage, 100));
+        assertNull(analyze("x.flac", garbage, 100));
+        assertNull(analyze("x.mp3", new byte[10000], 100));
+    }
+
+    private static AudioAnalyzer.Analysis analyze(String fileName, byte[] data, int chunk) {
+        AudioAnalyzer analyzer = AudioAnalyzer.forFileName(fileName, BUCKETS);
+        for (int off = 0; off < data.length; off += chunk) {
+            analyzer.write(data, off, Math.min(chunk, data.length - off));
+        }
+        return analyzer.finish();
+    }
+
+    /**
+     * MPEG-1 Layer III，128kbps，44.1kHz，立体声，无 CRC
+     */
+    private static byte[] mp3Frame(int globalGain, int padding, boolean info) {
+        byte[] frame = new byte[144 * 128000 / 44100 + padding];
+        frame[0] = (byte) 0xFF;
+        frame[1] = (byte) 0xFB;
+        frame[2] = (byte) (0x90 | (padding << 1));
+        frame[3] = 0x00;
+        if (info) {
+            System.arraycopy("Info".getBytes(), 0, frame, 36, 4);
+            return frame;
+        }
+        BitWriter side = new BitWriter();
+        side.write(0, 9).write(0, 3).write(0, 8);
+        for (int gr = 0; gr < 2; gr++) {
+            for (int ch = 0; ch < 2; ch++) {
+                side.write(globalGain == 0 ? 0 : 500, 12).write(100, 9).write(globalGain, 8).write(0, 4 + 1 + 22 + 3);
+            }
+        }
+        byte[] sideInfo = side.toByteArray();
+        System.arraycopy(sideInfo, 0, frame, 4, sideInfo.length);
+        return frame;
+    }
+
+    private static final int CONSTANT = 0;
+    private static final int VERBATIM = 1;
+    private static final int FIXED = 2;
+    private static final int LPC = 3;
+
+    /**
+     * 测试用的最小 FLAC 编码器，16 位立体声
+     */
+    private static class FlacWriter {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final int[] frameOffsets = new int[16];
+
+        FlacWriter(int sampleRate, long totalSamples) {
+            out.writeBytes("fLaC".getBytes());
+            BitWriter info = new BitWriter();
+            info.write(1 << 7, 8).write(34, 24);
+            info.write(4096, 16).write(4096, 16).write(0, 24).write(0, 24);
+            info.write(sampleRate, 20).write(1, 3).write(15, 5).write(totalSamples, 36);
+            info.write(0, 64).write(0, 64);
+            out.writeBytes(info.toByteArray());
+        }
+
+        /**
+         * @param sideStereo 使用左声道/差值声道
+         */
+        void frame(int index, long[] left, long[] right, int type, boolean sideStereo) {
+            frameOffsets[index] = out.size();
+            BitWriter frame = new BitWriter();
+            // 块大小 4096（编码 12），采样率 44.1kHz（编码 9），16 位（编码 4）
+            frame.write(0x3FFE, 14).write(0, 1).write(0, 1).write(12, 4).write(9, 4)
+                    .write(sideStereo ? 8 : 1, 4).write(4, 3).write(0, 1).write(index, 8);
+            frame.write(crc8(frame.toByteArray()), 8);
+            long[] second = right;
+            if (sideStereo) {
+                second = new long[right.length];
+                for (int i = 0; i < right.length; i++) {
+                    second[i] = left[i] - right[i];
+                }
+            }
+            subframe(frame, left, 16, type);
+            subframe(frame, second, sideStereo ? 17 : 16, type);
+            frame.alignToByte();
+            frame.write(crc16(frame.toByteArray()), 16);
+            out.writeBytes(frame.toByteArray());
+        }
+
+        private static void subframe(BitWriter frame, long[] samples, int bits, int type) {
+            switch (type) {
+                case CONSTANT -> frame.write(0, 1).write(0, 6).write(0, 1).write(samples[0], bits);
+                case VERBATIM -> {
+                    frame.write(0, 1).write(1, 6).write(0, 1);
+                    for (long sample : samples) {
+                        frame.write(sample, bits);
+                    }
+                }
+                case FIXED -> {
+                    // 二阶固定预测
+                    frame.write(0, 1).write(8 + 2, 6).write(0, 1);
+                    frame.write(samples[0], bits).write(samples[1], bits);
+                    long[] residual = new long[samples.length - 2];
+                    for (int i = 2; i < samples.length; i++) {
+                        residual[i - 2] = samples[i] - (2 * samples[i - 1] - samples[i - 2]);
+                    }
+                    rice(frame, residual);
+                }
+                default -> {
+                    // 二阶 LPC，系数 (4, -2)，右移 1 位，与二阶固定预测等价
+                    frame.write(0, 1).write(32 + 1, 6).write(0, 1);
+                    frame.write(samples[0], bits).write(samples[1], bits);
+                    frame.write(5 - 1, 4).write(1, 5).write(4, 5).write(-2, 5);
+                    long[] residual = new long[samples.length - 2];
+                    for (int i = 2; i < samples.length; i++) {
+                        residual[i - 2] = samples[i] - ((4 * samples[i - 1] - 2 * samples[i - 2]) >> 1);
+                    }
+                    rice(frame, residual);
+                }
+            }
+        }
+
+        /**
+         * 单分区 Rice 编码，参数 10
+         */
+        private static void rice(BitWriter frame, long[] residual) {
+            int parameter = 10;
+            frame.write(0, 2).write(0, 4).write(parameter, 4);
+            for (long value : residual) {
+                long folded = value >= 0 ? value << 1 : ((-value) << 1) - 1;
+                for (long q = folded >> parameter; q > 0; q--) {
+                    frame.write(0, 1);
+                }
+                frame.write(1, 1).write(folded & ((1 << parameter) - 1), parameter);
+            }
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+
+    private static int crc8(byte[] data) {
+        int crc = 0;
+        for (byte b : data) {
+            crc ^= b & 0xFF;
+            for (int i = 0; i < 8; i++) {
+                crc = (crc & 0x80) != 0 ? ((crc << 1) ^ 0x07) & 0xFF : (crc << 1) & 0xFF;
+            }
+        }
+        return crc;
+    }
+
+    private static int crc16(byte[] data) {
+        int crc = 0;
+        for (byte b : data) {
+            crc ^= (b & 0xFF) << 8;
+            for (int i = 0; i < 8; i++) {
+                crc = (crc & 0x8000) != 0 ? ((crc << 1) ^ 0x8005) & 0xFFFF : (crc << 1) & 0xFFFF;
+            }
+        }
+        return crc;
+    }
+
+    private static class BitWriter {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private int current;
+        private int bits;
+
+        BitWriter write(long value, int count) {
+            for (int i = count - 1; i >= 0; i--) {
+                current = (current << 1) | (int) ((value >>> i) & 1);
+                if (++bits == 8) {
+                    out.write(current);
+                    current = 0;
+                    bits = 0;
+                }
+            }
+            return this;
+        }
+
+        void alignToByte() {
+            while (bits != 0) {
+                write(0, 1);
+            }
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+package cn.edu.seig.vibemusic;
+
+import cn.edu.seig.vibemusic.cache.AudioChunkCache;
+import cn.edu.seig.vibemusic.service.MinioService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AudioChunkCacheTest {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * 跨分块的范围读取与 MinIO 中的数据一致，重复读取不再访问 MinIO
+     */
+    @Test
+    public void testRangesAreServedFromLocalChunks() throws IOException {
+        InMemoryMinio minio = new InMemoryMinio();
+        byte[] audio = minio.put("song/a.mp3", 4500);
+        AudioChunkCache cache = new AudioChunkCache(minio.service, directory.toString(), CHUNK_SIZE, 100 * CHUNK_SIZE);
+        MinioService.ObjectInfo info = cache.stat("song/a.mp3");
+
+        assertArrayEquals(Arrays.copyOfRange(audio, 900, 2101), read(cache, "song/a.mp3", info, 900, 2100));
+        assertEquals(3, minio.reads.get());
+        assertArrayEquals(Arrays.copyOfRange(audio, 4000, 4500), read(cache, "song/a.mp3", info, 4000, 4499));
+        assertEquals(4, minio.reads.get());
+
+        // 已缓存的分块直接从磁盘读取
+        assertArrayEquals(audio, read(cache, "song/a.mp3", info, 0, 4499));
+        assertEquals(5, minio.reads.get());
+        assertArrayEquals(audio, read(cache, "song/a.mp3", info, 0, 4499));
+        assertEquals(5, minio.reads.get());
+        assertEquals(5, cache.getMisses());
+        assertEquals(4500, cache.getCachedBytes());
+
+        assertNull(cache.stat("song/missing.mp3"));
+    }
+
+    /**
+     * 超出磁盘上限时淘汰最久未访问的分块，重启后已有分块依然有效
+     */
+    @Test
+    public void testEvictionAndReindex() throws IOException {
+        InMemoryMinio minio = new InMemoryMinio();
+        byte[] audio = minio.put("song/b.mp3", 5 * CHUNK_SIZE);
+        AudioChunkCache cache = new AudioChunkCache(minio.service, directory.toString(), CHUNK_SIZE, 3 * CHUNK_SIZE);
+        MinioService.ObjectInfo info = cache.stat("song/b.mp3");
+
+        read(cache, "song/b.mp3", info, 0, 999);
+        read(cache, "song/b.mp3", info, 1000, 1999);
+        read(cache, "song/b.mp3", info, 2000, 2999);
+        // 访问第 0 块，使第 1 块成为最久未访问的分块
+        read(cache, "song/b.mp3", info, 0, 999);
+        read(cache, "song/b.mp3", info, 3000, 3999);
+        assertEquals(3 * CHUNK_SIZE, cache.getCachedBytes());
+        assertEquals(4, minio.reads.get());
+
+        read(cache, "song/b.mp3", info, 0, 999);
+        assertEquals(4, minio.reads.get());
+        read(cache, "song/b.mp3", info, 1000, 1999);
+        assertEquals(5, minio.reads.get());
+
+        // 新实例登记目录中已有的分块
+        AudioChunkCache restarted = new AudioChunkCache(minio.service, directory.toString(), CHUNK_SIZE, 3 * CHUNK_SIZE);
+        assertEquals(3 * CHUNK_SIZE, restarted.getCachedBytes());
+        assertArrayEquals(Arrays.copyOfRange(audio, 1000, 2000), read(restarted, "song/b.mp3", info, 1000, 1999));
+        assertEquals(5, minio.reads.get());
+        assertTrue(restarted.getHits() > 0);
+    }
+
+    private static byte[] read(AudioChunkCache cache, String objectName, MinioService.ObjectInfo info,
+                               long start, long end) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cache.transfer(objectName, info, start, end, Channels.newChannel(out));
+        return out.toByteArray();
+    }
+
+    /**
+     * 内存中的 MinIO 替身，只实现分块缓存用到的 statObject 与 getObject，记录范围读取次数
+     */
+    private static class InMemoryMinio {
+
+        private final Map<String, byte[]> objects = new HashMap<>();
+        private final AtomicInteger reads = new AtomicInteger();
+        private final MinioService service = Mockito.mock(MinioService.class);
+
+        InMemoryMinio() {
+            Mockito.when(service.statObject(Mockito.anyString())).thenAnswer(invocation -> {
+                byte[] data = objects.get(invocation.<String>getArgument(0));
+                return data == null ? null
+                        : new MinioService.ObjectInfo(data.length, Integer.toHexString(Arrays.hashCode(data)), "audio/mpeg");
+            });
+            Mockito.when(service.getObject(Mockito.anyString(), Mockito.anyLong(), Mockito.anyLong())).thenAnswer(invocation -> {
+                reads.incrementAndGet();
+                return new ByteArrayInputStream(objects.get(invocation.<String>getArgument(0)),
+                        invocation.<Long>getArgument(1).intValue(), invocation.<Long>getArgument(2).intValue());
+            });
+        }
+
+        byte[] put(String objectName, int size) {
+            byte[] data = new byte[size];
+            new Random(size).nextBytes(data);
+            objects.put(objectName, data);
+            return data;
+        }
+    }
+
+}
@@ -0,0 +1,170 @@
+package cn.edu.seig.vibemusic;
+
+import cn.edu.seig.vibemusic.cache.AudioChunkCache;
+import cn.edu.seig.vibemusic.cache.SongCatalog;
+import cn.edu.seig.vibemusic.model.vo.SongVO;
+import cn.edu.seig.vibemusic.service.MinioService;
+import cn.edu.seig.vibemusic.service.impl.AudioStreamServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 音频流式播放的范围解析、条件请求与 sendfile，MinIO 与歌曲目录使用替身
+ */
+public class AudioStreamTest {
+
+    private static final String AUDIO_URL = "http://minio/vibe-music-data/songs/a.mp3";
+    private static final String OBJECT_NAME = "songs/a.mp3";
+    private static final String ETAG = "\"abc\"";
+    private static final int CHUNK_SIZE = 1000;
+    private static final int SIZE = 4500;
+
+    @TempDir
+    Path directory;
+
+    private final byte[] audio = new byte[SIZE];
+    private AudioStreamServiceImpl audioStreamService;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        new Random(SIZE).nextBytes(audio);
+        MinioService minioService = Mockito.mock(MinioService.class);
+        Mockito.when(minioService.getObjectName(AUDIO_URL)).thenReturn(OBJECT_NAME);
+        Mockito.when(minioService.statObject(OBJECT_NAME)).thenReturn(new MinioService.ObjectInfo(SIZE, "abc", "audio/mpeg"));
+        Mockito.when(minioService.getObject(Mockito.eq(OBJECT_NAME), Mockito.anyLong(), Mockito.anyLong())).thenAnswer(invocation ->
+                new ByteArrayInputStream(audio, invocation.<Long>getArgument(1).intValue(), invocation.<Long>getArgument(2).intValue()));
+        SongCatalog songCatalog = Mockito.mock(SongCatalog.class);
+        SongVO song = new SongVO();
+        song.setAudioUrl(AUDIO_URL);
+        Mockito.when(songCatalog.getAll(Mockito.any(long[].class))).thenReturn(List.of(song));
+
+        audioStreamService = new AudioStreamServiceImpl();
+        ReflectionTestUtils.setField(audioStreamService, "songCatalog", songCatalog);
+        ReflectionTestUtils.setField(audioStreamService, "minioService", minioService);
+        ReflectionTestUtils.setField(audioStreamService, "audioChunkCache",
+                new AudioChunkCache(minioService, directory.toString(), CHUNK_SIZE, 100 * CHUNK_SIZE));
+        ReflectionTestUtils.setField(audioStreamService, "maxOpenRange", 2000L);
+        ReflectionTestUtils.setField(audioStreamService, "maxAge", 3600L);
+    }
+
+    /**
+     * 各种单范围写法返回 206 与对应的 Content-Range，未指定结束位置时最多返回 max-open-range 字节
+     */
+    @Test
+    public void testPartialContent() throws IOException {
+        assertPartial("bytes=900-2100", 900, 2100);
+        assertPartial("bytes=-500", 4000, 4499);
+        assertPartial("bytes=-9999", 0, 4499);
+        assertPartial("bytes=4000-9999", 4000, 4499);
+        assertPartial("bytes=100-", 100, 2099);
+        assertPartial("bytes=3000-", 3000, 4499);
+    }
+
+    /**
+     * 起始位置超出对象大小时返回 416，无法识别或多范围的请求按完整内容返回
+     */
+    @Test
+    public void testUnsatisfiableAndUnsupportedRanges() throws IOException {
+        MockHttpServletResponse response = stream(request("bytes=4500-"));
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */4500", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(416, stream(request("bytes=-0")).getStatus());
+
+        for (String range : new String[]{"bytes=0-10,20-30", "bytes=20-10", "items=0-10", "bytes=-", "bytes=99999999999999999999-"}) {
+            MockHttpServletResponse full = stream(request(range));
+            assertEquals(200, full.getStatus(), range);
+            assertNull(full.getHeader(HttpHeaders.CONTENT_RANGE), range);
+            assertArrayEquals(audio, full.getContentAsByteArray(), range);
+        }
+    }
+
+    /**
+     * If-None-Match 命中时返回 304；If-Range 与当前 ETag 不一致时忽略 Range 返回完整内容
+     */
+    @Test
+    public void testConditionalRequests() throws IOException {
+        MockHttpServletRequest notModified = request(null);
+        notModified.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\", W/" + ETAG);
+        MockHttpServletResponse response = stream(notModified);
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+
+        MockHttpServletRequest stale = request("bytes=0-99");
+        stale.addHeader(HttpHeaders.IF_RANGE, "\"old\"");
+        response = stream(stale);
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(audio, response.getContentAsByteArray());
+
+        MockHttpServletRequest current = request("bytes=0-99");
+        current.addHeader(HttpHeaders.IF_RANGE, ETAG);
+        response = stream(current);
+        assertEquals(206, response.getStatus());
+        assertArrayEquals(Arrays.copyOfRange(audio, 0, 100), response.getContentAsByteArray());
+    }
+
+    /**
+     * 容器支持 sendfile 时，单个分块内的范围只设置 sendfile 属性，跨分块的范围照常写出
+     */
+    @Test
+    public void testSendfileWithinSingleChunk() throws IOException {
+        MockHttpServletRequest request = request("bytes=1200-1299");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        MockHttpServletResponse response = stream(request);
+        assertEquals(206, response.getStatus());
+        assertEquals(100, response.getContentLengthLong());
+        assertEquals(0, response.getContentAsByteArray().length);
+        long start = (Long) request.getAttribute("org.apache.tomcat.sendfile.start");
+        long end = (Long) request.getAttribute("org.apache.tomcat.sendfile.end");
+        assertEquals(200, start);
+        assertEquals(300, end);
+        byte[] chunk = Files.readAllBytes(Path.of((String) request.getAttribute("org.apache.tomcat.sendfile.filename")));
+        assertArrayEquals(Arrays.copyOfRange(audio, 1200, 1300), Arrays.copyOfRange(chunk, (int) start, (int) end));
+
+        MockHttpServletRequest spanning = request("bytes=900-1099");
+        spanning.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        response = stream(spanning);
+        assertNull(spanning.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertArrayEquals(Arrays.copyOfRange(audio, 900, 1100), response.getContentAsByteArray());
+    }
+
+    private void assertPartial(String range, int start, int end) throws IOException {
+        MockHttpServletResponse response = stream(request(range));
+        assertEquals(206, response.getStatus(), range);
+        assertEquals("bytes " + start + "-" + end + "/" + SIZE, response.getHeader(HttpHeaders.CONTENT_RANGE), range);
+        assertEquals(end - start + 1, response.getContentLengthLong(), range);
+        assertArrayEquals(Arrays.copyOfRange(audio, start, end + 1), response.getContentAsByteArray(), range);
+    }
+
+    private MockHttpServletResponse stream(MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        audioStreamService.streamSong(1L, request, response);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String range) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/song/stream/1");
+        if (range != null) {
+            request.addHeader(HttpHeaders.RANGE, range);
+        }
+        return request;
+    }
+
+}
@@ -0,0 +1,52 @@
+package cn.edu.seig.vibemusic;
+
+import cn.edu.seig.vibemusic.interceptor.AuthContextArgumentResolver;
+import cn.edu.seig.vibemusic.interceptor.LoginInterceptor;
+import cn.edu.seig.vibemusic.util.AuthContext;
+import cn.edu.seig.vibemusic.util.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AuthContextTest {
+
+    /**
+     * 令牌中的数字声明解析为 Integer 时也能按 Long 读取
+     */
+    @Test
+    public void testTypedAccessors() {
+        String token = JwtUtil.generateToken(Map.of("role", "ROLE_USER", "userId", 7));
+        AuthContext authContext = AuthContext.of(JwtUtil.parseToken(token));
+        assertTrue(authContext.isAuthenticated());
+        assertEquals("ROLE_USER", authContext.getRole());
+        assertEquals(7L, authContext.getUserId());
+        assertNull(authContext.getAdminId());
+
+        assertFalse(AuthContext.ANONYMOUS.isAuthenticated());
+        assertNull(AuthContext.ANONYMOUS.getUserId());
+        assertSame(AuthContext.ANONYMOUS, AuthContext.current());
+    }
+
+    /**
+     * 控制器参数取自拦截器保存的请求属性，未经过拦截器时为匿名
+     */
+    @Test
+    public void testArgumentResolver() {
+        AuthContextArgumentResolver resolver = new AuthContextArgumentResolver();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        assertSame(AuthContext.ANONYMOUS, resolver.resolveArgument(null, null, new ServletWebRequest(request), null));
+
+        AuthContext authContext = AuthContext.of(Map.of("role", "ROLE_ADMIN", "adminId", 1L));
+        request.setAttribute(LoginInterceptor.AUTH_CONTEXT_ATTRIBUTE, authContext);
+        assertSame(authContext, resolver.resolveArgument(null, null, new ServletWebRequest(request), null));
+    }
+
+}
@@ -0,0 +1,34 @@
+package cn.edu.seig.vibemusic;
+
+import cn.edu.seig.vibemusic.util.BloomFilter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BloomFilterTest {
+
+    /**
+     * 加入过的元素一定命中，未加入的元素误判率接近设定值
+     */
+    @Test
+    public void testNoFalseNegativesAndBoundedFalsePositives() {
+        int n = 10000;
+        BloomFilter filter = new BloomFilter(n, 0.01);
+        for (int i = 0; i < n; i++) {
+            filter.put("session-" + i);
+        }
+        for (int i = 0; i < n; i++) {
+            assertTrue(filter.mightContain("session-" + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = n; i < n * 11; i++) {
+            if (filter.mightContain("session-" + i)) {
+                falsePositives++;
+            }
+        }
+        double fpp = (double) falsePositives / (n * 10);
+        assertTrue(fpp < 0.02, "误判率 " + fpp);
+    }
+
+}
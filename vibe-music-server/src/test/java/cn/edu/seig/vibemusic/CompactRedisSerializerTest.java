@@ -0,0 +1,156 @@
+package cn.edu.seig.vibemusic;
+
+import cn.edu.seig.vibemusic.cache.CompactRedisSerializer;
+import cn.edu.seig.vibemusic.config.RedisConfig;
+import cn.edu.seig.vibemusic.model.vo.CommentVO;
+import cn.edu.seig.vibemusic.model.vo.PlaylistDetailVO;
+import cn.edu.seig.vibemusic.model.vo.SongDetailVO;
+import cn.edu.seig.vibemusic.model.vo.SongVO;
+import cn.edu.seig.vibemusic.result.PageResult;
+import cn.edu.seig.vibemusic.result.Result;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.stereotype.Service;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompactRedisSerializerTest {
+
+    @Test
+    public void testRoundTripIsSmallerThanJson() {
+        CompactRedisSerializer serializer = RedisConfig.compactRedisSerializer();
+        List<SongVO> songs = new ArrayList<>();
+        for (long i = 1; i <= 20; i++) {
+            SongVO song = new SongVO();
+            song.setSongId(i);
+            song.setSongName("歌曲 " + i);
+            song.setArtistName("歌手");
+            song.setDuration("215.3");
+            song.setReleaseTime(LocalDate.of(2024, 5, 1));
+            song.setCreateTime(LocalDateTime.of(2024, 5, 1, 12, 30, 15));
+            song.setIsOriginal(i % 2 == 0);
+            songs.add(song);
+        }
+        Result<PageResult<SongVO>> page = Result.success(new PageResult<>(100L, songs.stream().toList()));
+
+        byte[] bytes = serializer.serialize(page);
+        assertEquals(page, serializer.deserialize(bytes));
+        assertTrue(bytes.length * 2 < RedisConfig.jackson2JsonRedisSerializer().serialize(page).length);
+
+        PlaylistDetailVO detail = new PlaylistDetailVO();
+        detail.setPlaylistId(7L);
+        detail.setSongs(songs);
+        CommentVO comment = new CommentVO();
+        comment.setCommentId(-3L);
+        comment.setContent("好听");
+        detail.setComments(List.of(comment));
+        assertEquals(detail, serializer.deserialize(serializer.serialize(detail)));
+    }
+
+    @Test
+    public void testStaleSchemaIsTreatedAsMiss() {
+        byte[] bytes = new CompactRedisSerializer().register(10, SongVO.class).serialize(new SongVO());
+
+        // 同一注册 id 的结构不同（类的字段发生了变化）
+        assertNull(new CompactRedisSerializer().register(10, CommentVO.class).deserialize(bytes));
+        // 其他格式的数据（如切换前写入的 JSON）
+        assertNull(new CompactRedisSerializer().deserialize("{\"@class\":\"x\"}".getBytes()));
+        assertThrows(RuntimeException.class, () -> new CompactRedisSerializer().serialize(new SongVO()));
+    }
+
+    /**
+     * 紧凑缓存中 @Cacheable 方法的返回值类型，以及直接读写这些缓存的类型，连同字段中引用的类都已注册
+     */
+    @Test
+    public void testCompactCacheTypesAreRegistered() throws Exception {
+        YamlPropertiesFactoryBean yaml = new YamlPropertiesFactoryBean();
+        yaml.setResources(new ClassPathResource("application.yml"));
+        Properties properties = yaml.getObject();
+        Set<String> compactCaches = new HashSet<>(Arrays.asList(
+                properties.getProperty("cache-serializer.compact-caches").split(",")));
+
+        // 通过 Cache.get(key, loader) 直接写入 songCache、playlistCache、songMetaCache 的类型
+        List<Type> types = new ArrayList<>(List.of(PageResult.class, SongVO.class, SongDetailVO.class, PlaylistDetailVO.class));
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(Service.class));
+        for (BeanDefinition definition : scanner.findCandidateComponents("cn.edu.seig.vibemusic.service.impl")) {
+            Class<?> service = Class.forName(definition.getBeanClassName());
+            CacheConfig cacheConfig = service.getAnnotation(CacheConfig.class);
+            for (Method method : service.getDeclaredMethods()) {
+                Cacheable cacheable = method.getAnnotation(Cacheable.class);
+                if (cacheable == null) {
+                    continue;
+                }
+                String[] cacheNames = cacheable.cacheNames().length > 0 ? cacheable.cacheNames()
+                        : cacheable.value().length > 0 ? cacheable.value()
+                        : cacheConfig != null ? cacheConfig.cacheNames() : new String[0];
+                if (Arrays.stream(cacheNames).anyMatch(compactCaches::contains)) {
+                    types.add(method.getGenericReturnType());
+                }
+            }
+        }
+        assertFalse(types.size() <= 4);
+
+        CompactRedisSerializer serializer = RedisConfig.compactRedisSerializer();
+        Set<Class<?>> visited = new HashSet<>();
+        while (!types.isEmpty()) {
+            Type type = types.remove(types.size() - 1);
+            if (type instanceof ParameterizedType parameterized) {
+                types.add(parameterized.getRawType());
+                types.addAll(Arrays.asList(parameterized.getActualTypeArguments()));
+                continue;
+            }
+            if (!(type instanceof Class<?> c) || !visited.add(c) || isBuiltIn(c)) {
+                continue;
+            }
+            // 未注册的类在序列化时抛出异常
+            Object value = c.getDeclaredConstructor().newInstance();
+            assertEquals(value, serializer.deserialize(serializer.serialize(value)), c.getName());
+            for (Class<?> k = c; k != Object.class; k = k.getSuperclass()) {
+                for (Field field : k.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        types.add(field.getGenericType());
+                    }
+                }
+            }
+        }
+    }
+
+    // 序列化器内置支持的类型
+    private static boolean isBuiltIn(Class<?> type) {
+        return type.isPrimitive() || type == Object.class || type == String.class || type == Boolean.class
+                || Number.class.isAssignableFrom(type) || Temporal.class.isAssignableFrom(type)
+                || Date.class.isAssignableFrom(type) || BigDecimal.class == type
+                || Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type);
+    }
+
+}
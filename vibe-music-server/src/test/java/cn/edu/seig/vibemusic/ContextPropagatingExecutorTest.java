@@ -0,0 +1,54 @@
+package cn.edu.seig.vibemusic;
+
+import cn.edu.seig.vibemusic.util.AuthContext;
+import cn.edu.seig.vibemusic.util.ContextPropagatingExecutor;
+import cn.edu.seig.vibemusic.util.ThreadLocalUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ContextPropagatingExecutorTest {
+
+    @AfterEach
+    public void clear() {
+        ThreadLocalUtil.remove();
+    }
+
+    /**
+     * 工作线程可以读到提交线程的登录信息，任务结束后工作线程不残留
+     */
+    @Test
+    public void testClaimsArePropagatedAndCleared() {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            ContextPropagatingExecutor executor = new ContextPropagatingExecutor(pool);
+            ThreadLocalUtil.set(AuthContext.of(Map.of("userId", 1L)));
+            AuthContext seen = CompletableFuture.supplyAsync(ThreadLocalUtil::get, executor).join();
+            assertEquals(1L, seen.getUserId());
+
+            ThreadLocalUtil.remove();
+            assertNull(CompletableFuture.supplyAsync(ThreadLocalUtil::get, executor).join());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 任务在提交线程中直接执行时，结束后还原提交线程原有的值
+     */
+    @Test
+    public void testCallerThreadIsRestored() {
+        AuthContext authContext = AuthContext.of(Map.of("userId", 2L));
+        ThreadLocalUtil.set(authContext);
+        new ContextPropagatingExecutor(Runnable::run).execute(ThreadLocalUtil::remove);
+        assertEquals(authContext, ThreadLocalUtil.get());
+    }
+
+}
@@ -0,0 +1,274 @@
+package cn.edu.seig.vibemusic;
+
+import cn.edu.seig.vibemusic.model.vo.MailStatsVO;
+import cn.edu.seig.vibemusic.service.impl.EmailServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 异步邮件发送，使用进程内的 SMTP 服务代替真实邮件服务器
+ */
+public class EmailServiceTest {
+
+    private SmtpStandIn smtp;
+    private EmailServiceImpl emailService;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        smtp = new SmtpStandIn();
+    }
+
+    @AfterEach
+    public void teardown() throws IOException {
+        if (emailService != null) {
+            emailService.shutdown();
+        }
+        smtp.close();
+    }
+
+    /**
+     * 加入队列即返回，同一发送线程连续发送时复用一个 SMTP 连接
+     */
+    @Test
+    public void testSendAsyncOverPooledConnection() throws Exception {
+        emailService = createService(1, 10, 4);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(emailService.sendVerificationCodeEmail("user" + i + "@example.com", "CODE" + i));
+        }
+
+        awaitTrue(() -> smtp.messages.size() == 5);
+        assertEquals(1, smtp.connections.get());
+        assertTrue(smtp.messages.get(0).contains("user0@example.com"));
+        awaitTrue(() -> emailService.getStats().getPending() == 0);
+        MailStatsVO stats = emailService.getStats();
+        assertEquals(5, stats.getSent());
+        assertEquals(1, stats.getConnections());
+    }
+
+    /**
+     * 服务器暂时拒绝时按退避时间重试，最终发送成功
+     */
+    @Test
+    public void testRetryWithBackoff() throws Exception {
+        emailService = createService(1, 10, 4);
+        smtp.rejectRecipients.set(2);
+        assertTrue(emailService.sendEmail("retry@example.com", "subject", "content"));
+
+        awaitTrue(() -> smtp.messages.size() == 1);
+        awaitTrue(() -> emailService.getStats().getSent() == 1);
+        MailStatsVO stats = emailService.getStats();
+        assertEquals(2, stats.getRetries());
+        assertEquals(0, stats.getFailed());
+        assertEquals(0, stats.getPending());
+    }
+
+    /**
+     * 复用的连接上收件人被拒时按退避时间重试，不立即换新连接重发
+     */
+    @Test
+    public void testRejectionOnReusedConnectionIsRetried() throws Exception {
+        emailService = createService(1, 10, 4);
+        assertTrue(emailService.sendEmail("first@example.com", "subject", "content"));
+        awaitTrue(() -> emailService.getStats().getSent() == 1);
+
+        smtp.rejectRecipients.set(1);
+        assertTrue(emailService.sendEmail("second@example.com", "subject", "content"));
+        awaitTrue(() -> emailService.getStats().getSent() == 2);
+        MailStatsVO stats = emailService.getStats();
+        assertEquals(1, stats.getRetries());
+    }
+
+    /**
+     * 服务器关闭了复用的连接时换新连接立即重发，不计为重试
+     */
+    @Test
+    public void testReconnectWhenReusedConnectionIsClosed() throws Exception {
+        emailService = createService(1, 10, 4);
+        smtp.closeAfterMessage = true;
+        assertTrue(emailService.sendEmail("first@example.com", "subject", "content"));
+        awaitTrue(() -> emailService.getStats().getSent() == 1);
+
+        assertTrue(emailService.sendEmail("second@example.com", "subject", "content"));
+        awaitTrue(() -> emailService.getStats().getSent() == 2);
+        assertEquals(0, emailService.getStats().getRetries());
+        assertEquals(2, smtp.connections.get());
+    }
+
+    /**
+     * 重试次数耗尽后放弃发送，释放队列容量
+     */
+    @Test
+    public void testGiveUpAfterMaxAttempts() throws Exception {
+        emailService = createService(1, 10, 2);
+        smtp.rejectRecipients.set(Integer.MAX_VALUE);
+        assertTrue(emailService.sendEmail("fail@example.com", "subject", "content"));
+
+        awaitTrue(() -> emailService.getStats().getFailed() == 1);
+        MailStatsVO stats = emailService.getStats();
+        assertEquals(1, stats.getRetries());
+        assertEquals(0, stats.getPending());
+        assertEquals(0, stats.getSent());
+    }
+
+    /**
+     * 队列容量有限，SMTP 阻塞时不会无限积压
+     */
+    @Test
+    public void testBoundedQueue() throws Exception {
+        emailService = createService(1, 2, 4);
+        smtp.stall = new CountDownLatch(1);
+        assertTrue(emailService.sendEmail("a@example.com", "subject", "content"));
+        assertTrue(emailService.sendEmail("b@example.com", "subject", "content"));
+        assertFalse(emailService.sendEmail("c@example.com", "subject", "content"));
+        assertEquals(1, emailService.getStats().getRejected());
+
+        smtp.stall.countDown();
+        awaitTrue(() -> smtp.messages.size() == 2);
+        awaitTrue(() -> emailService.getStats().getPending() == 0);
+        assertTrue(emailService.sendEmail("c@example.com", "subject", "content"));
+    }
+
+    private EmailServiceImpl createService(int poolSize, int capacity, int maxAttempts) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtp.port());
+        mailSender.setProtocol("smtp");
+        mailSender.setDefaultEncoding("UTF-8");
+        Properties properties = new Properties();
+        properties.setProperty("mail.smtp.connectiontimeout", "2000");
+        properties.setProperty("mail.smtp.timeout", "5000");
+        mailSender.setJavaMailProperties(properties);
+
+        EmailServiceImpl service = new EmailServiceImpl("noreply@example.com", poolSize, capacity, 30000, maxAttempts, 50, 200);
+        ReflectionTestUtils.setField(service, "mailSender", mailSender);
+        service.start();
+        return service;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("等待超时");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * 最小的 SMTP 服务：逐行应答命令，保存收到的邮件，可以拒绝收件人、在 DATA 处阻塞或在收到邮件后断开
+     */
+    private static class SmtpStandIn {
+
+        private final ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        private final List<String> messages = new CopyOnWriteArrayList<>();
+        private final AtomicInteger connections = new AtomicInteger();
+        // 接下来拒绝的 RCPT 命令数
+        private final AtomicInteger rejectRecipients = new AtomicInteger();
+        private volatile CountDownLatch stall;
+        // 收到一封邮件后直接断开连接，模拟服务器关闭空闲连接
+        private volatile boolean closeAfterMessage;
+
+        SmtpStandIn() throws IOException {
+            Thread acceptor = new Thread(() -> {
+                while (!serverSocket.isClosed()) {
+                    try {
+                        Socket socket = serverSocket.accept();
+                        connections.incrementAndGet();
+                        Thread session = new Thread(() -> serve(socket), "smtp-stand-in-session");
+                        session.setDaemon(true);
+                        session.start();
+                    } catch (IOException e) {
+                        return;
+                    }
+                }
+            }, "smtp-stand-in");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        void close() throws IOException {
+            serverSocket.close();
+        }
+
+        private void serve(Socket socket) {
+            try (socket;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                 OutputStream out = socket.getOutputStream()) {
+                reply(out, "220 localhost ESMTP");
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.length() < 4 ? line.toUpperCase() : line.substring(0, 4).toUpperCase();
+                    switch (command) {
+                        case "EHLO", "HELO" -> reply(out, "250 localhost");
+                        case "RCPT" -> {
+                            if (rejectRecipients.getAndUpdate(n -> n > 0 ? n - 1 : 0) > 0) {
+                                reply(out, "451 try again later");
+                            } else {
+                                reply(out, "250 OK");
+                            }
+                        }
+                        case "DATA" -> {
+                            reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                            StringBuilder message = new StringBuilder();
+                            while ((line = in.readLine()) != null && !line.equals(".")) {
+                                message.append(line).append('\n');
+                            }
+                            CountDownLatch latch = stall;
+                            if (latch != null) {
+                                latch.await(10, TimeUnit.SECONDS);
+                            }
+                            messages.add(message.toString());
+                            reply(out, "250 OK");
+                            if (closeAfterMessage) {
+                                return;
+                            }
+                        }
+                        case "QUIT" -> {
+                            reply(out, "221 Bye");
+                            return;
+                        }
+                        default -> reply(out, "250 OK");
+                    }
+                }
+            } catch (IOException e) {
+                // 客户端断开
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private static void reply(OutputStream out, String line) throws IOException {
+            out.write((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+package cn.edu.seig.vibemusic;
+
+import cn.edu.seig.vibemusic.util.InvertedIndex;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class InvertedIndexTest {
+
+    @Test
+    public void testCjkAndLatinSearch() {
+        InvertedIndex index = new InvertedIndex(3, 2, 1);
+        index.put(1, "晴天", "周杰伦", "流行");
+        index.put(2, "七里香", "周杰伦", "流行");
+        index.put(3, "Love Story", "Taylor Swift", "Country");
+        index.put(4, "天天", "陶喆", "R&B");
+
+        // 中文单字与二元组匹配，完全匹配的排在前面
+        assertArrayEquals(new long[]{1}, index.search("晴天"));
+        assertArrayEquals(new long[]{4, 1}, index.search("天"));
+        // 字段之间取交集
+        assertArrayEquals(new long[]{2}, index.search("里香", "周杰伦"));
+        // 英文按子串匹配（与 LIKE %kw% 一致），忽略大小写
+        assertArrayEquals(new long[]{3}, index.search("LOV"));
+        assertArrayEquals(new long[]{3}, index.search("ove"));
+        assertArrayEquals(new long[]{3}, index.search("tory"));
+        assertArrayEquals(new long[]{3}, index.search(null, "swift"));
+        // n-gram 都命中但不是子串时不算命中
+        assertEquals(0, index.search("storys").length);
+        assertEquals(0, index.search("lovestory").length);
+        assertEquals(0, index.search("不存在").length);
+        // 不含可检索字符的查询交给数据库
+        assertNull(index.search("-"));
+        assertNull(index.search("&", null));
+        assertNull(index.search("晴天", "&"));
+        assertNull(index.search(null, null));
+    }
+
+    /**
+     * 分数相同按 id 倒序，完全匹配排在前面
+     */
+    @Test
+    public void testOrdering() {
+        InvertedIndex index = new InvertedIndex(1);
+        for (long id = 1; id <= 20; id++) {
+            index.put(id, "song " + id);
+        }
+        index.put(21, "song");
+        long[] result = index.search("song");
+        assertEquals(21, result.length);
+        assertEquals(21, result[0]);
+        for (int i = 2; i < result.length; i++) {
+            assertEquals(1, Long.compare(result[i - 1], result[i]));
+        }
+    }
+
+    @Test
+    public void testIncrementalUpdate() {
+        InvertedIndex index = new InvertedIndex(1);
+        index.put(1, "稻香");
+        index.put(1, "夜曲");
+        assertEquals(0, index.search("稻香").length);
+        assertArrayEquals(new long[]{1}, index.search("夜曲"));
+
+        index.remove(1);
+        assertEquals(0, index.search("夜曲").length);
+        assertEquals(0, index.size());
+    }
+
+}
@@ -0,0 +1,35 @@
+package cn.edu.seig.vibemusic;
+
+import cn.edu.seig.vibemusic.util.ItemSimilarityModel;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ItemSimilarityModelTest {
+
+    @Test
+    public void testNeighborsAndRecommendation() {
+        // 三个用户：{1, 2, 3}、{1, 2}、{3, 4, 4}（组内重复只计一次）
+        int[] userStarts = {0, 3, 5, 8};
+        long[] favorites = {1, 2, 3, 1, 2, 3, 4, 4};
+        ForkJoinPool pool = new ForkJoinPool(2);
+        ItemSimilarityModel model = ItemSimilarityModel.build(userStarts, favorites, 2, pool);
+        pool.shutdown();
+
+        assertEquals(4, model.itemCount());
+        // 1 与 2 共现 2 次，相似度 1；1 与 3 共现 1 次，相似度 1/sqrt(4)
+        assertArrayEquals(new long[]{2, 3}, model.neighborsOf(1));
+        // 3 的邻居 4 相似度 1/sqrt(2) 高于 1、2 的 1/2，且只保留 2 个
+        assertEquals(4, model.neighborsOf(3)[0]);
+        assertEquals(2, model.neighborsOf(3).length);
+
+        // 收藏了 1：2 的得分高于 3，已收藏的 1 被排除
+        assertArrayEquals(new long[]{2, 3}, model.recommend(new long[]{1}, new long[]{1}, 0.9, 10));
+        assertArrayEquals(new long[]{2}, model.recommend(new long[]{1}, new long[]{1}, 0.9, 1));
+        assertEquals(0, model.recommend(new long[]{99}, new long[]{99}, 0.9, 10).length);
+    }
+
+}
@@ -0,0 +1,49 @@
+package cn.edu.seig.vibemusic;
+
+import cn.edu.seig.vibemusic.util.LongBitmap;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LongBitmapTest {
+
+    @Test
+    public void testAddRemoveAndContainerConversion() {
+        LongBitmap bitmap = LongBitmap.of(3, 1, 70000, 3);
+        assertEquals(3, bitmap.cardinality());
+        assertArrayEquals(new boolean[]{true, false, true, true}, bitmap.contains(new long[]{1, 2, 3, 70000}));
+
+        // 同一个桶超过 4096 个元素后转为位图容器，删除后再转回数组容器
+        for (long id = 100000; id < 110000; id++) {
+            bitmap.add(id);
+        }
+        assertEquals(10003, bitmap.cardinality());
+        for (long id = 100000; id < 108000; id++) {
+            assertTrue(bitmap.remove(id));
+        }
+        assertFalse(bitmap.remove(100000));
+        assertTrue(bitmap.contains(109999));
+        assertFalse(bitmap.contains(100001));
+        assertEquals(2003, bitmap.cardinality());
+    }
+
+    @Test
+    public void testSerialization() {
+        LongBitmap bitmap = new LongBitmap();
+        for (long id = 1; id <= 20000; id += 3) {
+            bitmap.add(id);
+        }
+        bitmap.add(1L << 40);
+
+        LongBitmap copy = LongBitmap.fromBytes(bitmap.toBytes());
+        assertEquals(bitmap.cardinality(), copy.cardinality());
+        assertTrue(copy.contains(1L << 40));
+        assertTrue(copy.contains(19999));
+        assertFalse(copy.contains(2));
+        assertEquals(0, LongBitmap.fromBytes(new LongBitmap().toBytes()).cardinality());
+    }
+
+}
@@ -0,0 +1,59 @@
+package cn.edu.seig.vibemusic;
+
+import cn.edu.seig.vibemusic.cache.NearCache;
+import cn.edu.seig.vibemusic.cache.NearCacheManager;
+import cn.edu.seig.vibemusic.config.NearCacheConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class NearCacheTest {
+
+    /**
+     * 两个节点共享同一个 L2，失效消息直接投递给所有节点，模拟 Redis 发布订阅
+     */
+    @Test
+    public void testInvalidationReachesOtherNodes() {
+        ConcurrentMapCacheManager shared = new ConcurrentMapCacheManager();
+        NearCacheConfig.CacheSpec spec = new NearCacheConfig.CacheSpec();
+        Map<String, NearCacheConfig.CacheSpec> specs = Map.of("artistCache", spec);
+
+        List<NearCacheManager> nodes = new ArrayList<>();
+        NearCacheManager nodeA = new NearCacheManager(shared, specs, message -> nodes.forEach(node -> node.onMessage(message)));
+        NearCacheManager nodeB = new NearCacheManager(shared, specs, message -> nodes.forEach(node -> node.onMessage(message)));
+        nodes.add(nodeA);
+        nodes.add(nodeB);
+
+        Cache cacheA = nodeA.getCache("artistCache");
+        Cache cacheB = nodeB.getCache("artistCache");
+        assertInstanceOf(NearCache.class, cacheB);
+        assertFalse(nodeA.getCache("userCache") instanceof NearCache);
+
+        cacheA.put("allArtistNames", "v1");
+        assertEquals("v1", cacheB.get("allArtistNames").get());
+
+        // 绕过节点直接修改 L2，节点 B 仍从 L1 读到旧值
+        shared.getCache("artistCache").put("allArtistNames", "stale");
+        assertEquals("v1", cacheB.get("allArtistNames").get());
+        assertEquals(1, ((NearCache) cacheB).getLocalHits());
+
+        // 节点 A 写入后节点 B 丢弃 L1，重新读取 L2
+        cacheA.put("allArtistNames", "v2");
+        assertEquals("v2", cacheB.get("allArtistNames").get());
+
+        cacheA.get("allArtistNames");
+        cacheB.clear();
+        assertEquals(0, ((NearCache) cacheA).getLocalSize());
+        assertNull(cacheA.get("allArtistNames"));
+    }
+
+}
@@ -0,0 +1,67 @@
+package cn.edu.seig.vibemusic;
+
+import cn.edu.seig.vibemusic.config.RolePathPermissionsConfig;
+import cn.edu.seig.vibemusic.config.RolePermissionManager;
+import cn.edu.seig.vibemusic.constant.PathConstant;
+import cn.edu.seig.vibemusic.util.PathTrie;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PathTrieTest {
+
+    private static final List<String> PATHS = List.of(
+            "/", "/song", "/song/", "/song/stream", "/song/stream/", "/song/stream/12", "/song/streams/12",
+            "/song/getAllSongs", "/song/getAllSongs/", "/song/getSongDetail/5", "/playlist/getPlaylistDetail",
+            "/forum/posts", "/forum/posts/cursor", "/forum/postDetail/9/extra", "/admin", "/admin/",
+            "/admin/getCacheStats", "/administrator/x", "/user/login", "/user/loginx", "/upload/a/b/c");
+
+    @Test
+    public void testMatchesAntPatternsAndPrefixes() {
+        AntPathMatcher pathMatcher = new AntPathMatcher();
+        List<String> prefixes = List.of("/admin/", "/song/", "/upload/");
+
+        PathTrie trie = new PathTrie();
+        for (String pattern : PathConstant.PUBLIC_PATHS) {
+            trie.addPattern(pattern, 1);
+        }
+        for (String prefix : prefixes) {
+            trie.addPrefix(prefix, 2);
+        }
+
+        // 与原先的 AntPathMatcher 匹配、startsWith 前缀判断结果一致
+        for (String path : PATHS) {
+            boolean publicPath = false;
+            for (String pattern : PathConstant.PUBLIC_PATHS) {
+                publicPath |= pathMatcher.match(pattern, path);
+            }
+            boolean prefixed = prefixes.stream().anyMatch(path::startsWith);
+            long bits = trie.match(path);
+            assertEquals(publicPath, (bits & 1) != 0, path);
+            assertEquals(prefixed, (bits & 2) != 0, path);
+        }
+    }
+
+    @Test
+    public void testRoleClassification() {
+        RolePathPermissionsConfig config = new RolePathPermissionsConfig();
+        config.setPermissions(Map.of("ROLE_ADMIN", List.of("/admin/"), "ROLE_USER", List.of("/user/", "/song/")));
+        RolePermissionManager manager = new RolePermissionManager(config);
+
+        long route = manager.classify("/admin/getCacheStats");
+        assertTrue(manager.hasPermission("ROLE_ADMIN", route));
+        assertFalse(manager.hasPermission("ROLE_USER", route));
+        assertFalse(manager.hasPermission(null, route));
+        assertTrue(RolePermissionManager.isPublic(manager.classify("/song/getSongDetail/1")));
+        assertTrue(RolePermissionManager.isBypass(manager.classify("/user/sendVerificationCode")));
+        assertFalse(RolePermissionManager.isPublic(manager.classify("/song/uploadOriginalSong")));
+        assertTrue(manager.hasPermission("ROLE_USER", "/song/uploadOriginalSong"));
+    }
+
+}
@@ -0,0 +1,85 @@
+package cn.edu.seig.vibemusic;
+
+import cn.edu.seig.vibemusic.util.SlidingWindowLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SlidingWindowLimiterTest {
+
+    /**
+     * 窗口内达到上限后拒绝，最早的占用滑出窗口后恢复
+     */
+    @Test
+    public void testSlidingWindow() {
+        SlidingWindowLimiter limiter = new SlidingWindowLimiter();
+        assertTrue(limiter.tryAcquire("k", "p1", 2, 1000, 0));
+        assertTrue(limiter.tryAcquire("k", "p2", 2, 1000, 500));
+        assertFalse(limiter.tryAcquire("k", "p3", 2, 1000, 999));
+        assertEquals(2, limiter.count("k", 999));
+
+        // 0 时刻的占用在 1000 时刻滑出窗口
+        assertTrue(limiter.tryAcquire("k", "p4", 2, 1000, 1000));
+        assertFalse(limiter.tryAcquire("k", "p5", 2, 1000, 1400));
+        assertEquals(0, limiter.count("other", 1400));
+    }
+
+    /**
+     * 归还后可以再次占用，整个窗口过期的 key 被清理
+     */
+    @Test
+    public void testReleaseAndEvict() {
+        SlidingWindowLimiter limiter = new SlidingWindowLimiter();
+        assertTrue(limiter.tryAcquire("k", "p1", 1, 1000, 0));
+        assertFalse(limiter.tryAcquire("k", "p2", 1, 1000, 10));
+        limiter.release("k", "p1");
+        assertTrue(limiter.tryAcquire("k", "p3", 1, 1000, 20));
+
+        limiter.evictExpired(500);
+        assertEquals(1, limiter.size());
+        limiter.evictExpired(1020);
+        assertEquals(0, limiter.size());
+    }
+
+    /**
+     * 并发占用不会超出上限
+     */
+    @Test
+    public void testConcurrentAcquire() throws InterruptedException {
+        SlidingWindowLimiter limiter = new SlidingWindowLimiter();
+        int threads = 8;
+        int attempts = 1000;
+        AtomicInteger acquired = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < attempts; i++) {
+                    if (limiter.tryAcquire("k", thread + "-" + i, 10, 60000, 1)) {
+                        acquired.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(10, acquired.get());
+    }
+
+}
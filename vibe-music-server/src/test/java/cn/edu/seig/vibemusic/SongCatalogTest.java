@@ -0,0 +1,81 @@
+package cn.edu.seig.vibemusic;
+
+import cn.edu.seig.vibemusic.cache.SongCatalog;
+import cn.edu.seig.vibemusic.model.vo.SongVO;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SongCatalogTest {
+
+    @Test
+    public void testIncrementalUpdate() {
+        SongCatalog.Snapshot snapshot = SongCatalog.Snapshot.build(List.of(song(3, "歌手"), song(1, "歌手")));
+        assertEquals(2, snapshot.size());
+        // 重复的字符串共享同一实例
+        assertSame(snapshot.get(1).getArtistName(), snapshot.get(3).getArtistName());
+
+        // 1 被下架，2 新增，3 改名
+        SongVO renamed = song(3, "新歌手");
+        SongCatalog.Snapshot updated = snapshot.with(List.of(1L, 2L, 3L), List.of(song(2, "歌手"), renamed));
+        assertNull(updated.get(1));
+        assertEquals("新歌手", updated.get(3).getArtistName());
+        assertEquals(2, updated.size());
+        // 原快照不受影响
+        assertEquals("歌手", snapshot.get(3).getArtistName());
+    }
+
+    @Test
+    public void testFootprintPer100kSongs() {
+        List<SongVO> songs = new ArrayList<>();
+        for (long i = 1; i <= 100_000; i++) {
+            songs.add(song(i, "歌手 " + i % 2000));
+        }
+        long bytes = SongCatalog.Snapshot.build(songs).estimateBytes();
+        // 目前约 36 MB
+        assertTrue(bytes < 48L * 1024 * 1024, bytes / 1024 / 1024 + " MB");
+    }
+
+    /**
+     * 多次增量更新后覆盖表合并回基础数组，共享实例表只保留仍在使用的值
+     */
+    @Test
+    public void testOverlayMergeBoundsSharedValues() {
+        List<SongVO> songs = new ArrayList<>();
+        for (long i = 1; i <= 1000; i++) {
+            songs.add(song(i, "歌手"));
+        }
+        SongCatalog.Snapshot snapshot = SongCatalog.Snapshot.build(songs);
+        int sharedSize = snapshot.sharedSize();
+
+        // 每次改名都引入新的歌手名，随后又被下一次改名替换
+        for (int round = 1; round <= 300; round++) {
+            snapshot = snapshot.with(List.of(1L, 2000L + round), List.of(song(1, "歌手 " + round), song(2000 + round, "歌手")));
+        }
+        assertEquals("歌手 300", snapshot.get(1).getArtistName());
+        assertEquals(1300, snapshot.size());
+        assertEquals(2300, snapshot.get(2300).getSongId());
+        assertTrue(snapshot.sharedSize() < sharedSize + 100);
+    }
+
+    private static SongVO song(long id, String artistName) {
+        SongVO song = new SongVO();
+        song.setSongId(id);
+        song.setSongName("歌曲 " + id);
+        song.setArtistName(artistName);
+        song.setStyle("流行,华语");
+        song.setDuration("215.3");
+        song.setCoverUrl("http://127.0.0.1:9000/vibe-music-data/songCovers/" + id + "-cover.jpg");
+        song.setAudioUrl("http://127.0.0.1:9000/vibe-music-data/songs/" + id + "-audio.mp3");
+        song.setReleaseTime(LocalDate.of(2020, 1, 1).plusDays(id % 1000));
+        return song;
+    }
+
+}
@@ -0,0 +1,93 @@
+package cn.edu.seig.vibemusic;
+
+import cn.edu.seig.vibemusic.util.SortedMerge;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SortedMergeTest {
+
+    @Test
+    public void testMergeFindsKeysOnOneSide() {
+        List<String> objects = List.of("banners/a.png", "peaks/songs/x.mp3.peaks", "songs/x.mp3", "songs/y.mp3");
+        List<String> references = List.of("banners/a.png", "banners/b.png", "songs/x.mp3", "users/u.png");
+        List<String> events = new ArrayList<>();
+
+        SortedMerge.merge(objects.iterator(), Function.identity(), references.iterator(), Function.identity(),
+                new SortedMerge.Listener<>() {
+                    @Override
+                    public void leftOnly(String left) {
+                        events.add("orphan " + left);
+                    }
+
+                    @Override
+                    public void rightOnly(String right) {
+                        events.add("broken " + right);
+                    }
+
+                    @Override
+                    public void both(String left, String right) {
+                        events.add("ok " + left);
+                    }
+                });
+
+        assertEquals(List.of("ok banners/a.png", "broken banners/b.png", "orphan peaks/songs/x.mp3.peaks",
+                "ok songs/x.mp3", "orphan songs/y.mp3", "broken users/u.png"), events);
+    }
+
+    @Test
+    public void testCodePointOrderAndOrderCheck() {
+        // 增补字符（U+1F3B5）按码点排在 U+FF5E 之后，String.compareTo 的结果相反
+        String fullwidth = "songs/～.mp3";
+        String emoji = "songs/🎵.mp3";
+        assertTrue(SortedMerge.CODE_POINT_ORDER.compare(fullwidth, emoji) < 0);
+        assertTrue(fullwidth.compareTo(emoji) > 0);
+
+        // 两侧排序规则不一致时停止比较，避免把被引用的对象当作孤立对象
+        List<String> unsorted = List.of("songs/b.mp3", "songs/a.mp3");
+        assertThrows(IllegalStateException.class, () -> SortedMerge.merge(
+                unsorted.iterator(), Function.identity(), List.<String>of().iterator(), Function.identity(),
+                new SortedMerge.Listener<String, String>() {
+                    @Override
+                    public void leftOnly(String left) {
+                    }
+
+                    @Override
+                    public void rightOnly(String right) {
+                    }
+
+                    @Override
+                    public void both(String left, String right) {
+                    }
+                }));
+    }
+
+    @Test
+    public void testUnionMergesSortedSources() {
+        List<String> covers = List.of("covers/a.png#cover", "songs/x.mp3#cover");
+        List<String> audios = List.of("songs/x.mp3#audio", "songs/y.mp3#audio");
+        List<String> avatars = List.of("users/u.png#avatar");
+        Function<String, String> keyOf = value -> value.substring(0, value.indexOf('#'));
+
+        List<String> merged = new ArrayList<>();
+        SortedMerge.union(List.of(covers.iterator(), audios.iterator(), List.<String>of().iterator(), avatars.iterator()),
+                keyOf).forEachRemaining(merged::add);
+
+        // 同一个键只保留排在前面的序列的元素
+        assertEquals(List.of("covers/a.png#cover", "songs/x.mp3#cover", "songs/y.mp3#audio", "users/u.png#avatar"), merged);
+
+        // 某个序列的顺序与码点顺序不一致时停止
+        Iterator<String> union = SortedMerge.union(List.of(List.of("songs/b.mp3", "songs/a.mp3").iterator()),
+                Function.identity());
+        assertThrows(IllegalStateException.class, () -> union.forEachRemaining(value -> {
+        }));
+    }
+
+}
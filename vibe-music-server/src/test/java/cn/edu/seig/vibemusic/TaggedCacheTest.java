@@ -0,0 +1,121 @@
+package cn.edu.seig.vibemusic;
+
+import cn.edu.seig.vibemusic.cache.CacheTags;
+import cn.edu.seig.vibemusic.cache.TaggedCacheManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TaggedCacheTest {
+
+    // 标签 key -> 关联的缓存 key
+    private final Set<String> indexed = new HashSet<>();
+    private Cache cache;
+    private TaggedCacheManager cacheManager;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        SetOperations<String, String> setOperations = Mockito.mock(SetOperations.class);
+        Mockito.when(setOperations.add(Mockito.anyString(), Mockito.any())).thenAnswer(invocation -> {
+            indexed.add(invocation.getArgument(0) + "=" + invocation.getArgument(1));
+            return 1L;
+        });
+        RedisOperations<String, String> operations = Mockito.mock(RedisOperations.class);
+        Mockito.when(operations.opsForSet()).thenReturn(setOperations);
+        StringRedisTemplate stringRedisTemplate = Mockito.mock(StringRedisTemplate.class);
+        Mockito.when(stringRedisTemplate.executePipelined(Mockito.any(SessionCallback.class))).thenAnswer(invocation -> {
+            ((SessionCallback<Object>) invocation.getArgument(0)).execute(operations);
+            return List.of();
+        });
+        // 取出并删除标签集合的脚本
+        Mockito.when(stringRedisTemplate.execute(Mockito.any(RedisScript.class), Mockito.anyList())).thenAnswer(invocation -> {
+            String prefix = ((List<String>) invocation.getArgument(1)).get(0) + "=";
+            List<String> members = new ArrayList<>();
+            indexed.removeIf(entry -> entry.startsWith(prefix) && members.add(entry.substring(prefix.length())));
+            return members;
+        });
+        cacheManager = new TaggedCacheManager(new ConcurrentMapCacheManager("songCache"), stringRedisTemplate, Duration.ofHours(1));
+        cache = cacheManager.getCache("songCache");
+    }
+
+    @AfterEach
+    public void teardown() {
+        CacheTags.reset();
+    }
+
+    /**
+     * 非同步 @Cacheable 的方法抛出异常后，遗留的登记在请求结束时丢弃，不影响之后写入的标签
+     */
+    @Test
+    public void testResetDiscardsFrameLeftByFailedLoad() {
+        // 未命中后方法抛出异常，没有写入
+        cache.get("a");
+        CacheTags.tag(CacheTags.of(CacheTags.SONG, 1));
+        CacheTags.reset();
+
+        cache.get("b");
+        CacheTags.tag(CacheTags.of(CacheTags.SONG, 2));
+        cache.put("b", "value");
+        assertEquals(Set.of("cacheTag::song:2=songCache::b"), indexed);
+    }
+
+    /**
+     * 同步加载抛出异常时弹出本次的帧，外层条目只得到自己的标签
+     */
+    @Test
+    public void testFailedLoaderDiscardsItsFrame() {
+        cache.get("outer");
+        CacheTags.tag(CacheTags.of(CacheTags.SONG, 1));
+        assertThrows(Cache.ValueRetrievalException.class, () -> cache.get("inner", () -> {
+            CacheTags.tag(CacheTags.of(CacheTags.SONG, 2));
+            throw new IllegalStateException("加载失败");
+        }));
+        cache.put("outer", "value");
+        assertEquals(Set.of("cacheTag::song:1=songCache::outer"), indexed);
+    }
+
+    /**
+     * 实体标签只清除依赖它的条目；集合标签只记录缓存名，清除时清空整个缓存
+     */
+    @Test
+    public void testListTagClearsCacheInsteadOfFanningOut() {
+        cache.get("page1");
+        CacheTags.tag(CacheTags.listOf(CacheTags.SONG), CacheTags.of(CacheTags.SONG, 1));
+        cache.put("page1", "value");
+        cache.get("page2");
+        CacheTags.tag(CacheTags.listOf(CacheTags.SONG), CacheTags.of(CacheTags.SONG, 2));
+        cache.put("page2", "value");
+        assertEquals(Set.of("cacheTag::song:list=songCache", "cacheTag::song:1=songCache::page1",
+                "cacheTag::song:2=songCache::page2"), indexed);
+
+        cacheManager.evictTags(CacheTags.of(CacheTags.SONG, 1));
+        assertNull(cache.get("page1"));
+        assertNotNull(cache.get("page2"));
+
+        cacheManager.evictTags(CacheTags.listOf(CacheTags.SONG));
+        assertNull(cache.get("page2"));
+        assertEquals(Set.of("cacheTag::song:2=songCache::page2"), indexed);
+        CacheTags.reset();
+    }
+
+}
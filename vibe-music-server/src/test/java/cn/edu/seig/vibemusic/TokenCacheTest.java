@@ -0,0 +1,40 @@
+package cn.edu.seig.vibemusic;
+
+import cn.edu.seig.vibemusic.cache.TokenCache;
+import cn.edu.seig.vibemusic.util.AuthContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class TokenCacheTest {
+
+    /**
+     * 条目数达到上限后继续写入，移除最早写入的条目，新条目照常缓存
+     */
+    @Test
+    public void testEvictsOldestWhenFull() {
+        TokenCache cache = new TokenCache(60000, 3);
+        long expiresAt = System.currentTimeMillis() + 3600000;
+        for (int i = 1; i <= 5; i++) {
+            cache.put("token" + i, AuthContext.of(Map.of("userId", (long) i), "session" + i), expiresAt, cache.generation());
+        }
+        assertNull(cache.get("token1"));
+        assertNull(cache.get("token2"));
+        assertNotNull(cache.get("token3"));
+        assertNotNull(cache.get("token5"));
+
+        // 已移除的条目不会在淘汰时误删同一令牌后来写入的条目
+        cache.invalidateSessions(List.of("session3"));
+        cache.put("token3", AuthContext.of(Map.of("userId", 3L), "session3b"), expiresAt, cache.generation());
+        cache.put("token6", AuthContext.of(Map.of("userId", 6L), "session6"), expiresAt, cache.generation());
+        assertNotNull(cache.get("token3"));
+        cache.evictExpired();
+        assertNotNull(cache.get("token3"));
+        assertNotNull(cache.get("token6"));
+    }
+
+}
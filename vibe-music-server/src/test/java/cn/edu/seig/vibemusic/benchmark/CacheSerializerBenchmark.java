@@ -0,0 +1,148 @@
+package cn.edu.seig.vibemusic.benchmark;
+
+import cn.edu.seig.vibemusic.cache.CompactRedisSerializer;
+import cn.edu.seig.vibemusic.config.RedisConfig;
+import cn.edu.seig.vibemusic.model.vo.CommentVO;
+import cn.edu.seig.vibemusic.model.vo.ForumPostVO;
+import cn.edu.seig.vibemusic.model.vo.PlaylistDetailVO;
+import cn.edu.seig.vibemusic.model.vo.SongVO;
+import cn.edu.seig.vibemusic.result.PageResult;
+import cn.edu.seig.vibemusic.result.Result;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存序列化对比：紧凑二进制 vs 带类型信息的 Jackson JSON
+ * <p>
+ * 数据形状与线上缓存一致：歌曲分页（Result&lt;PageResult&lt;SongVO&gt;&gt;）、歌单详情（歌曲 + 评论）、帖子分页。
+ * 启动时打印各形状在两种格式下的字节数。运行：mvn -P jmh test-compile exec:exec
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheSerializerBenchmark {
+
+    @Param({"songPage", "playlistDetail", "postPage"})
+    private String shape;
+
+    @Param({"compact", "jackson"})
+    private String format;
+
+    private RedisSerializer<Object> serializer;
+    private Object value;
+    private byte[] bytes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        CompactRedisSerializer compact = RedisConfig.compactRedisSerializer();
+        serializer = "compact".equals(format) ? compact : RedisConfig.jackson2JsonRedisSerializer();
+        value = switch (shape) {
+            case "songPage" -> Result.success(new PageResult<>(1000L, songs(20)));
+            case "playlistDetail" -> playlistDetail();
+            default -> Result.success(new PageResult<>(500L, posts(10)));
+        };
+        bytes = serializer.serialize(value);
+        System.out.printf("%n%s/%s: %d bytes%n", shape, format, bytes.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(bytes);
+    }
+
+    private static List<SongVO> songs(int count) {
+        List<SongVO> songs = new ArrayList<>();
+        for (long i = 1; i <= count; i++) {
+            SongVO song = new SongVO();
+            song.setSongId(10000 + i);
+            song.setSongName("晴天 " + i);
+            song.setArtistName("周杰伦");
+            song.setStyle("流行,华语");
+            song.setDuration("269.8");
+            song.setCoverUrl("http://127.0.0.1:9000/vibe-music-data/songCovers/" + i + "-cover.jpg");
+            song.setAudioUrl("http://127.0.0.1:9000/vibe-music-data/songs/" + i + "-audio.mp3");
+            song.setLikeStatus(0);
+            song.setReleaseTime(LocalDate.of(2003, 7, 31));
+            song.setIsOriginal(false);
+            song.setAuditStatus(1);
+            song.setCreateTime(LocalDateTime.of(2025, 1, 9, 10, 20, 30));
+            songs.add(song);
+        }
+        return songs;
+    }
+
+    private static PlaylistDetailVO playlistDetail() {
+        PlaylistDetailVO detail = new PlaylistDetailVO();
+        detail.setPlaylistId(42L);
+        detail.setTitle("夏日午后");
+        detail.setCoverUrl("http://127.0.0.1:9000/vibe-music-data/playlists/42-cover.jpg");
+        detail.setIntroduction("适合午后慢慢听的华语流行歌曲合集。");
+        detail.setSongs(songs(30));
+        List<CommentVO> comments = new ArrayList<>();
+        for (long i = 1; i <= 10; i++) {
+            CommentVO comment = new CommentVO();
+            comment.setCommentId(i);
+            comment.setUserId(100 + i);
+            comment.setUsername("user" + i);
+            comment.setUserAvatar("http://127.0.0.1:9000/vibe-music-data/users/" + i + "-avatar.jpg");
+            comment.setContent("这张歌单太好听了，循环了一下午。");
+            comment.setCreateTime(LocalDateTime.of(2025, 2, 1, 15, 0));
+            comment.setLikeCount(i * 3);
+            comment.setType(1);
+            comment.setPlaylistId(42L);
+            comments.add(comment);
+        }
+        detail.setComments(comments);
+        return detail;
+    }
+
+    private static List<ForumPostVO> posts(int count) {
+        List<ForumPostVO> posts = new ArrayList<>();
+        for (long i = 1; i <= count; i++) {
+            ForumPostVO post = new ForumPostVO();
+            post.setPostId(i);
+            post.setUserId(200 + i);
+            post.setUsername("creator" + i);
+            post.setTitle("求一首婚礼用的原创歌曲 " + i);
+            post.setContent("希望是温暖的民谣风格，时长三到四分钟，需要可商用授权。");
+            post.setViewCount(1234L);
+            post.setReplyCount(12L);
+            post.setLikeCount(56L);
+            post.setIsTop(0);
+            post.setType(1);
+            post.setBudget("2000");
+            post.setIsAccepted(0);
+            post.setAuditStatus(1);
+            post.setCreateTime(LocalDateTime.of(2025, 3, 1, 9, 0));
+            post.setUpdateTime(LocalDateTime.of(2025, 3, 2, 9, 0));
+            posts.add(post);
+        }
+        return posts;
+    }
+
+}
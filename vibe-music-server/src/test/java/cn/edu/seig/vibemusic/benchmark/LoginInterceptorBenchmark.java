@@ -0,0 +1,156 @@
+package cn.edu.seig.vibemusic.benchmark;
+
+import cn.edu.seig.vibemusic.cache.TokenCache;
+import cn.edu.seig.vibemusic.config.RedisSubscriber;
+import cn.edu.seig.vibemusic.config.RolePathPermissionsConfig;
+import cn.edu.seig.vibemusic.config.RolePermissionManager;
+import cn.edu.seig.vibemusic.constant.JwtClaimsConstant;
+import cn.edu.seig.vibemusic.constant.PathConstant;
+import cn.edu.seig.vibemusic.interceptor.LoginInterceptor;
+import cn.edu.seig.vibemusic.service.impl.SessionServiceImpl;
+import cn.edu.seig.vibemusic.util.JwtUtil;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录拦截器：前缀树路由分类 + 本地令牌缓存
+ * <p>
+ * preHandle 测量整个拦截器（Redis 为桩，命中本地令牌缓存或不在已注销过滤器中时不会被调用）；
+ * routeTrie 与 antMatcherScan 只比较路由分类，后者是改造前每个请求的做法
+ * （新建 AntPathMatcher 与公开路径列表、逐个匹配、再按角色前缀线性查找）。
+ * 运行：mvn -P jmh test-compile exec:exec -Djmh.args=LoginInterceptorBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoginInterceptorBenchmark {
+
+    @Param({"publicAnonymous", "userWithToken", "adminWithToken"})
+    private String scenario;
+
+    private static final Map<String, List<String>> PERMISSIONS = Map.of(
+            "ROLE_ADMIN", List.of("/admin/"),
+            "ROLE_USER", List.of("/user/", "/playlist/", "/artist/", "/song/", "/favorite/", "/comment/",
+                    "/banner/", "/feedback/", "/forum/", "/upload/"));
+
+    private LoginInterceptor interceptor;
+    private RolePermissionManager rolePermissionManager;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private String role;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        RolePathPermissionsConfig config = new RolePathPermissionsConfig();
+        config.setPermissions(PERMISSIONS);
+        rolePermissionManager = new RolePermissionManager(config);
+
+        // Redis 桩：会话都有效，没有已注销的会话
+        long expiresAt = System.currentTimeMillis() + JwtUtil.EXPIRATION_TIME;
+        @SuppressWarnings("unchecked")
+        HashOperations<String, Object, Object> hashOperations = Mockito.mock(HashOperations.class);
+        Mockito.when(hashOperations.get(Mockito.anyString(), Mockito.any())).thenReturn(String.valueOf(expiresAt));
+        @SuppressWarnings("unchecked")
+        ZSetOperations<String, String> zSetOperations = Mockito.mock(ZSetOperations.class);
+        Mockito.when(zSetOperations.rangeByScore(Mockito.anyString(), Mockito.anyDouble(), Mockito.anyDouble())).thenReturn(Set.of());
+        StringRedisTemplate stringRedisTemplate = Mockito.mock(StringRedisTemplate.class);
+        Mockito.when(stringRedisTemplate.<Object, Object>opsForHash()).thenReturn(hashOperations);
+        Mockito.when(stringRedisTemplate.opsForZSet()).thenReturn(zSetOperations);
+
+        SessionServiceImpl sessionService = new SessionServiceImpl();
+        ReflectionTestUtils.setField(sessionService, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(sessionService, "redisSubscriber", Mockito.mock(RedisSubscriber.class));
+        ReflectionTestUtils.setField(sessionService, "tokenCache", new TokenCache(60000, 10000));
+        ReflectionTestUtils.setField(sessionService, "channel", "session:revoke");
+        ReflectionTestUtils.setField(sessionService, "revokedExpected", 100000);
+        ReflectionTestUtils.setField(sessionService, "revokedFpp", 0.01);
+        sessionService.refreshRevoked();
+
+        interceptor = new LoginInterceptor();
+        ReflectionTestUtils.setField(interceptor, "sessionService", sessionService);
+        ReflectionTestUtils.setField(interceptor, "rolePermissionManager", rolePermissionManager);
+
+        Map<String, Object> claims = new HashMap<>();
+        switch (scenario) {
+            case "publicAnonymous" -> request = new MockHttpServletRequest("GET", "/song/getSongDetail/42");
+            case "userWithToken" -> {
+                role = "ROLE_USER";
+                claims.put(JwtClaimsConstant.ROLE, role);
+                claims.put(JwtClaimsConstant.USER_ID, 7L);
+                request = new MockHttpServletRequest("GET", "/favorite/getFavoriteSongs");
+            }
+            default -> {
+                role = "ROLE_ADMIN";
+                claims.put(JwtClaimsConstant.ROLE, role);
+                claims.put(JwtClaimsConstant.ADMIN_ID, 1L);
+                request = new MockHttpServletRequest("GET", "/admin/getCacheStats");
+            }
+        }
+        if (role != null) {
+            request.addHeader("Authorization", "Bearer " + JwtUtil.generateToken(claims, "benchmark-" + role, expiresAt));
+        }
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public boolean preHandle() throws Exception {
+        boolean allowed = interceptor.preHandle(request, response, null);
+        interceptor.afterCompletion(request, response, null, null);
+        return allowed;
+    }
+
+    @Benchmark
+    public boolean routeTrie() {
+        long route = rolePermissionManager.classify(request.getRequestURI());
+        return RolePermissionManager.isPublic(route) || rolePermissionManager.hasPermission(role, route);
+    }
+
+    @Benchmark
+    public boolean antMatcherScan() {
+        String path = request.getRequestURI();
+        PathMatcher pathMatcher = new AntPathMatcher();
+        List<String> allowedPaths = Arrays.asList(PathConstant.PUBLIC_PATHS);
+        if (allowedPaths.stream().anyMatch(pattern -> pathMatcher.match(pattern, path))) {
+            return true;
+        }
+        List<String> rolePaths = role == null ? null : PERMISSIONS.get(role);
+        if (rolePaths != null) {
+            for (String rolePath : rolePaths) {
+                if (path.startsWith(rolePath)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+}